@@ -37,17 +37,39 @@ public class CustomGptConstants {
     @SuppressWarnings("java:S1075")
     public static final String PATH_SITES = "/sites/";
     public static final String PROP_CUSTOM_GPT_PAGE_ID = "customGptPageId";
+    public static final String PROP_CUSTOM_GPT_CONTENT_DIGEST = "customGptContentDigest";
     public static final String PROP_SITE_KEY = "siteKey";
     public static final String PERM_SITE_ADMIN = "site-admin";
     public static final String DEFAULT_CUSTOM_GPT_API_BASE_URL = "https://app.customgpt.ai/api/v1";
     public static final String NT_CUSTOM_GPT_INDEX_ENTRY = "jnt:customGptIndexEntry";
     public static final String CUSTOMGPT_INDEX_NODE_NAME = "customgptIndex";
 
-    /** Returns the path of the {@code jnt:customGptIndexEntry} child node for the given content node path. */
+    private static final String MAPPING_LANGUAGE_SEPARATOR = "_";
+
+    /**
+     * Returns the path of the {@code jnt:customGptIndexEntry} child node shared by all languages, the only one of
+     * files and the one written before the mappings were kept per language.
+     */
     public static String buildMappingPath(String nodePath) {
         return nodePath + PATH_DELIMITER + CUSTOMGPT_INDEX_NODE_NAME;
     }
 
+    /** Returns the path of the {@code jnt:customGptIndexEntry} child node holding the page of {@code language}. */
+    public static String buildMappingPath(String nodePath, String language) {
+        return nodePath + PATH_DELIMITER + getMappingNodeName(language);
+    }
+
+    /** Returns the name of the mapping node of {@code language}; {@code null} for the node shared by all languages. */
+    public static String getMappingNodeName(String language) {
+        return language == null ? CUSTOMGPT_INDEX_NODE_NAME : CUSTOMGPT_INDEX_NODE_NAME + MAPPING_LANGUAGE_SEPARATOR + language;
+    }
+
+    /** Returns the language of the mapping node named {@code mappingNodeName}, {@code null} for the shared one. */
+    public static String getMappingLanguage(String mappingNodeName) {
+        final String prefix = CUSTOMGPT_INDEX_NODE_NAME + MAPPING_LANGUAGE_SEPARATOR;
+        return mappingNodeName.startsWith(prefix) ? mappingNodeName.substring(prefix.length()) : null;
+    }
+
     private CustomGptConstants() {
         throw new IllegalStateException("Utility class");
     }
@@ -0,0 +1,38 @@
+package org.jahia.community.modules.customgpt.graphql.extensions.models;
+
+import graphql.annotations.annotationTypes.GraphQLDescription;
+import graphql.annotations.annotationTypes.GraphQLField;
+import graphql.annotations.annotationTypes.GraphQLName;
+
+@GraphQLName("CustomGptCircuitBreaker")
+@GraphQLDescription("State of the circuit breaker guarding the CustomGPT API")
+public class GqlCircuitBreaker {
+
+    private final String state;
+    private final int consecutiveFailures;
+    private final int parkedOperations;
+
+    public GqlCircuitBreaker(String state, int consecutiveFailures, int parkedOperations) {
+        this.state = state;
+        this.consecutiveFailures = consecutiveFailures;
+        this.parkedOperations = parkedOperations;
+    }
+
+    @GraphQLField
+    @GraphQLDescription("Circuit state: CLOSED (calls go through), OPEN (calls refused) or HALF_OPEN (probe in flight)")
+    public String getState() {
+        return state;
+    }
+
+    @GraphQLField
+    @GraphQLDescription("Number of consecutive failed CustomGPT calls")
+    public int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    @GraphQLField
+    @GraphQLDescription("Number of indexing operations parked until the circuit closes")
+    public int getParkedOperations() {
+        return parkedOperations;
+    }
+}
@@ -7,6 +7,7 @@ import javax.jcr.AccessDeniedException;
 import javax.jcr.RepositoryException;
 import org.jahia.community.modules.customgpt.CustomGptConstants;
 import org.jahia.community.modules.customgpt.indexer.NodeReindexAsyncJob;
+import org.jahia.community.modules.customgpt.indexer.ReindexMode;
 import org.jahia.community.modules.customgpt.service.Service;
 import org.jahia.community.modules.customgpt.service.models.Site;
 import org.jahia.community.modules.customgpt.util.SecurityUtils;
@@ -44,7 +45,7 @@ public class GqlCustomGptAdminMutationResult {
 
     /**
      * Returns the acting user's name, sanitised for log output (CR/LF stripped). Used to attribute privileged
-     * admin mutations (purge, saveSettings, addSite, startIndex) in the server audit log.
+     * admin mutations (purge, saveSettings, addSite, startIndex, startReconciliation) in the server audit log.
      */
     private static String currentUserForAudit() {
         try {
@@ -91,7 +92,13 @@ public class GqlCustomGptAdminMutationResult {
             @GraphQLName("siteKeys") @GraphQLDescription("List of siteKeys to index") List<String> siteKeys,
             @GraphQLName("force")
             @GraphQLDescription("Force start indexation for when job has already been started")
-            @GraphQLDefaultValue(DefaultForce.class) boolean force
+            @GraphQLDefaultValue(DefaultForce.class) boolean force,
+            @GraphQLName("resume")
+            @GraphQLDescription("Continue from the checkpoint left by an interrupted indexation of each site instead of starting over")
+            @GraphQLDefaultValue(DefaultForce.class) boolean resume,
+            @GraphQLName("incremental")
+            @GraphQLDescription("Index only the content published since the last completed indexation of each site")
+            @GraphQLDefaultValue(DefaultForce.class) boolean incremental
     ) throws RepositoryException {
         try {
             checkAdminPermission(CustomGptConstants.PATH_DELIMITER, CUSTOM_GPT_ADMIN);
@@ -99,9 +106,13 @@ public class GqlCustomGptAdminMutationResult {
             LOGGER.warn("Permission check failed for startIndex", e);
             throw new DataFetchingException(ERR_OPERATION_FAILED);
         }
+        if (resume && incremental) {
+            throw new DataFetchingException(new IllegalArgumentException("resume and incremental cannot be combined"));
+        }
+        final ReindexMode mode = resume ? ReindexMode.RESUME : (incremental ? ReindexMode.INCREMENTAL : ReindexMode.FULL);
         if (LOGGER.isInfoEnabled()) {
-            LOGGER.info("[audit] startIndex requested by user {} for siteKeys {}", currentUserForAudit(),
-                    SecurityUtils.sanitizeForLog(String.valueOf(siteKeys)));
+            LOGGER.info("[audit] startIndex requested by user {} for siteKeys {} (mode={})", currentUserForAudit(),
+                    SecurityUtils.sanitizeForLog(String.valueOf(siteKeys)), mode);
         }
         final Service customGptService = BundleUtils.getOsgiService(Service.class, null);
         if (customGptService == null) {
@@ -116,7 +127,7 @@ public class GqlCustomGptAdminMutationResult {
                 }
             }
         }
-        final List<JobDetail> jobDetailList = getJobDetailList(siteKeys, customGptService, force);
+        final List<JobDetail> jobDetailList = getJobDetailList(siteKeys, customGptService, force, mode);
 
         return new GqlIndexMutationResult(transformJobDetailsToIndexingJobs(jobDetailList));
     }
@@ -144,19 +155,40 @@ public class GqlCustomGptAdminMutationResult {
         return new GqlIndexMutationResult(Collections.singletonList(job));
     }
 
+    @GraphQLField
+    @GraphQLName("startReconciliation")
+    @GraphQLDescription("Trigger a job diffing the CustomGPT pages against the indexed content: deletes the orphaned pages and indexes the content whose page is missing.")
+    public GqlIndexMutationResult startReconciliation() {
+        try {
+            checkAdminPermission(CustomGptConstants.PATH_DELIMITER, CUSTOM_GPT_ADMIN);
+        } catch (RepositoryException e) {
+            LOGGER.warn("Permission check failed for startReconciliation", e);
+            throw new DataFetchingException(ERR_OPERATION_FAILED);
+        }
+        if (LOGGER.isInfoEnabled()) {
+            LOGGER.info("[audit] startReconciliation requested by user {}", currentUserForAudit());
+        }
+        final Service customGptService = BundleUtils.getOsgiService(Service.class, null);
+        if (customGptService == null) {
+            throw new DataFetchingException(new IllegalStateException("CustomGPT service is not available"));
+        }
+        final JobDetail jobDetail = customGptService.reconcileUsingJob();
+        return new GqlIndexMutationResult(transformJobDetailsToIndexingJobs(Collections.singletonList(jobDetail)));
+    }
+
     private List<JobDetail> getJobDetailList(List<String> siteKeys,
-            Service customGptService, boolean force) {
+            Service customGptService, boolean force, ReindexMode mode) {
         final List<JobDetail> jobDetailList = new ArrayList<>();
         // No site keys supplied: trigger a full re-index of every indexable site (documented behaviour),
         // rather than dereferencing a null list.
         if (siteKeys == null) {
-            customGptService.reIndexUsingJob();
+            customGptService.reIndexUsingJob(mode);
             return jobDetailList;
         }
         try {
             for (String siteKey : siteKeys) {
                 checkAdminPermission(CustomGptConstants.PATH_SITES + siteKey, CustomGptConstants.PERM_SITE_ADMIN);
-                jobDetailList.add(customGptService.reIndexUsingJob(siteKey, force));
+                jobDetailList.add(customGptService.reIndexUsingJob(siteKey, force, mode));
             }
         } catch (RepositoryException e) {
             throw new DataFetchingException(e);
@@ -0,0 +1,77 @@
+package org.jahia.community.modules.customgpt.graphql.extensions.models;
+
+import graphql.annotations.annotationTypes.GraphQLDescription;
+import graphql.annotations.annotationTypes.GraphQLField;
+import graphql.annotations.annotationTypes.GraphQLName;
+import org.jahia.community.modules.customgpt.service.IndexingExecutor;
+
+@GraphQLName("CustomGptExecutorStats")
+@GraphQLDescription("Activity of a CustomGPT indexation executor")
+public class GqlExecutorStats {
+
+    private final IndexingExecutor.Stats stats;
+
+    public GqlExecutorStats(IndexingExecutor.Stats stats) {
+        this.stats = stats;
+    }
+
+    @GraphQLField
+    @GraphQLDescription("Executor name: interactive (publications, node reindexation), site or full-indexation")
+    public String getName() {
+        return stats.getName();
+    }
+
+    @GraphQLField
+    @GraphQLDescription("Number of threads of the executor")
+    public int getPoolSize() {
+        return stats.getPoolSize();
+    }
+
+    @GraphQLField
+    @GraphQLDescription("Number of threads running an indexation")
+    public int getActiveCount() {
+        return stats.getActiveCount();
+    }
+
+    @GraphQLField
+    @GraphQLDescription("Number of indexations waiting for a thread")
+    public int getWaitingCount() {
+        return stats.getWaitingCount();
+    }
+
+    @GraphQLField
+    @GraphQLDescription("Maximum number of indexations waiting for a thread")
+    public int getQueueCapacity() {
+        return stats.getQueueCapacity();
+    }
+
+    @GraphQLField
+    @GraphQLDescription("Number of indexations completed")
+    public long getCompletedTasks() {
+        return stats.getCompletedTasks();
+    }
+
+    @GraphQLField
+    @GraphQLDescription("Number of indexations refused or run by the submitting thread because the queue was full")
+    public long getRejectedTasks() {
+        return stats.getRejectedTasks();
+    }
+
+    @GraphQLField
+    @GraphQLDescription("Average time an indexation waited for a thread, in milliseconds")
+    public long getAverageQueueTimeMs() {
+        return stats.getAverageQueueTimeMs();
+    }
+
+    @GraphQLField
+    @GraphQLDescription("Longest time an indexation waited for a thread, in milliseconds")
+    public long getMaxQueueTimeMs() {
+        return stats.getMaxQueueTimeMs();
+    }
+
+    @GraphQLField
+    @GraphQLDescription("Average duration of an indexation, in milliseconds")
+    public long getAverageExecutionTimeMs() {
+        return stats.getAverageExecutionTimeMs();
+    }
+}
@@ -0,0 +1,30 @@
+package org.jahia.community.modules.customgpt.graphql.extensions.models;
+
+import graphql.annotations.annotationTypes.GraphQLDescription;
+import graphql.annotations.annotationTypes.GraphQLField;
+import graphql.annotations.annotationTypes.GraphQLName;
+
+@GraphQLName("CustomGptRequestLane")
+@GraphQLDescription("Priority lane of the CustomGPT API calls")
+public class GqlRequestLane {
+
+    private final String name;
+    private final int queueDepth;
+
+    public GqlRequestLane(String name, int queueDepth) {
+        this.name = name;
+        this.queueDepth = queueDepth;
+    }
+
+    @GraphQLField
+    @GraphQLDescription("Lane name: INTERACTIVE (publications, node reindexation) or BULK (site reindexation, purge)")
+    public String getName() {
+        return name;
+    }
+
+    @GraphQLField
+    @GraphQLDescription("Number of CustomGPT calls of this lane waiting for an in-flight slot or a rate-limit token")
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+}
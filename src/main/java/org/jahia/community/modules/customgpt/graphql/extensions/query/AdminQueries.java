@@ -3,15 +3,23 @@ package org.jahia.community.modules.customgpt.graphql.extensions.query;
 import graphql.annotations.annotationTypes.GraphQLDescription;
 import graphql.annotations.annotationTypes.GraphQLField;
 import graphql.annotations.annotationTypes.GraphQLName;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import javax.jcr.AccessDeniedException;
 import javax.jcr.RepositoryException;
 import org.jahia.community.modules.customgpt.CustomGptConstants;
+import org.jahia.community.modules.customgpt.graphql.extensions.models.GqlCircuitBreaker;
+import org.jahia.community.modules.customgpt.graphql.extensions.models.GqlExecutorStats;
+import org.jahia.community.modules.customgpt.graphql.extensions.models.GqlRequestLane;
 import org.jahia.community.modules.customgpt.graphql.extensions.models.GqlSettings;
 import org.jahia.community.modules.customgpt.graphql.extensions.models.GqlSiteListModel;
+import org.jahia.community.modules.customgpt.service.IndexingExecutor;
 import org.jahia.community.modules.customgpt.service.Service;
 import org.jahia.community.modules.customgpt.service.models.Site;
 import org.jahia.community.modules.customgpt.settings.Config;
+import org.jahia.community.modules.customgpt.util.CircuitBreaker;
+import org.jahia.community.modules.customgpt.util.RequestLane;
 import org.jahia.community.modules.customgpt.util.SecurityUtils;
 import org.jahia.modules.graphql.provider.dxm.DataFetchingException;
 import org.jahia.osgi.BundleUtils;
@@ -50,6 +58,63 @@ public class AdminQueries {
         return new GqlSiteListModel(indexedSites);
     }
 
+    @GraphQLField
+    @GraphQLName("lanes")
+    @GraphQLDescription("Returns the queue depth of each CustomGPT request lane, interactive lane first")
+    public List<GqlRequestLane> getLanes() {
+        try {
+            checkAdminPermission(CustomGptConstants.PATH_DELIMITER, CUSTOM_GPT_ADMIN);
+        } catch (RepositoryException e) {
+            LOGGER.warn("Permission check failed for lanes", e);
+            throw new DataFetchingException(ERR_PERMISSION);
+        }
+        final Service service = BundleUtils.getOsgiService(Service.class, null);
+        final List<GqlRequestLane> lanes = new ArrayList<>();
+        for (RequestLane lane : RequestLane.values()) {
+            lanes.add(new GqlRequestLane(lane.name(), service != null ? service.getLaneQueueDepth(lane) : 0));
+        }
+        return lanes;
+    }
+
+    @GraphQLField
+    @GraphQLName("circuitBreaker")
+    @GraphQLDescription("Returns the state of the circuit breaker guarding the CustomGPT API")
+    public GqlCircuitBreaker getCircuitBreaker() {
+        try {
+            checkAdminPermission(CustomGptConstants.PATH_DELIMITER, CUSTOM_GPT_ADMIN);
+        } catch (RepositoryException e) {
+            LOGGER.warn("Permission check failed for circuitBreaker", e);
+            throw new DataFetchingException(ERR_PERMISSION);
+        }
+        final Service service = BundleUtils.getOsgiService(Service.class, null);
+        final CircuitBreaker circuitBreaker = service != null ? service.getCircuitBreaker() : null;
+        if (circuitBreaker == null) {
+            return new GqlCircuitBreaker(CircuitBreaker.State.CLOSED.name(), 0, 0);
+        }
+        return new GqlCircuitBreaker(circuitBreaker.getState().name(), circuitBreaker.getConsecutiveFailures(),
+                service.getParkedOperationsCount());
+    }
+
+    @GraphQLField
+    @GraphQLName("executors")
+    @GraphQLDescription("Returns the activity of the indexation executors started so far")
+    public List<GqlExecutorStats> getExecutors() {
+        try {
+            checkAdminPermission(CustomGptConstants.PATH_DELIMITER, CUSTOM_GPT_ADMIN);
+        } catch (RepositoryException e) {
+            LOGGER.warn("Permission check failed for executors", e);
+            throw new DataFetchingException(ERR_PERMISSION);
+        }
+        final Service service = BundleUtils.getOsgiService(Service.class, null);
+        final List<GqlExecutorStats> executors = new ArrayList<>();
+        if (service != null) {
+            for (IndexingExecutor.Stats stats : service.getExecutorStats()) {
+                executors.add(new GqlExecutorStats(stats));
+            }
+        }
+        return executors;
+    }
+
     @GraphQLField
     @GraphQLName("settings")
     @GraphQLDescription("Returns the current CustomGPT configuration settings")
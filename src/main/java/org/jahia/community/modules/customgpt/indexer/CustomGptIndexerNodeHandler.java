@@ -1,18 +1,18 @@
 package org.jahia.community.modules.customgpt.indexer;
 
 import java.io.IOException;
-import java.io.StringWriter;
 import java.lang.reflect.InvocationTargetException;
-import java.net.MalformedURLException;
-import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.jcr.RepositoryException;
 import javax.servlet.ServletException;
 import okhttp3.Credentials;
@@ -32,16 +32,18 @@ import org.jahia.community.modules.customgpt.IndexRequest;
 import org.jahia.community.modules.customgpt.service.Service;
 import org.jahia.community.modules.customgpt.settings.Config;
 import org.jahia.community.modules.customgpt.settings.NotConfiguredException;
-import org.jahia.community.modules.customgpt.util.HttpServletRequestMock;
-import org.jahia.community.modules.customgpt.util.HttpServletResponseMock;
+import org.jahia.community.modules.customgpt.util.CircuitOpenException;
+import org.jahia.community.modules.customgpt.util.ContentDigest;
+import org.jahia.community.modules.customgpt.util.CustomGptTransport;
+import org.jahia.community.modules.customgpt.util.RenderedPage;
 import org.jahia.community.modules.customgpt.util.SecurityUtils;
 import org.jahia.community.modules.customgpt.util.Utils;
+import org.jahia.community.modules.customgpt.util.VirtualThreads;
 import org.jahia.services.content.JCRNodeWrapper;
 import org.jahia.services.content.JCRSessionWrapper;
 import org.jahia.services.content.JCRTemplate;
 import org.jahia.services.content.decorator.JCRSiteNode;
 import org.jahia.services.render.RenderContext;
-import org.jahia.services.sites.SitesSettings;
 import org.jahia.services.usermanager.JahiaUser;
 import org.jahia.services.usermanager.JahiaUserManagerService;
 import org.json.JSONArray;
@@ -52,11 +54,24 @@ import org.slf4j.LoggerFactory;
 /**
  * Internal utility that executes the actual HTTP interactions for one indexing cycle.
  * For each node to index it follows a three-step flow:
- * 1. Render the Jahia page HTML via {@code jahiaClient} (with Basic auth or optional cookie).
+ * 1. Render the Jahia page HTML via {@code jahiaClient} (with Basic auth or optional cookie), or in process through
+ *    {@link InProcessPageRenderer} when {@code rendering.mode=inProcess}.
  * 2. POST the HTML as a multipart upload to {@code POST /projects/{id}/sources} to create a CustomGPT page.
  * 3. PATCH the returned page's metadata (title + canonical URL) via {@code PUT .../pages/{pageId}/metadata}.
  * The CustomGPT page ID is persisted on a {@code jnt:customGptIndexEntry} child node so that subsequent
- * updates can delete the old page before posting a new one.
+ * updates can delete the old page once a new one is posted. The mapping node also stores a {@link ContentDigest} of
+ * the uploaded title, URL and normalised HTML: when a re-render produces the same digest, steps 2 and 3 (and the
+ * deletion of the previous page) are skipped entirely. Mappings are read through the {@link MappingIndex} of the
+ * service and written through to it, so that an unchanged page costs no JCR read of its mapping.
+ * Pages are indexed by an {@link IndexingPipeline} owned by the {@link Indexer}: resolve, render, upload, metadata
+ * and mapping-persist each run on their own workers, so rendering overlaps the uploads of previous pages. The stages
+ * are connected by bounded queues; when uploads fall behind, {@link #handleNodeToReindex} blocks while queueing and
+ * so does the JCR scan calling it. Page deletions are chained on {@link CompletableFuture}s through
+ * {@link CustomGptTransport} and awaited at the end of {@link #handleNodeToReindex}.
+ * With {@code pipeline.virtualThreads} on Java 21+, each page instead runs through all the stages on its own virtual
+ * thread, at most {@code pipeline.maxConcurrentPages} at once.
+ * When the transport's circuit breaker opens, the cycle stops before the next page with a {@link CircuitOpenException}
+ * so that the caller parks the operations instead of rendering pages that cannot be uploaded.
  */
 final class CustomGptIndexerNodeHandler {
 
@@ -66,12 +81,18 @@ final class CustomGptIndexerNodeHandler {
     private static final String MEDIA_TYPE_JSON = "application/json";
     private static final String VALUE_FALSE = "false";
     private static final long RETRY_DELAY_MS = 500L;
+    private static final AtomicBoolean VIRTUAL_THREADS_WARNED = new AtomicBoolean();
+    static final String STAGE_RESOLVE = "resolve";
+    static final String STAGE_RENDER = "render";
+    static final String STAGE_UPLOAD = "upload";
+    static final String STAGE_METADATA = "metadata";
+    static final String STAGE_MAPPING = "mapping";
 
     private CustomGptIndexerNodeHandler() {
         throw new IllegalStateException("Utility class");
     }
 
-    static void handleNodeToReindex(OkHttpClient customGptClient, OkHttpClient jahiaClient, Indexer customGptIndexer) throws RepositoryException, NotConfiguredException, IOException {
+    static void handleNodeToReindex(CustomGptTransport customGptTransport, OkHttpClient jahiaClient, Indexer customGptIndexer) throws RepositoryException, NotConfiguredException, IOException {
         LOGGER.debug("Starting to handle nodes to reindex");
         Set<CustomGptRequest> requests = new LinkedHashSet<>();
         final JCRSessionWrapper systemSession = customGptIndexer.getSystemSession();
@@ -92,171 +113,330 @@ final class CustomGptIndexerNodeHandler {
                 LOGGER.warn("Cannot index node : {}, {}", path, e.getMessage());
             }
         }
-        for (String customGptPageToRemove : customGptIndexer.getCustomGptPageToRemove()) {
-            delete(customGptClient, customGptPageToRemove, customGptIndexer);
-        }
+        try {
+            for (String customGptPageToRemove : customGptIndexer.getCustomGptPageToRemove()) {
+                checkCircuit(customGptTransport);
+                delete(customGptTransport, customGptPageToRemove, customGptIndexer);
+            }
 
-        for (CustomGptRequest request : requests) {
-            if (request instanceof IndexRequest) {
-                final IndexRequest createCustomGptRequest = ((IndexRequest) request);
-                index(customGptClient, jahiaClient, createCustomGptRequest, customGptIndexer);
-            } else if (request instanceof DeleteRequest) {
-                final DeleteRequest deleteCustomGptRequest = ((DeleteRequest) request);
-                LOGGER.info("Deleting: {} in {}", deleteCustomGptRequest.getNode().getPath(), deleteCustomGptRequest.getLanguage());
+            for (CustomGptRequest request : requests) {
+                if (request instanceof IndexRequest) {
+                    checkCircuit(customGptTransport);
+                    submit(customGptIndexer.getPipeline(customGptTransport, jahiaClient), (IndexRequest) request);
+                } else if (request instanceof DeleteRequest) {
+                    final DeleteRequest deleteCustomGptRequest = ((DeleteRequest) request);
+                    LOGGER.info("Deleting: {} in {}", deleteCustomGptRequest.getNode().getPath(), deleteCustomGptRequest.getLanguage());
+                }
             }
+        } finally {
+            customGptIndexer.awaitPendingCalls();
         }
         systemSession.refresh(false);
         LOGGER.debug("Ending to handle nodes to reindex");
     }
 
-    private static void delete(OkHttpClient customGptClient, String pageId, Indexer customGptIndexer) throws IOException {
+    private static void checkCircuit(CustomGptTransport customGptTransport) throws CircuitOpenException {
+        if (!customGptTransport.getCircuitBreaker().isClosed()) {
+            throw new CircuitOpenException("CustomGPT circuit breaker is " + customGptTransport.getCircuitBreaker().getState()
+                    + ", stopping the indexing cycle");
+        }
+    }
+
+    private static void delete(CustomGptTransport customGptTransport, String pageId, Indexer customGptIndexer) {
         String apiBaseUrl = getApiBaseUrl(customGptIndexer);
-        deleteCustomGptPage(customGptClient, customGptIndexer.getCustomGptConfig().getCustomGptProjectId(), pageId, apiBaseUrl);
+        customGptIndexer.trackPendingCall(
+                deleteCustomGptPage(customGptTransport, customGptIndexer.getCustomGptConfig().getCustomGptProjectId(), pageId, apiBaseUrl)
+                        .thenAccept(deleted -> logDeletion(deleted, pageId)),
+                customGptTransport.getMaxInFlight());
+    }
+
+    private static void submit(IndexingPipeline<PageIndexTask> pipeline, IndexRequest indexRequest) throws IOException {
+        try {
+            pipeline.submit(new PageIndexTask(indexRequest.getNode().getPath(), indexRequest.getLanguage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while queueing " + indexRequest.getNode().getPath() + " for indexing", e);
+        }
     }
 
-    private static void index(OkHttpClient customGptClient, OkHttpClient jahiaClient, IndexRequest createCustomGptRequest, Indexer customGptIndexer) throws RepositoryException {
+    /**
+     * Builds the pipeline indexing the pages queued by {@code customGptIndexer}. Its stages run on their own workers:
+     * resolve (live URL, title and existing mapping), render, upload (creation of the new page, then removal of
+     * the previous one), metadata and mapping-persist, which hands the mappings to {@code mappingWriter}. Pages whose digest
+     * matches their mapping leave after the render. A page is held in {@link InFlightPages} from its resolve stage
+     * until it leaves, so that another task for the same node and language waits for its mapping.
+     */
+    static IndexingPipeline<PageIndexTask> newPipeline(CustomGptTransport customGptTransport, OkHttpClient jahiaClient, Indexer customGptIndexer,
+            MappingWriter mappingWriter) {
+        final Config config = customGptIndexer.getCustomGptConfig();
         final String apiBaseUrl = getApiBaseUrl(customGptIndexer);
-        final JCRNodeWrapper nodeToIndex = createCustomGptRequest.getNode();
-        final JCRSiteNode siteNode = nodeToIndex.getResolveSite();
-        final String language = createCustomGptRequest.getLanguage();
         final JahiaUser rootUser = JahiaUserManagerService.getInstance().lookupRootUser().getJahiaUser();
-        JCRTemplate.getInstance().doExecuteWithSystemSessionAsUser(rootUser, Constants.LIVE_WORKSPACE, language == null ? null : Locale.forLanguageTag(language), session -> {
-            indexInSession(session, customGptClient, jahiaClient, nodeToIndex, siteNode, language, apiBaseUrl, customGptIndexer, rootUser);
-            return null;
-        });
+        final Service service = customGptIndexer.getService();
+        final InFlightPages inFlightPages = service.getInFlightPages();
+        final IndexingPipeline.Builder<PageIndexTask> builder = IndexingPipeline.builder("customgpt-index");
+        if (config.isPipelineVirtualThreads()) {
+            if (VirtualThreads.isSupported()) {
+                // blocking I/O dominates page indexing: the rate limiter and the page bound govern concurrency
+                builder.threadPerItem(VirtualThreads.newFactory("customgpt-index-vt-"), config.getPipelineMaxConcurrentPages());
+            } else if (VIRTUAL_THREADS_WARNED.compareAndSet(false, true)) {
+                LOGGER.warn("pipeline.virtualThreads is enabled but Java {} has no virtual threads, using the stage workers", Runtime.version().feature());
+            }
+        }
+        return builder
+                .stage(STAGE_RESOLVE, config.getPipelineResolveWorkers(), task -> resolve(task, config, rootUser, service, inFlightPages))
+                .stage(STAGE_RENDER, config.getPipelineRenderWorkers(), task -> render(task, jahiaClient, config))
+                .stage(STAGE_UPLOAD, config.getPipelineUploadWorkers(), task -> upload(task, customGptTransport, config, apiBaseUrl))
+                .stage(STAGE_METADATA, config.getPipelineMetadataWorkers(), task -> updateMetadata(task, customGptTransport, config, apiBaseUrl))
+                .stage(STAGE_MAPPING, config.getPipelineMappingWorkers(), task -> persistMapping(task, mappingWriter))
+                .queueCapacity(config.getPipelineQueueCapacity())
+                .onExit(task -> exit(task, inFlightPages))
+                .onThreadExit(service::releaseThreadState)
+                .onFailure((task, ex) -> customGptIndexer.onPageFailure(task, ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex))
+                .build();
     }
 
-    @SuppressWarnings("java:S107")
-    private static void indexInSession(JCRSessionWrapper session, OkHttpClient customGptClient, OkHttpClient jahiaClient,
-            JCRNodeWrapper nodeToIndex, JCRSiteNode siteNode, String language, String apiBaseUrl,
-            Indexer customGptIndexer, JahiaUser rootUser) throws RepositoryException {
-        final String hostName = Utils.getHostName(siteNode);
-        if (StringUtils.isEmpty(hostName)) {
-            LOGGER.warn("The host name can not be extracted from the property sitemapIndexURL");
-            return;
+    private static boolean resolve(PageIndexTask task, Config config, JahiaUser rootUser, Service service,
+            InFlightPages inFlightPages) throws RepositoryException, InterruptedException {
+        if (config.isDryRun()) {
+            return false;
         }
-        final URL serverUrl;
-        try {
-            serverUrl = URI.create(hostName).toURL();
-        } catch (MalformedURLException | IllegalArgumentException e) {
-            LOGGER.warn("The property sitemapIndexURL does not match an URL pattern, Sitemap generation won't happen");
-            return;
+        final String language = task.getLanguage();
+        inFlightPages.enter(task.getNodePath(), language);
+        task.setHeld(true);
+        final boolean resolved = JCRTemplate.getInstance().doExecuteWithSystemSessionAsUser(rootUser, Constants.LIVE_WORKSPACE,
+                language == null ? null : Locale.forLanguageTag(language), session -> resolveInSession(session, task, rootUser, service));
+        if (!resolved) {
+            return false;
+        }
+        final MappingEntry unsaved = inFlightPages.getUnsaved(task.getIdentifier(), language);
+        task.setExistingMapping(unsaved != null ? unsaved : getExistingMapping(rootUser, service.getMappingIndex(), task));
+        return true;
+    }
+
+    private static void exit(PageIndexTask task, InFlightPages inFlightPages) {
+        if (task.isHeld()) {
+            inFlightPages.leave(task.getNodePath(), task.getLanguage());
         }
-        final RenderContext customRenderContext = buildRenderContext(serverUrl, siteNode, rootUser);
+        task.release();
+    }
 
-        if (!session.nodeExists(nodeToIndex.getPath()) || customGptIndexer.getCustomGptConfig().isDryRun()) {
-            return;
+    private static Boolean resolveInSession(JCRSessionWrapper session, PageIndexTask task, JahiaUser rootUser, Service service) throws RepositoryException {
+        if (!session.nodeExists(task.getNodePath())) {
+            return Boolean.FALSE;
+        }
+        final JCRNodeWrapper liveNode = session.getNode(task.getNodePath());
+        final JCRSiteNode siteNode = liveNode.getResolveSite();
+        final SiteContextCache.SiteContext siteContext = service.getSiteContexts().get(siteNode);
+        if (!siteContext.hasServerUrl()) {
+            // logged once per site when its context was read
+            LOGGER.debug("No usable sitemapIndexURL on {}, skipping {}", siteNode.getPath(), task.getNodePath());
+            return Boolean.FALSE;
         }
+        final RenderContext customRenderContext = siteContext.getRenderContext(siteNode, rootUser);
         try {
-            final JCRNodeWrapper liveNode = session.getNode(nodeToIndex.getPath());
-            final String url = hostName + Utils.encode(liveNode.getUrl(), customRenderContext);
-            removeExistingPage(customGptClient, customGptIndexer, apiBaseUrl, rootUser, liveNode.getPath(), url, language);
-            indexJahiaPage(customGptClient, jahiaClient, customGptIndexer, apiBaseUrl, rootUser, liveNode, url, language);
-        } catch (InterruptedException ex) {
-            Thread.currentThread().interrupt();
-            LOGGER.error("Issue:", ex);
-        } catch (RepositoryException | IOException | ServletException | InvocationTargetException | URISyntaxException ex) {
+            final String url = siteContext.getHostName() + Utils.encode(liveNode.getUrl(), customRenderContext, service.getUrlRewriteService());
+            final String title = liveNode.hasProperty(Constants.JCR_TITLE)
+                    ? liveNode.getPropertyAsString(Constants.JCR_TITLE)
+                    : liveNode.getName();
+            task.resolved(liveNode.getIdentifier(), siteContext.getServerUrl(), url, title);
+            return Boolean.TRUE;
+        } catch (IOException | ServletException | InvocationTargetException | URISyntaxException ex) {
             LOGGER.error("Issue:", ex);
+            return Boolean.FALSE;
+        }
+    }
+
+    private static boolean render(PageIndexTask task, OkHttpClient jahiaClient, Config config) throws IOException, InterruptedException {
+        LOGGER.debug("Adding url {}", task.getUrl());
+        final RenderedPage page = new RenderedPage(task.getTitle(), task.getUrl(), config.getUploadSpillThresholdBytes());
+        task.setPage(page);
+        if (!renderPage(jahiaClient, config, task.getNodePath(), task.getServerUrl(), task.getUrl(), task.getLanguage(), page)) {
+            return false;
         }
+        final String contentDigest = page.complete();
+        final MappingEntry existingMapping = task.getExistingMapping();
+        if (existingMapping != null && existingMapping.isUpToDate(contentDigest)) {
+            LOGGER.debug("Content of {} (language {}) is unchanged since page {} was uploaded, skipping", task.getUrl(), task.getLanguage(), existingMapping.getPageId());
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean upload(PageIndexTask task, CustomGptTransport customGptTransport, Config config, String apiBaseUrl) {
+        final String projectId = config.getCustomGptProjectId();
+        final RenderedPage page = task.getPage();
+        LOGGER.debug("Adding page in customGPT for {} ({} bytes{})", task.getUrl(), page.getSize(), page.isSpilled() ? ", spilled to disk" : "");
+        // a failed upload leaves the old page and its mapping in place, so the next indexation still replaces them
+        task.setPageId(addPage(customGptTransport, projectId, task.getTitle(), page, apiBaseUrl)
+                .thenApply(addDocResponse -> readAddedPageId(addDocResponse, task.getUrl()))
+                .join());
+        removeExistingPage(customGptTransport, projectId, apiBaseUrl, task.getExistingMapping(), task.getUrl(), task.getLanguage())
+                .exceptionally(ex -> {
+                    LOGGER.error("Issue:", ex.getCause() != null ? ex.getCause() : ex);
+                    return null;
+                }).join();
+        return true;
     }
 
-    private static RenderContext buildRenderContext(URL serverUrl, JCRSiteNode siteNode, JahiaUser rootUser) {
-        final HttpServletRequestMock request = new HttpServletRequestMock(new HashMap<>(), serverUrl.getHost(), serverUrl.getPath());
-        final HttpServletResponseMock response = new HttpServletResponseMock(new StringWriter());
-        final RenderContext customRenderContext = new RenderContext(request, response, rootUser);
-        customRenderContext.setSite(siteNode);
-        return customRenderContext;
+    private static CompletableFuture<Void> removeExistingPage(CustomGptTransport customGptTransport, String projectId,
+            String apiBaseUrl, MappingEntry existingMapping, String url, String language) {
+        final String existingPageId = existingMapping != null ? existingMapping.getPageId() : null;
+        if (existingPageId == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        LOGGER.info("Removing page with the id {} for the url {}, language {}", existingPageId, url, language);
+        return deleteCustomGptPage(customGptTransport, projectId, existingPageId, apiBaseUrl)
+                .thenAccept(deleted -> logDeletion(deleted, existingPageId));
     }
 
-    private static void removeExistingPage(OkHttpClient customGptClient, Indexer customGptIndexer, String apiBaseUrl,
-            JahiaUser rootUser, String nodePath, String url, String language) throws RepositoryException, IOException {
-        final String existingPageId = getExistingPageId(rootUser, nodePath);
-        if (existingPageId != null) {
-            LOGGER.info("Removing page with the id {} for the url {}, language {}", existingPageId, url, language);
-            deleteCustomGptPage(customGptClient, customGptIndexer.getCustomGptConfig().getCustomGptProjectId(), existingPageId, apiBaseUrl);
+    private static void logDeletion(boolean deleted, String pageId) {
+        if (!deleted) {
+            LOGGER.warn("CustomGPT did not confirm the deletion of page {}", pageId);
         }
     }
 
+    /**
+     * Writes the HTML of the live page into {@code page}; returns {@code false} when it cannot be retrieved. The HTTP
+     * response body is streamed, never read into a {@link String}. In-process rendering falls back to the HTTP
+     * loopback when the render itself fails (e.g. a view that needs a real servlet request).
+     */
     @SuppressWarnings("java:S107")
-    private static void indexJahiaPage(OkHttpClient customGptClient, OkHttpClient jahiaClient, Indexer customGptIndexer,
-            String apiBaseUrl, JahiaUser rootUser, JCRNodeWrapper liveNode, String url, String language)
-            throws RepositoryException, IOException, InterruptedException {
-        LOGGER.debug("Adding url {}", url);
-        try (Response jahiaResponse = getJahiaPageContent(jahiaClient, url, customGptIndexer.getCustomGptConfig())) {
+    private static boolean renderPage(OkHttpClient jahiaClient, Config config, String nodePath, URL serverUrl,
+            String url, String language, RenderedPage page) throws IOException, InterruptedException {
+        if (config.getRenderingMode() == Config.RenderingMode.IN_PROCESS) {
+            try {
+                final String output = InProcessPageRenderer.render(nodePath, serverUrl, language, config);
+                if (output == null) {
+                    return false;
+                }
+                // RenderService only returns Strings; encoding is still chunked, without an intermediate byte array
+                page.write(output);
+                return true;
+            } catch (RepositoryException | RuntimeException e) {
+                LOGGER.warn("In-process rendering of {} failed, falling back to HTTP: {}", url, e.getMessage());
+                LOGGER.debug("Detailed message", e);
+            }
+        }
+        try (Response jahiaResponse = getJahiaPageContent(jahiaClient, url, config)) {
             if (jahiaResponse == null || !jahiaResponse.isSuccessful()) {
                 LOGGER.warn("Impossible to retrieve content from {}", url);
-                return;
+                return false;
             }
             LOGGER.debug("Retrieve Jahia page content is successful for {}", url);
             if (jahiaResponse.body() == null) {
                 LOGGER.warn("Jahia page response body is null for {}", url);
-                return;
+                return false;
             }
-            final String output = jahiaResponse.body().string();
-            final String title = liveNode.hasProperty(Constants.JCR_TITLE)
-                    ? liveNode.getPropertyAsString(Constants.JCR_TITLE)
-                    : liveNode.getName();
-            uploadAndUpdateMetadata(customGptClient, customGptIndexer, apiBaseUrl, rootUser, liveNode, title, output, url, language);
+            page.write(jahiaResponse.body().byteStream());
+            return true;
         }
     }
 
-    @SuppressWarnings("java:S107")
-    private static void uploadAndUpdateMetadata(OkHttpClient customGptClient, Indexer customGptIndexer, String apiBaseUrl,
-            JahiaUser rootUser, JCRNodeWrapper liveNode, String title, String output, String url, String language)
-            throws IOException, RepositoryException {
-        final String projectId = customGptIndexer.getCustomGptConfig().getCustomGptProjectId();
-        LOGGER.debug("Adding page in customGPT for {}", url);
-        try (Response addDocResponse = addPage(customGptClient, projectId, title, output, apiBaseUrl)) {
-            if (!addDocResponse.isSuccessful()) {
-                throw new IOException("Impossible to add the page for the URL " + url + ", following response received, " + addDocResponse);
+    private static String readAddedPageId(Response addDocResponse, String url) {
+        try (Response response = addDocResponse) {
+            if (!response.isSuccessful()) {
+                throw new IOException("Impossible to add the page for the URL " + url + ", following response received, " + response);
             }
-            if (addDocResponse.body() == null) {
+            if (response.body() == null) {
                 throw new IOException("Empty response body when adding the page for the URL " + url);
             }
             LOGGER.debug("Adding page in customGPT is successful, retrieving response body");
-            final JSONObject document = new JSONObject(addDocResponse.body().string());
-            final String pageId = extractPageId(document);
-            LOGGER.debug("Writing page id {} to mapping node for {}, language {}", pageId, liveNode.getPath(), language);
-            writeMappingNode(rootUser, liveNode.getPath(), pageId);
-            updatePageMetadataChecked(customGptClient, projectId, pageId, title, url, apiBaseUrl);
+            return extractPageId(new JSONObject(response.body().string()));
+        } catch (IOException ex) {
+            throw new CompletionException(ex);
         }
     }
 
-    private static void updatePageMetadataChecked(OkHttpClient customGptClient, String projectId, String pageId,
-            String title, String url, String apiBaseUrl) throws IOException {
+    /**
+     * Sets the title and canonical URL of the uploaded page. A failure does not stop the page: it exists on CustomGPT
+     * and its mapping must be written, only without a digest so that the next indexation replaces it.
+     */
+    private static boolean updateMetadata(PageIndexTask task, CustomGptTransport customGptTransport, Config config, String apiBaseUrl) {
         LOGGER.debug("Updating page metadata in customGPT");
-        try (Response metaResponse = updatePageMedata(customGptClient, projectId, pageId, title, url, apiBaseUrl)) {
-            if (!metaResponse.isSuccessful()) {
-                throw new IOException("Unexpected code " + metaResponse);
+        try (Response response = updatePageMedata(customGptTransport, config.getCustomGptProjectId(), task.getPageId(),
+                task.getTitle(), task.getUrl(), apiBaseUrl).join()) {
+            if (response.isSuccessful()) {
+                task.setMetadataUpdated(true);
+                LOGGER.debug("Updating page metadata in customGPT is successful");
+            } else {
+                LOGGER.warn("Unable to update the metadata of page {} for {}, unexpected code {}", task.getPageId(), task.getUrl(), response);
             }
-            LOGGER.debug("Updating page metadata in customGPT is successful");
+        } catch (CompletionException ex) {
+            LOGGER.warn("Unable to update the metadata of page {} for {}: {}", task.getPageId(), task.getUrl(),
+                    ex.getCause() != null ? ex.getCause().getMessage() : ex.getMessage());
+        }
+        return true;
+    }
+
+    private static boolean persistMapping(PageIndexTask task, MappingWriter mappingWriter) {
+        LOGGER.debug("Queueing page id {} for the mapping node of {}, language {}", task.getPageId(), task.getNodePath(), task.getLanguage());
+        mappingWriter.add(task.getNodePath(), task.getIdentifier(), task.getLanguage(),
+                new MappingEntry(task.getPageId(), task.isMetadataUpdated() ? task.getPage().getContentDigest() : null));
+        return true;
+    }
+
+    /** Returns the writer saving the mapping nodes of {@code customGptIndexer}, {@code mapping.batchSize} per session save. */
+    static MappingWriter newMappingWriter(Indexer customGptIndexer) {
+        final JahiaUser rootUser = JahiaUserManagerService.getInstance().lookupRootUser().getJahiaUser();
+        final Service service = customGptIndexer.getService();
+        return new MappingWriter(customGptIndexer.getCustomGptConfig().getMappingBatchSize(),
+                mappings -> writeMappingNodes(rootUser, mappings), service::getMappingIndex, service.getInFlightPages());
+    }
+
+    /** Returns the mapping of the task's node and language from the {@link MappingIndex}, read from the JCR on a miss. */
+    private static MappingEntry getExistingMapping(JahiaUser rootUser, MappingIndex mappingIndex, PageIndexTask task) throws RepositoryException {
+        final MappingEntry cached = mappingIndex.get(task.getIdentifier(), task.getLanguage());
+        if (cached != null) {
+            return cached;
         }
+        final MappingEntry mapping = readMappingNode(rootUser, task.getNodePath(), task.getLanguage());
+        mappingIndex.put(task.getIdentifier(), task.getLanguage(), mapping);
+        return mapping;
     }
 
-    private static String getExistingPageId(JahiaUser rootUser, String nodePath) throws RepositoryException {
+    /**
+     * Reads the mapping node of {@code language}. A page indexed before the mappings were kept per language only has
+     * the shared node: its page is returned without digest, so that it is replaced and its node migrated.
+     */
+    private static MappingEntry readMappingNode(JahiaUser rootUser, String nodePath, String language) throws RepositoryException {
         return JCRTemplate.getInstance().doExecuteWithSystemSessionAsUser(rootUser, Constants.EDIT_WORKSPACE, null, session -> {
-            final String mappingPath = CustomGptConstants.buildMappingPath(nodePath);
+            final String mappingPath = CustomGptConstants.buildMappingPath(nodePath, language);
             if (session.nodeExists(mappingPath)) {
                 final JCRNodeWrapper node = session.getNode(mappingPath);
                 if (node.hasProperty(CustomGptConstants.PROP_CUSTOM_GPT_PAGE_ID)) {
-                    return node.getProperty(CustomGptConstants.PROP_CUSTOM_GPT_PAGE_ID).getString();
+                    final String contentDigest = node.hasProperty(CustomGptConstants.PROP_CUSTOM_GPT_CONTENT_DIGEST)
+                            ? node.getProperty(CustomGptConstants.PROP_CUSTOM_GPT_CONTENT_DIGEST).getString()
+                            : null;
+                    return new MappingEntry(node.getProperty(CustomGptConstants.PROP_CUSTOM_GPT_PAGE_ID).getString(), contentDigest);
+                }
+                return null;
+            }
+            final String sharedMappingPath = CustomGptConstants.buildMappingPath(nodePath);
+            if (language != null && session.nodeExists(sharedMappingPath)) {
+                final JCRNodeWrapper node = session.getNode(sharedMappingPath);
+                if (node.hasProperty(CustomGptConstants.PROP_CUSTOM_GPT_PAGE_ID)) {
+                    return new MappingEntry(node.getProperty(CustomGptConstants.PROP_CUSTOM_GPT_PAGE_ID).getString(), null);
                 }
             }
             return null;
         });
     }
 
-    private static void writeMappingNode(JahiaUser rootUser, String nodePath, String pageId) throws RepositoryException {
+    private static void writeMappingNodes(JahiaUser rootUser, List<MappingWriter.PendingMapping> mappings) throws RepositoryException {
         JCRTemplate.getInstance().doExecuteWithSystemSessionAsUser(rootUser, Constants.EDIT_WORKSPACE, null, session -> {
-            final JCRNodeWrapper mappingNode = getOrCreateMappingNode(session, nodePath);
-            mappingNode.setProperty(CustomGptConstants.PROP_CUSTOM_GPT_PAGE_ID, pageId);
+            for (MappingWriter.PendingMapping mapping : mappings) {
+                final JCRNodeWrapper mappingNode = getOrCreateMappingNode(session, mapping.getNodePath(), mapping.getLanguage());
+                mappingNode.setProperty(CustomGptConstants.PROP_CUSTOM_GPT_PAGE_ID, mapping.getMapping().getPageId());
+                mappingNode.setProperty(CustomGptConstants.PROP_CUSTOM_GPT_CONTENT_DIGEST, mapping.getMapping().getContentDigest());
+                removeSharedMappingNode(session, mapping.getNodePath(), mapping.getLanguage());
+            }
             session.save();
             return null;
         });
     }
 
-    private static JCRNodeWrapper getOrCreateMappingNode(JCRSessionWrapper session, String nodePath) throws RepositoryException {
-        final String mappingPath = CustomGptConstants.buildMappingPath(nodePath);
+    private static JCRNodeWrapper getOrCreateMappingNode(JCRSessionWrapper session, String nodePath, String language) throws RepositoryException {
+        final String mappingPath = CustomGptConstants.buildMappingPath(nodePath, language);
         if (session.nodeExists(mappingPath)) {
             return session.getNode(mappingPath);
         }
@@ -264,22 +444,32 @@ final class CustomGptIndexerNodeHandler {
         if (!parentNode.isNodeType(CustomGptConstants.MIX_CUSTOM_GPT_INDEXABLE)) {
             parentNode.addMixin(CustomGptConstants.MIX_CUSTOM_GPT_INDEXABLE);
         }
-        return parentNode.addNode(CustomGptConstants.CUSTOMGPT_INDEX_NODE_NAME, CustomGptConstants.NT_CUSTOM_GPT_INDEX_ENTRY);
+        return parentNode.addNode(CustomGptConstants.getMappingNodeName(language), CustomGptConstants.NT_CUSTOM_GPT_INDEX_ENTRY);
+    }
+
+    /** Removes the node shared by all languages once a page has its own, its page having been replaced. */
+    private static void removeSharedMappingNode(JCRSessionWrapper session, String nodePath, String language) throws RepositoryException {
+        final String sharedMappingPath = CustomGptConstants.buildMappingPath(nodePath);
+        if (language != null && session.nodeExists(sharedMappingPath)) {
+            session.getNode(sharedMappingPath).remove();
+        }
     }
 
-    private static boolean deleteCustomGptPage(OkHttpClient customGptClient, String customGptProject, String pageId, String apiBaseUrl) throws IOException {
+    private static CompletableFuture<Boolean> deleteCustomGptPage(CustomGptTransport customGptTransport, String customGptProject, String pageId, String apiBaseUrl) {
         LOGGER.info("Removing page with the id {}", pageId);
         final Request delPageRequest = new Request.Builder()
                 .url(String.format("%s/projects/%s/pages/%s", apiBaseUrl, customGptProject, pageId))
                 .delete()
                 .addHeader(HEADER_ACCEPT, MEDIA_TYPE_JSON)
                 .build();
-        try (Response delPageResponse = customGptClient.newCall(delPageRequest).execute()) {
-            return delPageResponse.isSuccessful();
-        }
+        return customGptTransport.executeAsync(delPageRequest).thenApply(delPageResponse -> {
+            try (Response response = delPageResponse) {
+                return response.isSuccessful();
+            }
+        });
     }
 
-    private static Response addPage(OkHttpClient customGptClient, String customGptProject, String title, String output, String apiBaseUrl) throws IOException {
+    private static CompletableFuture<Response> addPage(CustomGptTransport customGptTransport, String customGptProject, String title, RenderedPage page, String apiBaseUrl) {
         // Build multipart body
         final MediaType mediaType = MediaType.parse("text/html");
         final RequestBody addDocBody = new MultipartBody.Builder()
@@ -287,8 +477,7 @@ final class CustomGptIndexerNodeHandler {
                 .addFormDataPart("file_data_retension", VALUE_FALSE)
                 .addFormDataPart("is_ocr_enabled", VALUE_FALSE)
                 .addFormDataPart("is_anonymized", VALUE_FALSE)
-                .addFormDataPart("file", title,
-                        RequestBody.create(output.getBytes(StandardCharsets.UTF_8), mediaType))
+                .addFormDataPart("file", title, page.toRequestBody(mediaType))
                 .build();
         final Request request = new Request.Builder()
                 .url(String.format("%s/projects/%s/sources", apiBaseUrl, customGptProject))
@@ -296,10 +485,10 @@ final class CustomGptIndexerNodeHandler {
                 .addHeader(HEADER_ACCEPT, MEDIA_TYPE_JSON)
                 .addHeader(HEADER_CONTENT_TYPE, "multipart/form-data")
                 .build();
-        return customGptClient.newCall(request).execute();
+        return customGptTransport.executeAsync(request);
     }
 
-    private static Response updatePageMedata(OkHttpClient customGptClient, String customGptProject, String pageId, String title, String url, String apiBaseUrl) throws IOException {
+    private static CompletableFuture<Response> updatePageMedata(CustomGptTransport customGptTransport, String customGptProject, String pageId, String title, String url, String apiBaseUrl) {
         final RequestBody metadataBody = new FormBody.Builder()
                 .add("title", title)
                 .add("url", url)
@@ -311,7 +500,7 @@ final class CustomGptIndexerNodeHandler {
                 .addHeader(HEADER_ACCEPT, MEDIA_TYPE_JSON)
                 .addHeader(HEADER_CONTENT_TYPE, MEDIA_TYPE_JSON)
                 .build();
-        return customGptClient.newCall(request).execute();
+        return customGptTransport.executeAsync(request);
     }
 
     static void addRequestsForFileOrLanguage(JCRNodeWrapper node, Service customGptService, Set<CustomGptRequest> requests, Set<String> languages) throws RepositoryException, NotConfiguredException {
@@ -327,15 +516,11 @@ final class CustomGptIndexerNodeHandler {
     static void addIndexRequests(JCRNodeWrapper node, Indexer customGptIndexer, Set<CustomGptRequest> requests)
             throws RepositoryException, NotConfiguredException {
         final Service customGptService = customGptIndexer.getService();
-        addRequestsForFileOrLanguage(node, customGptService, requests, getLanguages(node));
+        addRequestsForFileOrLanguage(node, customGptService, requests, getLanguages(node, customGptService.getSiteContexts()));
     }
 
-    static Set<String> getLanguages(JCRNodeWrapper node) throws RepositoryException {
-        final JCRSiteNode site = node.getResolveSite();
-        // languages contains all active EDIT languages
-        final Set<String> languages = Utils.getPropertyValuesAsSet(site, SitesSettings.LANGUAGES);
-        languages.removeAll(Utils.getPropertyValuesAsSet(site, SitesSettings.INACTIVE_LIVE_LANGUAGES));
-        return languages;
+    static Set<String> getLanguages(JCRNodeWrapper node, SiteContextCache siteContexts) throws RepositoryException {
+        return siteContexts.get(node.getResolveSite()).getLanguages();
     }
 
     private static Response getJahiaPageContent(OkHttpClient jahiaClient, String url, Config config) throws IOException, InterruptedException {
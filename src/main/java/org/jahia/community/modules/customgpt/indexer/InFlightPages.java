@@ -0,0 +1,62 @@
+package org.jahia.community.modules.customgpt.indexer;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pages being indexed, shared by all the indexers of the service, so that two tasks for the same page (node and
+ * language) never work from the same mapping: both would remove the old page and upload a new one, and only one of
+ * the new pages would end up referenced by the mapping node.
+ *
+ * <p>A task holds its page from its resolve stage until it leaves the pipeline; a second task for the page waits in
+ * {@link #enter(String, String)} meanwhile. The mapping a task hands to its {@link MappingWriter} is kept here until it
+ * is saved, so that the next task reads it rather than the mapping node it replaces.
+ */
+public final class InFlightPages {
+
+    // guarded by this; node path and language
+    private final Set<String> held = new HashSet<>();
+    // guarded by this; identifier and language
+    private final Map<String, MappingEntry> unsaved = new HashMap<>();
+
+    /** Blocks until no other task holds the page of {@code nodePath} in {@code language}, then holds it. */
+    synchronized void enter(String nodePath, String language) throws InterruptedException {
+        final String key = key(nodePath, language);
+        while (!held.add(key)) {
+            wait();
+        }
+    }
+
+    /** Lets the next task for the page of {@code nodePath} in {@code language} in. */
+    synchronized void leave(String nodePath, String language) {
+        if (held.remove(key(nodePath, language))) {
+            notifyAll();
+        }
+    }
+
+    /** Records the mapping of the node {@code identifier} in {@code language}, written but not saved yet. */
+    synchronized void unsaved(String identifier, String language, MappingEntry mapping) {
+        unsaved.put(key(identifier, language), mapping);
+    }
+
+    /** Forgets {@code mapping} once saved, or given up; a newer mapping of the same page is kept. */
+    synchronized void saved(String identifier, String language, MappingEntry mapping) {
+        unsaved.remove(key(identifier, language), mapping);
+    }
+
+    /** Returns the mapping of the node {@code identifier} in {@code language} not saved yet, if any. */
+    synchronized MappingEntry getUnsaved(String identifier, String language) {
+        return unsaved.get(key(identifier, language));
+    }
+
+    synchronized int getHeldCount() {
+        return held.size();
+    }
+
+    // '|' cannot appear in a JCR name, nor in an identifier
+    private static String key(String nodePathOrIdentifier, String language) {
+        return nodePathOrIdentifier + '|' + language;
+    }
+}
@@ -0,0 +1,111 @@
+package org.jahia.community.modules.customgpt.indexer;
+
+import java.io.StringWriter;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Locale;
+import javax.jcr.PathNotFoundException;
+import javax.jcr.RepositoryException;
+import org.apache.commons.lang.StringUtils;
+import org.jahia.api.Constants;
+import org.jahia.community.modules.customgpt.settings.Config;
+import org.jahia.community.modules.customgpt.util.HttpServletRequestMock;
+import org.jahia.community.modules.customgpt.util.HttpServletResponseMock;
+import org.jahia.services.content.JCRNodeWrapper;
+import org.jahia.services.content.JCRSessionFactory;
+import org.jahia.services.content.JCRTemplate;
+import org.jahia.services.render.RenderContext;
+import org.jahia.services.render.RenderException;
+import org.jahia.services.render.RenderService;
+import org.jahia.services.render.Resource;
+import org.jahia.services.render.URLGenerator;
+import org.jahia.services.usermanager.JCRUserNode;
+import org.jahia.services.usermanager.JahiaUser;
+import org.jahia.services.usermanager.JahiaUserManagerService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Renders a live page directly through Jahia's {@link RenderService} into a buffer, instead of fetching it over an
+ * HTTP loopback with {@code jahiaClient}. Used when {@code rendering.mode=inProcess}.
+ *
+ * <p>The page is rendered as the configured {@code jahia.username} (or {@code guest} when none is configured), in a
+ * session opened for that user, so the indexed content is the same as what the HTTP loopback would have returned:
+ * content the rendering user cannot read is not indexed.
+ */
+final class InProcessPageRenderer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InProcessPageRenderer.class);
+    private static final String LIVE_SERVLET_PATH = "/cms/render/live";
+    private static final String TEMPLATE_TYPE_HTML = "html";
+
+    private InProcessPageRenderer() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Renders the live page at {@code nodePath} in {@code language}. Returns {@code null} when the page is not
+     * visible to the rendering user.
+     */
+    static String render(String nodePath, URL serverUrl, String language, Config config)
+            throws RepositoryException {
+        final JahiaUser renderUser = resolveRenderUser(config);
+        if (renderUser == null) {
+            LOGGER.warn("Rendering user {} does not exist, cannot render {} in process", config.getJahiaUsername(), nodePath);
+            return null;
+        }
+        final Locale locale = language == null ? null : Locale.forLanguageTag(language);
+        final JCRSessionFactory sessionFactory = JCRSessionFactory.getInstance();
+        final JahiaUser previousUser = sessionFactory.getCurrentUser();
+        // templates resolve permissions and personalisation against the current user of the thread
+        sessionFactory.setCurrentUser(renderUser);
+        try {
+            return JCRTemplate.getInstance().doExecute(renderUser, Constants.LIVE_WORKSPACE, locale, session -> {
+                final JCRNodeWrapper liveNode;
+                try {
+                    liveNode = session.getNode(nodePath);
+                } catch (PathNotFoundException e) {
+                    LOGGER.debug("Page {} is not readable by {}, skipping", nodePath, renderUser.getUsername());
+                    return null;
+                }
+                return renderNode(liveNode, serverUrl, renderUser, locale);
+            });
+        } finally {
+            sessionFactory.setCurrentUser(previousUser);
+        }
+    }
+
+    private static String renderNode(JCRNodeWrapper liveNode, URL serverUrl, JahiaUser renderUser, Locale locale)
+            throws RepositoryException {
+        final StringWriter out = new StringWriter();
+        final HttpServletRequestMock request = new HttpServletRequestMock(new HashMap<>(), serverUrl.getHost(), StringUtils.EMPTY);
+        request.setScheme(serverUrl.getProtocol());
+        request.setServerPort(serverUrl.getPort() != -1 ? serverUrl.getPort() : serverUrl.getDefaultPort());
+        request.setServletPath(LIVE_SERVLET_PATH);
+        request.setRequestURI(LIVE_SERVLET_PATH + "/" + (locale != null ? locale.toString() : "") + liveNode.getPath() + ".html");
+        request.setLocale(locale);
+        final HttpServletResponseMock response = new HttpServletResponseMock(out);
+
+        final RenderContext renderContext = new RenderContext(request, response, renderUser);
+        final Resource resource = new Resource(liveNode, TEMPLATE_TYPE_HTML, null, Resource.CONFIGURATION_PAGE);
+        renderContext.setMainResource(resource);
+        renderContext.setSite(liveNode.getResolveSite());
+        renderContext.setWorkspace(Constants.LIVE_WORKSPACE);
+        renderContext.setServletPath(LIVE_SERVLET_PATH);
+        renderContext.setEditMode(false);
+        renderContext.setURLGenerator(new URLGenerator(renderContext, resource));
+        try {
+            final String output = RenderService.getInstance().render(resource, renderContext);
+            // some views write straight to the response writer instead of returning their output
+            return StringUtils.isNotEmpty(output) ? output : out.toString();
+        } catch (RenderException e) {
+            throw new RepositoryException("Unable to render " + liveNode.getPath() + " in process", e);
+        }
+    }
+
+    private static JahiaUser resolveRenderUser(Config config) {
+        final String username = StringUtils.defaultIfEmpty(config.getJahiaUsername(), Constants.GUEST_USERNAME);
+        final JCRUserNode userNode = JahiaUserManagerService.getInstance().lookupUser(username);
+        return userNode != null ? userNode.getJahiaUser() : null;
+    }
+}
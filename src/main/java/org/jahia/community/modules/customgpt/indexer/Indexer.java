@@ -1,7 +1,13 @@
 package org.jahia.community.modules.customgpt.indexer;
 
 import java.io.IOException;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.jcr.NodeIterator;
 import javax.jcr.RepositoryException;
 import javax.jcr.query.Query;
@@ -12,8 +18,14 @@ import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.jahia.api.Constants;
 import org.jahia.community.modules.customgpt.CustomGptConstants;
 import org.jahia.community.modules.customgpt.service.Service;
+import org.jahia.community.modules.customgpt.service.models.ScanCheckpoint;
 import org.jahia.community.modules.customgpt.settings.Config;
+import org.jahia.community.modules.customgpt.settings.ConfigSnapshot;
+import org.jahia.community.modules.customgpt.settings.NodeTypeClassifier;
 import org.jahia.community.modules.customgpt.settings.NotConfiguredException;
+import org.jahia.community.modules.customgpt.util.CircuitOpenException;
+import org.jahia.community.modules.customgpt.util.CustomGptTransport;
+import org.jahia.community.modules.customgpt.util.PathTrie;
 import org.jahia.exceptions.JahiaRuntimeException;
 import org.jahia.services.content.JCRContentUtils;
 import org.jahia.services.content.JCRNodeWrapper;
@@ -34,11 +46,25 @@ import org.slf4j.LoggerFactory;
 public class Indexer {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(Indexer.class);
+    // ISO 8601 with milliseconds, as expected by JCR-SQL2 date casts
+    private static final DateTimeFormatter JCR_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX").withZone(ZoneOffset.UTC);
     private final Map<String, String> nodePathsToMove = new LinkedHashMap<>();
     private final Set<String> customGptPageToRemove = new LinkedHashSet<>();
-    private final Set<String> nodePathsToAddOrReIndex = new LinkedHashSet<>();
-    private final TreeSet<String> nodePathsToRemove = new TreeSet<>();
+    // sorted, so that the paths under a removed node form one range
+    private final NavigableSet<String> nodePathsToAddOrReIndex = new TreeSet<>();
+    private final PathTrie nodePathsToRemove = new PathTrie();
+    // CustomGPT call chains still in flight; only touched by the thread driving this indexer
+    private final Deque<CompletableFuture<Void>> pendingCalls = new ArrayDeque<>();
+    // pages of this indexer, created on the first page queued and drained at the end of the scan or node batch
+    private IndexingPipeline<PageIndexTask> pipeline;
+    // mapping nodes written by the pipeline, saved in batches and flushed once the pipeline is drained
+    private MappingWriter mappingWriter;
+    private final AtomicInteger pagesDroppedByCircuit = new AtomicInteger();
+    // pages that failed for any reason, the circuit included; the scan checkpoint stops advancing after the first one
+    private final AtomicInteger pagesFailed = new AtomicInteger();
     private Config customGptConfig;
+    // configuration of this batch, captured on first use
+    private volatile ConfigSnapshot configSnapshot;
     private Service service;
     private JahiaUser rootUser;
 
@@ -60,12 +86,108 @@ public class Indexer {
         rootUser = JahiaUserManagerService.getInstance().lookupRootUser().getJahiaUser();
     }
 
-    public void queueRequests(OkHttpClient customGptClient, OkHttpClient jahiaClient) throws RepositoryException, NotConfiguredException, IOException {
+    /** Indexes the queued nodes and waits until every page has left the pipeline. */
+    public void queueRequests(CustomGptTransport customGptTransport, OkHttpClient jahiaClient) throws RepositoryException, NotConfiguredException, IOException {
+        try {
+            queueBatch(customGptTransport, jahiaClient);
+        } finally {
+            closePipeline();
+        }
+        checkPagesDroppedByCircuit();
+    }
+
+    private void queueBatch(CustomGptTransport customGptTransport, OkHttpClient jahiaClient) throws RepositoryException, NotConfiguredException, IOException {
         if (isEmpty()) {
             LOGGER.debug("There is no node to remove, to index or customGpt pages to remove");
             return;
         }
-        CustomGptIndexerNodeHandler.handleNodeToReindex(customGptClient, jahiaClient, this);
+        CustomGptIndexerNodeHandler.handleNodeToReindex(customGptTransport, jahiaClient, this);
+    }
+
+    IndexingPipeline<PageIndexTask> getPipeline(CustomGptTransport customGptTransport, OkHttpClient jahiaClient) {
+        if (pipeline == null) {
+            mappingWriter = CustomGptIndexerNodeHandler.newMappingWriter(this);
+            pipeline = CustomGptIndexerNodeHandler.newPipeline(customGptTransport, jahiaClient, this, mappingWriter);
+        }
+        return pipeline;
+    }
+
+    /** Called by the pipeline workers when a page fails; pages refused by the open circuit are counted, not logged. */
+    void onPageFailure(PageIndexTask task, Throwable failure) {
+        pagesFailed.incrementAndGet();
+        if (CircuitOpenException.isCause(failure)) {
+            pagesDroppedByCircuit.incrementAndGet();
+            LOGGER.debug("Page {} not indexed, the CustomGPT circuit breaker is open", task);
+        } else {
+            LOGGER.error("Issue:", failure);
+        }
+    }
+
+    private void closePipeline() {
+        if (pipeline == null) {
+            return;
+        }
+        try {
+            pipeline.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.warn("Interrupted while waiting for the indexing pipeline, remaining pages are dropped");
+        } finally {
+            pipeline = null;
+            // the pages already uploaded keep their mapping even when the wait was interrupted
+            mappingWriter.flush();
+            mappingWriter = null;
+        }
+    }
+
+    /** Saves the mappings of the pages that went through the pipeline so far, at each batch boundary of a scan. */
+    private void flushMappings() {
+        if (mappingWriter != null) {
+            mappingWriter.flush();
+        }
+    }
+
+    /** Waits until every page queued so far has left the pipeline, then saves their mappings. */
+    private void awaitPipelineIdle() throws InterruptedException {
+        if (pipeline == null) {
+            return;
+        }
+        pipeline.awaitIdle();
+        mappingWriter.flush();
+    }
+
+    /** Fails the indexation so that it is parked and replayed when pages were refused by the open circuit. */
+    private void checkPagesDroppedByCircuit() throws CircuitOpenException {
+        final int dropped = pagesDroppedByCircuit.getAndSet(0);
+        if (dropped > 0) {
+            throw new CircuitOpenException(dropped + " page(s) not indexed while the CustomGPT circuit breaker was open");
+        }
+    }
+
+    /**
+     * Registers a chain of CustomGPT calls started for one page. At most {@code window} chains are kept pending: when
+     * the limit is reached the oldest chain is awaited first, which bounds the work queued behind the transport.
+     */
+    void trackPendingCall(CompletableFuture<Void> call, int window) {
+        while (pendingCalls.size() >= window) {
+            awaitPendingCall(pendingCalls.poll());
+        }
+        pendingCalls.add(call);
+    }
+
+    /** Waits for every tracked call chain; failures are logged, not rethrown, as each page is independent. */
+    void awaitPendingCalls() {
+        while (!pendingCalls.isEmpty()) {
+            awaitPendingCall(pendingCalls.poll());
+        }
+    }
+
+    private static void awaitPendingCall(CompletableFuture<Void> call) {
+        try {
+            call.join();
+        } catch (CompletionException ex) {
+            LOGGER.error("Issue:", ex.getCause() != null ? ex.getCause() : ex);
+        }
     }
 
     public boolean isEmpty() {
@@ -74,7 +196,7 @@ public class Indexer {
     }
 
     public Collection<String> getNodePathsToRemove() {
-        return Collections.unmodifiableSortedSet(nodePathsToRemove);
+        return Collections.unmodifiableCollection(nodePathsToRemove);
     }
 
     public void addNodeToDelete(String path) {
@@ -84,7 +206,9 @@ public class Indexer {
     /**
      * Queues a node for deletion.  Path deduplication is applied: if an ancestor of {@code path} is already in the
      * removal set, the new path is silently dropped; conversely, any descendants already in the set are removed and
-     * replaced by {@code path} to avoid redundant per-child operations.
+     * replaced by {@code path} to avoid redundant per-child operations.  The removal set is a {@link PathTrie}, so
+     * this costs O(depth) whatever the number of paths already queued.  Paths queued for (re)indexing at or under
+     * {@code path} are dropped as well, they would be resolved against deleted nodes.
      */
     public void addNodeToDelete(String customGptPageId, String path) {
         if (customGptPageId != null) {
@@ -94,27 +218,10 @@ public class Indexer {
             return;
         }
 
-        final Set<String> toRemove = new HashSet<>(nodePathsToRemove.size());
-        final String pathWithDelimiter = path + CustomGptConstants.PATH_DELIMITER;
-        final SortedSet<String> greaterPaths = nodePathsToRemove.tailSet(pathWithDelimiter);
-        if (!greaterPaths.isEmpty()) {
-            for (String greaterPath : greaterPaths) {
-                if (!greaterPath.startsWith(pathWithDelimiter)) {
-                    break;
-                }
-                toRemove.add(greaterPath);
-            }
-            nodePathsToRemove.removeAll(toRemove);
-            nodePathsToRemove.add(path);
-        } else {
-            // check if we don't already have a lower path present that doesn't start with the path we're adding
-            final String lower = nodePathsToRemove.lower(path);
-            if (lower == null || !path.startsWith(lower + CustomGptConstants.PATH_DELIMITER)) {
-                nodePathsToRemove.add(path);
-            }
-        }
-        //no need to reindex paths to be removed
-        nodePathsToAddOrReIndex.removeAll(nodePathsToRemove);
+        nodePathsToRemove.add(path);
+        //no need to reindex paths to be removed, nor their descendants
+        nodePathsToAddOrReIndex.remove(path);
+        nodePathsToAddOrReIndex.subSet(path + '/', path + '0').clear();
     }
 
     boolean containsNodePathToAddOrReIndex(String path) {
@@ -159,7 +266,17 @@ public class Indexer {
         return nodeWrapper;
     }
 
-    public void addSiteToIndex(OkHttpClient customGptClient, OkHttpClient jahiaClient, String path) throws RepositoryException, NotConfiguredException {
+    public void addSiteToIndex(CustomGptTransport customGptTransport, OkHttpClient jahiaClient, String path) throws RepositoryException, NotConfiguredException {
+        addSiteToIndex(customGptTransport, jahiaClient, path, false);
+    }
+
+    /**
+     * Indexes the site at {@code path}, recording a scan checkpoint on the site node after every flushed batch. With
+     * {@code resume} the scan continues from the checkpoint left by an interrupted indexation, if any; otherwise that
+     * checkpoint is discarded and the scan starts over. The checkpoint stops advancing once a page fails, and is cleared
+     * once the whole site is scanned without failure.
+     */
+    public void addSiteToIndex(CustomGptTransport customGptTransport, OkHttpClient jahiaClient, String path, boolean resume) throws RepositoryException, NotConfiguredException {
         if (StringUtils.isEmpty(path)) {
             return;
         }
@@ -168,29 +285,200 @@ public class Indexer {
         if (node instanceof JCRSiteNode) {
             final JCRSiteNode siteNode = (JCRSiteNode) node;
             if (siteNode.getPath().startsWith(CustomGptConstants.PATH_SITES)) {
-                LOGGER.info("Indexing site {}...", siteNode.getPath());
-                addNodesToIndex(customGptClient, jahiaClient, siteNode);
-                LOGGER.info("Finished indexing site {}", siteNode.getPath());
+                final ScanCheckpoint checkpoint = resume ? service.getIndexationCheckpoint(siteNode.getPath()) : null;
+                if (checkpoint != null) {
+                    LOGGER.info("Resuming indexation of site {} after {}...", siteNode.getPath(), checkpoint);
+                } else {
+                    LOGGER.info("Indexing site {}...", siteNode.getPath());
+                    saveCheckpoint(siteNode.getPath(), null);
+                }
+                indexNodes(customGptTransport, jahiaClient, siteNode, siteNode.getPath(), checkpoint);
+                if (pagesFailed.get() == 0) {
+                    saveCheckpoint(siteNode.getPath(), null);
+                    LOGGER.info("Finished indexing site {}", siteNode.getPath());
+                } else {
+                    LOGGER.warn("Finished indexing site {}, {} page(s) failed and are retried by a resumed indexation",
+                            siteNode.getPath(), pagesFailed.get());
+                }
+            }
+        }
+    }
+
+    /**
+     * Indexes the main resources of the site at {@code path} published after {@code since}, or with a sub-node of an
+     * indexed type published after it. The scan checkpoint of the site is left as is.
+     */
+    public void addSitePublicationsToIndex(CustomGptTransport customGptTransport, OkHttpClient jahiaClient, String path, Calendar since)
+            throws RepositoryException, NotConfiguredException {
+        if (StringUtils.isEmpty(path)) {
+            return;
+        }
+        final JCRNodeWrapper node = getSystemSession().getNode(path);
+        if (!(node instanceof JCRSiteNode) || !node.getPath().startsWith(CustomGptConstants.PATH_SITES)) {
+            return;
+        }
+        LOGGER.info("Indexing content of site {} published since {}...", node.getPath(), since.toInstant());
+        final Set<String> mainResourceTypes = service.getIndexedMainResourceNodeTypes();
+        final Set<String> scannedTypes = new TreeSet<>(mainResourceTypes);
+        scannedTypes.addAll(service.getIndexedSubNodeTypes());
+        try {
+            for (String scannedType : scannedTypes) {
+                runScan(customGptTransport, jahiaClient, node, mainResourceTypes, scannedType,
+                        publishedSinceStatement(scannedType, node.getPath(), since), null);
             }
+        } finally {
+            closePipeline();
+        }
+        try {
+            checkPagesDroppedByCircuit();
+        } catch (CircuitOpenException ex) {
+            throw new JahiaRuntimeException("Error while reindexing content in " + path, ex);
         }
+        LOGGER.info("Finished indexing content of site {} published since {}", path, since.toInstant());
     }
 
-    public void addNodesToIndex(OkHttpClient customGptClient, OkHttpClient jahiaClient, JCRNodeWrapper node) throws RepositoryException, NotConfiguredException {
+    public void addNodesToIndex(CustomGptTransport customGptTransport, OkHttpClient jahiaClient, JCRNodeWrapper node) throws RepositoryException, NotConfiguredException {
+        indexNodes(customGptTransport, jahiaClient, node, null, null);
+    }
+
+    private void indexNodes(CustomGptTransport customGptTransport, OkHttpClient jahiaClient, JCRNodeWrapper node,
+            String checkpointSitePath, ScanCheckpoint checkpoint) throws RepositoryException, NotConfiguredException {
+        final int partitions = getConfigSnapshot().getScanPartitions();
+        if (checkpoint == null && partitions > 1) {
+            indexPartitioned(customGptTransport, jahiaClient, node.getPath(), partitions);
+        } else {
+            scan(customGptTransport, jahiaClient, node, checkpointSitePath, checkpoint, ScanPartitioner.UuidRange.ALL);
+        }
+    }
+
+    private void scan(CustomGptTransport customGptTransport, OkHttpClient jahiaClient, JCRNodeWrapper node, String checkpointSitePath,
+            ScanCheckpoint checkpoint, ScanPartitioner.UuidRange range) throws RepositoryException, NotConfiguredException {
         // index only main resources first, use for site and tree indexing
-        indexSubNodes(customGptClient, jahiaClient, node, service.getIndexedMainResourceNodeTypes());
+        try {
+            indexSubNodes(customGptTransport, jahiaClient, node, service.getIndexedMainResourceNodeTypes(), checkpointSitePath, checkpoint, range);
+        } finally {
+            closePipeline();
+        }
+        try {
+            checkPagesDroppedByCircuit();
+        } catch (CircuitOpenException ex) {
+            throw new JahiaRuntimeException("Error while reindexing content in " + node.getPath(), ex);
+        }
     }
 
-    private void indexSubNodes(OkHttpClient customGpt, OkHttpClient jahiaClient, JCRNodeWrapper rootNode, Set<String> nodeTypes) throws RepositoryException, NotConfiguredException {
-        for (String indexedNodeType : nodeTypes) {
-            final JCRSessionWrapper systemSession = getSystemSession();
-            final QueryManager manager = systemSession.getWorkspace().getQueryManager();
-            final String statement = "select * from [" + indexedNodeType + "] as sel where isdescendantnode(sel,['" + rootNode.getPath() + "']) ORDER BY [jcr:uuid]";
-            final Query query = manager.createQuery(statement, Query.JCR_SQL2);
-            int step = customGptConfig.getBulkOperationsBatchSize();
-            final ScrollableQuery scrollableQuery = new ScrollableQuery(step, query);
-            scrollableQuery.execute(new QueueNodes(customGpt, jahiaClient, rootNode, nodeTypes));
-            systemSession.refresh(false);
-            JCRTemplate.getInstance().getSessionFactory().closeAllSessions();
+    /**
+     * Scans the descendants of {@code rootPath} as {@code partitions} {@code jcr:uuid} ranges, each with an indexer of
+     * its own, run concurrently on the site indexation executor. All of them send their calls through
+     * {@code customGptTransport}, thus within the same rate limit and in-flight window.
+     */
+    private void indexPartitioned(CustomGptTransport customGptTransport, OkHttpClient jahiaClient, String rootPath, int partitions)
+            throws RepositoryException, NotConfiguredException {
+        final List<Callable<Void>> units = new ArrayList<>();
+        final ConfigSnapshot batchConfig = getConfigSnapshot();
+        for (ScanPartitioner.UuidRange range : ScanPartitioner.split(partitions)) {
+            units.add(() -> {
+                final Indexer partition = new Indexer(service, customGptConfig);
+                partition.rootUser = rootUser;
+                partition.configSnapshot = batchConfig;
+                LOGGER.debug("Scanning partition {} of {}", range, rootPath);
+                try {
+                    partition.scan(customGptTransport, jahiaClient, partition.getSystemSession().getNode(rootPath), null, null, range);
+                } finally {
+                    pagesFailed.addAndGet(partition.pagesFailed.get());
+                }
+                return null;
+            });
+        }
+        LOGGER.info("Scanning {} in {} partitions", rootPath, units.size());
+        final Exception failure;
+        try {
+            failure = ScanPartitioner.runAll(service.getSiteScanExecutor(), units, service::releaseThreadState);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.warn("Interrupted while waiting for the scan partitions of {}", rootPath);
+            return;
+        }
+        if (failure instanceof RepositoryException) {
+            throw (RepositoryException) failure;
+        } else if (failure instanceof NotConfiguredException) {
+            throw (NotConfiguredException) failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure != null) {
+            throw new JahiaRuntimeException("Error while reindexing content in " + rootPath, failure);
+        }
+    }
+
+    /**
+     * Scans the descendants of {@code rootNode} within {@code range} node type by node type, in name order, each in
+     * {@code jcr:uuid} order, so that a checkpoint (node type, last uuid) tells exactly what was already scanned.
+     * Checkpoints are recorded on {@code checkpointSitePath} when not {@code null}.
+     */
+    private void indexSubNodes(CustomGptTransport customGpt, OkHttpClient jahiaClient, JCRNodeWrapper rootNode, Set<String> nodeTypes,
+            String checkpointSitePath, ScanCheckpoint checkpoint, ScanPartitioner.UuidRange range) throws RepositoryException, NotConfiguredException {
+        final List<String> sortedNodeTypes = new ArrayList<>(new TreeSet<>(nodeTypes));
+        int first = 0;
+        String afterUuid = null;
+        if (checkpoint != null) {
+            first = sortedNodeTypes.indexOf(checkpoint.getNodeType());
+            if (first < 0) {
+                LOGGER.warn("Node type {} of the checkpoint of {} is no longer indexed, scanning from the start", checkpoint.getNodeType(), rootNode.getPath());
+                first = 0;
+            } else {
+                afterUuid = checkpoint.getUuid();
+            }
+        }
+        for (int i = first; i < sortedNodeTypes.size(); i++) {
+            final String indexedNodeType = sortedNodeTypes.get(i);
+            runScan(customGpt, jahiaClient, rootNode, nodeTypes, indexedNodeType,
+                    scanStatement(indexedNodeType, rootNode.getPath(), i == first ? afterUuid : null, range), checkpointSitePath);
+        }
+    }
+
+    /** Queues the main resources of {@code mainResourceTypes} found by {@code statement}, a query of {@code nodeType}. */
+    private void runScan(CustomGptTransport customGpt, OkHttpClient jahiaClient, JCRNodeWrapper rootNode, Set<String> mainResourceTypes,
+            String nodeType, String statement, String checkpointSitePath) throws RepositoryException, NotConfiguredException {
+        final JCRSessionWrapper systemSession = getSystemSession();
+        final QueryManager manager = systemSession.getWorkspace().getQueryManager();
+        final Query query = manager.createQuery(statement, Query.JCR_SQL2);
+        final ConfigSnapshot batchConfig = getConfigSnapshot();
+        final ScrollableQuery scrollableQuery = new ScrollableQuery(batchConfig.getBulkOperationsBatchSize(), query);
+        scrollableQuery.execute(new QueueNodes(customGpt, jahiaClient, rootNode, mainResourceTypes, nodeType, checkpointSitePath, batchConfig));
+        systemSession.refresh(false);
+        JCRTemplate.getInstance().getSessionFactory().closeAllSessions();
+    }
+
+    /**
+     * Builds the scan query of {@code nodeType} under {@code rootPath}, restricted to {@code range} and to the uuids
+     * after {@code afterUuid} if set.
+     */
+    static String scanStatement(String nodeType, String rootPath, String afterUuid, ScanPartitioner.UuidRange range) {
+        final StringBuilder statement = new StringBuilder("select * from [").append(nodeType)
+                .append("] as sel where isdescendantnode(sel,['").append(rootPath).append("'])");
+        appendUuidBound(statement, ">", afterUuid);
+        appendUuidBound(statement, ">=", range.getFrom());
+        appendUuidBound(statement, "<", range.getTo());
+        return statement.append(" ORDER BY [jcr:uuid]").toString();
+    }
+
+    /** Builds the query of the nodes of {@code nodeType} under {@code rootPath} published after {@code since}. */
+    static String publishedSinceStatement(String nodeType, String rootPath, Calendar since) {
+        return "select * from [" + nodeType + "] as sel where isdescendantnode(sel,['" + rootPath + "'])"
+                + " and sel.[j:lastPublished] > cast('" + JCR_DATE_FORMAT.format(since.toInstant()) + "' as date)"
+                + " ORDER BY [jcr:uuid]";
+    }
+
+    private static void appendUuidBound(StringBuilder statement, String operator, String uuid) {
+        if (uuid != null) {
+            statement.append(" and sel.[jcr:uuid] ").append(operator).append(" '").append(uuid.replace("'", "''")).append('\'');
+        }
+    }
+
+    private void saveCheckpoint(String sitePath, ScanCheckpoint checkpoint) {
+        try {
+            service.setIndexationCheckpoint(sitePath, checkpoint);
+        } catch (RepositoryException e) {
+            LOGGER.warn("Unable to record the indexation checkpoint of {}: {}", sitePath, e.getMessage());
         }
     }
 
@@ -207,12 +495,7 @@ public class Indexer {
     }
 
     public boolean isMarkedForRemoval(String path) {
-        if (nodePathsToRemove.contains(path)) {
-            return true;
-        } else {
-            final String possibleToRemoveAncestorPath = nodePathsToRemove.lower(path);
-            return possibleToRemoveAncestorPath != null && path.startsWith(possibleToRemoveAncestorPath + CustomGptConstants.PATH_DELIMITER);
-        }
+        return nodePathsToRemove.covers(path);
     }
 
     public void setService(Service service) {
@@ -239,20 +522,40 @@ public class Indexer {
         return customGptConfig;
     }
 
+    /**
+     * Returns the configuration this indexer works with: captured on the first call, then kept for the whole batch so
+     * that a configuration update only applies to the next one. Partitions share the snapshot of their scan.
+     */
+    ConfigSnapshot getConfigSnapshot() throws NotConfiguredException {
+        ConfigSnapshot snapshot = configSnapshot;
+        if (snapshot == null) {
+            snapshot = customGptConfig.getSnapshot();
+            configSnapshot = snapshot;
+        }
+        return snapshot;
+    }
+
     private class QueueNodes extends ScrollableQueryCallback<Void> {
 
         private final JCRNodeWrapper indexedNode;
         private final Set<String> nodeTypes;
-        private final OkHttpClient customGptClient;
+        private final CustomGptTransport customGptTransport;
         private final OkHttpClient jahiaClient;
+        private final String scannedNodeType;
+        private final String checkpointSitePath;
+        private final ConfigSnapshot batchConfig;
         private int nodeCounter;
 
-        public QueueNodes(OkHttpClient customGptClient, OkHttpClient jahiaClient, JCRNodeWrapper indexedNode, Set<String> nodeTypes) {
+        public QueueNodes(CustomGptTransport customGptTransport, OkHttpClient jahiaClient, JCRNodeWrapper indexedNode, Set<String> nodeTypes,
+                String scannedNodeType, String checkpointSitePath, ConfigSnapshot batchConfig) {
             this.indexedNode = indexedNode;
             this.nodeCounter = 0;
             this.nodeTypes = nodeTypes;
-            this.customGptClient = customGptClient;
+            this.customGptTransport = customGptTransport;
             this.jahiaClient = jahiaClient;
+            this.scannedNodeType = scannedNodeType;
+            this.checkpointSitePath = checkpointSitePath;
+            this.batchConfig = batchConfig;
         }
 
         @Override
@@ -276,8 +579,9 @@ public class Indexer {
         }
 
         private void collectIndexablePaths(JCRNodeWrapper node) throws RepositoryException {
+            final NodeTypeClassifier.Classification classification = batchConfig.getNodeTypeClassifier().classify(node);
             for (String indexedMainResourceTypes : nodeTypes) {
-                if (node.isNodeType(indexedMainResourceTypes)) {
+                if (classification.isNodeType(indexedMainResourceTypes)) {
                     nodePathsToAddOrReIndex.add(node.getPath());
                     LOGGER.debug("Adding path {} to be indexed", node.getPath());
                 } else {
@@ -292,16 +596,29 @@ public class Indexer {
 
         private void flushBatchIfNeeded(JCRNodeWrapper node, NodeIterator nodeIterator) throws RepositoryException {
             try {
-                if ((nodeCounter % customGptConfig.getBulkOperationsBatchSize()) == 0 || !nodeIterator.hasNext()) {
+                if ((nodeCounter % batchConfig.getBulkOperationsBatchSize()) == 0 || !nodeIterator.hasNext()) {
                     LOGGER.debug("Starting to queue requests");
-                    queueRequests(customGptClient, jahiaClient);
+                    queueBatch(customGptTransport, jahiaClient);
                     LOGGER.debug("Ending to queue requests");
+                    flushMappings();
                     nodePathsToAddOrReIndex.clear();
                     LOGGER.debug("Refreshing session internal cache.");
                     node.getSession().refresh(false);
+                    if (checkpointSitePath != null) {
+                        // the scan is in jcr:uuid order: once the batch has left the pipeline and its mappings are
+                        // saved, everything up to this node is indexed, unless a page failed; a resumed scan then
+                        // starts again from the last checkpoint saved before it, so that the page is retried
+                        awaitPipelineIdle();
+                        if (pagesFailed.get() == 0) {
+                            saveCheckpoint(checkpointSitePath, new ScanCheckpoint(scannedNodeType, node.getIdentifier()));
+                        }
+                    }
                 }
             } catch (NotConfiguredException | IOException ex) {
                 throw new JahiaRuntimeException("Error while reindexing content in " + indexedNode.getPath(), ex);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new JahiaRuntimeException("Interrupted while reindexing content in " + indexedNode.getPath(), ex);
             }
         }
 
@@ -0,0 +1,376 @@
+package org.jahia.community.modules.customgpt.indexer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Chain of stages, each drained by its own pool of worker threads, connected by bounded queues.
+ *
+ * <p>Items enter through {@link #submit(Object)} and flow through the stages in declaration order. A stage handler
+ * returns {@code false} to drop an item (nothing left to do for it); an exception, or an error, drops it as well and
+ * is reported to the failure callback, the worker going on with the next item. Every item leaves the pipeline exactly once, after its last stage, when dropped or when it
+ * fails, and the exit callback is invoked at that point to release whatever the item holds.
+ *
+ * <p>All queues are bounded: when a stage falls behind, the workers of the previous stage block on {@code put}, which
+ * in turn fills their own input queue, up to {@link #submit(Object)} blocking the producer. The slowest stage thus
+ * paces the whole chain, including the JCR scan feeding it.
+ *
+ * <p>{@link #close()} lets every submitted item run to completion, then stops the workers stage by stage.
+ * {@link #awaitIdle()} waits for the same without stopping anything, so that more items can be submitted afterwards.
+ *
+ * <p>With a {@linkplain Builder#threadPerItem(ThreadFactory, int) thread per item} (meant for virtual threads) there
+ * are no stage workers nor queues: each submitted item runs through all the stages on a thread of its own, and a
+ * semaphore bounds the number of items in flight, {@link #submit(Object)} blocking while none is left.
+ *
+ * @param <T> type of the items, usually a mutable holder enriched by each stage
+ */
+final class IndexingPipeline<T> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IndexingPipeline.class);
+    // end-of-input marker, one per worker of the stage it is put into
+    private static final Object END = new Object();
+
+    /** Processes one item; returns {@code false} when the item must not reach the next stage. */
+    @FunctionalInterface
+    interface StageHandler<T> {
+        boolean process(T item) throws Exception;
+    }
+
+    private final List<Stage> stages;
+    private final Consumer<T> onExit;
+    private final BiConsumer<T, Throwable> onFailure;
+    private final Runnable onThreadExit;
+    private final ThreadFactory itemThreadFactory;
+    private final int maxItemsInFlight;
+    private final Semaphore itemsInFlight;
+    private final Set<Thread> itemThreads = ConcurrentHashMap.newKeySet();
+    private final Object idleLock = new Object();
+    // submitted items that have not exited yet, guarded by idleLock
+    private int itemsInPipeline;
+    // written by close(), read by the producer and the workers
+    private volatile boolean closed;
+
+    private IndexingPipeline(Builder<T> builder) {
+        this.onExit = builder.onExit;
+        this.onFailure = builder.onFailure;
+        this.onThreadExit = builder.onThreadExit;
+        this.itemThreadFactory = builder.itemThreadFactory;
+        this.maxItemsInFlight = builder.maxItemsInFlight;
+        this.itemsInFlight = itemThreadFactory != null ? new Semaphore(maxItemsInFlight) : null;
+        final List<Stage> built = new ArrayList<>(builder.stageNames.size());
+        for (int i = 0; i < builder.stageNames.size(); i++) {
+            built.add(new Stage(builder.name + "-" + builder.stageNames.get(i), builder.stageWorkers.get(i),
+                    builder.queueCapacity, builder.stageHandlers.get(i)));
+        }
+        this.stages = Collections.unmodifiableList(built);
+        if (itemThreadFactory != null) {
+            return;
+        }
+        for (int i = 0; i < stages.size(); i++) {
+            stages.get(i).start(i + 1 < stages.size() ? stages.get(i + 1) : null);
+        }
+    }
+
+    static <T> Builder<T> builder(String name) {
+        return new Builder<>(name);
+    }
+
+    /** Queues {@code item} for the first stage, blocking while its queue is full. */
+    void submit(T item) throws InterruptedException {
+        if (closed) {
+            throw new IllegalStateException("Pipeline is closed");
+        }
+        if (itemThreadFactory == null) {
+            entered();
+            try {
+                stages.get(0).queue.put(item);
+            } catch (InterruptedException e) {
+                left();
+                throw e;
+            }
+            return;
+        }
+        itemsInFlight.acquire();
+        entered();
+        try {
+            itemThreadFactory.newThread(() -> runItem(item)).start();
+        } catch (RuntimeException e) {
+            left();
+            itemsInFlight.release();
+            throw e;
+        }
+    }
+
+    /** Waits until every item submitted so far has left the pipeline; the workers keep running. */
+    void awaitIdle() throws InterruptedException {
+        synchronized (idleLock) {
+            while (itemsInPipeline > 0) {
+                idleLock.wait();
+            }
+        }
+    }
+
+    private void entered() {
+        synchronized (idleLock) {
+            itemsInPipeline++;
+        }
+    }
+
+    private void left() {
+        synchronized (idleLock) {
+            if (--itemsInPipeline == 0) {
+                idleLock.notifyAll();
+            }
+        }
+    }
+
+    private void runItem(T item) {
+        itemThreads.add(Thread.currentThread());
+        try {
+            for (Stage stage : stages) {
+                if (!stage.process(item)) {
+                    break;
+                }
+            }
+            exit(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            itemThreads.remove(Thread.currentThread());
+            onThreadExit.run();
+            itemsInFlight.release();
+        }
+    }
+
+    /**
+     * Returns the number of items waiting in front of the stage named {@code stageName}; {@code 0} if unknown or with
+     * a thread per item, where items never wait between stages.
+     */
+    int getQueueSize(String stageName) {
+        for (Stage stage : stages) {
+            if (stage.name.endsWith("-" + stageName)) {
+                return stage.queue.size();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Waits until every submitted item has left the pipeline and stops the workers. When interrupted, the workers are
+     * interrupted too and the items still queued are released without being processed.
+     */
+    void close() throws InterruptedException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (itemThreadFactory != null) {
+                itemsInFlight.acquire(maxItemsInFlight);
+                itemsInFlight.release(maxItemsInFlight);
+                return;
+            }
+            for (Stage stage : stages) {
+                stage.drain();
+            }
+        } catch (InterruptedException e) {
+            abort();
+            throw e;
+        }
+    }
+
+    private void abort() {
+        for (Thread itemThread : itemThreads) {
+            itemThread.interrupt();
+        }
+        for (Stage stage : stages) {
+            for (Thread worker : stage.workers) {
+                worker.interrupt();
+            }
+        }
+        for (Stage stage : stages) {
+            final List<Object> pending = new ArrayList<>();
+            stage.queue.drainTo(pending);
+            for (Object item : pending) {
+                if (item != END) {
+                    exit(cast(item));
+                }
+            }
+        }
+    }
+
+    private void fail(T item, Throwable failure) {
+        try {
+            onFailure.accept(item, failure);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Unable to report the failure of pipeline item {}: {}", item, e.getMessage());
+        }
+    }
+
+    private void exit(T item) {
+        try {
+            onExit.accept(item);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Unable to release pipeline item {}: {}", item, e.getMessage());
+        } finally {
+            left();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T cast(Object item) {
+        return (T) item;
+    }
+
+    private final class Stage {
+
+        private final String name;
+        private final BlockingQueue<Object> queue;
+        private final StageHandler<T> handler;
+        private final int workerCount;
+        private final List<Thread> workers;
+
+        private Stage(String name, int workerCount, int queueCapacity, StageHandler<T> handler) {
+            this.name = name;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.handler = handler;
+            this.workerCount = workerCount;
+            this.workers = new ArrayList<>(workerCount);
+        }
+
+        private void start(Stage next) {
+            for (int i = 1; i <= workerCount; i++) {
+                final Thread worker = new Thread(() -> work(next), name + "-" + i);
+                worker.setDaemon(true);
+                workers.add(worker);
+                worker.start();
+            }
+        }
+
+        private void work(Stage next) {
+            try {
+                for (Object taken = queue.take(); taken != END; taken = queue.take()) {
+                    final T item = cast(taken);
+                    if (process(item) && next != null) {
+                        handOver(item, next);
+                    } else {
+                        exit(item);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LOGGER.debug("Pipeline worker {} interrupted", Thread.currentThread().getName());
+            } finally {
+                onThreadExit.run();
+            }
+        }
+
+        private void handOver(T item, Stage next) throws InterruptedException {
+            try {
+                next.queue.put(item);
+            } catch (InterruptedException e) {
+                exit(item);
+                throw e;
+            }
+        }
+
+        private boolean process(T item) throws InterruptedException {
+            try {
+                return handler.process(item);
+            } catch (InterruptedException e) {
+                exit(item);
+                throw e;
+            } catch (Exception | Error e) {
+                // an Error fails the item only: a dead worker would leave the items behind it in the pipeline forever
+                fail(item, e);
+                return false;
+            }
+        }
+
+        /** Stops the workers once they have taken everything queued before the end markers. */
+        private void drain() throws InterruptedException {
+            for (int i = 0; i < workers.size(); i++) {
+                queue.put(END);
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        }
+    }
+
+    static final class Builder<T> {
+
+        private final String name;
+        private final List<String> stageNames = new ArrayList<>();
+        private final List<Integer> stageWorkers = new ArrayList<>();
+        private final List<StageHandler<T>> stageHandlers = new ArrayList<>();
+        private int queueCapacity = 16;
+        private Consumer<T> onExit = item -> { };
+        private BiConsumer<T, Throwable> onFailure = (item, e) -> LOGGER.error("Issue:", e);
+        private Runnable onThreadExit = () -> { };
+        private ThreadFactory itemThreadFactory;
+        private int maxItemsInFlight;
+
+        private Builder(String name) {
+            this.name = name;
+        }
+
+        /** Appends a stage run by {@code workers} threads (at least one). */
+        Builder<T> stage(String stageName, int workers, StageHandler<T> handler) {
+            stageNames.add(stageName);
+            stageWorkers.add(Math.max(1, workers));
+            stageHandlers.add(handler);
+            return this;
+        }
+
+        /** Capacity of the queue in front of each stage (at least one). */
+        Builder<T> queueCapacity(int queueCapacity) {
+            this.queueCapacity = Math.max(1, queueCapacity);
+            return this;
+        }
+
+        /**
+         * Runs each item on a new thread of {@code threadFactory} instead of stage workers, with at most
+         * {@code maxItemsInFlight} items at once; stage worker counts and the queue capacity are then ignored.
+         */
+        Builder<T> threadPerItem(ThreadFactory threadFactory, int maxItemsInFlight) {
+            this.itemThreadFactory = threadFactory;
+            this.maxItemsInFlight = Math.max(1, maxItemsInFlight);
+            return this;
+        }
+
+        /** Runs on every pipeline thread before it ends, to clear what the stages left in its thread-locals. */
+        Builder<T> onThreadExit(Runnable onThreadExit) {
+            this.onThreadExit = onThreadExit;
+            return this;
+        }
+
+        Builder<T> onExit(Consumer<T> onExit) {
+            this.onExit = onExit;
+            return this;
+        }
+
+        Builder<T> onFailure(BiConsumer<T, Throwable> onFailure) {
+            this.onFailure = onFailure;
+            return this;
+        }
+
+        IndexingPipeline<T> build() {
+            if (stageNames.isEmpty()) {
+                throw new IllegalStateException("A pipeline needs at least one stage");
+            }
+            return new IndexingPipeline<>(this);
+        }
+    }
+}
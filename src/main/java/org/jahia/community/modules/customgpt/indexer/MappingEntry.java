@@ -0,0 +1,35 @@
+package org.jahia.community.modules.customgpt.indexer;
+
+/**
+ * Content of a {@code jnt:customGptIndexEntry} mapping node: the CustomGPT page ID of the last upload and the
+ * {@link org.jahia.community.modules.customgpt.util.ContentDigest} of the content that was uploaded.
+ * The digest is {@code null} for mappings written before content-hash change detection existed.
+ */
+public final class MappingEntry {
+
+    private final String pageId;
+    private final String contentDigest;
+
+    public MappingEntry(String pageId, String contentDigest) {
+        this.pageId = pageId;
+        this.contentDigest = contentDigest;
+    }
+
+    public String getPageId() {
+        return pageId;
+    }
+
+    public String getContentDigest() {
+        return contentDigest;
+    }
+
+    /** Returns {@code true} when this mapping already points to a page uploaded with the given digest. */
+    public boolean isUpToDate(String digest) {
+        return pageId != null && contentDigest != null && contentDigest.equals(digest);
+    }
+
+    @Override
+    public String toString() {
+        return "MappingEntry{pageId='" + pageId + "', contentDigest='" + contentDigest + "'}";
+    }
+}
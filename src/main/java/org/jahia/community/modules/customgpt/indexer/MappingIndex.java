@@ -0,0 +1,293 @@
+package org.jahia.community.modules.customgpt.indexer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded in-memory copy of the {@code jnt:customGptIndexEntry} mapping nodes, keyed by the identifier of the indexed
+ * node and the language of the page, so that the indexing hot path reads the page ID and content digest of a page
+ * without opening a JCR session.
+ *
+ * <p>The identifier rather than the path is the key: a moved node keeps its mapping children and its identifier, while
+ * a node deleted and created again at the same path gets a new one. Each language has its own page, hence its own
+ * entry; files have one entry with a {@code null} language. Entries are kept compact: the identifier as two
+ * {@code long}s, the page ID as a {@code long} and the digest as raw bytes. Entries that do not fit this form
+ * (non-UUID identifier, non-numeric page ID, non-hexadecimal digest) are simply not cached and read from the JCR.
+ *
+ * <p>Once {@code capacity} entries are held the least recently used one is evicted; a capacity of {@code 0} disables
+ * the cache. The index only mirrors the JCR: every writer of a mapping node updates it after the session is saved,
+ * every remover invalidates it.
+ *
+ * <p>{@link #save(Path)} writes a snapshot read back by {@link #load(Path)} on the next start. The snapshot is deleted
+ * once loaded, so that an unclean shutdown never brings back entries older than the mapping nodes.
+ */
+public final class MappingIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappingIndex.class);
+    private static final int SNAPSHOT_MAGIC = 0x43474d49;
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final int NO_DIGEST = -1;
+    private static final String NO_LANGUAGE = "";
+
+    private final int capacity;
+    // guarded by this; access order, eldest first
+    private final LinkedHashMap<Key, Value> entries;
+
+    public MappingIndex(int capacity) {
+        this.capacity = Math.max(0, capacity);
+        this.entries = new LinkedHashMap<Key, Value>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Value> eldest) {
+                return size() > MappingIndex.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached mapping of the node {@code identifier} in {@code language}, {@code null} when it has to be
+     * read from the JCR.
+     */
+    public MappingEntry get(String identifier, String language) {
+        final Key key = Key.of(identifier, language);
+        if (key == null) {
+            return null;
+        }
+        final Value value;
+        synchronized (this) {
+            value = entries.get(key);
+        }
+        return value != null ? value.toMappingEntry() : null;
+    }
+
+    /** Records the mapping of the node {@code identifier} in {@code language} as just read from or written to the JCR. */
+    public void put(String identifier, String language, MappingEntry mapping) {
+        if (capacity == 0 || mapping == null) {
+            return;
+        }
+        final Key key = Key.of(identifier, language);
+        final Value value = Value.of(mapping);
+        if (key == null || value == null) {
+            invalidate(identifier, language);
+            return;
+        }
+        synchronized (this) {
+            entries.put(key, value);
+        }
+    }
+
+    /** Forgets the mapping of the node {@code identifier} in {@code language}, whose mapping node was removed. */
+    public void invalidate(String identifier, String language) {
+        final Key key = Key.of(identifier, language);
+        if (key != null) {
+            synchronized (this) {
+                entries.remove(key);
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /** Writes the entries to {@code file}, replacing it atomically; the eldest entry comes first. */
+    public void save(Path file) throws IOException {
+        final Map<Key, Value> copy;
+        synchronized (this) {
+            copy = new LinkedHashMap<>(entries);
+        }
+        Files.createDirectories(file.getParent());
+        final Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(copy.size());
+            for (Map.Entry<Key, Value> entry : copy.entrySet()) {
+                out.writeLong(entry.getKey().mostSignificantBits);
+                out.writeLong(entry.getKey().leastSignificantBits);
+                out.writeUTF(entry.getKey().language != null ? entry.getKey().language : NO_LANGUAGE);
+                out.writeLong(entry.getValue().pageId);
+                final byte[] digest = entry.getValue().digest;
+                out.writeInt(digest != null ? digest.length : NO_DIGEST);
+                if (digest != null) {
+                    out.write(digest);
+                }
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Adds the entries of the snapshot {@code file}, then deletes it; returns the number of entries read. A missing
+     * file is not an error, an unreadable one is logged and ignored.
+     */
+    public int load(Path file) {
+        int count = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                LOGGER.warn("Ignoring mapping index snapshot {} written in an unknown format", file);
+                return 0;
+            }
+            final int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                final long mostSignificantBits = in.readLong();
+                final long leastSignificantBits = in.readLong();
+                final String language = in.readUTF();
+                final Key key = new Key(mostSignificantBits, leastSignificantBits, NO_LANGUAGE.equals(language) ? null : language);
+                final long pageId = in.readLong();
+                final int digestLength = in.readInt();
+                byte[] digest = null;
+                if (digestLength != NO_DIGEST) {
+                    digest = new byte[digestLength];
+                    in.readFully(digest);
+                }
+                if (capacity > 0) {
+                    synchronized (this) {
+                        entries.put(key, new Value(pageId, digest));
+                    }
+                }
+                count++;
+            }
+        } catch (NoSuchFileException e) {
+            return 0;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Unable to read the mapping index snapshot {}, starting cold: {}", file, e.getMessage());
+            clear();
+            count = 0;
+        } finally {
+            deleteSnapshot(file);
+        }
+        return count;
+    }
+
+    private static void deleteSnapshot(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to delete the mapping index snapshot {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static final class Key {
+
+        private final long mostSignificantBits;
+        private final long leastSignificantBits;
+        private final String language;
+
+        private Key(long mostSignificantBits, long leastSignificantBits, String language) {
+            this.mostSignificantBits = mostSignificantBits;
+            this.leastSignificantBits = leastSignificantBits;
+            this.language = language;
+        }
+
+        private static Key of(String identifier, String language) {
+            if (identifier == null) {
+                return null;
+            }
+            try {
+                final UUID uuid = UUID.fromString(identifier);
+                return new Key(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), language);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return mostSignificantBits == other.mostSignificantBits && leastSignificantBits == other.leastSignificantBits
+                    && Objects.equals(language, other.language);
+        }
+
+        @Override
+        public int hashCode() {
+            final long hash = mostSignificantBits ^ leastSignificantBits;
+            return 31 * (int) (hash ^ (hash >>> 32)) + Objects.hashCode(language);
+        }
+    }
+
+    private static final class Value {
+
+        private final long pageId;
+        private final byte[] digest;
+
+        private Value(long pageId, byte[] digest) {
+            this.pageId = pageId;
+            this.digest = digest;
+        }
+
+        private static Value of(MappingEntry mapping) {
+            if (mapping.getPageId() == null) {
+                return null;
+            }
+            try {
+                final long pageId = Long.parseLong(mapping.getPageId());
+                if (mapping.getContentDigest() == null) {
+                    return new Value(pageId, null);
+                }
+                final byte[] digest = decodeHex(mapping.getContentDigest());
+                return digest != null ? new Value(pageId, digest) : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private MappingEntry toMappingEntry() {
+            return new MappingEntry(Long.toString(pageId), digest != null ? encodeHex(digest) : null);
+        }
+    }
+
+    /** Decodes lower-case hexadecimal, as written by {@code ContentDigest}; {@code null} for anything else. */
+    private static byte[] decodeHex(String hex) {
+        if (hex.length() % 2 != 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            final int high = Character.digit(hex.charAt(2 * i), 16);
+            final int low = Character.digit(hex.charAt(2 * i + 1), 16);
+            if (high < 0 || low < 0 || Character.isUpperCase(hex.charAt(2 * i)) || Character.isUpperCase(hex.charAt(2 * i + 1))) {
+                return null;
+            }
+            bytes[i] = (byte) ((high << 4) | low);
+        }
+        return bytes;
+    }
+
+    private static String encodeHex(byte[] bytes) {
+        final char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 * i] = Character.forDigit((bytes[i] >> 4) & 0xf, 16);
+            chars[2 * i + 1] = Character.forDigit(bytes[i] & 0xf, 16);
+        }
+        return new String(chars);
+    }
+}
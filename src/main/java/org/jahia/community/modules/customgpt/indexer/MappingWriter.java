@@ -0,0 +1,149 @@
+package org.jahia.community.modules.customgpt.indexer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+import javax.jcr.RepositoryException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects the mapping nodes written by the mapping stage of an {@link Indexer} and saves them {@code batchSize} at a
+ * time, in one session with one {@code session.save()}, instead of one JCR transaction (and cluster journal entry) per
+ * page. What is left is saved by {@link #flush()} at each batch boundary of a scan and when the indexer closes its
+ * pipeline, so that mappings never wait in memory for a batch that the remaining pages will not fill.
+ *
+ * <p>When a batch cannot be saved, its mappings are saved one by one so that a single bad node does not lose the
+ * others; a mapping that still fails is logged and dropped from the {@link MappingIndex}, its page being uploaded
+ * again by the next indexation. The index is only updated once the mapping is saved; until then the mapping is
+ * published in {@link InFlightPages}, where the next indexation of the same page finds it.
+ */
+final class MappingWriter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappingWriter.class);
+
+    /** Writes mapping nodes in one session and saves it once. */
+    @FunctionalInterface
+    interface Store {
+
+        void write(List<PendingMapping> mappings) throws RepositoryException;
+    }
+
+    /** Mapping of one indexed node waiting to be saved. */
+    static final class PendingMapping {
+
+        private final String nodePath;
+        private final String identifier;
+        private final String language;
+        private final MappingEntry mapping;
+
+        PendingMapping(String nodePath, String identifier, String language, MappingEntry mapping) {
+            this.nodePath = nodePath;
+            this.identifier = identifier;
+            this.language = language;
+            this.mapping = mapping;
+        }
+
+        String getNodePath() {
+            return nodePath;
+        }
+
+        String getIdentifier() {
+            return identifier;
+        }
+
+        String getLanguage() {
+            return language;
+        }
+
+        MappingEntry getMapping() {
+            return mapping;
+        }
+    }
+
+    private final int batchSize;
+    private final Store store;
+    private final Supplier<MappingIndex> mappingIndex;
+    private final InFlightPages inFlightPages;
+    // guarded by this
+    private List<PendingMapping> pending = new ArrayList<>();
+
+    MappingWriter(int batchSize, Store store, Supplier<MappingIndex> mappingIndex, InFlightPages inFlightPages) {
+        this.batchSize = Math.max(1, batchSize);
+        this.store = store;
+        this.mappingIndex = mappingIndex;
+        this.inFlightPages = inFlightPages;
+    }
+
+    /** Queues the mapping of {@code nodePath} in {@code language}; saves the batch on the calling thread once it is full. */
+    void add(String nodePath, String identifier, String language, MappingEntry mapping) {
+        inFlightPages.unsaved(identifier, language, mapping);
+        final List<PendingMapping> full;
+        synchronized (this) {
+            pending.add(new PendingMapping(nodePath, identifier, language, mapping));
+            if (pending.size() < batchSize) {
+                return;
+            }
+            full = drain();
+        }
+        save(full);
+    }
+
+    /** Saves the mappings queued so far. */
+    void flush() {
+        final List<PendingMapping> batch;
+        synchronized (this) {
+            batch = drain();
+        }
+        if (!batch.isEmpty()) {
+            save(batch);
+        }
+    }
+
+    synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    private List<PendingMapping> drain() {
+        final List<PendingMapping> batch = pending;
+        pending = new ArrayList<>();
+        return batch;
+    }
+
+    private void save(List<PendingMapping> batch) {
+        try {
+            store.write(batch);
+            batch.forEach(this::cache);
+            LOGGER.debug("Saved {} mapping node(s)", batch.size());
+            return;
+        } catch (RepositoryException | RuntimeException e) {
+            if (batch.size() == 1) {
+                fail(batch.get(0), e);
+                return;
+            }
+            LOGGER.warn("Unable to save {} mapping nodes at once, saving them one by one: {}", batch.size(), e.getMessage());
+        }
+        for (PendingMapping mapping : batch) {
+            try {
+                store.write(Collections.singletonList(mapping));
+                cache(mapping);
+            } catch (RepositoryException | RuntimeException e) {
+                fail(mapping, e);
+            }
+        }
+    }
+
+    private void cache(PendingMapping mapping) {
+        mappingIndex.get().put(mapping.getIdentifier(), mapping.getLanguage(), mapping.getMapping());
+        inFlightPages.saved(mapping.getIdentifier(), mapping.getLanguage(), mapping.getMapping());
+    }
+
+    private void fail(PendingMapping mapping, Exception e) {
+        // the node may or may not hold the new page id, the next lookup reads it
+        mappingIndex.get().invalidate(mapping.getIdentifier(), mapping.getLanguage());
+        inFlightPages.saved(mapping.getIdentifier(), mapping.getLanguage(), mapping.getMapping());
+        LOGGER.error("Unable to write page id {} to the mapping node of {}, language {}", mapping.getMapping().getPageId(),
+                mapping.getNodePath(), mapping.getLanguage(), e);
+    }
+}
@@ -0,0 +1,113 @@
+package org.jahia.community.modules.customgpt.indexer;
+
+import java.net.URL;
+import org.jahia.community.modules.customgpt.util.RenderedPage;
+
+/**
+ * State of one page travelling through the {@link IndexingPipeline}: each stage reads what the previous ones resolved
+ * and fills in its own result. Only one worker touches a task at a time, the queues between stages publish it safely.
+ */
+final class PageIndexTask {
+
+    private final String nodePath;
+    private final String language;
+    private String identifier;
+    private URL serverUrl;
+    private String url;
+    private String title;
+    private MappingEntry existingMapping;
+    private RenderedPage page;
+    private String pageId;
+    private boolean metadataUpdated;
+    private boolean held;
+
+    PageIndexTask(String nodePath, String language) {
+        this.nodePath = nodePath;
+        this.language = language;
+    }
+
+    String getNodePath() {
+        return nodePath;
+    }
+
+    String getLanguage() {
+        return language;
+    }
+
+    /** Identifier of the node, the key of its entry in the {@link MappingIndex}. */
+    String getIdentifier() {
+        return identifier;
+    }
+
+    URL getServerUrl() {
+        return serverUrl;
+    }
+
+    String getUrl() {
+        return url;
+    }
+
+    String getTitle() {
+        return title;
+    }
+
+    void resolved(String identifier, URL serverUrl, String url, String title) {
+        this.identifier = identifier;
+        this.serverUrl = serverUrl;
+        this.url = url;
+        this.title = title;
+    }
+
+    MappingEntry getExistingMapping() {
+        return existingMapping;
+    }
+
+    void setExistingMapping(MappingEntry existingMapping) {
+        this.existingMapping = existingMapping;
+    }
+
+    RenderedPage getPage() {
+        return page;
+    }
+
+    void setPage(RenderedPage page) {
+        this.page = page;
+    }
+
+    String getPageId() {
+        return pageId;
+    }
+
+    void setPageId(String pageId) {
+        this.pageId = pageId;
+    }
+
+    boolean isMetadataUpdated() {
+        return metadataUpdated;
+    }
+
+    void setMetadataUpdated(boolean metadataUpdated) {
+        this.metadataUpdated = metadataUpdated;
+    }
+
+    /** Whether the task holds its page in {@link InFlightPages}, to be let go when it leaves the pipeline. */
+    boolean isHeld() {
+        return held;
+    }
+
+    void setHeld(boolean held) {
+        this.held = held;
+    }
+
+    /** Releases the rendered content, whether or not it was uploaded. */
+    void release() {
+        if (page != null) {
+            page.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return nodePath + (language != null ? " (" + language + ")" : "");
+    }
+}
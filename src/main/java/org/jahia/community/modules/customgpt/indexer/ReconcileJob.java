@@ -0,0 +1,31 @@
+package org.jahia.community.modules.customgpt.indexer;
+
+import org.jahia.community.modules.customgpt.service.Service;
+import org.jahia.community.modules.customgpt.service.models.ReconciliationResult;
+import org.jahia.exceptions.JahiaException;
+import org.jahia.osgi.BundleUtils;
+import org.jahia.services.scheduler.BackgroundJob;
+import org.quartz.JobExecutionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Quartz {@link BackgroundJob} that reconciles the CustomGPT project with the JCR mapping nodes.
+ * Scheduled by {@link Service#reconcileUsingJob()}; see {@link Service#reconcile()}.
+ */
+public class ReconcileJob extends BackgroundJob {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReconcileJob.class);
+
+    @Override
+    public void executeJahiaJob(JobExecutionContext jobExecutionContext) throws Exception {
+        final Service customGptService = BundleUtils.getOsgiService(Service.class, null);
+        if (customGptService == null) {
+            LOGGER.error("Reconciliation can not be executed as we did not found customGptService using the OSGI framework");
+            throw new JahiaException("Reconciliation can not be executed as we did not found customGptService using the OSGI framework", "No CustomGptService found", JahiaException.SERVICE_ERROR, JahiaException.ERROR_SEVERITY);
+        }
+        LOGGER.info("Starting reconciliation of the CustomGPT project with the mapping nodes");
+        final ReconciliationResult result = customGptService.reconcile();
+        LOGGER.info("Reconciliation complete: {}", result);
+    }
+}
@@ -1,5 +1,6 @@
 package org.jahia.community.modules.customgpt.indexer;
 
+import java.util.Calendar;
 import org.jahia.community.modules.customgpt.CustomGptConstants;
 import org.jahia.community.modules.customgpt.indexer.listener.IndexOperations;
 import org.jahia.community.modules.customgpt.service.Service;
@@ -15,17 +16,21 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Quartz {@link BackgroundJob} that performs a full-site re-indexation.
- * Scheduled by {@link Service#reIndexUsingJob(String, boolean)};
- * the target site key is read from the job's {@link org.quartz.JobDataMap}.
+ * Scheduled by {@link Service#reIndexUsingJob(String, boolean, ReindexMode)};
+ * the target site key and the {@link ReindexMode} are read from the job's {@link org.quartz.JobDataMap}.
  */
 public class ReindexJob extends BackgroundJob {
 
+    /** Job data key of the {@link ReindexMode} name; absent for jobs scheduled by earlier versions, which run in full. */
+    public static final String MODE = "mode";
     private static final Logger LOGGER = LoggerFactory.getLogger(ReindexJob.class);
 
     @Override
     public void executeJahiaJob(JobExecutionContext jobExecutionContext) throws Exception {
         final String siteKey = jobExecutionContext.getJobDetail().getJobDataMap().getString(CustomGptConstants.PROP_SITE_KEY);
-        LOGGER.info("Starting Site {} indexation job in workspace live, injecting operation into CustomGptService", siteKey);
+        final String modeName = jobExecutionContext.getJobDetail().getJobDataMap().getString(MODE);
+        final ReindexMode mode = modeName != null ? ReindexMode.valueOf(modeName) : ReindexMode.FULL;
+        LOGGER.info("Starting Site {} indexation job ({}) in workspace live, injecting operation into CustomGptService", siteKey, mode);
         final JahiaTemplatesPackage module = ServicesRegistry.getInstance().getJahiaTemplateManagerService().getTemplatePackageById(CustomGptConstants.CUSTOM_GPT_MODULE_NAME);
         if (module == null) {
             LOGGER.error("Cannot find module {}, indexation of {} cancelled", CustomGptConstants.CUSTOM_GPT_MODULE_NAME, siteKey);
@@ -43,7 +48,17 @@ public class ReindexJob extends BackgroundJob {
         }
         final String sitePath = CustomGptConstants.PATH_SITES + siteKey;
         final IndexOperations liveOperations = new IndexOperations();
-        liveOperations.addOperation(new IndexOperations.CustomGptIndexOperation(IndexOperations.CustomGptOperationType.SITE_INDEX, sitePath));
+        final IndexOperations.CustomGptIndexOperation siteIndex = new IndexOperations.CustomGptIndexOperation(IndexOperations.CustomGptOperationType.SITE_INDEX, sitePath);
+        siteIndex.setResume(mode == ReindexMode.RESUME);
+        if (mode == ReindexMode.INCREMENTAL) {
+            final Calendar since = customGptService.getLastCompletedIndexationStart(sitePath);
+            if (since != null) {
+                siteIndex.setPublishedSince(since.getTimeInMillis());
+            } else {
+                LOGGER.info("Site {} has no completed indexation yet, indexing it in full", siteKey);
+            }
+        }
+        liveOperations.addOperation(siteIndex);
         customGptService.produceSiteAsynchronousIndexations(sitePath, liveOperations);
     }
 }
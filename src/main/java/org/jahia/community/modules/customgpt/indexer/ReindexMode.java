@@ -0,0 +1,16 @@
+package org.jahia.community.modules.customgpt.indexer;
+
+/**
+ * How a {@link ReindexJob} indexes its site.
+ */
+public enum ReindexMode {
+    /** Scans and indexes the whole site. */
+    FULL,
+    /** Continues from the scan checkpoint left by an interrupted indexation, or starts over when there is none. */
+    RESUME,
+    /**
+     * Indexes only the main resources published, or with a sub-node published, since the start of the last completed
+     * indexation of the site; a full indexation when the site has never completed one.
+     */
+    INCREMENTAL
+}
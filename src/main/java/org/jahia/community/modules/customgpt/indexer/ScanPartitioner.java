@@ -0,0 +1,135 @@
+package org.jahia.community.modules.customgpt.indexer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Splits a content scan into {@code jcr:uuid} ranges and runs the resulting units concurrently.
+ *
+ * <p>Node identifiers are random UUIDs, so ranges of their first hex digit hold about the same number of nodes. The
+ * first range has no lower bound and the last no upper bound: together they cover every identifier.
+ *
+ * <p>{@link #runAll(Executor, List, Runnable)} hands every unit but the first to the executor and runs the first on
+ * the calling thread, which then runs any unit the executor has not started yet, and any unit the executor rejected.
+ * The caller never waits for a unit stuck in the executor queue; it can still wait in {@link Executor#execute} when
+ * the executor blocks on a full queue, so a scan running on a thread of that same executor must be given one that
+ * rejects instead of blocking.
+ */
+final class ScanPartitioner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScanPartitioner.class);
+    private static final int HEX_DIGITS = 16;
+
+    /** Range of {@code jcr:uuid}, from {@code from} inclusive to {@code to} exclusive; a {@code null} bound is open. */
+    static final class UuidRange {
+
+        static final UuidRange ALL = new UuidRange(null, null);
+
+        private final String from;
+        private final String to;
+
+        UuidRange(String from, String to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        String getFrom() {
+            return from;
+        }
+
+        String getTo() {
+            return to;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + (from != null ? from : "") + ", " + (to != null ? to : "") + ")";
+        }
+    }
+
+    private ScanPartitioner() {
+    }
+
+    /** Returns {@code partitions} contiguous ranges covering every identifier, at most 16. */
+    static List<UuidRange> split(int partitions) {
+        final int count = Math.max(1, Math.min(HEX_DIGITS, partitions));
+        if (count == 1) {
+            return Collections.singletonList(UuidRange.ALL);
+        }
+        final List<UuidRange> ranges = new ArrayList<>(count);
+        String from = null;
+        for (int i = 1; i <= count; i++) {
+            final String to = i < count ? Character.toString(Character.forDigit(i * HEX_DIGITS / count, HEX_DIGITS)) : null;
+            ranges.add(new UuidRange(from, to));
+            from = to;
+        }
+        return ranges;
+    }
+
+    /**
+     * Runs every unit once and waits until all are done. {@code onPoolThreadExit} runs on the executor thread after
+     * each unit it ran. Returns the failure of the first unit that threw, {@code null} if none did.
+     */
+    static Exception runAll(Executor executor, List<Callable<Void>> units, Runnable onPoolThreadExit) throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(units.size());
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        final List<Unit> claims = new ArrayList<>(units.size());
+        for (Callable<Void> unit : units) {
+            claims.add(new Unit(unit, done, failure));
+        }
+        final Thread caller = Thread.currentThread();
+        for (Unit claim : claims.subList(1, claims.size())) {
+            try {
+                executor.execute(() -> {
+                    if (claim.runIfUnclaimed() && Thread.currentThread() != caller) {
+                        onPoolThreadExit.run();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                LOGGER.debug("Scan partition not handed to the executor, running it on the calling thread: {}", e.getMessage());
+            }
+        }
+        for (Unit claim : claims) {
+            claim.runIfUnclaimed();
+        }
+        done.await();
+        return failure.get();
+    }
+
+    private static final class Unit {
+
+        private final Callable<Void> task;
+        private final CountDownLatch done;
+        private final AtomicReference<Exception> failure;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        private Unit(Callable<Void> task, CountDownLatch done, AtomicReference<Exception> failure) {
+            this.task = task;
+            this.done = done;
+            this.failure = failure;
+        }
+
+        private boolean runIfUnclaimed() {
+            if (!claimed.compareAndSet(false, true)) {
+                return false;
+            }
+            try {
+                task.call();
+            } catch (Exception e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                done.countDown();
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package org.jahia.community.modules.customgpt.indexer;
+
+import java.io.StringWriter;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.jcr.RepositoryException;
+import org.apache.commons.lang.StringUtils;
+import org.jahia.api.Constants;
+import org.jahia.community.modules.customgpt.util.HttpServletRequestMock;
+import org.jahia.community.modules.customgpt.util.HttpServletResponseMock;
+import org.jahia.community.modules.customgpt.util.Utils;
+import org.jahia.services.content.decorator.JCRSiteNode;
+import org.jahia.services.render.RenderContext;
+import org.jahia.services.sites.SitesSettings;
+import org.jahia.services.usermanager.JahiaUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * What resolving the pages of a site needs from the site node, read once per site instead of once per page: the host
+ * of its {@code sitemapIndexURL} (validated by {@link Utils#getHostName}), its active live languages, and the
+ * request, response and {@link RenderContext} used to rewrite page URLs.
+ *
+ * <p>Entries are keyed by workspace and site path, and dropped by {@link #invalidate(String)} when the listener sees
+ * the site node change. The render scaffolding is kept per thread, as a {@link RenderContext} is not thread-safe; the
+ * site node is set again on each use because JCR nodes belong to the session they were read from.
+ */
+public final class SiteContextCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SiteContextCache.class);
+
+    /** Immutable data of one site, plus the render scaffolding of each thread resolving its pages. */
+    public static final class SiteContext {
+
+        private final String hostName;
+        private final URL serverUrl;
+        private final Set<String> languages;
+        private final ThreadLocal<RenderContext> renderContexts = new ThreadLocal<>();
+
+        private SiteContext(String hostName, URL serverUrl, Set<String> languages) {
+            this.hostName = hostName;
+            this.serverUrl = serverUrl;
+            this.languages = languages;
+        }
+
+        /** Whether the site has a usable, non-internal {@code sitemapIndexURL}; its pages cannot be resolved otherwise. */
+        public boolean hasServerUrl() {
+            return serverUrl != null;
+        }
+
+        public String getHostName() {
+            return hostName;
+        }
+
+        public URL getServerUrl() {
+            return serverUrl;
+        }
+
+        /** Active EDIT languages that are not inactive in LIVE; unmodifiable. */
+        public Set<String> getLanguages() {
+            return languages;
+        }
+
+        /** Returns the render context of the calling thread for this site, set to {@code siteNode}. */
+        public RenderContext getRenderContext(JCRSiteNode siteNode, JahiaUser user) {
+            RenderContext renderContext = renderContexts.get();
+            if (renderContext == null) {
+                final HttpServletRequestMock request = new HttpServletRequestMock(new HashMap<>(), serverUrl.getHost(), serverUrl.getPath());
+                final HttpServletResponseMock response = new HttpServletResponseMock(new StringWriter());
+                renderContext = new RenderContext(request, response, user);
+                renderContexts.set(renderContext);
+            }
+            renderContext.setSite(siteNode);
+            return renderContext;
+        }
+    }
+
+    private final Map<String, SiteContext> sites = new ConcurrentHashMap<>();
+
+    /** Returns the context of {@code siteNode}, read from it on the first call for its site and workspace. */
+    public SiteContext get(JCRSiteNode siteNode) throws RepositoryException {
+        final String key = toKey(siteNode.getSession().getWorkspace().getName(), siteNode.getPath());
+        final SiteContext cached = sites.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        final SiteContext read = read(siteNode);
+        final SiteContext raced = sites.putIfAbsent(key, read);
+        return raced != null ? raced : read;
+    }
+
+    /** Drops the contexts of the site at {@code sitePath}; read again on next use. */
+    public void invalidate(String sitePath) {
+        final boolean edit = sites.remove(toKey(Constants.EDIT_WORKSPACE, sitePath)) != null;
+        final boolean live = sites.remove(toKey(Constants.LIVE_WORKSPACE, sitePath)) != null;
+        if (edit || live) {
+            LOGGER.debug("Site context of {} invalidated", sitePath);
+        }
+    }
+
+    public void clear() {
+        sites.clear();
+    }
+
+    int size() {
+        return sites.size();
+    }
+
+    private static String toKey(String workspace, String sitePath) {
+        return workspace + ':' + sitePath;
+    }
+
+    private static SiteContext read(JCRSiteNode siteNode) {
+        final String hostName = Utils.getHostName(siteNode);
+        URL serverUrl = null;
+        if (StringUtils.isEmpty(hostName)) {
+            LOGGER.warn("The host name can not be extracted from the property sitemapIndexURL of {}", siteNode.getPath());
+        } else {
+            try {
+                serverUrl = URI.create(hostName).toURL();
+            } catch (MalformedURLException | IllegalArgumentException e) {
+                LOGGER.warn("The property sitemapIndexURL of {} does not match an URL pattern, Sitemap generation won't happen", siteNode.getPath());
+            }
+        }
+        // languages contains all active EDIT languages
+        final Set<String> languages = Utils.getPropertyValuesAsSet(siteNode, SitesSettings.LANGUAGES);
+        languages.removeAll(Utils.getPropertyValuesAsSet(siteNode, SitesSettings.INACTIVE_LIVE_LANGUAGES));
+        return new SiteContext(hostName, serverUrl, Collections.unmodifiableSet(languages));
+    }
+}
@@ -14,6 +14,7 @@ import org.jahia.community.modules.customgpt.CustomGptRequest;
 import org.jahia.community.modules.customgpt.IndexRequest;
 import org.jahia.community.modules.customgpt.service.Service;
 import org.jahia.community.modules.customgpt.settings.Config;
+import org.jahia.community.modules.customgpt.settings.NodeTypeClassifier;
 import org.jahia.community.modules.customgpt.settings.NotConfiguredException;
 import org.jahia.services.content.JCRContentUtils;
 import org.jahia.services.content.JCRNodeWrapper;
@@ -122,11 +123,7 @@ public abstract class AbstractIndexBuilder implements IndexBuilder {
                 return false;
             }
 
-            for (String mrType : getIndexedMainResourceNodeTypes()) {
-                if (node.isNodeType(mrType)) {
-                    return true;
-                }
-            }
+            return classify(node).isAnyOf(getIndexedMainResourceNodeTypes());
         } catch (RepositoryException e) {
             LOGGER.warn("Unable to check if node is a main resource or not, skip indexation : {}", e.getMessage());
         }
@@ -135,11 +132,7 @@ public abstract class AbstractIndexBuilder implements IndexBuilder {
 
     private boolean isIndexedSubNodeType(JCRNodeWrapper node) throws NotConfiguredException {
         try {
-            for (String mrType : getIndexedSubNodeTypes()) {
-                if (node.isNodeType(mrType)) {
-                    return true;
-                }
-            }
+            return classify(node).isAnyOf(getIndexedSubNodeTypes());
         } catch (RepositoryException e) {
             LOGGER.warn("Unable to check if node is a main resource or not, skip indexation : {}", e.getMessage());
         }
@@ -148,29 +141,26 @@ public abstract class AbstractIndexBuilder implements IndexBuilder {
 
     @Override
     public Set<String> getIndexedMainResourceNodeTypes() throws NotConfiguredException {
-        final Set<String> mainResources = new LinkedHashSet<>();
-        mainResources.addAll(customGptConfig.getContentIndexedMainResources());
-        return mainResources;
+        return customGptConfig.getNodeTypeClassifier().getMainResourceTypes();
     }
 
     @Override
     public Set<String> getIndexedSubNodeTypes() throws NotConfiguredException {
-        return getCustomGptConfig().getContentIndexedSubNodes();
+        return getCustomGptConfig().getNodeTypeClassifier().getSubNodeTypes();
     }
 
     public boolean isNodeAccepted(JCRNodeWrapper node) throws RepositoryException, NotConfiguredException {
-        final Set<String> listOfTypes = new HashSet<>();
-        listOfTypes.addAll(getIndexedMainResourceNodeTypes());
-        listOfTypes.addAll(getIndexedSubNodeTypes());
-        for (String type : listOfTypes) {
-            if (node.isNodeType(type)) {
-                return true;
-            }
+        return isNodeAccepted(node, classify(node));
+    }
+
+    private boolean isNodeAccepted(JCRNodeWrapper node, NodeTypeClassifier.Classification classification) throws NotConfiguredException {
+        if (classification.isAnyOf(getIndexedMainResourceNodeTypes()) || classification.isAnyOf(getIndexedSubNodeTypes())) {
+            return true;
         }
-        if (node.isNodeType(Constants.JAHIANT_RESOURCE)) {
+        if (classification.isNodeType(Constants.JAHIANT_RESOURCE)) {
             // do not accept thumbnail nodes
             return !StringUtils.equals(node.getName(), "thumbnail") && !StringUtils.equals(node.getName(), "thumbnail2");
-        } else if (node.isNodeType(Constants.JAHIANT_FILE)) {
+        } else if (classification.isNodeType(Constants.JAHIANT_FILE)) {
             return fileExtensionIsAccepted(node);
         }
 
@@ -179,19 +169,15 @@ public abstract class AbstractIndexBuilder implements IndexBuilder {
 
     @Override
     public boolean isNodeAMainResource(JCRNodeWrapper node) throws RepositoryException, NotConfiguredException {
-        for (String type : getIndexedMainResourceNodeTypes()) {
-            if (node.isNodeType(type)) {
-                return true;
-            }
-        }
-        return false;
+        return classify(node).isAnyOf(getIndexedMainResourceNodeTypes());
     }
 
     @Override
     public Set<String> getNodePathsToIndex(JCRNodeWrapper node) throws RepositoryException, NotConfiguredException {
         JCRNodeWrapper nodeToIndex = null;
-        if (isNodeAccepted(node)) {
-            if (node.isNodeType(Constants.JAHIANT_RESOURCE)) {
+        final NodeTypeClassifier.Classification classification = classify(node);
+        if (isNodeAccepted(node, classification)) {
+            if (classification.isNodeType(Constants.JAHIANT_RESOURCE)) {
                 nodeToIndex = node.getParent();
             } else {
                 nodeToIndex = node;
@@ -201,6 +187,10 @@ public abstract class AbstractIndexBuilder implements IndexBuilder {
         return nodeToIndex != null ? Collections.singleton(nodeToIndex.getPath()) : Collections.<String>emptySet();
     }
 
+    private NodeTypeClassifier.Classification classify(JCRNodeWrapper node) throws RepositoryException, NotConfiguredException {
+        return customGptConfig.getNodeTypeClassifier().classify(node);
+    }
+
     public void setCustomGptService(Service customGptService) {
         this.customGptService = customGptService;
     }
@@ -214,13 +204,8 @@ public abstract class AbstractIndexBuilder implements IndexBuilder {
         this.customGptConfig = customGptConfig;
     }
 
-    private boolean fileExtensionIsAccepted(JCRNodeWrapper node) {
-        final Set<String> indexedExtensions = customGptConfig.getIndexedFileExtensions();
-        // Do not index files at all
-        if (indexedExtensions.isEmpty()) {
-            return false;
-        }
-
-        return indexedExtensions.stream().anyMatch(ext -> node.getName().endsWith("." + ext));
+    private boolean fileExtensionIsAccepted(JCRNodeWrapper node) throws NotConfiguredException {
+        // false for every file when no extension is configured
+        return customGptConfig.getSnapshot().isIndexedFileName(node.getName());
     }
 }
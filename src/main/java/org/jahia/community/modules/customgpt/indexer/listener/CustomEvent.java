@@ -30,6 +30,20 @@ public class CustomEvent implements Event {
         info.put(CustomGptConstants.PROP_CUSTOM_GPT_PAGE_ID, customGptPageId);
     }
 
+    /** Copies the data of a JCR {@code event}, so that it can be resolved once the observation dispatch has returned. */
+    public static CustomEvent copyOf(Event event) throws RepositoryException {
+        final CustomEvent copy = new CustomEvent(event.getType(), event.getIdentifier(), event.getPath());
+        final Map<?, ?> eventInfo = event.getInfo();
+        if (eventInfo != null) {
+            eventInfo.forEach((key, value) -> {
+                if (key != null && value != null) {
+                    copy.info.put(key.toString(), value.toString());
+                }
+            });
+        }
+        return copy;
+    }
+
     @Override
     public int getType() {
         return type;
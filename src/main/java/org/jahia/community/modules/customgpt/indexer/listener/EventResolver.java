@@ -0,0 +1,115 @@
+package org.jahia.community.modules.customgpt.indexer.listener;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resolves the event batches captured by {@link IndexerJCRListener} on a dedicated thread, so that the JCR observation
+ * dispatch (which runs inside publications) only pays for copying the raw event data.
+ *
+ * <p>Batches wait in a lock-free queue; the resolver thread parks while it is empty and is unparked by
+ * {@link #submit(List)}. Batches are handed to {@code resolver} one at a time, in submission order.
+ *
+ * <p>{@link #close()} stops the thread once it has resolved everything submitted before, then resolves anything left
+ * on the calling thread; batches submitted afterwards are resolved directly on the submitting thread.
+ */
+final class EventResolver {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventResolver.class);
+    private static final long IDLE_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long CLOSE_TIMEOUT_MS = 30_000L;
+
+    private final Queue<List<CustomEvent>> batches = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger backlog = new AtomicInteger();
+    private final Consumer<List<CustomEvent>> resolver;
+    private final Runnable onThreadExit;
+    private final Thread thread;
+    private volatile boolean closed;
+
+    EventResolver(String name, Consumer<List<CustomEvent>> resolver, Runnable onThreadExit) {
+        this.resolver = resolver;
+        this.onThreadExit = onThreadExit;
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /** Queues {@code batch} for resolution and returns at once. */
+    void submit(List<CustomEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (closed) {
+            resolve(batch);
+            return;
+        }
+        backlog.incrementAndGet();
+        batches.add(batch);
+        LockSupport.unpark(thread);
+        if (closed) {
+            // close() may have drained the queue before this batch was added
+            drain();
+        }
+    }
+
+    /** Returns the number of batches captured but not resolved yet. */
+    int getBacklog() {
+        return backlog.get();
+    }
+
+    /** Resolves what was submitted so far and stops the resolver thread. */
+    void close() {
+        closed = true;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(CLOSE_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            LOGGER.warn("The listener event resolver did not stop within {} ms", CLOSE_TIMEOUT_MS);
+        }
+        // left by a resolver that timed out, or submitted while it was stopping
+        drain();
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                if (!drain()) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+            }
+            drain();
+        } finally {
+            onThreadExit.run();
+        }
+    }
+
+    /** Resolves the queued batches; returns {@code false} when there was none. */
+    private boolean drain() {
+        boolean resolved = false;
+        List<CustomEvent> batch;
+        while ((batch = batches.poll()) != null) {
+            backlog.decrementAndGet();
+            resolve(batch);
+            resolved = true;
+        }
+        return resolved;
+    }
+
+    private void resolve(List<CustomEvent> batch) {
+        try {
+            resolver.accept(batch);
+        } catch (RuntimeException e) {
+            LOGGER.error("Unable to resolve {} listener event(s)", batch.size(), e);
+        }
+    }
+}
@@ -29,6 +29,8 @@ public class IndexOperations implements Serializable {
         String uuid;
         String siteKey;
         String customGptPageId;
+        boolean resume;
+        Long publishedSince;
 
         public CustomGptIndexOperation(CustomGptOperationType type, String nodePath, String sourcePath, String uuid, String siteKey) {
             this.type = type;
@@ -100,6 +102,27 @@ public class IndexOperations implements Serializable {
             return customGptPageId;
         }
 
+        /** Whether a {@code SITE_INDEX} continues from the scan checkpoint of the site instead of starting over. */
+        public boolean isResume() {
+            return resume;
+        }
+
+        public void setResume(boolean resume) {
+            this.resume = resume;
+        }
+
+        /**
+         * Epoch millis from which a {@code SITE_INDEX} only indexes the content published afterwards; {@code null} for
+         * a full indexation.
+         */
+        public Long getPublishedSince() {
+            return publishedSince;
+        }
+
+        public void setPublishedSince(Long publishedSince) {
+            this.publishedSince = publishedSince;
+        }
+
         public String getSiteKey() {
             if (siteKey == null) {
                 return StringUtils.substringBefore(StringUtils.substringAfterLast(nodePath, CustomGptConstants.PATH_SITES), CustomGptConstants.PATH_DELIMITER);
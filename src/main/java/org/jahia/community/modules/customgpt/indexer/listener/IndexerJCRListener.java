@@ -1,6 +1,8 @@
 package org.jahia.community.modules.customgpt.indexer.listener;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import javax.jcr.RepositoryException;
@@ -10,9 +12,9 @@ import org.jahia.api.Constants;
 import org.jahia.community.modules.customgpt.CustomGptConstants;
 import org.jahia.community.modules.customgpt.service.Service;
 import org.jahia.community.modules.customgpt.settings.Config;
+import org.jahia.community.modules.customgpt.settings.NodeTypeClassifier;
 import org.jahia.community.modules.customgpt.settings.NotConfiguredException;
 import org.jahia.services.content.*;
-import org.jahia.services.content.JCRObservationManager.EventWrapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -21,20 +23,35 @@ import org.slf4j.LoggerFactory;
  * Listens to node add/remove and property change events; a {@code j:lastPublished} property change
  * is the trigger for an index operation, while a NODE_REMOVED event (or trash move) triggers a delete.
  * Nodes carrying {@code jmix:skipCustomGptIndexation} are excluded.
+ * Events that cannot lead to an operation are dropped by type and path before any JCR access. The observation thread
+ * only copies the events left into an {@link EventResolver}, whose own thread resolves each batch in a single system
+ * session and cleans up the mapping nodes, so that a large publication does not pay for either inline.
+ * The operations of successive event batches go through an {@link OperationCoalescer}, so that a page published
+ * several times within {@code listener.coalesceWindowMs} is indexed once.
+ * Site nodes are listened to as well, only to drop the cached context of a site whose properties change.
  */
 public class IndexerJCRListener extends DefaultEventListener {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(IndexerJCRListener.class);
     private static final int PROPERTY_EVENTS = Event.PROPERTY_CHANGED + Event.PROPERTY_ADDED + Event.PROPERTY_REMOVED;
+    private static final String LAST_PUBLISHED_SUFFIX = "/j:lastPublished";
+    private static final String MIXIN_TYPES_SUFFIX = CustomGptConstants.PATH_DELIMITER + Constants.JCR_MIXINTYPES;
+    private static final String SITES_PREFIX = "/sites/";
     private final Config customGptConfig;
     private final Service service;
+    private final OperationCoalescer coalescer;
+    private final EventResolver resolver;
 
     public IndexerJCRListener(boolean availableDuringPublish, Service customGptService, Config customGptConfig) {
         super();
         this.customGptConfig = customGptConfig;
         this.availableDuringPublish = availableDuringPublish;
         this.service = customGptService;
+        this.coalescer = new OperationCoalescer(customGptConfig.getListenerCoalesceWindowMs(),
+                customGptConfig.getListenerCoalesceMaxOperations(), operations -> service.produceAsynchronousOperations(operations));
+        this.resolver = new EventResolver("customgpt-listener-resolver", this::resolveBatch, service::releaseThreadState);
         propertiesToIgnore.add(CustomGptConstants.PROP_CUSTOM_GPT_PAGE_ID);
+        propertiesToIgnore.add(CustomGptConstants.PROP_CUSTOM_GPT_CONTENT_DIGEST);
         propertiesToIgnore.add(Constants.JCR_MIXINTYPES);
         setWorkspace(Constants.LIVE_WORKSPACE);
 
@@ -46,6 +63,8 @@ public class IndexerJCRListener extends DefaultEventListener {
         try {
             nodeTypes.addAll(service.getIndexedMainResourceNodeTypes());
             nodeTypes.addAll(service.getIndexedSubNodeTypes());
+            // for the invalidation of the site contexts
+            nodeTypes.add(Constants.JAHIANT_VIRTUALSITE);
         } catch (NotConfiguredException ex) {
             LOGGER.error("Issue retrieving node types", ex);
         }
@@ -60,33 +79,94 @@ public class IndexerJCRListener extends DefaultEventListener {
     @Override
     public void onEvent(EventIterator events) {
         try {
-            final IndexOperations customGptIndexOperations = new IndexOperations();
+            final List<CustomEvent> relevantEvents = new ArrayList<>();
             while (events.hasNext()) {
-                final EventWrapper event = (EventWrapper) events.nextEvent();
-                if (!service.acceptablePathToIndex(event.getPath())) {
-                    continue;
+                final Event event = events.nextEvent();
+                final String path = event.getPath();
+                final String sitePath = getChangedSitePath(event.getType(), path);
+                if (sitePath != null) {
+                    service.getSiteContexts().invalidate(sitePath);
+                }
+                if (service.acceptablePathToIndex(path) && isRelevant(event.getType(), path)) {
+                    relevantEvents.add(CustomEvent.copyOf(event));
                 }
-                handleSingleEvent(event, customGptIndexOperations);
-            }
-            if (!customGptIndexOperations.getOperations().isEmpty()) {
-                LOGGER.debug("Triggering {} index operation(s)", customGptIndexOperations.getOperations().size());
-                service.produceAsynchronousOperations(customGptIndexOperations);
             }
+            resolver.submit(relevantEvents);
         } catch (RepositoryException ex) {
             LOGGER.error("Error processing events in the customGpt listener", ex);
         }
     }
 
-    private void handleSingleEvent(EventWrapper event, IndexOperations customGptIndexOperations) throws RepositoryException {
+    /** Resolves one captured batch on the resolver thread, in a single system session, and queues its operations. */
+    private void resolveBatch(List<CustomEvent> events) {
+        final IndexOperations customGptIndexOperations = new IndexOperations();
+        try {
+            // one configuration for the whole batch
+            final NodeTypeClassifier classifier = customGptConfig.getSnapshot().getNodeTypeClassifier();
+            JCRTemplate.getInstance().doExecuteWithSystemSessionAsUser(null, Constants.LIVE_WORKSPACE, null, session -> {
+                for (CustomEvent event : events) {
+                    handleSingleEvent(session, classifier, event, customGptIndexOperations);
+                }
+                return null;
+            });
+        } catch (RepositoryException | NotConfiguredException ex) {
+            LOGGER.error("Error processing events in the customGpt listener", ex);
+        }
+        if (!customGptIndexOperations.getOperations().isEmpty()) {
+            LOGGER.debug("Triggering {} index operation(s)", customGptIndexOperations.getOperations().size());
+            coalescer.add(customGptIndexOperations);
+        }
+    }
+
+    /**
+     * Tells from its type and path alone whether an event can lead to an index operation, before any JCR access:
+     * outside the trash, only a removed node, a {@code j:lastPublished} added or changed, and a {@code jcr:mixinTypes}
+     * change (which may add {@code jmix:skipCustomGptIndexation}) can. Every event of the trash is kept.
+     */
+    static boolean isRelevant(int type, String path) {
+        if (path.startsWith("/trash-")) {
+            return true;
+        }
+        switch (type) {
+            case Event.NODE_REMOVED:
+                return true;
+            case Event.PROPERTY_ADDED:
+                return path.endsWith(LAST_PUBLISHED_SUFFIX);
+            case Event.PROPERTY_CHANGED:
+                return path.endsWith(LAST_PUBLISHED_SUFFIX) || path.endsWith(MIXIN_TYPES_SUFFIX);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns the path of the site whose node this event changes or removes, {@code null} when the event is not on a
+     * site node: a property of {@code /sites/<key>}, or the removal of {@code /sites/<key>} itself.
+     */
+    static String getChangedSitePath(int type, String path) {
+        if (!path.startsWith(SITES_PREFIX)) {
+            return null;
+        }
+        final int siteEnd = path.indexOf(CustomGptConstants.PATH_DELIMITER, SITES_PREFIX.length());
+        if ((type & PROPERTY_EVENTS) != 0) {
+            return siteEnd > SITES_PREFIX.length() && path.indexOf(CustomGptConstants.PATH_DELIMITER, siteEnd + 1) < 0
+                    ? path.substring(0, siteEnd)
+                    : null;
+        }
+        return type == Event.NODE_REMOVED && siteEnd < 0 && path.length() > SITES_PREFIX.length() ? path : null;
+    }
+
+    private void handleSingleEvent(JCRSessionWrapper session, NodeTypeClassifier classifier, CustomEvent event,
+            IndexOperations customGptIndexOperations) throws RepositoryException {
         final String path = event.getPath();
         final String nodePath = computeNodePath(path, event.getType());
 
-        if (isSkipIndexMixinChange(event)) {
-            handleSkipIndexMixinEvent(event, nodePath, customGptIndexOperations);
+        if (isMixinChange(event)) {
+            handleSkipIndexMixinEvent(session, classifier, event, nodePath, customGptIndexOperations);
         } else if (event.getPath().startsWith("/trash-")) {
-            handleTrashEvent(event, nodePath, customGptIndexOperations);
+            handleTrashEvent(session, classifier, event, nodePath, customGptIndexOperations);
         } else {
-            handleRegularEvent(event, nodePath, customGptIndexOperations);
+            handleRegularEvent(session, classifier, event, nodePath, customGptIndexOperations);
         }
     }
 
@@ -99,82 +179,68 @@ public class IndexerJCRListener extends DefaultEventListener {
         return path;
     }
 
-    private static boolean isSkipIndexMixinChange(EventWrapper event) throws RepositoryException {
-        return event.getPath().endsWith(Constants.JCR_MIXINTYPES)
-                && event.getType() == Event.PROPERTY_CHANGED
-                && event.getNodeTypes().contains(CustomGptConstants.MIX_SKIP_INDEX);
+    private static boolean isMixinChange(Event event) throws RepositoryException {
+        return event.getPath().endsWith(Constants.JCR_MIXINTYPES) && event.getType() == Event.PROPERTY_CHANGED;
     }
 
-    private void handleSkipIndexMixinEvent(EventWrapper event, String nodePath, IndexOperations customGptIndexOperations) throws RepositoryException {
+    private void handleSkipIndexMixinEvent(JCRSessionWrapper session, NodeTypeClassifier classifier, CustomEvent event, String nodePath,
+            IndexOperations customGptIndexOperations) throws RepositoryException {
         final String identifier = event.getIdentifier();
         try {
-            JCRTemplate.getInstance().doExecuteWithSystemSessionAsUser(null, Constants.LIVE_WORKSPACE, null, session -> {
-                try {
-                    final JCRNodeWrapper nodeWrapper = session.getNodeByIdentifier(identifier);
-                    if (isMainResourceType(nodeWrapper)) {
-                        tryQueueMappingRemoval(nodeWrapper, identifier, customGptIndexOperations);
-                    } else if (isSubNodeType(nodeWrapper)) {
-                        processEvent(new CustomEvent(Event.NODE_REMOVED, identifier, nodePath), nodePath, customGptIndexOperations);
-                    }
-                } catch (RepositoryException | NotConfiguredException e) {
-                    LOGGER.warn("Error processing JCR event for skip-index mixin on node {}", identifier, e);
-                }
-                return null;
-            });
+            final JCRNodeWrapper nodeWrapper = session.getNodeByIdentifier(identifier);
+            final NodeTypeClassifier.Classification classification = classifier.classify(nodeWrapper);
+            if (!classification.isNodeType(CustomGptConstants.MIX_SKIP_INDEX)) {
+                // another mixin changed, nothing to index
+                return;
+            }
+            if (classification.isMainResource()) {
+                tryQueueMappingRemoval(nodeWrapper, identifier, customGptIndexOperations);
+            } else if (classification.isSubNode()) {
+                processEvent(new CustomEvent(Event.NODE_REMOVED, identifier, nodePath), nodePath, customGptIndexOperations);
+            }
         } catch (RepositoryException e) {
-            LOGGER.warn("Error executing session for skip-index mixin on node {}", identifier, e);
+            LOGGER.warn("Error processing JCR event for skip-index mixin on node {}", identifier, e);
         }
     }
 
-    private void handleTrashEvent(EventWrapper event, String nodePath, IndexOperations customGptIndexOperations) throws RepositoryException {
+    private void handleTrashEvent(JCRSessionWrapper session, NodeTypeClassifier classifier, CustomEvent event, String nodePath,
+            IndexOperations customGptIndexOperations) throws RepositoryException {
         final String identifier = event.getIdentifier();
         // srcAbsPath is the original site path before the node was moved to trash
         final String originalPath = (String) event.getInfo().get("srcAbsPath");
         try {
-            JCRTemplate.getInstance().doExecuteWithSystemSessionAsUser(null, Constants.LIVE_WORKSPACE, null, session -> {
-                try {
-                    final JCRNodeWrapper nodeWrapper = session.getNodeByIdentifier(identifier);
-                    if (isMainResourceType(nodeWrapper)) {
-                        if (originalPath != null) {
-                            findAndQueueMappingRemoval(originalPath, customGptIndexOperations);
-                        } else {
-                            LOGGER.warn("Cannot determine original path for deleted node {}, skipping CustomGPT cleanup", identifier);
-                        }
-                    } else if (isSubNodeType(nodeWrapper)) {
-                        processEvent(new CustomEvent(Event.NODE_REMOVED, identifier, nodePath), nodePath, customGptIndexOperations);
-                    }
-                } catch (RepositoryException | NotConfiguredException e) {
-                    LOGGER.warn("Error processing trash JCR event for node {}", identifier, e);
+            final JCRNodeWrapper nodeWrapper = session.getNodeByIdentifier(identifier);
+            final NodeTypeClassifier.Classification classification = classifier.classify(nodeWrapper);
+            if (classification.isMainResource()) {
+                if (originalPath != null) {
+                    findAndQueueMappingRemoval(originalPath, customGptIndexOperations);
+                } else {
+                    LOGGER.warn("Cannot determine original path for deleted node {}, skipping CustomGPT cleanup", identifier);
                 }
-                return null;
-            });
+            } else if (classification.isSubNode()) {
+                processEvent(new CustomEvent(Event.NODE_REMOVED, identifier, nodePath), nodePath, customGptIndexOperations);
+            }
         } catch (RepositoryException e) {
-            LOGGER.warn("Error executing session for trash event on node {}", identifier, e);
+            LOGGER.warn("Error processing trash JCR event for node {}", identifier, e);
         }
     }
 
-    private void handleRegularEvent(EventWrapper event, String nodePath, IndexOperations customGptIndexOperations) throws RepositoryException {
+    private void handleRegularEvent(JCRSessionWrapper session, NodeTypeClassifier classifier, CustomEvent event, String nodePath,
+            IndexOperations customGptIndexOperations) {
         try {
-            JCRTemplate.getInstance().doExecuteWithSystemSessionAsUser(null, Constants.LIVE_WORKSPACE, null, session -> {
-                try {
-                    final JCRNodeWrapper nodeWrapper = session.getNodeByIdentifier(event.getIdentifier());
-                    final Set<String> mainResourceTypes = customGptConfig.getContentIndexedMainResources();
-                    if (isNodeOfAnyType(nodeWrapper, mainResourceTypes)) {
-                        processEvent(event, nodePath, customGptIndexOperations);
-                    } else if (isSubNodeType(nodeWrapper)) {
-                        queueIndexationForSubNodeParents(event, nodeWrapper, mainResourceTypes, customGptIndexOperations);
-                    }
-                } catch (RepositoryException | NotConfiguredException e) {
-                    LOGGER.error("Error processing events in the customGpt listener", e);
-                }
-                return null;
-            });
+            final JCRNodeWrapper nodeWrapper = session.getNodeByIdentifier(event.getIdentifier());
+            final NodeTypeClassifier.Classification classification = classifier.classify(nodeWrapper);
+            if (classification.isMainResource()) {
+                processEvent(event, nodePath, customGptIndexOperations);
+            } else if (classification.isSubNode()) {
+                queueIndexationForSubNodeParents(event, nodeWrapper, classifier.getMainResourceTypes(), customGptIndexOperations);
+            }
         } catch (RepositoryException e) {
-            LOGGER.error("Error executing session in customGpt listener", e);
+            LOGGER.error("Error processing events in the customGpt listener", e);
         }
     }
 
-    private void queueIndexationForSubNodeParents(EventWrapper event, JCRNodeWrapper nodeWrapper,
+    private void queueIndexationForSubNodeParents(Event event, JCRNodeWrapper nodeWrapper,
             Set<String> mainResourceTypes, IndexOperations customGptIndexOperations)
             throws RepositoryException {
         for (String mainResourceType : mainResourceTypes) {
@@ -185,23 +251,6 @@ public class IndexerJCRListener extends DefaultEventListener {
         }
     }
 
-    private boolean isMainResourceType(JCRNodeWrapper nodeWrapper) throws RepositoryException, NotConfiguredException {
-        return isNodeOfAnyType(nodeWrapper, customGptConfig.getContentIndexedMainResources());
-    }
-
-    private boolean isSubNodeType(JCRNodeWrapper nodeWrapper) throws RepositoryException, NotConfiguredException {
-        return isNodeOfAnyType(nodeWrapper, customGptConfig.getContentIndexedSubNodes());
-    }
-
-    private static boolean isNodeOfAnyType(JCRNodeWrapper nodeWrapper, Set<String> nodeTypes) throws RepositoryException {
-        for (String type : nodeTypes) {
-            if (nodeWrapper.isNodeType(type)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     private void processEvent(Event event, String nodePath, IndexOperations customGptIndexOperations)
             throws RepositoryException {
         switch (event.getType()) {
@@ -216,7 +265,7 @@ public class IndexerJCRListener extends DefaultEventListener {
                 break;
             case Event.PROPERTY_ADDED:
             case Event.PROPERTY_CHANGED:
-                if (event.getPath().endsWith("/j:lastPublished")) {
+                if (event.getPath().endsWith(LAST_PUBLISHED_SUFFIX)) {
                     addIndexOperation(nodePath, customGptIndexOperations);
                 }
                 break;
@@ -232,16 +281,32 @@ public class IndexerJCRListener extends DefaultEventListener {
     private void findAndQueueMappingRemoval(String nodePath, IndexOperations operations) {
         try {
             JCRTemplate.getInstance().doExecuteWithSystemSessionAsUser(null, Constants.EDIT_WORKSPACE, null, editSession -> {
-                final String mappingPath = CustomGptConstants.buildMappingPath(nodePath);
-                if (editSession.nodeExists(mappingPath)) {
-                    final JCRNodeWrapper mappingNode = editSession.getNode(mappingPath);
+                if (!editSession.nodeExists(nodePath)) {
+                    return null;
+                }
+                final JCRNodeWrapper node = editSession.getNode(nodePath);
+                // one mapping node per language, plus the shared one of files and older indexations
+                final List<JCRNodeWrapper> mappingNodes = new ArrayList<>();
+                for (JCRNodeWrapper child : node.getNodes(CustomGptConstants.CUSTOMGPT_INDEX_NODE_NAME + "*")) {
+                    if (child.isNodeType(CustomGptConstants.NT_CUSTOM_GPT_INDEX_ENTRY)) {
+                        mappingNodes.add(child);
+                    }
+                }
+                if (mappingNodes.isEmpty()) {
+                    return null;
+                }
+                final List<String> languages = new ArrayList<>(mappingNodes.size());
+                for (JCRNodeWrapper mappingNode : mappingNodes) {
                     if (mappingNode.hasProperty(CustomGptConstants.PROP_CUSTOM_GPT_PAGE_ID)) {
                         final String pageId = mappingNode.getProperty(CustomGptConstants.PROP_CUSTOM_GPT_PAGE_ID).getString();
                         processEvent(new CustomEvent(Event.NODE_REMOVED, null, null, pageId), null, operations);
                     }
+                    languages.add(CustomGptConstants.getMappingLanguage(mappingNode.getName()));
                     mappingNode.remove();
-                    editSession.save();
                 }
+                editSession.save();
+                final String identifier = node.getIdentifier();
+                languages.forEach(language -> service.getMappingIndex().invalidate(identifier, language));
                 return null;
             });
         } catch (RepositoryException e) {
@@ -257,6 +322,15 @@ public class IndexerJCRListener extends DefaultEventListener {
         }
     }
 
+    /**
+     * Resolves the events still captured and dispatches the operations held by the coalescing window; called once the
+     * listener is unregistered.
+     */
+    public void close() {
+        resolver.close();
+        coalescer.close();
+    }
+
     @Override
     public String toString() {
         return IndexerJCRListener.class.getName() + "[workspace: " + getWorkspace() + "]";
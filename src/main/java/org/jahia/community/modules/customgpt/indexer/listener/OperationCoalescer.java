@@ -0,0 +1,179 @@
+package org.jahia.community.modules.customgpt.indexer.listener;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.jahia.community.modules.customgpt.indexer.listener.IndexOperations.CustomGptIndexOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Merges the operations of successive listener event batches before they reach the executor.
+ *
+ * <p>The first operation received opens a window of {@code windowMs}; everything received until it closes is merged
+ * per node path and dispatched as one {@link IndexOperations}. Several {@code NODE_INDEX} of a path collapse into one,
+ * and a {@code NODE_REMOVE} cancels the pending {@code NODE_INDEX} of its path. An index received after a remove is
+ * kept and runs after it, as the node was published again. The window is dispatched early once it holds
+ * {@code maxOperations} operations, on the thread adding the last ones.
+ *
+ * <p>With a window of {@code 0} every batch is dispatched as it is added.
+ */
+final class OperationCoalescer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OperationCoalescer.class);
+
+    private final long windowMs;
+    private final int maxOperations;
+    private final Consumer<IndexOperations> sink;
+    private final ScheduledExecutorService scheduler;
+    // guarded by this
+    private final Map<String, PathOperations> byPath = new LinkedHashMap<>();
+    private final Set<CustomGptIndexOperation> others = new LinkedHashSet<>();
+    private ScheduledFuture<?> scheduledFlush;
+    private int pendingCount;
+    private int receivedCount;
+    private boolean closed;
+
+    OperationCoalescer(long windowMs, int maxOperations, Consumer<IndexOperations> sink) {
+        this.windowMs = windowMs;
+        this.maxOperations = Math.max(1, maxOperations);
+        this.sink = sink;
+        this.scheduler = windowMs > 0 ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "customgpt-listener-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    /** Adds the operations of one event batch to the current window. */
+    void add(IndexOperations operations) {
+        if (operations.isEmpty()) {
+            return;
+        }
+        final IndexOperations full;
+        synchronized (this) {
+            if (scheduler == null || closed) {
+                full = operations;
+            } else {
+                for (CustomGptIndexOperation operation : operations.getOperations()) {
+                    merge(operation);
+                }
+                if (pendingCount >= maxOperations) {
+                    full = drain();
+                } else {
+                    if (scheduledFlush == null && pendingCount > 0) {
+                        scheduledFlush = scheduler.schedule(this::flush, windowMs, TimeUnit.MILLISECONDS);
+                    }
+                    full = null;
+                }
+            }
+        }
+        dispatch(full);
+    }
+
+    /** Dispatches the current window now. */
+    void flush() {
+        final IndexOperations merged;
+        synchronized (this) {
+            merged = drain();
+        }
+        dispatch(merged);
+    }
+
+    synchronized int getPendingCount() {
+        return pendingCount;
+    }
+
+    /** Dispatches the current window and stops the timer; batches added afterwards are dispatched directly. */
+    void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        flush();
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void merge(CustomGptIndexOperation operation) {
+        receivedCount++;
+        switch (operation.getType()) {
+            case NODE_INDEX:
+                final PathOperations indexed = byPath.computeIfAbsent(keyOf(operation), key -> new PathOperations());
+                if (indexed.index == null) {
+                    indexed.index = operation;
+                    pendingCount++;
+                }
+                break;
+            case NODE_REMOVE:
+                final PathOperations removed = byPath.computeIfAbsent(keyOf(operation), key -> new PathOperations());
+                if (removed.index != null) {
+                    removed.index = null;
+                    pendingCount--;
+                }
+                if (removed.removes.add(operation)) {
+                    pendingCount++;
+                }
+                break;
+            default:
+                if (others.add(operation)) {
+                    pendingCount++;
+                }
+                break;
+        }
+    }
+
+    private IndexOperations drain() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        if (pendingCount == 0) {
+            byPath.clear();
+            receivedCount = 0;
+            return null;
+        }
+        final IndexOperations merged = new IndexOperations();
+        for (PathOperations operations : byPath.values()) {
+            operations.removes.forEach(merged::addOperation);
+            if (operations.index != null) {
+                merged.addOperation(operations.index);
+            }
+        }
+        others.forEach(merged::addOperation);
+        LOGGER.debug("Coalesced {} listener operation(s) into {}", receivedCount, merged.getOperations().size());
+        byPath.clear();
+        others.clear();
+        pendingCount = 0;
+        receivedCount = 0;
+        return merged;
+    }
+
+    private void dispatch(IndexOperations operations) {
+        if (operations == null) {
+            return;
+        }
+        try {
+            sink.accept(operations);
+        } catch (RuntimeException e) {
+            LOGGER.error("Unable to dispatch {} listener operation(s)", operations.getOperations().size(), e);
+        }
+    }
+
+    private static String keyOf(CustomGptIndexOperation operation) {
+        // removals resolved from a mapping node carry a page id but no path
+        return operation.getNodePath() != null ? operation.getNodePath() : "#" + operation.getCustomGptPageId();
+    }
+
+    private static final class PathOperations {
+
+        private final Set<CustomGptIndexOperation> removes = new LinkedHashSet<>();
+        private CustomGptIndexOperation index;
+    }
+}
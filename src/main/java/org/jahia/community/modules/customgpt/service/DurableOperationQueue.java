@@ -0,0 +1,280 @@
+package org.jahia.community.modules.customgpt.service;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.jahia.community.modules.customgpt.CustomGptConstants;
+import org.jahia.community.modules.customgpt.indexer.listener.IndexOperations;
+import org.jahia.community.modules.customgpt.indexer.listener.IndexOperations.CustomGptIndexOperation;
+import org.jahia.community.modules.customgpt.indexer.listener.IndexOperations.CustomGptOperationType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Queue of indexation operations backed by an {@link OperationLog}.
+ *
+ * <p>{@link #enqueue(IndexOperations)} writes the operations to the log before anything runs; the queue then reads
+ * entries back, oldest first, and hands them to its {@link Dispatcher}, with at most {@code window} entries dispatched
+ * at a time. An entry is acknowledged in the log once its operations have run, so whatever is still queued or running
+ * when the service stops is dispatched again, from the log, when it starts. A multi-hour backlog thus lives on disk
+ * and only the dispatched window is held on heap.
+ *
+ * <p>Nothing is dispatched while {@code dispatchAllowed} is {@code false} (the CustomGPT circuit breaker is open);
+ * entries the dispatcher reports as not done (refused by a full executor, API unavailable) stay pending, set aside
+ * until the next {@link #pump()} (the circuit closing again), at the latest {@value #RETRY_DELAY_SECONDS} seconds
+ * later, so that they are not dispatched again in a loop by the entries completing meanwhile. An entry
+ * that fails is retried the same way; after {@link CustomGptConstants#MAX_RETRIES} failures it is acknowledged and
+ * its completion fails.
+ *
+ * <p>A whole site indexation is one entry. When such an entry is dispatched again, left by the previous run or not
+ * done the first time, its full scans are marked to resume from the checkpoint of the site instead of starting over.
+ */
+final class DurableOperationQueue {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DurableOperationQueue.class);
+    private static final long FLUSH_INTERVAL_SECONDS = 1L;
+    private static final long COMPACTION_INTERVAL_SECONDS = 30L;
+    private static final long RETRY_DELAY_SECONDS = 10L;
+
+    /** Runs the operations of one entry. */
+    @FunctionalInterface
+    interface Dispatcher {
+        /**
+         * Returns a future completed with {@code false} when the operations did not run and must be dispatched again
+         * later, {@code true} once they are done with, or exceptionally when they failed.
+         */
+        CompletableFuture<Boolean> dispatch(IndexOperations operations);
+    }
+
+    private final String name;
+    private final OperationLog log;
+    private final int window;
+    private final Dispatcher dispatcher;
+    private final BooleanSupplier dispatchAllowed;
+    private final ScheduledExecutorService maintenance;
+    // entries below this id were appended by an earlier run
+    private final long firstNewId;
+    // guarded by this
+    private final Set<Long> dispatched = new HashSet<>();
+    private final Map<Long, CompletableFuture<Void>> completions = new HashMap<>();
+    private final Map<Long, Integer> failures = new HashMap<>();
+    private final Set<Long> attempted = new HashSet<>();
+    // not done, waiting for the next pump
+    private final Set<Long> deferred = new HashSet<>();
+    private boolean dispatching = true;
+    private boolean closed;
+
+    DurableOperationQueue(String name, OperationLog log, int window, Dispatcher dispatcher, BooleanSupplier dispatchAllowed) {
+        this.name = name;
+        this.log = log;
+        this.window = Math.max(1, window);
+        this.dispatcher = dispatcher;
+        this.dispatchAllowed = dispatchAllowed;
+        this.firstNewId = log.getNextId();
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "customgpt-oplog-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        // a task that throws is never run again: both catch everything they can recover from
+        maintenance.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        maintenance.scheduleWithFixedDelay(this::compact, COMPACTION_INTERVAL_SECONDS, COMPACTION_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Writes {@code operations} to the log and dispatches them when the window allows. The returned future completes
+     * once they have run in this JVM; it never completes if the service stops first.
+     *
+     * @throws IOException when the operations cannot be written to the log
+     */
+    CompletableFuture<Void> enqueue(IndexOperations operations) throws IOException {
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        synchronized (this) {
+            if (closed) {
+                throw new IOException("Operation queue " + name + " is closed");
+            }
+            completions.put(log.append(operations), done);
+        }
+        dispatchPending();
+        return done;
+    }
+
+    /** Dispatches pending entries, the ones set aside as not done included, until the window is full or none is left. */
+    void pump() {
+        synchronized (this) {
+            deferred.clear();
+        }
+        dispatchPending();
+    }
+
+    private void dispatchPending() {
+        while (true) {
+            final long id;
+            final IndexOperations operations;
+            synchronized (this) {
+                if (!dispatching || dispatched.size() >= window || !dispatchAllowed.getAsBoolean()) {
+                    return;
+                }
+                final Long next = nextUndispatched();
+                if (next == null) {
+                    return;
+                }
+                try {
+                    operations = log.read(next);
+                } catch (IOException e) {
+                    LOGGER.error("Unable to read entry {} of the operation log {}, dropping it", next, name, e);
+                    acknowledge(next);
+                    continue;
+                }
+                id = next;
+                dispatched.add(id);
+                if ((id < firstNewId || !attempted.add(id)) && operations != null) {
+                    resumeSiteScans(operations);
+                }
+            }
+            dispatch(id, operations);
+        }
+    }
+
+    /** Returns the number of pending entries not dispatched yet. */
+    synchronized int getBacklog() {
+        return closed ? 0 : log.getPendingCount() - dispatched.size();
+    }
+
+    /** Stops dispatching entries; the ones already dispatched are still acknowledged when they complete. */
+    synchronized void stopDispatching() {
+        dispatching = false;
+    }
+
+    /** Closes the log; entries that complete afterwards stay pending and run again on the next start. */
+    synchronized void close() {
+        if (closed) {
+            return;
+        }
+        dispatching = false;
+        closed = true;
+        maintenance.shutdownNow();
+        final int pending = log.getPendingCount();
+        log.close();
+        if (pending > 0) {
+            LOGGER.info("Operation queue {} closed with {} pending entries, they will run on the next start", name, pending);
+        }
+    }
+
+    private Long nextUndispatched() {
+        // dispatched and deferred entries are pending too, so the first of them + 1 pending ids contain another if any
+        for (Long id : log.getPendingIds(dispatched.size() + deferred.size() + 1)) {
+            if (!dispatched.contains(id) && !deferred.contains(id)) {
+                return id;
+            }
+        }
+        return null;
+    }
+
+    private void dispatch(long id, IndexOperations operations) {
+        CompletableFuture<Boolean> outcome;
+        if (operations == null) {
+            outcome = CompletableFuture.completedFuture(Boolean.TRUE);
+        } else {
+            try {
+                outcome = dispatcher.dispatch(operations);
+            } catch (RuntimeException e) {
+                outcome = CompletableFuture.failedFuture(e);
+            }
+        }
+        // async: the next dispatch must not run on, and possibly wait for, the worker that completed this one
+        outcome.whenCompleteAsync((done, failure) -> onOutcome(id, done, failure));
+    }
+
+    private void onOutcome(long id, Boolean done, Throwable failure) {
+        final boolean finished;
+        CompletableFuture<Void> completion = null;
+        synchronized (this) {
+            dispatched.remove(id);
+            finished = failure != null ? isGivenUp(id, failure) : !Boolean.FALSE.equals(done);
+            if (!finished) {
+                deferred.add(id);
+            }
+            if (finished && !closed) {
+                acknowledge(id);
+                failures.remove(id);
+                attempted.remove(id);
+                completion = completions.remove(id);
+            }
+        }
+        if (completion != null) {
+            if (failure != null) {
+                completion.completeExceptionally(failure);
+            } else {
+                completion.complete(null);
+            }
+        }
+        if (finished) {
+            dispatchPending();
+        } else {
+            retryLater();
+        }
+    }
+
+    /** Counts a failure of the entry {@code id}; returns whether it has failed too often to be retried. */
+    private boolean isGivenUp(long id, Throwable failure) {
+        final Throwable cause = failure.getCause() != null ? failure.getCause() : failure;
+        final int count = failures.merge(id, 1, Integer::sum);
+        if (count < CustomGptConstants.MAX_RETRIES) {
+            LOGGER.warn("Entry {} of the operation log {} failed (attempt {} of {}), retrying: {}", id, name, count,
+                    CustomGptConstants.MAX_RETRIES, cause.getMessage());
+            return false;
+        }
+        LOGGER.error("Entry {} of the operation log {} failed {} times, dropping it", id, name, count, cause);
+        return true;
+    }
+
+    private void retryLater() {
+        try {
+            maintenance.schedule(this::pump, RETRY_DELAY_SECONDS, TimeUnit.SECONDS);
+        } catch (RejectedExecutionException e) {
+            // closed: the entry runs again on the next start
+        }
+    }
+
+    /** Makes the full site scans of a dispatched again entry continue from their checkpoint. */
+    private static void resumeSiteScans(IndexOperations operations) {
+        for (CustomGptIndexOperation operation : operations.getOperations()) {
+            if (operation.getType() == CustomGptOperationType.SITE_INDEX && operation.getPublishedSince() == null) {
+                operation.setResume(true);
+            }
+        }
+    }
+
+    private void acknowledge(long id) {
+        try {
+            log.acknowledge(id);
+        } catch (IOException e) {
+            LOGGER.error("Unable to acknowledge entry {} of the operation log {}, it will run again on the next start", id, name, e);
+        }
+    }
+
+    private void flush() {
+        try {
+            log.flush();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Unable to flush the operation log {}: {}", name, e.getMessage());
+        }
+    }
+
+    private void compact() {
+        try {
+            log.compact();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Unable to compact the operation log {}: {}", name, e.getMessage());
+        }
+    }
+}
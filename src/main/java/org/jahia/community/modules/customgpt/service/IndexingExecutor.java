@@ -0,0 +1,326 @@
+package org.jahia.community.modules.customgpt.service;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jahia.community.modules.customgpt.settings.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fixed-size pool running indexation tasks, with named threads, a resizable bound on waiting tasks and per-task
+ * timings.
+ *
+ * <p>The bound is enforced when a task is submitted rather than by the work queue itself, so {@link #resize(int, int)}
+ * can change both the thread count and the capacity while tasks are waiting: nothing queued is dropped, a smaller
+ * capacity only applies to the next submissions. When the pool is full, {@link Config.RejectionPolicy} decides what
+ * the submitting thread does: wait for a free slot, run the task itself, or get a
+ * {@link RejectedExecutionException}.
+ *
+ * <p>Each task records the time spent waiting in the queue and running; the totals are exposed through
+ * {@link #getStats()} and every task is logged at debug level.
+ */
+public class IndexingExecutor extends ThreadPoolExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IndexingExecutor.class);
+
+    private final String name;
+    private volatile Config.RejectionPolicy rejectionPolicy;
+    private final ReentrantLock admissionLock = new ReentrantLock();
+    private final Condition slotFreed = admissionLock.newCondition();
+    // submitted tasks that no worker has started yet
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder completedTasks = new LongAdder();
+    private final LongAdder rejectedTasks = new LongAdder();
+    private final LongAdder totalQueueNanos = new LongAdder();
+    private final LongAdder totalExecutionNanos = new LongAdder();
+    private final AtomicLong maxQueueNanos = new AtomicLong();
+    private volatile int queueCapacity;
+
+    public IndexingExecutor(String name, int threads, int queueCapacity, Config.RejectionPolicy rejectionPolicy) {
+        super(Math.max(1, threads), Math.max(1, threads), 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                new NamedThreadFactory(name));
+        this.name = name;
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.rejectionPolicy = rejectionPolicy;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (isShutdown()) {
+            rejectedTasks.increment();
+            throw new RejectedExecutionException("Executor " + name + " is shut down");
+        }
+        if (!admit(rejectionPolicy == Config.RejectionPolicy.BLOCK)) {
+            rejectedTasks.increment();
+            if (rejectionPolicy == Config.RejectionPolicy.CALLER_RUNS) {
+                LOGGER.debug("Executor {} is full, running the task on {}", name, Thread.currentThread().getName());
+                command.run();
+                return;
+            }
+            throw new RejectedExecutionException("Executor " + name + " is full (" + queueCapacity + " waiting tasks)");
+        }
+        handOff(command);
+    }
+
+    /**
+     * Submits {@code command} if a queue slot is free, whatever the rejection policy, and returns {@code false} without
+     * waiting otherwise. For submitters running on a thread of this executor, which must never wait for a slot that
+     * only their own pool can free.
+     */
+    public boolean tryExecute(Runnable command) {
+        if (isShutdown() || !admit(false)) {
+            return false;
+        }
+        try {
+            handOff(command);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private void handOff(Runnable command) {
+        try {
+            super.execute(new TimedTask(command));
+        } catch (RejectedExecutionException e) {
+            // shut down between the admission and the hand-off
+            releaseSlot();
+            rejectedTasks.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * Changes the number of threads and the capacity of the queue. Waiting tasks are kept; producers blocked on a full
+     * queue are woken up when the capacity grows.
+     */
+    public void resize(int threads, int newQueueCapacity) {
+        final int size = Math.max(1, threads);
+        if (size > getMaximumPoolSize()) {
+            setMaximumPoolSize(size);
+            setCorePoolSize(size);
+        } else {
+            setCorePoolSize(size);
+            setMaximumPoolSize(size);
+        }
+        queueCapacity = Math.max(1, newQueueCapacity);
+        admissionLock.lock();
+        try {
+            slotFreed.signalAll();
+        } finally {
+            admissionLock.unlock();
+        }
+        LOGGER.info("Executor {} resized to {} thread(s) and {} waiting task(s)", name, size, queueCapacity);
+    }
+
+    public void setRejectionPolicy(Config.RejectionPolicy rejectionPolicy) {
+        this.rejectionPolicy = rejectionPolicy;
+        admissionLock.lock();
+        try {
+            slotFreed.signalAll();
+        } finally {
+            admissionLock.unlock();
+        }
+    }
+
+    public Config.RejectionPolicy getRejectionPolicy() {
+        return rejectionPolicy;
+    }
+
+    @Override
+    protected void beforeExecute(Thread thread, Runnable runnable) {
+        super.beforeExecute(thread, runnable);
+        if (runnable instanceof TimedTask) {
+            ((TimedTask) runnable).startedAt = System.nanoTime();
+            releaseSlot();
+        }
+    }
+
+    @Override
+    protected void afterExecute(Runnable runnable, Throwable throwable) {
+        super.afterExecute(runnable, throwable);
+        if (!(runnable instanceof TimedTask)) {
+            return;
+        }
+        final TimedTask task = (TimedTask) runnable;
+        final long queueNanos = task.startedAt - task.submittedAt;
+        final long executionNanos = System.nanoTime() - task.startedAt;
+        completedTasks.increment();
+        totalQueueNanos.add(queueNanos);
+        totalExecutionNanos.add(executionNanos);
+        maxQueueNanos.accumulateAndGet(queueNanos, Math::max);
+        LOGGER.debug("Executor {} ran a task after {} ms in queue, in {} ms", name,
+                TimeUnit.NANOSECONDS.toMillis(queueNanos), TimeUnit.NANOSECONDS.toMillis(executionNanos));
+    }
+
+    @Override
+    protected void terminated() {
+        super.terminated();
+        admissionLock.lock();
+        try {
+            slotFreed.signalAll();
+        } finally {
+            admissionLock.unlock();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /** Returns the number of submitted tasks not started yet. */
+    public int getWaitingCount() {
+        return waiting.get();
+    }
+
+    public Stats getStats() {
+        final long completed = completedTasks.sum();
+        return new Stats(name, getPoolSize(), getActiveCount(), waiting.get(), queueCapacity, completed, rejectedTasks.sum(),
+                completed == 0 ? 0L : TimeUnit.NANOSECONDS.toMillis(totalQueueNanos.sum() / completed),
+                completed == 0 ? 0L : TimeUnit.NANOSECONDS.toMillis(totalExecutionNanos.sum() / completed),
+                TimeUnit.NANOSECONDS.toMillis(maxQueueNanos.get()));
+    }
+
+    /** Reserves a queue slot, waiting for one when {@code block} is set and the policy still says so. */
+    private boolean admit(boolean block) {
+        admissionLock.lock();
+        try {
+            while (waiting.get() >= queueCapacity) {
+                if (!block || rejectionPolicy != Config.RejectionPolicy.BLOCK || isShutdown()) {
+                    return false;
+                }
+                slotFreed.await();
+            }
+            waiting.incrementAndGet();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            admissionLock.unlock();
+        }
+    }
+
+    private void releaseSlot() {
+        waiting.decrementAndGet();
+        admissionLock.lock();
+        try {
+            slotFreed.signal();
+        } finally {
+            admissionLock.unlock();
+        }
+    }
+
+    /** Snapshot of the activity of one executor. Times are averages over the completed tasks, in milliseconds. */
+    public static final class Stats {
+
+        private final String name;
+        private final int poolSize;
+        private final int activeCount;
+        private final int waitingCount;
+        private final int queueCapacity;
+        private final long completedTasks;
+        private final long rejectedTasks;
+        private final long averageQueueTimeMs;
+        private final long averageExecutionTimeMs;
+        private final long maxQueueTimeMs;
+
+        @SuppressWarnings("java:S107")
+        Stats(String name, int poolSize, int activeCount, int waitingCount, int queueCapacity, long completedTasks,
+                long rejectedTasks, long averageQueueTimeMs, long averageExecutionTimeMs, long maxQueueTimeMs) {
+            this.name = name;
+            this.poolSize = poolSize;
+            this.activeCount = activeCount;
+            this.waitingCount = waitingCount;
+            this.queueCapacity = queueCapacity;
+            this.completedTasks = completedTasks;
+            this.rejectedTasks = rejectedTasks;
+            this.averageQueueTimeMs = averageQueueTimeMs;
+            this.averageExecutionTimeMs = averageExecutionTimeMs;
+            this.maxQueueTimeMs = maxQueueTimeMs;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public int getActiveCount() {
+            return activeCount;
+        }
+
+        public int getWaitingCount() {
+            return waitingCount;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public long getCompletedTasks() {
+            return completedTasks;
+        }
+
+        public long getRejectedTasks() {
+            return rejectedTasks;
+        }
+
+        public long getAverageQueueTimeMs() {
+            return averageQueueTimeMs;
+        }
+
+        public long getAverageExecutionTimeMs() {
+            return averageExecutionTimeMs;
+        }
+
+        public long getMaxQueueTimeMs() {
+            return maxQueueTimeMs;
+        }
+    }
+
+    private static final class TimedTask implements Runnable {
+
+        private final Runnable delegate;
+        private final long submittedAt = System.nanoTime();
+        private long startedAt;
+
+        private TimedTask(Runnable delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void run() {
+            delegate.run();
+        }
+    }
+
+    private static final class NamedThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        private NamedThreadFactory(String name) {
+            this.prefix = "customgpt-" + name + "-";
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            return new Thread(runnable, prefix + counter.incrementAndGet());
+        }
+    }
+}
@@ -0,0 +1,451 @@
+package org.jahia.community.modules.customgpt.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+import org.jahia.community.modules.customgpt.indexer.listener.IndexOperations;
+import org.jahia.community.modules.customgpt.indexer.listener.IndexOperations.CustomGptIndexOperation;
+import org.jahia.community.modules.customgpt.indexer.listener.IndexOperations.CustomGptOperationType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only log of pending {@link IndexOperations}, stored in memory-mapped segment files of a fixed size.
+ *
+ * <p>{@link #append(IndexOperations)} writes an entry and returns its id, {@link #acknowledge(long)} writes an
+ * acknowledgement record for it once its operations have run. When a log is opened, every entry without an
+ * acknowledgement is pending again, so the operations of an indexation interrupted by a restart or a crash are not
+ * lost. Only the ids and file positions of pending entries are kept on heap: the operations themselves are read back
+ * with {@link #read(long)} when they are about to run.
+ *
+ * <p>Each record is a length, a CRC32 and a body; a torn record at the end of a segment (crash during a write) ends
+ * the recovery of that segment. Records reach the page cache as soon as they are written, which survives a crash of
+ * the JVM; {@link #flush()} forces the active segment to disk.
+ *
+ * <p>{@link #compact()} deletes the oldest segments once none of their entries is pending. A segment holding a few
+ * pending entries only is compacted by copying them into the active segment first, so a long-lived entry does not pin
+ * the whole log on disk. Segments are only deleted oldest first: the acknowledgements of an entry are always in its
+ * segment or a newer one.
+ */
+public final class OperationLog implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OperationLog.class);
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final byte RECORD_APPEND = 1;
+    private static final byte RECORD_ACK = 2;
+    private static final byte FORMAT_VERSION = 1;
+    // length + CRC32 of the body
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+    // record type + entry id
+    private static final int BODY_PREFIX_BYTES = 1 + Long.BYTES;
+    private static final byte[] NO_PAYLOAD = new byte[0];
+
+    private final Path directory;
+    private final int segmentSize;
+    // oldest first, the last one is the active segment
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private final NavigableMap<Long, Location> pending = new TreeMap<>();
+    private long nextId = 1;
+    private long nextSequence = 1;
+    private boolean closed;
+
+    private OperationLog(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Opens the log stored in {@code directory}, creating it if needed, and recovers its pending entries.
+     *
+     * @param segmentSize size in bytes of the segment files created from now on; an entry must fit in one segment
+     */
+    public static OperationLog open(Path directory, int segmentSize) throws IOException {
+        if (segmentSize <= HEADER_BYTES + BODY_PREFIX_BYTES) {
+            throw new IllegalArgumentException("Segment size is too small: " + segmentSize);
+        }
+        Files.createDirectories(directory);
+        final OperationLog log = new OperationLog(directory, segmentSize);
+        log.recover();
+        return log;
+    }
+
+    /** Writes {@code operations} to the log and returns the id of the new pending entry. */
+    public synchronized long append(IndexOperations operations) throws IOException {
+        ensureOpen();
+        final long id = nextId;
+        final Location location = write(RECORD_APPEND, id, encode(operations));
+        nextId++;
+        track(id, location);
+        return id;
+    }
+
+    /**
+     * Marks the entry {@code id} as done; it will not be pending anymore when the log is opened again. Returns
+     * {@code false} when the entry is not pending.
+     */
+    public synchronized boolean acknowledge(long id) throws IOException {
+        ensureOpen();
+        final Location location = pending.remove(id);
+        if (location == null) {
+            return false;
+        }
+        location.segment.release(location);
+        write(RECORD_ACK, id, NO_PAYLOAD);
+        return true;
+    }
+
+    /** Reads the operations of the pending entry {@code id}, {@code null} if it is not pending. */
+    public synchronized IndexOperations read(long id) throws IOException {
+        ensureOpen();
+        final Location location = pending.get(id);
+        return location == null ? null : decode(location.payload());
+    }
+
+    /** Returns the ids of the first {@code limit} pending entries, oldest first. */
+    public synchronized List<Long> getPendingIds(int limit) {
+        final List<Long> ids = new ArrayList<>(Math.min(limit, pending.size()));
+        for (Long id : pending.keySet()) {
+            if (ids.size() >= limit) {
+                break;
+            }
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    /** Returns the id the next appended entry gets; entries below it were appended before, possibly by an earlier run. */
+    public synchronized long getNextId() {
+        return nextId;
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Deletes the oldest segments without pending entries, copying the pending entries of a segment into the active
+     * one first when they take less than half of it. Returns the number of segments deleted.
+     */
+    public synchronized int compact() throws IOException {
+        ensureOpen();
+        int deleted = 0;
+        while (segments.size() > 1) {
+            final Segment oldest = segments.peekFirst();
+            if (oldest.liveBytes * 2 > oldest.capacity) {
+                break;
+            }
+            if (oldest.liveEntries > 0) {
+                relocate(oldest);
+            }
+            segments.removeFirst();
+            Files.deleteIfExists(oldest.path);
+            deleted++;
+        }
+        if (deleted > 0) {
+            LOGGER.debug("Operation log {}: {} segment(s) deleted, {} pending entries", directory, deleted, pending.size());
+        }
+        return deleted;
+    }
+
+    /** Forces the records written to the active segment to disk. */
+    public synchronized void flush() {
+        if (!closed && !segments.isEmpty()) {
+            segments.peekLast().buffer.force();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        flush();
+        closed = true;
+        segments.clear();
+        pending.clear();
+    }
+
+    private void recover() throws IOException {
+        final List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        // sequence numbers are zero-padded, the name order is the write order
+        files.sort(null);
+        final Set<Long> acknowledged = new HashSet<>();
+        boolean damaged = false;
+        for (Path file : files) {
+            final Segment segment = map(file, parseSequence(file), (int) Files.size(file));
+            segments.addLast(segment);
+            nextSequence = Math.max(nextSequence, segment.sequence + 1);
+            damaged = scan(segment, acknowledged);
+        }
+        for (Long id : acknowledged) {
+            final Location location = pending.remove(id);
+            if (location != null) {
+                location.segment.release(location);
+            }
+        }
+        if (damaged || segments.isEmpty()) {
+            // never append after a torn record: stale bytes behind it could be read back as entries
+            roll();
+        }
+        if (!pending.isEmpty()) {
+            LOGGER.info("Operation log {} recovered {} pending entries from {} segment(s)", directory, pending.size(), segments.size());
+        }
+        compact();
+    }
+
+    /** Reads the records of {@code segment}; returns {@code true} when it ends with a torn record. */
+    private boolean scan(Segment segment, Set<Long> acknowledged) {
+        final ByteBuffer buffer = segment.buffer;
+        int position = 0;
+        while (position + HEADER_BYTES + BODY_PREFIX_BYTES <= segment.capacity) {
+            final int length = buffer.getInt(position);
+            if (length == 0) {
+                break;
+            }
+            if (length < BODY_PREFIX_BYTES || position + HEADER_BYTES + length > segment.capacity
+                    || buffer.getInt(position + Integer.BYTES) != checksum(buffer, position + HEADER_BYTES, length)) {
+                LOGGER.warn("Operation log segment {} has a torn record at offset {}, ignoring the rest of the segment", segment.path, position);
+                segment.position = position;
+                return true;
+            }
+            final byte type = buffer.get(position + HEADER_BYTES);
+            final long id = buffer.getLong(position + HEADER_BYTES + 1);
+            if (type == RECORD_APPEND) {
+                track(id, new Location(segment, position, HEADER_BYTES + length));
+            } else {
+                acknowledged.add(id);
+            }
+            nextId = Math.max(nextId, id + 1);
+            position += HEADER_BYTES + length;
+        }
+        segment.position = position;
+        return false;
+    }
+
+    private void track(long id, Location location) {
+        location.segment.retain(location);
+        // an entry appears twice when a crash happened between its relocation and the deletion of its old segment
+        final Location previous = pending.put(id, location);
+        if (previous != null) {
+            previous.segment.release(previous);
+        }
+    }
+
+    private void relocate(Segment segment) throws IOException {
+        final List<Map.Entry<Long, Location>> live = new ArrayList<>();
+        for (Map.Entry<Long, Location> entry : pending.entrySet()) {
+            if (entry.getValue().segment == segment) {
+                live.add(entry);
+            }
+        }
+        for (Map.Entry<Long, Location> entry : live) {
+            track(entry.getKey(), write(RECORD_APPEND, entry.getKey(), entry.getValue().payload()));
+        }
+    }
+
+    private Location write(byte type, long id, byte[] payload) throws IOException {
+        final int length = BODY_PREFIX_BYTES + payload.length;
+        final int recordBytes = HEADER_BYTES + length;
+        if (recordBytes > segmentSize) {
+            throw new IOException("Operation log record of " + recordBytes + " bytes exceeds the segment size of " + segmentSize + " bytes");
+        }
+        Segment active = segments.peekLast();
+        if (active == null || active.position + recordBytes > active.capacity) {
+            roll();
+            active = segments.peekLast();
+        }
+        final int position = active.position;
+        final ByteBuffer body = active.buffer.duplicate();
+        body.position(position + HEADER_BYTES);
+        body.put(type).putLong(id).put(payload);
+        active.buffer.putInt(position + Integer.BYTES, checksum(active.buffer, position + HEADER_BYTES, length));
+        // the length goes last: until it is written the record reads as the end of the segment
+        active.buffer.putInt(position, length);
+        active.position = position + recordBytes;
+        return new Location(active, position, recordBytes);
+    }
+
+    private void roll() throws IOException {
+        final Segment previous = segments.peekLast();
+        if (previous != null) {
+            previous.buffer.force();
+        }
+        final long sequence = nextSequence++;
+        final Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+        segments.addLast(map(file, sequence, segmentSize));
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Operation log " + directory + " is closed");
+        }
+    }
+
+    private static Segment map(Path file, long sequence, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // the mapping stays valid once the channel is closed
+            return new Segment(file, sequence, channel.map(FileChannel.MapMode.READ_WRITE, 0, size), size);
+        }
+    }
+
+    private static long parseSequence(Path file) throws IOException {
+        final String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new IOException("Unexpected operation log segment name: " + name, e);
+        }
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset, int length) {
+        final ByteBuffer body = buffer.duplicate();
+        body.limit(offset + length).position(offset);
+        final CRC32 crc = new CRC32();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    static byte[] encode(IndexOperations operations) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            writeNullable(out, operations.getSiteKey());
+            out.writeInt(operations.getOperations().size());
+            for (CustomGptIndexOperation operation : operations.getOperations()) {
+                out.writeUTF(operation.getType().name());
+                writeNullable(out, operation.getNodePath());
+                writeNullable(out, operation.getSourcePath());
+                writeNullable(out, operation.getUuid());
+                writeNullable(out, operation.getSiteKey());
+                writeNullable(out, operation.getCustomGptPageId());
+                out.writeBoolean(operation.isResume());
+                out.writeBoolean(operation.getPublishedSince() != null);
+                if (operation.getPublishedSince() != null) {
+                    out.writeLong(operation.getPublishedSince());
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    static IndexOperations decode(byte[] payload) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            final byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported operation log entry format " + version);
+            }
+            final IndexOperations operations = new IndexOperations();
+            operations.setSiteKey(readNullable(in));
+            final int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                final CustomGptOperationType type;
+                try {
+                    type = CustomGptOperationType.valueOf(in.readUTF());
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Unknown operation type in the operation log", e);
+                }
+                final CustomGptIndexOperation operation = new CustomGptIndexOperation(type, readNullable(in), readNullable(in),
+                        readNullable(in), readNullable(in));
+                operation.setCustomGptPageId(readNullable(in));
+                operation.setResume(in.readBoolean());
+                if (in.readBoolean()) {
+                    operation.setPublishedSince(in.readLong());
+                }
+                operations.addOperation(operation);
+            }
+            return operations;
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static final class Segment {
+
+        private final Path path;
+        private final long sequence;
+        private final MappedByteBuffer buffer;
+        private final int capacity;
+        private int position;
+        private int liveEntries;
+        private long liveBytes;
+
+        private Segment(Path path, long sequence, MappedByteBuffer buffer, int capacity) {
+            this.path = path;
+            this.sequence = sequence;
+            this.buffer = buffer;
+            this.capacity = capacity;
+        }
+
+        private void retain(Location location) {
+            liveEntries++;
+            liveBytes += location.length;
+        }
+
+        private void release(Location location) {
+            liveEntries--;
+            liveBytes -= location.length;
+        }
+    }
+
+    private static final class Location {
+
+        private final Segment segment;
+        private final int offset;
+        private final int length;
+
+        private Location(Segment segment, int offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        private byte[] payload() {
+            final ByteBuffer record = segment.buffer.duplicate();
+            record.limit(offset + length).position(offset + HEADER_BYTES + BODY_PREFIX_BYTES);
+            final byte[] payload = new byte[record.remaining()];
+            record.get(payload);
+            return payload;
+        }
+    }
+}
@@ -1,22 +1,32 @@
 package org.jahia.community.modules.customgpt.service;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.regex.Pattern;
+import javax.jcr.NodeIterator;
 import javax.jcr.PathNotFoundException;
 import javax.jcr.RepositoryException;
 import javax.jcr.query.Query;
 import okhttp3.Cookie;
 import okhttp3.CookieJar;
+import okhttp3.Dispatcher;
 import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -27,24 +37,40 @@ import org.jahia.api.settings.SettingsBean;
 import org.jahia.api.templates.JahiaTemplateManagerService;
 import org.jahia.community.modules.customgpt.CustomGptConstants;
 import org.jahia.community.modules.customgpt.CustomGptRequest;
+import org.jahia.community.modules.customgpt.indexer.InFlightPages;
 import org.jahia.community.modules.customgpt.indexer.Indexer;
+import org.jahia.community.modules.customgpt.indexer.MappingIndex;
+import org.jahia.community.modules.customgpt.indexer.ReconcileJob;
 import org.jahia.community.modules.customgpt.indexer.ReindexJob;
+import org.jahia.community.modules.customgpt.indexer.ReindexMode;
+import org.jahia.community.modules.customgpt.indexer.SiteContextCache;
 import org.jahia.community.modules.customgpt.indexer.builder.ContentIndexBuilder;
 import org.jahia.community.modules.customgpt.indexer.builder.FileIndexBuilder;
 import org.jahia.community.modules.customgpt.indexer.listener.IndexOperations;
 import org.jahia.community.modules.customgpt.indexer.listener.IndexOperations.CustomGptOperationType;
 import org.jahia.community.modules.customgpt.indexer.listener.IndexerJCRListener;
+import org.jahia.community.modules.customgpt.service.models.ReconciliationResult;
+import org.jahia.community.modules.customgpt.service.models.ScanCheckpoint;
 import org.jahia.community.modules.customgpt.service.models.Site;
 import org.jahia.community.modules.customgpt.settings.Config;
 import org.jahia.community.modules.customgpt.settings.NotConfiguredException;
+import org.jahia.community.modules.customgpt.util.CircuitBreaker;
+import org.jahia.community.modules.customgpt.util.CircuitOpenException;
+import org.jahia.community.modules.customgpt.util.CustomGptTransport;
+import org.jahia.community.modules.customgpt.util.PageIdSet;
 import org.jahia.community.modules.customgpt.util.RateLimitInterceptor;
+import org.jahia.community.modules.customgpt.util.RequestLane;
 import org.jahia.community.modules.customgpt.util.SecurityUtils;
+import org.jahia.osgi.BundleUtils;
 import org.jahia.osgi.FrameworkService;
 import org.jahia.services.content.*;
 import org.jahia.services.events.JournalEventReader;
 import org.jahia.services.query.QueryWrapper;
+import org.jahia.services.query.ScrollableQuery;
+import org.jahia.services.query.ScrollableQueryCallback;
 import org.jahia.services.scheduler.BackgroundJob;
 import org.jahia.services.scheduler.SchedulerService;
+import org.jahia.services.seo.urlrewrite.UrlRewriteService;
 import org.jahia.services.usermanager.JahiaUser;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceRegistration;
@@ -56,6 +82,7 @@ import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.event.Event;
 import org.osgi.service.event.EventConstants;
 import org.osgi.service.event.EventHandler;
+import org.osgi.util.tracker.ServiceTracker;
 import org.quartz.JobDataMap;
 import org.quartz.JobDetail;
 import org.quartz.SchedulerException;
@@ -68,6 +95,8 @@ import org.slf4j.LoggerFactory;
  * Responsibilities: managing OkHttp3 clients (with Bearer auth and rate-limit jitter),
  * registering the JCR live-workspace listener, scheduling Quartz re-indexation jobs,
  * and handling OSGi events from {@link CustomGptConstants#EVENT_TOPIC}.
+ * Publication and site indexation operations go through a {@link DurableOperationQueue}, which writes them to an
+ * {@link OperationLog} under the Jahia var directory before they run, so a restart resumes them instead of losing them.
  */
 @Component(service = {Service.class}, immediate = true)
 public class Service implements EventHandler {
@@ -80,12 +109,20 @@ public class Service implements EventHandler {
     private static final String REMOVED_FROM_REGISTRY = "Task {} {} is removed from registry";
     private static final String UNREGISTER_EVENT = "org/jahia/modules/sam/TaskRegistryService/UNREGISTER";
     private static final String INDEXATION_FAILED_DUE_TO_CONFIGURATION_ISSUES = "Indexation failed due to configuration issues: {}";
+    private static final String PROP_INDEXATION_CHECKPOINT_TYPE = "customGptIndexationCheckpointType";
+    private static final String PROP_INDEXATION_CHECKPOINT_UUID = "customGptIndexationCheckpointUuid";
     private static final String PROP_INDEXATION_END = "customGptIndexationEnd";
     private static final String PROP_INDEXATION_SCHEDULED = "customGptIndexationScheduled";
     private static final String PROP_INDEXATION_START = "customGptIndexationStart";
     private static final String RECREATE_LOG = "Recreate Log";
-    private static final int N_THREADS = 2;
+    private static final String RECONCILE_LOG = "Reconcile";
+    // whether getSystemSession set the JCRSessionFactory current user of the thread, undone by releaseThreadState
+    private static final ThreadLocal<Boolean> CURRENT_USER_SET = new ThreadLocal<>();
+    private static final String EXECUTOR_INTERACTIVE = "interactive";
+    private static final String EXECUTOR_SITE = "site";
+    private static final String EXECUTOR_FULL_INDEXATION = "full-indexation";
     private static final int DEFAULT_BATCH_SIZE = 10;
+    private static final int BYTES_PER_MB = 1024 * 1024;
     // OkHttp timeouts: bound every outbound CustomGPT/Jahia call so a stalled peer cannot pin a worker thread forever.
     private static final int CONNECT_TIMEOUT_SECONDS = 10;
     private static final int READ_TIMEOUT_SECONDS = 30;
@@ -109,27 +146,56 @@ public class Service implements EventHandler {
     private volatile boolean initialized;
     private boolean journalEventReaderEnabled;
     private OkHttpClient customGptClient;
+    private CustomGptTransport customGptTransport;
+    private RateLimitInterceptor rateLimitInterceptor;
+    private CircuitBreaker circuitBreaker;
+    // Operations outside the operation log received while the circuit breaker is open, replayed once it closes again
+    private final Deque<ParkedOperations> parkedOperations = new ConcurrentLinkedDeque<>();
+    private ScheduledExecutorService circuitProbeScheduler;
     private OkHttpClient jahiaClient;
-    // Executors are restarted on demand by the synchronized restartExecutor* guards; volatile so a fresh pool
-    // published by one thread is visible to the producers reading the field. The volatile reference is only ever
-    // swapped inside synchronized restartExecutor* methods, so volatile (not AtomicReference) is the intended
-    // design here.
+    // Executors are created and restarted on demand by the synchronized restartExecutor* guards, sized from the
+    // configuration; volatile so a fresh pool published by one thread is visible to the producers reading the field.
+    // The volatile reference is only ever swapped inside synchronized restartExecutor* methods, so volatile (not
+    // AtomicReference) is the intended design here.
     @SuppressWarnings("java:S3077")
-    private volatile ExecutorService executor = Executors.newFixedThreadPool(1);
+    private volatile IndexingExecutor executor;
     @SuppressWarnings("java:S3077")
-    private volatile ExecutorService executorFullIndexation = Executors.newFixedThreadPool(1);
+    private volatile IndexingExecutor executorFullIndexation;
     @SuppressWarnings("java:S3077")
-    private volatile ExecutorService executorNThreads = Executors.newFixedThreadPool(N_THREADS);
+    private volatile IndexingExecutor executorNThreads;
+    // Durable queues in front of the interactive and site executors, null when the operation log is disabled or could
+    // not be opened; set by init() and cleared by stop()
+    @SuppressWarnings("java:S3077")
+    private volatile DurableOperationQueue interactiveQueue;
+    @SuppressWarnings("java:S3077")
+    private volatile DurableOperationQueue siteQueue;
+    // Cached mapping nodes; replaced by init() with one sized from the configuration and warmed from the snapshot
+    @SuppressWarnings("java:S3077")
+    private volatile MappingIndex mappingIndex = new MappingIndex(0);
+    // Host, languages and render scaffolding of the indexed sites; emptied by stop() and on site node changes
+    private final SiteContextCache siteContexts = new SiteContextCache();
+    private final InFlightPages inFlightPages = new InFlightPages();
+    // Tracks the URL rewrite service for the whole life of the component instead of looking it up for each page URL
+    @SuppressWarnings("java:S3077")
+    private volatile ServiceTracker<UrlRewriteService, UrlRewriteService> urlRewriteServiceTracker;
     
     @Activate
     public void activate(BundleContext bundleContext) {
         this.bundleContext = bundleContext;
+        final ServiceTracker<UrlRewriteService, UrlRewriteService> tracker = new ServiceTracker<>(bundleContext, UrlRewriteService.class, null);
+        tracker.open();
+        urlRewriteServiceTracker = tracker;
         start();
     }
     
     @Deactivate
     public void deactivate() {
         stop();
+        final ServiceTracker<UrlRewriteService, UrlRewriteService> tracker = urlRewriteServiceTracker;
+        urlRewriteServiceTracker = null;
+        if (tracker != null) {
+            tracker.close();
+        }
     }
     
     @Reference(service = Config.class)
@@ -189,15 +255,23 @@ public class Service implements EventHandler {
         return reIndexUsingJob(siteKey, false);
     }
 
+    /** Schedules a full re-indexation job for {@code siteKey}; equivalent to {@code reIndexUsingJob(siteKey, force, ReindexMode.FULL)}. */
+    public JobDetail reIndexUsingJob(String siteKey, boolean force) {
+        return reIndexUsingJob(siteKey, force, ReindexMode.FULL);
+    }
+
     /**
      * Creates and schedules a {@link ReindexJob} for the given site.
      * When {@code force=true} the existing start/end timestamps are cleared so a previously-running job can be re-triggered.
+     * The {@code mode} tells whether the job scans the whole site, resumes an interrupted scan or only indexes what was
+     * published since the last completed indexation.
      * The trigger fires immediately when {@code scheduleJobASAP=true}, or 1 minute + 3 seconds from now otherwise.
      */
-    public JobDetail reIndexUsingJob(String siteKey, boolean force) {
+    public JobDetail reIndexUsingJob(String siteKey, boolean force, ReindexMode mode) {
         final JobDetail reindexJobDetail = BackgroundJob.createJahiaJob(RECREATE_LOG, ReindexJob.class);
         final JobDataMap jobMap = new JobDataMap();
         jobMap.put(CustomGptConstants.PROP_SITE_KEY, siteKey);
+        jobMap.put(ReindexJob.MODE, mode.name());
         reindexJobDetail.setJobDataMap(jobMap);
         
         try {
@@ -273,50 +347,124 @@ public class Service implements EventHandler {
     }
     
     public void reIndexUsingJob() {
+        reIndexUsingJob(ReindexMode.FULL);
+    }
+
+    /** Schedules a re-indexation job in {@code mode} for every indexed site. */
+    public void reIndexUsingJob(ReindexMode mode) {
         for (String site : getIndexedSites().keySet()) {
-            reIndexUsingJob(site);
+            reIndexUsingJob(site, false, mode);
         }
     }
     
     public void produceAsynchronousFullIndexation(IndexOperations operations) {
         restartExecutorFullIndexation();
-        CompletableFuture.runAsync(() -> {
-            try {
-                performIndexation(operations);
-            } catch (RepositoryException | IOException e) {
-                LOGGER.error("Indexation failed due to: {}", e.getMessage(), e);
-            }
-        }, executorFullIndexation);
+        submitIndexation(executorFullIndexation, operations, RequestLane.BULK, false);
     }
     
     // Guarded so concurrent producers cannot race the shutdown/terminated check and lose tasks to a dead pool.
     private synchronized void restartExecutor() {
-        if (executor.isShutdown() || executor.isTerminated()) {
-            LOGGER.warn("Executor is shutdown or terminated, starting a new one");
-            executor = Executors.newFixedThreadPool(1);
+        if (executor == null || executor.isShutdown()) {
+            logRestart(executor);
+            executor = new IndexingExecutor(EXECUTOR_INTERACTIVE, customGptConfig.getExecutorInteractiveThreads(),
+                    customGptConfig.getExecutorInteractiveQueueCapacity(), customGptConfig.getExecutorRejectionPolicy());
         }
     }
 
     private synchronized void restartExecutorFullIndexation() {
-        if (executorFullIndexation.isShutdown() || executorFullIndexation.isTerminated()) {
-            LOGGER.warn("ExecutorFullIndexation is shutdown or terminated, starting a new one");
-            executorFullIndexation = Executors.newFixedThreadPool(1);
+        if (executorFullIndexation == null || executorFullIndexation.isShutdown()) {
+            logRestart(executorFullIndexation);
+            executorFullIndexation = new IndexingExecutor(EXECUTOR_FULL_INDEXATION, customGptConfig.getExecutorFullIndexationThreads(),
+                    customGptConfig.getExecutorFullIndexationQueueCapacity(), customGptConfig.getExecutorRejectionPolicy());
         }
     }
 
+    /**
+     * Returns the site indexation executor, which also runs the partitions of partitioned scans. Partitions are only
+     * handed to it while its queue has room: a scan already runs on one of its threads, so waiting for a slot under the
+     * block policy could wait forever; the scan runs a rejected partition itself instead.
+     */
+    public synchronized Executor getSiteScanExecutor() {
+        restartExecutorNThreads();
+        final IndexingExecutor executor = executorNThreads;
+        return command -> {
+            if (!executor.tryExecute(command)) {
+                throw new RejectedExecutionException("Executor " + executor.getName() + " has no free slot");
+            }
+        };
+    }
+
     private synchronized void restartExecutorNThreads() {
-        if (executorNThreads.isShutdown() || executorNThreads.isTerminated()) {
-            LOGGER.warn("Executor with {} threads is shutdown or terminated, starting a new one", N_THREADS);
-            executorNThreads = Executors.newFixedThreadPool(N_THREADS);
+        if (executorNThreads == null || executorNThreads.isShutdown()) {
+            logRestart(executorNThreads);
+            executorNThreads = new IndexingExecutor(EXECUTOR_SITE, customGptConfig.getExecutorSiteThreads(),
+                    customGptConfig.getExecutorSiteQueueCapacity(), customGptConfig.getExecutorRejectionPolicy());
+        }
+    }
+
+    private static void logRestart(IndexingExecutor previous) {
+        if (previous != null) {
+            LOGGER.warn("Executor {} is shutdown or terminated, starting a new one", previous.getName());
+        }
+    }
+
+    /** Applies the executor settings of the configuration to the running pools, keeping their queued operations. */
+    private synchronized void resizeExecutors() {
+        resizeExecutor(executor, customGptConfig.getExecutorInteractiveThreads(), customGptConfig.getExecutorInteractiveQueueCapacity());
+        resizeExecutor(executorNThreads, customGptConfig.getExecutorSiteThreads(), customGptConfig.getExecutorSiteQueueCapacity());
+        resizeExecutor(executorFullIndexation, customGptConfig.getExecutorFullIndexationThreads(),
+                customGptConfig.getExecutorFullIndexationQueueCapacity());
+    }
+
+    private void resizeExecutor(IndexingExecutor pool, int threads, int queueCapacity) {
+        if (pool == null || pool.isShutdown()) {
+            return;
+        }
+        pool.setRejectionPolicy(customGptConfig.getExecutorRejectionPolicy());
+        if (pool.getCorePoolSize() != Math.max(1, threads) || pool.getQueueCapacity() != Math.max(1, queueCapacity)) {
+            pool.resize(threads, queueCapacity);
+        }
+    }
+
+    /**
+     * Runs {@code operations} on {@code pool}. The returned future completes with {@code false} when the operations
+     * did not run because the CustomGPT API is unavailable or the service is stopping: operations read from the
+     * operation log ({@code durable}) stay there, the others are parked in memory. Under the {@code abort} rejection
+     * policy a full pool refuses the operations: durable ones stay in the log as well, the others are logged and
+     * dropped and the returned future fails. A durable indexation that fails completes the future exceptionally, so
+     * that the log retries it.
+     */
+    private CompletableFuture<Boolean> submitIndexation(IndexingExecutor pool, IndexOperations operations, RequestLane lane, boolean durable) {
+        try {
+            return CompletableFuture.supplyAsync(getPerformIndexationSupplier(operations, lane, durable), pool);
+        } catch (RejectedExecutionException e) {
+            if (durable) {
+                LOGGER.warn("{} indexation operation(s) refused, kept in the operation log: {}", operations.getOperations().size(), e.getMessage());
+                return CompletableFuture.completedFuture(false);
+            }
+            LOGGER.error("Dropping {} indexation operation(s): {}", operations.getOperations().size(), e.getMessage());
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /** Returns the activity of the indexation executors started so far. */
+    public List<IndexingExecutor.Stats> getExecutorStats() {
+        final List<IndexingExecutor.Stats> stats = new ArrayList<>();
+        for (IndexingExecutor pool : Arrays.asList(executor, executorNThreads, executorFullIndexation)) {
+            if (pool != null) {
+                stats.add(pool.getStats());
+            }
         }
+        return stats;
     }
 
     public void produceAsynchronousOperations(IndexOperations... operations) {
         restartExecutor();
-        final CompletableFuture<Void>[] completableFuture = new CompletableFuture[operations.length];
+        final CompletableFuture<?>[] completableFuture = new CompletableFuture[operations.length];
         int i = 0;
         for (IndexOperations operation : operations) {
-            completableFuture[i++] = CompletableFuture.supplyAsync(getPerformIndexationSupplier(operation), executor);
+            completableFuture[i++] = enqueueIndexation(interactiveQueue, operation,
+                    ops -> submitIndexation(executor, ops, RequestLane.INTERACTIVE, false));
         }
         CompletableFuture.allOf(completableFuture).whenCompleteAsync((unused, throwable) -> {
             if (throwable != null) {
@@ -326,11 +474,12 @@ public class Service implements EventHandler {
     }
     
     public void produceSiteAsynchronousIndexations(String sitePath, IndexOperations... operations) {
-        CompletableFuture<Void>[] completableFuture = new CompletableFuture[operations.length];
+        final CompletableFuture<?>[] completableFuture = new CompletableFuture[operations.length];
         int i = 0;
         restartExecutorNThreads();
         for (IndexOperations operation : operations) {
-            completableFuture[i++] = CompletableFuture.supplyAsync(getPerformIndexationSupplier(operation), executorNThreads);
+            completableFuture[i++] = enqueueIndexation(siteQueue, operation,
+                    ops -> submitIndexation(executorNThreads, ops, RequestLane.BULK, false));
         }
         try {
             updateIndexationTime(sitePath, PROP_INDEXATION_START, new GregorianCalendar());
@@ -338,6 +487,14 @@ public class Service implements EventHandler {
             LOGGER.error("Failed to record indexation start time: {}", e.getMessage());
         }
         CompletableFuture.allOf(completableFuture).whenCompleteAsync((unused, throwable) -> {
+            if (throwable != null) {
+                LOGGER.error("Site {} indexation failed, not recording its end: {}", sitePath, throwable.getMessage(), throwable);
+                return;
+            }
+            if (!allDone(completableFuture)) {
+                // parked until the circuit breaker closes again, the end is recorded by the run that completes it
+                return;
+            }
             try {
                 updateIndexationTime(sitePath, PROP_INDEXATION_END, new GregorianCalendar());
             } catch (RepositoryException e) {
@@ -345,41 +502,280 @@ public class Service implements EventHandler {
             }
         });
     }
+
+    // operation log completions complete once their entry is done; direct ones yield false when not done
+    private static boolean allDone(CompletableFuture<?>[] completableFuture) {
+        for (CompletableFuture<?> future : completableFuture) {
+            if (Boolean.FALSE.equals(future.join())) {
+                return false;
+            }
+        }
+        return true;
+    }
     
-    private Supplier<Void> getPerformIndexationSupplier(IndexOperations operations) {
+    private Supplier<Boolean> getPerformIndexationSupplier(IndexOperations operations, RequestLane lane, boolean durable) {
         return () -> {
             try {
-                performIndexation(operations);
+                if (!performIndexation(operations, lane)) {
+                    if (!durable) {
+                        parkOperations(operations, lane);
+                    }
+                    return false;
+                }
             } catch (RepositoryException | IOException e) {
+                if (durable) {
+                    // the operation log retries the entry, up to its attempt limit
+                    throw new CompletionException(e);
+                }
                 LOGGER.error("Indexation failed due to: {}", e.getMessage(), e);
+            } finally {
+                releaseThreadState();
             }
-            return null;
+            // interrupted by stop(): the operations may be half done, keep them in the operation log
+            return !Thread.currentThread().isInterrupted();
         };
     }
     
-    private void performIndexation(IndexOperations operations)
+    /**
+     * Runs {@code operations}, sending their CustomGPT calls in {@code lane}: listener and node reindex operations are
+     * {@link RequestLane#INTERACTIVE}, site and full reindexations {@link RequestLane#BULK}. Returns {@code false} when
+     * the circuit breaker is not closed or opens meanwhile: the operations must then run again once it closes.
+     */
+    private boolean performIndexation(IndexOperations operations, RequestLane lane)
             throws RepositoryException, IOException {
         if (operations == null || operations.isEmpty()) {
             // No operations to queueRequests
             LOGGER.error("Operations is empty, exiting performIndexation");
+            return true;
+        }
+        final CustomGptTransport transport = customGptTransport;
+        if (transport == null) {
+            LOGGER.warn("CustomGPT HTTP client is not initialised, skipping {} operation(s)", operations.getOperations().size());
+            return true;
+        }
+        if (!transport.getCircuitBreaker().isClosed()) {
+            return false;
+        }
+
+        try {
+            indexAllOperations(operations, transport.withLane(lane));
+        } catch (CircuitOpenException e) {
+            return false;
+        } catch (RuntimeException e) {
+            // batches of a site indexation surface handler errors wrapped in a JahiaRuntimeException
+            if (!CircuitOpenException.isCause(e)) {
+                throw e;
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Writes {@code operations} to {@code queue}, or hands them to {@code direct} when the operation log is disabled or
+     * cannot be written.
+     */
+    private CompletableFuture<?> enqueueIndexation(DurableOperationQueue queue, IndexOperations operations,
+            DurableOperationQueue.Dispatcher direct) {
+        if (queue != null) {
+            try {
+                return queue.enqueue(operations);
+            } catch (IOException e) {
+                LOGGER.warn("Unable to write {} operation(s) to the operation log, running them from memory: {}",
+                        operations.getOperations().size(), e.getMessage());
+            }
+        }
+        return direct.dispatch(operations);
+    }
+
+    private DurableOperationQueue openOperationQueue(String name, DurableOperationQueue.Dispatcher dispatcher) {
+        final Path directory = Paths.get(settingsBean.getJahiaVarDiskPath(), "customgpt", "oplog", name);
+        try {
+            final OperationLog log = OperationLog.open(directory,
+                    Math.max(1, customGptConfig.getOperationLogSegmentSizeMb()) * BYTES_PER_MB);
+            if (log.getPendingCount() > 0) {
+                LOGGER.info("Resuming {} indexation batch(es) left pending in {}", log.getPendingCount(), directory);
+            }
+            return new DurableOperationQueue(name, log, customGptConfig.getOperationLogInMemoryWindow(), dispatcher,
+                    () -> circuitBreaker == null || circuitBreaker.isClosed());
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Unable to open the operation log in {}, pending operations are kept in memory only", directory, e);
+            return null;
+        }
+    }
+
+    private void openMappingIndex() {
+        final MappingIndex index = new MappingIndex(customGptConfig.getMappingCacheSize());
+        if (index.getCapacity() > 0) {
+            final int loaded = index.load(getMappingIndexSnapshot());
+            if (loaded > 0) {
+                LOGGER.info("Mapping index warmed with {} entries", loaded);
+            }
+        }
+        mappingIndex = index;
+    }
+
+    private void saveMappingIndex() {
+        final MappingIndex index = mappingIndex;
+        if (index.size() == 0) {
             return;
         }
-        
-        indexAllOperations(operations);
+        final Path snapshot = getMappingIndexSnapshot();
+        try {
+            index.save(snapshot);
+            LOGGER.info("Saved {} mapping index entries to {}", index.size(), snapshot);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to save the mapping index to {}, the next start is cold: {}", snapshot, e.getMessage());
+        }
+    }
+
+    private Path getMappingIndexSnapshot() {
+        return Paths.get(settingsBean.getJahiaVarDiskPath(), "customgpt", "mapping-index.bin");
+    }
+
+    /** Returns the cache of the mapping nodes; never {@code null}, disabled until the service is initialised. */
+    public MappingIndex getMappingIndex() {
+        return mappingIndex;
+    }
+
+    public SiteContextCache getSiteContexts() {
+        return siteContexts;
+    }
+
+    /** Returns the pages being indexed, shared by all indexers so that a page is indexed by one task at a time. */
+    public InFlightPages getInFlightPages() {
+        return inFlightPages;
+    }
+
+    /** Returns the tracked URL rewrite service, or looks it up when the component is not activated (tests, shutdown). */
+    public UrlRewriteService getUrlRewriteService() {
+        final ServiceTracker<UrlRewriteService, UrlRewriteService> tracker = urlRewriteServiceTracker;
+        final UrlRewriteService service = tracker == null ? null : tracker.getService();
+        return service != null ? service : BundleUtils.getOsgiService(UrlRewriteService.class, null);
+    }
+
+    private void forEachOperationQueue(Consumer<DurableOperationQueue> action) {
+        for (DurableOperationQueue queue : Arrays.asList(interactiveQueue, siteQueue)) {
+            if (queue != null) {
+                action.accept(queue);
+            }
+        }
+    }
+
+    /**
+     * Keeps {@code operations} aside while the CustomGPT API is unavailable, instead of rendering pages whose upload
+     * would fail. They are replayed, whole, once the circuit breaker closes; pages completed before the circuit opened
+     * are then skipped thanks to their content digest.
+     */
+    private void parkOperations(IndexOperations operations, RequestLane lane) {
+        parkedOperations.add(new ParkedOperations(operations, lane));
+        LOGGER.warn("CustomGPT circuit breaker is not closed, parking {} operation(s) ({} parked in total)",
+                operations.getOperations().size(), parkedOperations.size());
+    }
+
+    /**
+     * Reacts to a transition on the circuit probe thread. The listener runs on the thread whose call changed the state,
+     * an OkHttp dispatcher or pipeline worker, which must not wait for an executor slot nor run an indexation itself.
+     */
+    private void onCircuitStateChange(CircuitBreaker.State from, CircuitBreaker.State to) {
+        LOGGER.info("CustomGPT circuit breaker {} -> {}", from, to);
+        final ScheduledExecutorService scheduler = circuitProbeScheduler;
+        if (scheduler == null || (to != CircuitBreaker.State.OPEN && to != CircuitBreaker.State.CLOSED)) {
+            return;
+        }
+        try {
+            scheduler.execute(() -> {
+                if (to == CircuitBreaker.State.OPEN) {
+                    scheduleCircuitProbe(circuitBreaker.getRemainingOpenMillis());
+                } else {
+                    replayParkedOperations();
+                    forEachOperationQueue(DurableOperationQueue::pump);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOGGER.debug("Circuit breaker {} not handled, the service is stopping", to);
+        }
+    }
+
+    private void scheduleCircuitProbe(long delayMs) {
+        try {
+            circuitProbeScheduler.schedule(this::probeCircuit, delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            LOGGER.debug("Circuit probe not scheduled, the service is stopping");
+        }
+    }
+
+    /**
+     * Sends the half-open probe: a project lookup through the transport, whose outcome closes or reopens the circuit.
+     * When indexing traffic already took the probe slot, tries again after the remaining open time.
+     */
+    private void probeCircuit() {
+        final Request request;
+        try {
+            request = new Request.Builder()
+                    .url(String.format("%s/projects/%s", resolveValidatedApiBaseUrl(), customGptConfig.getCustomGptProjectId()))
+                    .get()
+                    .addHeader(HEADER_ACCEPT, MEDIA_TYPE_JSON)
+                    .addHeader(HEADER_AUTHORIZATION, BEARER_PREFIX + customGptConfig.getCustomGptToken())
+                    .build();
+        } catch (IllegalStateException e) {
+            LOGGER.warn("Cannot probe the CustomGPT API: {}", e.getMessage());
+            scheduleCircuitProbe(TimeUnit.SECONDS.toMillis(customGptConfig.getCircuitBreakerOpenDurationSeconds()));
+            return;
+        }
+        try (Response response = customGptTransport.execute(request)) {
+            LOGGER.info("CustomGPT circuit breaker probe answered HTTP {}", response.code());
+        } catch (CircuitOpenException e) {
+            if (circuitBreaker.getState() == CircuitBreaker.State.OPEN) {
+                scheduleCircuitProbe(circuitBreaker.getRemainingOpenMillis());
+            }
+        } catch (IOException e) {
+            // the failure reopened the circuit, which scheduled the next probe
+            LOGGER.warn("CustomGPT circuit breaker probe failed: {}", e.getMessage());
+        }
+    }
+
+    private void replayParkedOperations() {
+        ParkedOperations parked;
+        int replayed = 0;
+        while ((parked = parkedOperations.poll()) != null) {
+            if (parked.lane == RequestLane.BULK) {
+                restartExecutorNThreads();
+                submitIndexation(executorNThreads, parked.operations, parked.lane, false);
+            } else {
+                restartExecutor();
+                submitIndexation(executor, parked.operations, parked.lane, false);
+            }
+            replayed++;
+        }
+        if (replayed > 0) {
+            LOGGER.info("CustomGPT is available again, replaying {} parked operation(s)", replayed);
+        }
+    }
+
+    /** Returns the circuit breaker guarding the CustomGPT API, {@code null} while the client is not initialised. */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public int getParkedOperationsCount() {
+        return parkedOperations.size();
     }
     
-    private void indexAllOperations(IndexOperations operations)
+    private void indexAllOperations(IndexOperations operations, CustomGptTransport transport)
             throws RepositoryException, IOException {
         Indexer customGptIndexer = null;
         try {
             for (IndexOperations.CustomGptIndexOperation indexOperation : operations.getOperations()) {
                 // Check that the path for the operation require indexation to avoid unwanted indexation
-                customGptIndexer = indexOperation(operations, customGptIndexer, indexOperation);
+                customGptIndexer = indexOperation(operations, customGptIndexer, indexOperation, transport);
             }
 
             if (customGptIndexer != null) {
-                customGptIndexer.queueRequests(customGptClient, jahiaClient);
+                customGptIndexer.queueRequests(transport, jahiaClient);
             }
+            // only reached once every page went through, a failed or interrupted run keeps its end unrecorded
+            postIndexOperationHandler(operations);
         } catch (NotConfiguredException e) {
             LOGGER.error(INDEXATION_FAILED_DUE_TO_CONFIGURATION_ISSUES, e.getMessage(), e);
         }
@@ -387,10 +783,10 @@ public class Service implements EventHandler {
     }
 
     private Indexer indexOperation(IndexOperations operations, Indexer customGptIndexer,
-            IndexOperations.CustomGptIndexOperation customGptIndexOperation)
+            IndexOperations.CustomGptIndexOperation customGptIndexOperation, CustomGptTransport transport)
             throws RepositoryException, NotConfiguredException {
         try {
-            customGptIndexer = dispatchOperation(operations, customGptIndexer, customGptIndexOperation);
+            customGptIndexer = dispatchOperation(operations, customGptIndexer, customGptIndexOperation, transport);
         } catch (PathNotFoundException e) {
             // Skip the operation as its node no longer exists
             LOGGER.info("Did not find indexation path: {}", e.getMessage());
@@ -399,7 +795,7 @@ public class Service implements EventHandler {
     }
 
     private Indexer dispatchOperation(IndexOperations operations, Indexer customGptIndexer,
-            IndexOperations.CustomGptIndexOperation customGptIndexOperation)
+            IndexOperations.CustomGptIndexOperation customGptIndexOperation, CustomGptTransport transport)
             throws RepositoryException, NotConfiguredException {
         final CustomGptOperationType opType = customGptIndexOperation.getType();
         switch (opType) {
@@ -410,9 +806,9 @@ public class Service implements EventHandler {
             case NODE_MOVE:
                 return handleNodeMove(customGptIndexer, customGptIndexOperation);
             case SITE_INDEX:
-                return handleSiteIndex(operations, customGptIndexer, customGptIndexOperation);
+                return handleSiteIndex(operations, customGptIndexer, customGptIndexOperation, transport);
             case TREE_INDEX:
-                return handleTreeIndex(customGptIndexer, customGptIndexOperation);
+                return handleTreeIndex(customGptIndexer, customGptIndexOperation, transport);
             default:
                 return customGptIndexer;
         }
@@ -442,30 +838,38 @@ public class Service implements EventHandler {
     }
 
     private Indexer handleSiteIndex(IndexOperations operations, Indexer customGptIndexer,
-            IndexOperations.CustomGptIndexOperation op) throws RepositoryException, NotConfiguredException {
+            IndexOperations.CustomGptIndexOperation op, CustomGptTransport transport) throws RepositoryException, NotConfiguredException {
         preIndexOperationHandler(operations);
         customGptIndexer = initIndexer(customGptIndexer);
         if (acceptablePathToIndex(op.getNodePath())) {
-            customGptIndexer.addSiteToIndex(customGptClient, jahiaClient, op.getNodePath());
+            if (op.getPublishedSince() != null) {
+                final Calendar since = new GregorianCalendar();
+                since.setTimeInMillis(op.getPublishedSince());
+                customGptIndexer.addSitePublicationsToIndex(transport, jahiaClient, op.getNodePath(), since);
+            } else {
+                customGptIndexer.addSiteToIndex(transport, jahiaClient, op.getNodePath(), op.isResume());
+            }
         }
-        postIndexOperationHandler(operations);
         return customGptIndexer;
     }
 
-    private Indexer handleTreeIndex(Indexer customGptIndexer, IndexOperations.CustomGptIndexOperation op)
-            throws RepositoryException, NotConfiguredException {
+    private Indexer handleTreeIndex(Indexer customGptIndexer, IndexOperations.CustomGptIndexOperation op,
+            CustomGptTransport transport) throws RepositoryException, NotConfiguredException {
         LOGGER.info("Received a sub nodes index operation for following node {} in workspace live", op.getNodePath());
         customGptIndexer = initIndexer(customGptIndexer);
         final String path = op.getNodePath();
         if (acceptablePathToIndex(path)) {
             final JCRNodeWrapper node = customGptIndexer.getSystemSession().getNode(path);
             indexNode(customGptIndexer, op);
-            customGptIndexer.addNodesToIndex(customGptClient, jahiaClient, node);
+            customGptIndexer.addNodesToIndex(transport, jahiaClient, node);
         }
         return customGptIndexer;
     }
     
     private void postIndexOperationHandler(IndexOperations operations) {
+        if (operations.getOperations().stream().noneMatch(op -> op.getType() == CustomGptOperationType.SITE_INDEX)) {
+            return;
+        }
         final Map<String, Site> indexedSites = getIndexedSites();
         for (IndexOperations.CustomGptIndexOperation indexOperation : operations.getOperations()) {
             if (indexOperation.getType().equals(CustomGptOperationType.SITE_INDEX)) {
@@ -523,10 +927,26 @@ public class Service implements EventHandler {
         return customGptIndexer;
     }
     
+    /** Returns the operations queued or running in the executors, plus the batches still waiting in the operation log. */
     public int getPendingIndexationOperations() {
-        return getPendingCount(executor) + getPendingCount(executorFullIndexation) + getPendingCount(executorNThreads);
+        return getPendingCount(executor) + getPendingCount(executorFullIndexation) + getPendingCount(executorNThreads)
+                + getBacklog(interactiveQueue) + getBacklog(siteQueue);
+    }
+
+    private static int getBacklog(DurableOperationQueue queue) {
+        return queue != null ? queue.getBacklog() : 0;
     }
     
+    /**
+     * Returns the number of CustomGPT calls of {@code lane} waiting for the transport: for a slot of the in-flight
+     * window or for a rate-limit token. {@code 0} while the client is not initialised.
+     */
+    public int getLaneQueueDepth(RequestLane lane) {
+        final CustomGptTransport transport = customGptTransport;
+        final RateLimitInterceptor limiter = rateLimitInterceptor;
+        return (transport != null ? transport.getQueueDepth(lane) : 0) + (limiter != null ? limiter.getQueueDepth(lane) : 0);
+    }
+
     private int getPendingCount(ExecutorService exec) {
         if (exec instanceof ThreadPoolExecutor) {
             ThreadPoolExecutor tpe = (ThreadPoolExecutor) exec;
@@ -561,6 +981,7 @@ public class Service implements EventHandler {
             LOGGER.info("Unregistering JCR listener for live workspace");
             
             handleJCREventListener(jcrListenerLive, false);
+            jcrListenerLive.close();
             jcrListenerLive = null;
         }
     }
@@ -607,7 +1028,16 @@ public class Service implements EventHandler {
                         .writeTimeout(WRITE_TIMEOUT_SECONDS, TimeUnit.SECONDS)
                         .callTimeout(CALL_TIMEOUT_SECONDS, TimeUnit.SECONDS)
                         .build();
+                // The dispatcher only limits enqueued calls; it must admit the whole in-flight window of the transport
+                // (OkHttp defaults to 5 concurrent calls per host, and every CustomGPT call targets the same host).
+                final int maxInFlight = Math.max(1, customGptConfig.getTransportMaxInFlight());
+                final Dispatcher dispatcher = new Dispatcher();
+                dispatcher.setMaxRequests(Math.max(dispatcher.getMaxRequests(), maxInFlight));
+                dispatcher.setMaxRequestsPerHost(maxInFlight);
+                rateLimitInterceptor = new RateLimitInterceptor(customGptConfig.getRateLimitRequestsPerSecond(),
+                        customGptConfig.getRateLimitBurstCapacity(), customGptConfig.isRateLimitAdaptive());
                 customGptClient = new OkHttpClient.Builder()
+                        .dispatcher(dispatcher)
                         // Do not follow redirects: every request carries the Bearer token, and a redirect to another
                         // host could forward the Authorization header to an attacker-controlled endpoint.
                         .followRedirects(false)
@@ -624,8 +1054,31 @@ public class Service implements EventHandler {
                                     .addHeader(HEADER_AUTHORIZATION, BEARER_PREFIX + customGptConfig.getCustomGptToken())
                                     .build();
                         })
-                        .addInterceptor(new RateLimitInterceptor(customGptConfig.getRateLimitRequestsPerSecond()))
+                        .addInterceptor(rateLimitInterceptor)
                         .build();
+                circuitBreaker = new CircuitBreaker(Math.max(1, customGptConfig.getCircuitBreakerFailureThreshold()),
+                        TimeUnit.SECONDS.toMillis(customGptConfig.getCircuitBreakerOpenDurationSeconds()));
+                circuitBreaker.addListener(this::onCircuitStateChange);
+                circuitProbeScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    final Thread thread = new Thread(runnable, "customgpt-circuit-probe");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                customGptTransport = new CustomGptTransport(customGptClient, customGptConfig.isTransportAsync(), maxInFlight, circuitBreaker);
+                // before the operation logs are resumed, so that their first pages already find the cached mappings
+                openMappingIndex();
+                if (customGptConfig.isOperationLogEnabled()) {
+                    interactiveQueue = openOperationQueue(EXECUTOR_INTERACTIVE, operations -> {
+                        restartExecutor();
+                        return submitIndexation(executor, operations, RequestLane.INTERACTIVE, true);
+                    });
+                    siteQueue = openOperationQueue(EXECUTOR_SITE, operations -> {
+                        restartExecutorNThreads();
+                        return submitIndexation(executorNThreads, operations, RequestLane.BULK, true);
+                    });
+                    // resumes what the previous run left in the logs
+                    forEachOperationQueue(DurableOperationQueue::pump);
+                }
             }
             initialized = true;
             LOGGER.info("...service started");
@@ -638,18 +1091,38 @@ public class Service implements EventHandler {
     }
     
     public void stop() {
-        shutdownAndAwaitTermination(executorFullIndexation);
-        shutdownAndAwaitTermination(executor);
-        shutdownAndAwaitTermination(executorNThreads);
-        unregisterEventHandler();
+        // first, so that the operations still in the listener coalescing window reach the operation log
         if (settingsBean.isProcessingServer()) {
             unregisterJcrListeners();
             if (journalEventReaderEnabled) {
                 journalEventReader.rememberLastProcessedJournalRevision(journalEventReaderKey);
             }
         }
+        // no new dispatch from the logs into executors being shut down; what completes meanwhile is still acknowledged
+        forEachOperationQueue(DurableOperationQueue::stopDispatching);
+        shutdownAndAwaitTermination(executorFullIndexation);
+        shutdownAndAwaitTermination(executor);
+        shutdownAndAwaitTermination(executorNThreads);
+        forEachOperationQueue(DurableOperationQueue::close);
+        interactiveQueue = null;
+        siteQueue = null;
+        // after the executors, so that no page indexed meanwhile is missing from the snapshot
+        saveMappingIndex();
+        mappingIndex = new MappingIndex(0);
+        siteContexts.clear();
+        unregisterEventHandler();
         closeHttpClient(customGptClient);
         closeHttpClient(jahiaClient);
+        if (customGptTransport != null) {
+            customGptTransport.close();
+        }
+        if (circuitProbeScheduler != null) {
+            circuitProbeScheduler.shutdownNow();
+        }
+        if (!parkedOperations.isEmpty()) {
+            LOGGER.warn("Service stopped with {} indexing operation(s) parked by the circuit breaker, they are dropped", parkedOperations.size());
+            parkedOperations.clear();
+        }
         initialized = false;
     }
     
@@ -668,6 +1141,9 @@ public class Service implements EventHandler {
     }
     
     private void shutdownAndAwaitTermination(ExecutorService pool) {
+        if (pool == null) {
+            return;
+        }
         pool.shutdown();
         try {
             if (!pool.awaitTermination(60, TimeUnit.SECONDS)) {
@@ -709,6 +1185,7 @@ public class Service implements EventHandler {
                 || CustomGptConstants.EVENT_TYPE_CONFIG_UPDATED.equals(type)
                 || CustomGptConstants.EVENT_TYPE_CONFIG_UPDATED_REQUIRE_REINDEX.equals(type))
                 && customGptConfig.isConfigured()) {
+            resizeExecutors();
             init();
             if (CustomGptConstants.EVENT_TYPE_CONFIG_UPDATED_REQUIRE_REINDEX.equals(type)) {
                 reIndexUsingJob();
@@ -812,11 +1289,11 @@ public class Service implements EventHandler {
     
     /**
      * Returns {@code true} when {@code path} is a candidate for indexing: it must be under {@code /sites/} or
-     * {@code /trash-}, and must not end with the internal {@code customGptPageId} or {@code jcr:lastModified}
-     * property names (which would indicate a property-path rather than a node-path).
+     * {@code /trash-}, and must not end with the internal {@code customGptPageId}, {@code customGptContentDigest}
+     * or {@code jcr:lastModified} property names (which would indicate a property-path rather than a node-path).
      */
     public boolean acceptablePathToIndex(String path) {
-        return ((path.startsWith("/trash-") || SITE_MATCHER.matcher(path).matches()) && !path.endsWith(CustomGptConstants.PROP_CUSTOM_GPT_PAGE_ID) && !path.endsWith(Constants.JCR_LASTMODIFIED));
+        return ((path.startsWith("/trash-") || SITE_MATCHER.matcher(path).matches()) && !path.endsWith(CustomGptConstants.PROP_CUSTOM_GPT_PAGE_ID) && !path.endsWith(CustomGptConstants.PROP_CUSTOM_GPT_CONTENT_DIGEST) && !path.endsWith(Constants.JCR_LASTMODIFIED));
     }
     
     private void updateIndexationTime(String path, String property, Calendar date) throws RepositoryException {
@@ -829,6 +1306,59 @@ public class Service implements EventHandler {
         });
     }
     
+    /**
+     * Returns the start of the last indexation of the site at {@code sitePath} that completed, {@code null} when none
+     * did, or the last one failed or is still running: the end is only recorded once a run went through. Content
+     * published after it may be missing from CustomGPT; content published during a run may have been scanned before
+     * its publication, hence the start rather than the end.
+     */
+    public Calendar getLastCompletedIndexationStart(String sitePath) throws RepositoryException {
+        return JCRTemplate.getInstance().doExecuteWithSystemSession(session -> {
+            final JCRNodeWrapper node = session.getNode(sitePath);
+            if (!node.hasProperty(PROP_INDEXATION_START) || !node.hasProperty(PROP_INDEXATION_END)) {
+                return null;
+            }
+            final Calendar start = node.getProperty(PROP_INDEXATION_START).getDate();
+            return node.getProperty(PROP_INDEXATION_END).getDate().before(start) ? null : start;
+        });
+    }
+
+    /** Returns the scan checkpoint recorded on the site node at {@code sitePath}, {@code null} when there is none. */
+    public ScanCheckpoint getIndexationCheckpoint(String sitePath) throws RepositoryException {
+        return JCRTemplate.getInstance().doExecuteWithSystemSession(session -> {
+            final JCRNodeWrapper node = session.getNode(sitePath);
+            if (!node.hasProperty(PROP_INDEXATION_CHECKPOINT_TYPE) || !node.hasProperty(PROP_INDEXATION_CHECKPOINT_UUID)) {
+                return null;
+            }
+            return new ScanCheckpoint(node.getProperty(PROP_INDEXATION_CHECKPOINT_TYPE).getString(),
+                    node.getProperty(PROP_INDEXATION_CHECKPOINT_UUID).getString());
+        });
+    }
+
+    /** Records on the site node at {@code sitePath} how far its indexation scan went; {@code null} clears it. */
+    public void setIndexationCheckpoint(String sitePath, ScanCheckpoint checkpoint) throws RepositoryException {
+        JCRTemplate.getInstance().doExecuteWithSystemSession(session -> {
+            final JCRNodeWrapper node = session.getNode(sitePath);
+            if (checkpoint != null) {
+                node.setProperty(PROP_INDEXATION_CHECKPOINT_TYPE, checkpoint.getNodeType());
+                node.setProperty(PROP_INDEXATION_CHECKPOINT_UUID, checkpoint.getUuid());
+            } else if (node.hasProperty(PROP_INDEXATION_CHECKPOINT_TYPE) || node.hasProperty(PROP_INDEXATION_CHECKPOINT_UUID)) {
+                removeProperty(node, PROP_INDEXATION_CHECKPOINT_TYPE);
+                removeProperty(node, PROP_INDEXATION_CHECKPOINT_UUID);
+            } else {
+                return null;
+            }
+            session.save();
+            return null;
+        });
+    }
+
+    private static void removeProperty(JCRNodeWrapper node, String property) throws RepositoryException {
+        if (node.hasProperty(property)) {
+            node.getProperty(property).remove();
+        }
+    }
+    
     private Map<String, Object> constructTaskDetailsEvent(String taskTarget, String taskService) {
         final Map<String, Object> taskDetailsMap = new HashMap<>();
         taskDetailsMap.put("name", taskService + ": " + taskTarget);
@@ -838,17 +1368,30 @@ public class Service implements EventHandler {
     }
     
     public JCRSessionWrapper getSystemSession(JahiaUser user, String workspace, Locale locale) throws RepositoryException {
-        // NOTE: setCurrentUser mutates the thread-local JCRSessionFactory current user as a side effect, which is a
-        // shared-state concern when indexer tasks run on pooled executor threads. It is left in place deliberately:
-        // the index pipeline relies on the current-user being the root/system user for permission resolution, and a
-        // safe behaviour-preserving fix would require threading the user through the call chain. Do not "fix" by
-        // removing the guard without also passing the user explicitly to every downstream JCR call.
+        // NOTE: setCurrentUser mutates the thread-local JCRSessionFactory current user as a side effect. It is left in
+        // place deliberately: the index pipeline relies on the current-user being the root/system user for permission
+        // resolution. The threads that call this method (executor workers, pipeline workers and virtual threads) undo
+        // it through releaseThreadState() when their task ends, so the user and the cached sessions never leak to the
+        // next task of a pooled thread nor stay open after a virtual thread is gone.
         final JCRSessionWrapper systemSession = JCRTemplate.getInstance().getSessionFactory().getCurrentSystemSession(workspace, locale, null);
         if (JCRSessionFactory.getInstance().getCurrentUser() == null) {
             JCRSessionFactory.getInstance().setCurrentUser(user);
+            CURRENT_USER_SET.set(Boolean.TRUE);
         }
         return systemSession;
     }
+
+    /**
+     * Logs out the sessions cached for the current thread by {@link JCRSessionFactory} and clears the current user
+     * when {@link #getSystemSession} set it.
+     */
+    public void releaseThreadState() {
+        JCRSessionFactory.getInstance().closeAllSessions();
+        if (Boolean.TRUE.equals(CURRENT_USER_SET.get())) {
+            JCRSessionFactory.getInstance().setCurrentUser(null);
+        }
+        CURRENT_USER_SET.remove();
+    }
     
     public boolean skipIndexationForNode(JCRNodeWrapper node) throws RepositoryException {
         if (node == null) {
@@ -878,7 +1421,7 @@ public class Service implements EventHandler {
         if (projectId == null || projectId.isEmpty()) {
             return null;
         }
-        if (customGptClient == null) {
+        if (customGptTransport == null) {
             LOGGER.warn("CustomGPT HTTP client is not initialised; cannot fetch project name");
             return null;
         }
@@ -895,7 +1438,7 @@ public class Service implements EventHandler {
                 .addHeader(HEADER_ACCEPT, MEDIA_TYPE_JSON)
                 .addHeader(HEADER_AUTHORIZATION, BEARER_PREFIX + customGptConfig.getCustomGptToken())
                 .build();
-        try (Response response = customGptClient.newCall(request).execute()) {
+        try (Response response = customGptTransport.execute(request)) {
             if (!response.isSuccessful()) {
                 LOGGER.warn("Failed to fetch CustomGPT project name for project {}: {}", projectId, response.code());
                 return null;
@@ -922,6 +1465,9 @@ public class Service implements EventHandler {
      * avoids offset-pagination drift: after deleting the items on page 1, the items that were
      * on page 2 shift into page 1, so following {@code next_page_url} would skip them.
      *
+     * <p>The mapping nodes and the {@link MappingIndex} are cleared once the project is empty: their page ids no
+     * longer exist and their content digests would make the next full indexation skip every unchanged page.
+     *
      * @return the number of pages successfully deleted
      */
     public int purgeAllPages() throws IOException {
@@ -930,7 +1476,7 @@ public class Service implements EventHandler {
         final String safeProjectId = SecurityUtils.sanitizeForLog(projectId);
         LOGGER.info("[purgeAllPages] Starting purge for project {}", safeProjectId);
 
-        if (customGptClient == null) {
+        if (customGptTransport == null) {
             throw new IOException("CustomGPT HTTP client is not initialised; cannot purge pages");
         }
         final String baseUrl = resolveValidatedApiBaseUrl();
@@ -950,11 +1496,12 @@ public class Service implements EventHandler {
         int totalDeleted = 0;
         int round = 1;
 
-        // Cap threads to the rate limit so we never create more concurrent callers than tokens-per-second.
+        // With the asynchronous transport the deletions are simply enqueued and bounded by its in-flight window.
+        // Otherwise cap threads to the rate limit so we never create more concurrent callers than tokens-per-second.
         // A single executor is reused across all purge rounds to avoid repeated thread-pool creation/teardown.
         // Guard against a zero/negative rate limit, which would make newFixedThreadPool throw.
         final int threadCount = Math.max(1, Math.min(batchSize, customGptConfig.getRateLimitRequestsPerSecond()));
-        final ExecutorService batchExecutor = Executors.newFixedThreadPool(threadCount);
+        final ExecutorService batchExecutor = customGptTransport.isAsync() ? null : Executors.newFixedThreadPool(threadCount);
         try {
             while (true) {
                 LOGGER.info("[purgeAllPages] Round {}: fetching first result page from CustomGPT", round);
@@ -963,93 +1510,379 @@ public class Service implements EventHandler {
                     break;
                 }
                 LOGGER.info("[purgeAllPages] Round {}: {} page(s) to delete (batch size {})", round, pageIds.size(), batchSize);
-                totalDeleted += deleteAllPages(pageIds, baseUrl, projectId, batchSize, batchExecutor);
+                totalDeleted += deleteAllPages(pageIds, baseUrl, projectId, batchSize, batchExecutor, "[purgeAllPages]");
                 LOGGER.info("[purgeAllPages] Round {} complete — {} page(s) deleted so far", round, totalDeleted);
                 round++;
             }
         } finally {
-            shutdownAndAwaitTermination(batchExecutor);
+            if (batchExecutor != null) {
+                shutdownAndAwaitTermination(batchExecutor);
+            }
         }
 
-        LOGGER.info("[purgeAllPages] Purge complete — deleted {} page(s) from project {}", totalDeleted, safeProjectId);
+        final int removedMappings = removeAllMappings(batchSize);
+        LOGGER.info("[purgeAllPages] Purge complete — deleted {} page(s) from project {}, removed {} mapping(s)",
+                totalDeleted, safeProjectId, removedMappings);
         return totalDeleted;
     }
 
+    /** Removes every mapping node of the indexed sites, {@code batchSize} per save, and empties the mapping cache. */
+    private int removeAllMappings(int batchSize) throws IOException {
+        try {
+            return JCRTemplate.getInstance().doExecuteWithSystemSession(session -> {
+                int removed = 0;
+                while (true) {
+                    final Query query = session.getWorkspace().getQueryManager().createQuery("select * from ["
+                            + CustomGptConstants.NT_CUSTOM_GPT_INDEX_ENTRY + "] as entry where isdescendantnode(entry,['/sites'])", Query.JCR_SQL2);
+                    query.setLimit(batchSize);
+                    final NodeIterator nodeIterator = query.execute().getNodes();
+                    if (!nodeIterator.hasNext()) {
+                        return removed;
+                    }
+                    while (nodeIterator.hasNext()) {
+                        nodeIterator.nextNode().remove();
+                        removed++;
+                    }
+                    session.save();
+                }
+            });
+        } catch (RepositoryException e) {
+            throw new IOException("Pages purged but the mapping nodes could not be removed", e);
+        } finally {
+            mappingIndex.clear();
+        }
+    }
+
+    /**
+     * Schedules a {@link ReconcileJob}, which runs {@link #reconcile()} in the background.
+     */
+    public JobDetail reconcileUsingJob() {
+        final JobDetail reconcileJobDetail = BackgroundJob.createJahiaJob(RECONCILE_LOG, ReconcileJob.class);
+        try {
+            schedulerService.getScheduler().scheduleJob(reconcileJobDetail, getSimpleTrigger(reconcileJobDetail));
+        } catch (SchedulerException e) {
+            LOGGER.error("Failed to schedule reconciliation job: {}", e.getMessage(), e);
+        }
+        return reconcileJobDetail;
+    }
+
+    /**
+     * Repairs the drift between the CustomGPT project and the {@code jnt:customGptIndexEntry} mapping nodes, as a small
+     * delta instead of a purge followed by a full re-indexation:
+     * <ul>
+     *     <li>every page of the project is listed into a {@link PageIdSet};</li>
+     *     <li>the mapping nodes are streamed; one referring to a page the project no longer has is stale: it is removed
+     *     and its content indexed again;</li>
+     *     <li>the published main resources of the indexed sites without a mapping node are indexed;</li>
+     *     <li>the pages no mapping node refers to are orphaned and deleted.</li>
+     * </ul>
+     * In dry run nothing is removed or deleted, the content to index still goes through the (dry run) indexation.
+     * Refused while indexation operations are pending, as their pages and mappings are not written yet.
+     *
+     * @throws IOException when the pages of the project could not all be listed; nothing is changed then
+     */
+    public ReconciliationResult reconcile() throws IOException, RepositoryException {
+        if (customGptTransport == null) {
+            throw new IOException("CustomGPT HTTP client is not initialised; cannot reconcile pages");
+        }
+        if (getPendingIndexationOperations() > 0) {
+            throw new IllegalStateException("Indexation operations are pending; reconcile once they are done");
+        }
+        final boolean dryRun = customGptConfig.isDryRun();
+        final String baseUrl = resolveValidatedApiBaseUrl();
+        final String projectId = customGptConfig.getCustomGptProjectId();
+        int batchSize;
+        try {
+            batchSize = customGptConfig.getBulkOperationsBatchSize();
+        } catch (NotConfiguredException e) {
+            LOGGER.warn("[reconcile] Batch size unavailable, falling back to {}: {}", DEFAULT_BATCH_SIZE, e.getMessage());
+            batchSize = DEFAULT_BATCH_SIZE;
+        }
+        if (batchSize <= 0) {
+            batchSize = DEFAULT_BATCH_SIZE;
+        }
+        final int step = batchSize;
+
+        final PageIdSet pageIds = listAllPages(String.format("%s/projects/%s/pages", baseUrl, projectId));
+        LOGGER.info("[reconcile] {} page(s) listed in project {}", pageIds.size(), SecurityUtils.sanitizeForLog(projectId));
+
+        final Set<String> pathsToIndex = new LinkedHashSet<>();
+        final int staleMappings = JCRTemplate.getInstance().doExecuteWithSystemSession(session ->
+                reconcileMappings(session, pageIds, pathsToIndex, step, dryRun));
+        final int missingMappings = collectMissingMappings(pathsToIndex, step);
+
+        final long[] orphanedPages = pageIds.getUnreferenced();
+        LOGGER.info("[reconcile] {} orphaned page(s), {} stale mapping(s), {} missing mapping(s)",
+                orphanedPages.length, staleMappings, missingMappings);
+        if (!dryRun && orphanedPages.length > 0) {
+            final List<Long> orphans = new ArrayList<>(orphanedPages.length);
+            for (long pageId : orphanedPages) {
+                orphans.add(pageId);
+            }
+            final int threadCount = Math.max(1, Math.min(batchSize, customGptConfig.getRateLimitRequestsPerSecond()));
+            final ExecutorService batchExecutor = customGptTransport.isAsync() ? null : Executors.newFixedThreadPool(threadCount);
+            try {
+                deleteAllPages(orphans, baseUrl, projectId, batchSize, batchExecutor, "[reconcile]");
+            } finally {
+                if (batchExecutor != null) {
+                    shutdownAndAwaitTermination(batchExecutor);
+                }
+            }
+        }
+        queueReconciledPaths(pathsToIndex, batchSize);
+        return new ReconciliationResult(pageIds.size(), orphanedPages.length, staleMappings, missingMappings, dryRun);
+    }
+
+    /**
+     * Lists every page of the project, following {@code last_page} of the paginator rather than {@code next_page_url}
+     * so the Bearer token is only ever sent to the configured base URL.
+     */
+    private PageIdSet listAllPages(String firstPageUrl) throws IOException {
+        final PageIdSet pageIds = new PageIdSet();
+        int lastPage = 1;
+        for (int page = 1; page <= lastPage; page++) {
+            final JSONObject pages = fetchPageListing(firstPageUrl + "?page=" + page, "[reconcile]");
+            if (pages == null) {
+                // a partial listing would turn every unlisted page into a stale mapping to index again
+                throw new IOException("Unable to list the pages of the CustomGPT project, reconciliation aborted");
+            }
+            final JSONArray items = pages.optJSONArray("data");
+            if (items != null) {
+                for (int i = 0; i < items.length(); i++) {
+                    pageIds.add(items.getJSONObject(i).getLong("id"));
+                }
+            }
+            lastPage = pages.optInt("last_page", page);
+        }
+        pageIds.seal();
+        return pageIds;
+    }
+
+    /** Streams the mapping nodes, marking the pages they refer to and returning the number of stale ones. */
+    private int reconcileMappings(JCRSessionWrapper session, PageIdSet pageIds, Set<String> pathsToIndex, int step,
+            boolean dryRun) throws RepositoryException {
+        final Query query = session.getWorkspace().getQueryManager().createQuery("select * from ["
+                + CustomGptConstants.NT_CUSTOM_GPT_INDEX_ENTRY + "] as entry where isdescendantnode(entry,['/sites'])", Query.JCR_SQL2);
+        final List<JCRNodeWrapper> staleMappings = new ArrayList<>();
+        new ScrollableQuery(step, query).execute(new ScrollableQueryCallback<Void>() {
+            @Override
+            public boolean scroll() throws RepositoryException {
+                final NodeIterator nodeIterator = stepResult.getNodes();
+                while (nodeIterator.hasNext()) {
+                    final JCRNodeWrapper mapping = (JCRNodeWrapper) nodeIterator.nextNode();
+                    if (!refersToListedPage(mapping, pageIds)) {
+                        LOGGER.debug("[reconcile] Stale mapping {}", mapping.getPath());
+                        pathsToIndex.add(mapping.getParent().getPath());
+                        staleMappings.add(mapping);
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            protected Void getResult() {
+                return null;
+            }
+        });
+        if (!dryRun && !staleMappings.isEmpty()) {
+            // removed once the scroll is over, so the query result is not modified while it is read
+            // identifier and language of each removed mapping
+            final List<Map.Entry<String, String>> keys = new ArrayList<>(staleMappings.size());
+            for (JCRNodeWrapper mapping : staleMappings) {
+                keys.add(new AbstractMap.SimpleImmutableEntry<>(mapping.getParent().getIdentifier(),
+                        CustomGptConstants.getMappingLanguage(mapping.getName())));
+                mapping.remove();
+            }
+            session.save();
+            keys.forEach(key -> mappingIndex.invalidate(key.getKey(), key.getValue()));
+        }
+        return staleMappings.size();
+    }
+
+    private static boolean refersToListedPage(JCRNodeWrapper mapping, PageIdSet pageIds) throws RepositoryException {
+        if (!mapping.hasProperty(CustomGptConstants.PROP_CUSTOM_GPT_PAGE_ID)) {
+            return false;
+        }
+        try {
+            return pageIds.markReferenced(Long.parseLong(mapping.getProperty(CustomGptConstants.PROP_CUSTOM_GPT_PAGE_ID).getString()));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /** Adds the published main resources of the indexed sites without a mapping node; returns how many there are. */
+    private int collectMissingMappings(Set<String> pathsToIndex, int step) throws RepositoryException {
+        final Set<String> mainResourceTypes;
+        try {
+            mainResourceTypes = getIndexedMainResourceNodeTypes();
+        } catch (NotConfiguredException e) {
+            LOGGER.warn("[reconcile] Main resource types unavailable, missing mappings not checked: {}", e.getMessage());
+            return 0;
+        }
+        final int[] missing = new int[1];
+        for (Site site : getIndexedSites().values()) {
+            for (String mainResourceType : mainResourceTypes) {
+                JCRTemplate.getInstance().doExecuteWithSystemSessionAsUser(null, Constants.EDIT_WORKSPACE, null, editSession ->
+                        JCRTemplate.getInstance().doExecuteWithSystemSessionAsUser(null, Constants.LIVE_WORKSPACE, null, liveSession -> {
+                            final Query query = liveSession.getWorkspace().getQueryManager().createQuery("select * from ["
+                                    + mainResourceType + "] as sel where isdescendantnode(sel,['" + site.getPath() + "'])", Query.JCR_SQL2);
+                            return new ScrollableQuery(step, query).execute(new ScrollableQueryCallback<Void>() {
+                                @Override
+                                public boolean scroll() throws RepositoryException {
+                                    final NodeIterator nodeIterator = stepResult.getNodes();
+                                    while (nodeIterator.hasNext()) {
+                                        final JCRNodeWrapper node = (JCRNodeWrapper) nodeIterator.nextNode();
+                                        if (!skipIndexationForNode(node) && !hasAllMappings(editSession, node)
+                                                && pathsToIndex.add(node.getPath())) {
+                                            LOGGER.debug("[reconcile] Missing mapping for {}", node.getPath());
+                                            missing[0]++;
+                                        }
+                                    }
+                                    return true;
+                                }
+
+                                @Override
+                                protected Void getResult() {
+                                    return null;
+                                }
+                            });
+                        }));
+            }
+        }
+        return missing[0];
+    }
+
+    /** Tells whether {@code node} has the mapping node of each language it is indexed in, the shared one for a file. */
+    private boolean hasAllMappings(JCRSessionWrapper editSession, JCRNodeWrapper node) throws RepositoryException {
+        if (node.isFile()) {
+            return editSession.nodeExists(CustomGptConstants.buildMappingPath(node.getPath(), null));
+        }
+        for (String language : siteContexts.get(node.getResolveSite()).getLanguages()) {
+            if (!editSession.nodeExists(CustomGptConstants.buildMappingPath(node.getPath(), language))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void queueReconciledPaths(Set<String> pathsToIndex, int batchSize) {
+        if (pathsToIndex.isEmpty()) {
+            return;
+        }
+        restartExecutorNThreads();
+        IndexOperations operations = new IndexOperations();
+        for (String path : pathsToIndex) {
+            operations.addOperation(new IndexOperations.CustomGptIndexOperation(CustomGptOperationType.NODE_INDEX, path));
+            if (operations.getOperations().size() >= batchSize) {
+                enqueueIndexation(siteQueue, operations, ops -> submitIndexation(executorNThreads, ops, RequestLane.BULK, false));
+                operations = new IndexOperations();
+            }
+        }
+        if (!operations.isEmpty()) {
+            enqueueIndexation(siteQueue, operations, ops -> submitIndexation(executorNThreads, ops, RequestLane.BULK, false));
+        }
+    }
+
     private List<Long> fetchOnePage(String url) throws IOException {
+        final JSONObject pages = fetchPageListing(url, "[purgeAllPages]");
+        final JSONArray items = pages != null ? pages.optJSONArray("data") : null;
+        if (items == null || items.length() == 0) {
+            return Collections.emptyList();
+        }
+        final List<Long> pageIds = new ArrayList<>();
+        for (int i = 0; i < items.length(); i++) {
+            pageIds.add(items.getJSONObject(i).getLong("id"));
+        }
+        LOGGER.info("[purgeAllPages] Fetched {} page id(s) from first result page", pageIds.size());
+        return pageIds;
+    }
+
+    /**
+     * Lists the pages at {@code url} and returns the {@code data.pages} paginator of the answer, {@code null} when the
+     * listing failed (logged with {@code logTag}) or has no pages object.
+     */
+    private JSONObject fetchPageListing(String url, String logTag) throws IOException {
         final Request listRequest = new Request.Builder()
                 .url(url)
+                .tag(RequestLane.class, RequestLane.BULK)
                 .get()
                 .addHeader(HEADER_ACCEPT, MEDIA_TYPE_JSON)
                 .addHeader(HEADER_AUTHORIZATION, BEARER_PREFIX + customGptConfig.getCustomGptToken())
                 .build();
-        try (Response listResponse = customGptClient.newCall(listRequest).execute()) {
+        try (Response listResponse = customGptTransport.execute(listRequest)) {
             if (!listResponse.isSuccessful()) {
-                LOGGER.error("[purgeAllPages] Failed to list CustomGPT pages (HTTP {}), stopping", listResponse.code());
-                return Collections.emptyList();
+                LOGGER.error("{} Failed to list CustomGPT pages (HTTP {}), stopping", logTag, listResponse.code());
+                return null;
             }
             if (listResponse.body() == null) {
-                LOGGER.error("[purgeAllPages] Empty response body when listing CustomGPT pages, stopping");
-                return Collections.emptyList();
+                LOGGER.error("{} Empty response body when listing CustomGPT pages, stopping", logTag);
+                return null;
             }
             final JSONObject body = new JSONObject(listResponse.body().string());
             final JSONObject data = body.optJSONObject("data");
-            if (data == null) {
-                return Collections.emptyList();
-            }
-            final JSONObject pages = data.optJSONObject("pages");
-            if (pages == null) {
-                return Collections.emptyList();
-            }
-            final JSONArray items = pages.optJSONArray("data");
-            if (items == null || items.length() == 0) {
-                return Collections.emptyList();
-            }
-            final List<Long> pageIds = new ArrayList<>();
-            for (int i = 0; i < items.length(); i++) {
-                pageIds.add(items.getJSONObject(i).getLong("id"));
-            }
-            LOGGER.info("[purgeAllPages] Fetched {} page id(s) from first result page", pageIds.size());
-            return pageIds;
+            return data != null ? data.optJSONObject("pages") : null;
         }
     }
 
-    private int deleteAllPages(List<Long> pageIds, String baseUrl, String projectId, int batchSize, ExecutorService batchExecutor) {
+    private int deleteAllPages(List<Long> pageIds, String baseUrl, String projectId, int batchSize, ExecutorService batchExecutor,
+            String logTag) {
         final int total = pageIds.size();
         final AtomicInteger deleted = new AtomicInteger(0);
         for (int batchStart = 0; batchStart < total; batchStart += batchSize) {
             final int batchEnd = Math.min(batchStart + batchSize, total);
             final List<Long> batch = pageIds.subList(batchStart, batchEnd);
             final int batchNumber = batchStart / batchSize + 1;
-            LOGGER.info("[purgeAllPages] Starting batch {} — pages {}-{} of {}",
-                    batchNumber, batchStart + 1, batchEnd, total);
+            LOGGER.info("{} Starting batch {} — pages {}-{} of {}",
+                    logTag, batchNumber, batchStart + 1, batchEnd, total);
             final List<CompletableFuture<Void>> futures = new ArrayList<>();
             for (Long pageId : batch) {
-                futures.add(CompletableFuture.runAsync(
-                        () -> deleteOnePage(pageId, baseUrl, projectId, deleted), batchExecutor));
+                if (batchExecutor == null) {
+                    futures.add(deleteOnePage(pageId, baseUrl, projectId, deleted, logTag));
+                } else {
+                    futures.add(CompletableFuture.runAsync(
+                            () -> deleteOnePage(pageId, baseUrl, projectId, deleted, logTag).join(), batchExecutor));
+                }
             }
             CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-            LOGGER.info("[purgeAllPages] Batch {} complete — {}/{} page(s) deleted so far",
-                    batchNumber, deleted.get(), total);
+            LOGGER.info("{} Batch {} complete — {}/{} page(s) deleted so far",
+                    logTag, batchNumber, deleted.get(), total);
         }
         return deleted.get();
     }
 
-    private void deleteOnePage(Long pageId, String baseUrl, String projectId, AtomicInteger deleted) {
+    private CompletableFuture<Void> deleteOnePage(Long pageId, String baseUrl, String projectId, AtomicInteger deleted, String logTag) {
         final Request delRequest = new Request.Builder()
                 .url(String.format("%s/projects/%s/pages/%s", baseUrl, projectId, pageId))
+                .tag(RequestLane.class, RequestLane.BULK)
                 .delete()
                 .addHeader(HEADER_ACCEPT, MEDIA_TYPE_JSON)
                 .addHeader(HEADER_AUTHORIZATION, BEARER_PREFIX + customGptConfig.getCustomGptToken())
                 .build();
-        try (Response delResponse = customGptClient.newCall(delRequest).execute()) {
-            if (delResponse.isSuccessful()) {
-                LOGGER.info("[purgeAllPages] Deleted page {}", pageId);
-                deleted.incrementAndGet();
-            } else {
-                LOGGER.warn("[purgeAllPages] Failed to delete page {} (HTTP {})", pageId, delResponse.code());
+        return customGptTransport.executeAsync(delRequest).handle((delResponse, throwable) -> {
+            if (throwable != null) {
+                LOGGER.warn("{} Error deleting page {}: {}", logTag, pageId, throwable.getMessage());
+                return null;
             }
-        } catch (IOException e) {
-            LOGGER.warn("[purgeAllPages] Error deleting page {}: {}", pageId, e.getMessage());
+            try (Response response = delResponse) {
+                if (response.isSuccessful()) {
+                    LOGGER.info("{} Deleted page {}", logTag, pageId);
+                    deleted.incrementAndGet();
+                } else {
+                    LOGGER.warn("{} Failed to delete page {} (HTTP {})", logTag, pageId, response.code());
+                }
+            }
+            return null;
+        });
+    }
+
+    private static final class ParkedOperations {
+
+        private final IndexOperations operations;
+        private final RequestLane lane;
+
+        private ParkedOperations(IndexOperations operations, RequestLane lane) {
+            this.operations = operations;
+            this.lane = lane;
         }
     }
 }
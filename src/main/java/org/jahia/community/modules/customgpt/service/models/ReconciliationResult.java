@@ -0,0 +1,51 @@
+package org.jahia.community.modules.customgpt.service.models;
+
+/**
+ * Outcome of a reconciliation of the CustomGPT project against the JCR mapping nodes.
+ */
+public class ReconciliationResult {
+
+    private final int projectPages;
+    private final int orphanedPages;
+    private final int staleMappings;
+    private final int missingMappings;
+    private final boolean dryRun;
+
+    public ReconciliationResult(int projectPages, int orphanedPages, int staleMappings, int missingMappings, boolean dryRun) {
+        this.projectPages = projectPages;
+        this.orphanedPages = orphanedPages;
+        this.staleMappings = staleMappings;
+        this.missingMappings = missingMappings;
+        this.dryRun = dryRun;
+    }
+
+    /** Pages listed in the CustomGPT project. */
+    public int getProjectPages() {
+        return projectPages;
+    }
+
+    /** Pages of the project no mapping node refers to, deleted unless in dry run. */
+    public int getOrphanedPages() {
+        return orphanedPages;
+    }
+
+    /** Mapping nodes referring to a page the project no longer has, whose content is indexed again. */
+    public int getStaleMappings() {
+        return staleMappings;
+    }
+
+    /** Published main resources without a mapping node, indexed. */
+    public int getMissingMappings() {
+        return missingMappings;
+    }
+
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    @Override
+    public String toString() {
+        return projectPages + " project page(s), " + orphanedPages + " orphaned, " + staleMappings + " stale mapping(s), "
+                + missingMappings + " missing mapping(s)" + (dryRun ? " (dry run)" : "");
+    }
+}
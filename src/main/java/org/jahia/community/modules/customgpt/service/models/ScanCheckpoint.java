@@ -0,0 +1,30 @@
+package org.jahia.community.modules.customgpt.service.models;
+
+/**
+ * Progress of a site indexation scan, persisted on the site node after every flushed batch: the node type being
+ * scanned and the {@code jcr:uuid} of the last node queued, the scan running node type by node type in
+ * {@code jcr:uuid} order.
+ */
+public class ScanCheckpoint {
+
+    private final String nodeType;
+    private final String uuid;
+
+    public ScanCheckpoint(String nodeType, String uuid) {
+        this.nodeType = nodeType;
+        this.uuid = uuid;
+    }
+
+    public String getNodeType() {
+        return nodeType;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    @Override
+    public String toString() {
+        return nodeType + "@" + uuid;
+    }
+}
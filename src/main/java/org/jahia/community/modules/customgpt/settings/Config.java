@@ -27,9 +27,86 @@ import org.slf4j.LoggerFactory;
 }, immediate = true)
 public class Config implements ManagedService {
 
+    /** How page HTML is obtained before upload: HTTP loopback through the Jahia client, or Jahia's RenderService. */
+    public enum RenderingMode {
+        HTTP("http"),
+        IN_PROCESS("inProcess");
+
+        private final String value;
+
+        RenderingMode(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        static RenderingMode fromValue(String value) {
+            for (RenderingMode mode : values()) {
+                if (mode.value.equalsIgnoreCase(StringUtils.trim(value))) {
+                    return mode;
+                }
+            }
+            LOGGER.warn("Unknown rendering mode [{}], falling back to {}", value, HTTP.value);
+            return HTTP;
+        }
+    }
+
+    /** What a thread submitting indexation work does when the executor queue is full. */
+    public enum RejectionPolicy {
+        BLOCK("block"),
+        CALLER_RUNS("callerRuns"),
+        ABORT("abort");
+
+        private final String value;
+
+        RejectionPolicy(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        static RejectionPolicy fromValue(String value) {
+            for (RejectionPolicy policy : values()) {
+                if (policy.value.equalsIgnoreCase(StringUtils.trim(value))) {
+                    return policy;
+                }
+            }
+            LOGGER.warn("Unknown executor rejection policy [{}], falling back to {}", value, BLOCK.value);
+            return BLOCK;
+        }
+    }
+
     private static final Logger LOGGER = LoggerFactory.getLogger(Config.class);
     private static final String JMIX_MAIN_RESOURCE = "jmix:mainResource";
     private static final int DEFAULT_BULK_OPERATIONS_BATCH_SIZE = 500;
+    private static final int DEFAULT_TRANSPORT_MAX_IN_FLIGHT = 8;
+    private static final int DEFAULT_UPLOAD_SPILL_THRESHOLD_BYTES = 1024 * 1024;
+    private static final int DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD = 5;
+    private static final int DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION_SECONDS = 30;
+    private static final int DEFAULT_PIPELINE_RESOLVE_WORKERS = 1;
+    private static final int DEFAULT_PIPELINE_RENDER_WORKERS = 2;
+    private static final int DEFAULT_PIPELINE_UPLOAD_WORKERS = 4;
+    private static final int DEFAULT_PIPELINE_METADATA_WORKERS = 2;
+    private static final int DEFAULT_PIPELINE_MAPPING_WORKERS = 1;
+    private static final int DEFAULT_PIPELINE_QUEUE_CAPACITY = 16;
+    private static final int DEFAULT_PIPELINE_MAX_CONCURRENT_PAGES = 32;
+    private static final int DEFAULT_EXECUTOR_INTERACTIVE_THREADS = 1;
+    private static final int DEFAULT_EXECUTOR_INTERACTIVE_QUEUE_CAPACITY = 1000;
+    private static final int DEFAULT_EXECUTOR_SITE_THREADS = 2;
+    private static final int DEFAULT_EXECUTOR_SITE_QUEUE_CAPACITY = 1000;
+    private static final int DEFAULT_EXECUTOR_FULL_INDEXATION_THREADS = 1;
+    private static final int DEFAULT_EXECUTOR_FULL_INDEXATION_QUEUE_CAPACITY = 100;
+    private static final int DEFAULT_OPERATION_LOG_SEGMENT_SIZE_MB = 16;
+    private static final int DEFAULT_OPERATION_LOG_IN_MEMORY_WINDOW = 100;
+    private static final int DEFAULT_LISTENER_COALESCE_WINDOW_MS = 5000;
+    private static final int DEFAULT_LISTENER_COALESCE_MAX_OPERATIONS = 500;
+    private static final int DEFAULT_SCAN_PARTITIONS = 1;
+    private static final int DEFAULT_MAPPING_CACHE_SIZE = 50000;
+    private static final int DEFAULT_MAPPING_BATCH_SIZE = 100;
 
     private static final String CONFIG_NAMESPACE_PREFIX = "org.jahia.community.modules.customgpt";
     private static final String PROP_CONTENT_INDEXED_SUB_NODE_TYPES = CONFIG_NAMESPACE_PREFIX + ".content.indexedSubNodeTypes";
@@ -47,10 +124,40 @@ public class Config implements ManagedService {
     private static final String DRY_RUN = CONFIG_NAMESPACE_PREFIX + ".dryRun";
     private static final String PROP_CUSTOM_GPT_API_BASE_URL = CONFIG_NAMESPACE_PREFIX + ".apiBaseUrl";
     private static final String PROP_RATE_LIMIT_REQUESTS_PER_SECOND = CONFIG_NAMESPACE_PREFIX + ".rateLimit.requestsPerSecond";
-
-    private Set<String> contentIndexedMainResources;
-    private Set<String> contentIndexedSubNodes;
-    private Set<String> indexedFileExtensions;
+    private static final String PROP_RATE_LIMIT_BURST_CAPACITY = CONFIG_NAMESPACE_PREFIX + ".rateLimit.burstCapacity";
+    private static final String PROP_RATE_LIMIT_ADAPTIVE = CONFIG_NAMESPACE_PREFIX + ".rateLimit.adaptive";
+    private static final String PROP_TRANSPORT_ASYNC = CONFIG_NAMESPACE_PREFIX + ".transport.async";
+    private static final String PROP_TRANSPORT_MAX_IN_FLIGHT = CONFIG_NAMESPACE_PREFIX + ".transport.maxInFlight";
+    private static final String PROP_RENDERING_MODE = CONFIG_NAMESPACE_PREFIX + ".rendering.mode";
+    private static final String PROP_UPLOAD_SPILL_THRESHOLD_BYTES = CONFIG_NAMESPACE_PREFIX + ".upload.spillThresholdBytes";
+    private static final String PROP_CIRCUIT_BREAKER_FAILURE_THRESHOLD = CONFIG_NAMESPACE_PREFIX + ".circuitBreaker.failureThreshold";
+    private static final String PROP_CIRCUIT_BREAKER_OPEN_DURATION_SECONDS = CONFIG_NAMESPACE_PREFIX + ".circuitBreaker.openDurationSeconds";
+    private static final String PROP_PIPELINE_RESOLVE_WORKERS = CONFIG_NAMESPACE_PREFIX + ".pipeline.resolveWorkers";
+    private static final String PROP_PIPELINE_RENDER_WORKERS = CONFIG_NAMESPACE_PREFIX + ".pipeline.renderWorkers";
+    private static final String PROP_PIPELINE_UPLOAD_WORKERS = CONFIG_NAMESPACE_PREFIX + ".pipeline.uploadWorkers";
+    private static final String PROP_PIPELINE_METADATA_WORKERS = CONFIG_NAMESPACE_PREFIX + ".pipeline.metadataWorkers";
+    private static final String PROP_PIPELINE_MAPPING_WORKERS = CONFIG_NAMESPACE_PREFIX + ".pipeline.mappingWorkers";
+    private static final String PROP_PIPELINE_QUEUE_CAPACITY = CONFIG_NAMESPACE_PREFIX + ".pipeline.queueCapacity";
+    private static final String PROP_PIPELINE_VIRTUAL_THREADS = CONFIG_NAMESPACE_PREFIX + ".pipeline.virtualThreads";
+    private static final String PROP_PIPELINE_MAX_CONCURRENT_PAGES = CONFIG_NAMESPACE_PREFIX + ".pipeline.maxConcurrentPages";
+    private static final String PROP_EXECUTOR_INTERACTIVE_THREADS = CONFIG_NAMESPACE_PREFIX + ".executor.interactive.threads";
+    private static final String PROP_EXECUTOR_INTERACTIVE_QUEUE_CAPACITY = CONFIG_NAMESPACE_PREFIX + ".executor.interactive.queueCapacity";
+    private static final String PROP_EXECUTOR_SITE_THREADS = CONFIG_NAMESPACE_PREFIX + ".executor.site.threads";
+    private static final String PROP_EXECUTOR_SITE_QUEUE_CAPACITY = CONFIG_NAMESPACE_PREFIX + ".executor.site.queueCapacity";
+    private static final String PROP_EXECUTOR_FULL_INDEXATION_THREADS = CONFIG_NAMESPACE_PREFIX + ".executor.fullIndexation.threads";
+    private static final String PROP_EXECUTOR_FULL_INDEXATION_QUEUE_CAPACITY = CONFIG_NAMESPACE_PREFIX + ".executor.fullIndexation.queueCapacity";
+    private static final String PROP_EXECUTOR_REJECTION_POLICY = CONFIG_NAMESPACE_PREFIX + ".executor.rejectionPolicy";
+    private static final String PROP_OPERATION_LOG_ENABLED = CONFIG_NAMESPACE_PREFIX + ".operationLog.enabled";
+    private static final String PROP_OPERATION_LOG_SEGMENT_SIZE_MB = CONFIG_NAMESPACE_PREFIX + ".operationLog.segmentSizeMb";
+    private static final String PROP_OPERATION_LOG_IN_MEMORY_WINDOW = CONFIG_NAMESPACE_PREFIX + ".operationLog.inMemoryWindow";
+    private static final String PROP_LISTENER_COALESCE_WINDOW_MS = CONFIG_NAMESPACE_PREFIX + ".listener.coalesceWindowMs";
+    private static final String PROP_LISTENER_COALESCE_MAX_OPERATIONS = CONFIG_NAMESPACE_PREFIX + ".listener.coalesceMaxOperations";
+    private static final String PROP_SCAN_PARTITIONS = CONFIG_NAMESPACE_PREFIX + ".scan.partitions";
+    private static final String PROP_MAPPING_CACHE_SIZE = CONFIG_NAMESPACE_PREFIX + ".mapping.cacheSize";
+    private static final String PROP_MAPPING_BATCH_SIZE = CONFIG_NAMESPACE_PREFIX + ".mapping.batchSize";
+
+    // what the indexing reads, replaced as a whole by each update
+    private volatile ConfigSnapshot snapshot = ConfigSnapshot.EMPTY;
     private boolean configured = false;
     private boolean scheduleJobASAP;
     private boolean dryRun;
@@ -64,6 +171,37 @@ public class Config implements ManagedService {
     private String jahiaServerCookieDomain;
     private String customGptApiBaseUrl;
     private int rateLimitRequestsPerSecond;
+    private int rateLimitBurstCapacity;
+    private boolean rateLimitAdaptive;
+    private boolean transportAsync;
+    private int transportMaxInFlight;
+    private RenderingMode renderingMode;
+    private int uploadSpillThresholdBytes;
+    private int circuitBreakerFailureThreshold;
+    private int circuitBreakerOpenDurationSeconds;
+    private int pipelineResolveWorkers;
+    private int pipelineRenderWorkers;
+    private int pipelineUploadWorkers;
+    private int pipelineMetadataWorkers;
+    private int pipelineMappingWorkers;
+    private int pipelineQueueCapacity;
+    private boolean pipelineVirtualThreads;
+    private int pipelineMaxConcurrentPages;
+    private int executorInteractiveThreads;
+    private int executorInteractiveQueueCapacity;
+    private int executorSiteThreads;
+    private int executorSiteQueueCapacity;
+    private int executorFullIndexationThreads;
+    private int executorFullIndexationQueueCapacity;
+    private RejectionPolicy executorRejectionPolicy;
+    private boolean operationLogEnabled;
+    private int operationLogSegmentSizeMb;
+    private int operationLogInMemoryWindow;
+    private int listenerCoalesceWindowMs;
+    private int listenerCoalesceMaxOperations;
+    private int scanPartitions;
+    private int mappingCacheSize;
+    private int mappingBatchSize;
 
     /**
      * Called by OSGi ConfigurationAdmin whenever the {@code org.jahia.community.modules.customgpt.cfg} file changes.
@@ -93,18 +231,30 @@ public class Config implements ManagedService {
         LOGGER.info("CustomGpt configuration loaded");
     }
 
+    /** Unmodifiable. */
     public Set<String> getContentIndexedSubNodes() throws NotConfiguredException {
-        checkConfigured();
-        return new LinkedHashSet<>(contentIndexedSubNodes);
+        return getSnapshot().getNodeTypeClassifier().getSubNodeTypes();
     }
 
+    /** Unmodifiable. */
     public Set<String> getContentIndexedMainResources() throws NotConfiguredException {
+        return getSnapshot().getNodeTypeClassifier().getMainResourceTypes();
+    }
+
+    /** Classifies nodes against the configured main-resource and sub-node types. */
+    public NodeTypeClassifier getNodeTypeClassifier() throws NotConfiguredException {
+        return getSnapshot().getNodeTypeClassifier();
+    }
+
+    /** Values read while indexing, as of the last update; capture it once per batch. */
+    public ConfigSnapshot getSnapshot() throws NotConfiguredException {
         checkConfigured();
-        return new LinkedHashSet<>(contentIndexedMainResources);
+        return snapshot;
     }
 
+    /** Unmodifiable. */
     public Set<String> getIndexedFileExtensions() {
-        return new LinkedHashSet<>(indexedFileExtensions);
+        return snapshot.getIndexedFileExtensions();
     }
 
     public int getBulkOperationsBatchSize() throws NotConfiguredException {
@@ -121,12 +271,13 @@ public class Config implements ManagedService {
 
     private void parse(Dictionary<String, ?> properties) {
         // Populate sets of properties
-        contentIndexedSubNodes = splitNodeTypeByComma((String) properties.get(PROP_CONTENT_INDEXED_SUB_NODE_TYPES));
-        contentIndexedMainResources = splitNodeTypeByComma((String) properties.get(PROP_CONTENT_INDEXED_MAIN_RESOURCE_TYPES));
+        final Set<String> contentIndexedSubNodes = splitNodeTypeByComma((String) properties.get(PROP_CONTENT_INDEXED_SUB_NODE_TYPES));
+        final Set<String> contentIndexedMainResources = splitNodeTypeByComma((String) properties.get(PROP_CONTENT_INDEXED_MAIN_RESOURCE_TYPES));
         updateSetToExcludeMainResourceType(contentIndexedMainResources);
         bulkOperationsBatchSize = getInt(properties, BULK_OPERATIONS_BATCH_SIZE, DEFAULT_BULK_OPERATIONS_BATCH_SIZE);
 
         final String indexedFiles = (String) properties.get(CONTENT_INDEXED_FILE_EXTENSIONS);
+        final Set<String> indexedFileExtensions;
         if (StringUtils.isEmpty(StringUtils.trim(indexedFiles))) {
             indexedFileExtensions = Collections.emptySet();
         } else {
@@ -144,6 +295,37 @@ public class Config implements ManagedService {
         dryRun = getBoolean(properties, DRY_RUN, false);
         customGptApiBaseUrl = getString(properties, PROP_CUSTOM_GPT_API_BASE_URL, CustomGptConstants.DEFAULT_CUSTOM_GPT_API_BASE_URL);
         rateLimitRequestsPerSecond = getInt(properties, PROP_RATE_LIMIT_REQUESTS_PER_SECOND, 10);
+        rateLimitBurstCapacity = getInt(properties, PROP_RATE_LIMIT_BURST_CAPACITY, 0);
+        rateLimitAdaptive = getBoolean(properties, PROP_RATE_LIMIT_ADAPTIVE, false);
+        transportAsync = getBoolean(properties, PROP_TRANSPORT_ASYNC, false);
+        transportMaxInFlight = getInt(properties, PROP_TRANSPORT_MAX_IN_FLIGHT, DEFAULT_TRANSPORT_MAX_IN_FLIGHT);
+        renderingMode = RenderingMode.fromValue(getString(properties, PROP_RENDERING_MODE, RenderingMode.HTTP.getValue()));
+        uploadSpillThresholdBytes = getInt(properties, PROP_UPLOAD_SPILL_THRESHOLD_BYTES, DEFAULT_UPLOAD_SPILL_THRESHOLD_BYTES);
+        circuitBreakerFailureThreshold = getInt(properties, PROP_CIRCUIT_BREAKER_FAILURE_THRESHOLD, DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD);
+        circuitBreakerOpenDurationSeconds = getInt(properties, PROP_CIRCUIT_BREAKER_OPEN_DURATION_SECONDS, DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION_SECONDS);
+        pipelineResolveWorkers = getInt(properties, PROP_PIPELINE_RESOLVE_WORKERS, DEFAULT_PIPELINE_RESOLVE_WORKERS);
+        pipelineRenderWorkers = getInt(properties, PROP_PIPELINE_RENDER_WORKERS, DEFAULT_PIPELINE_RENDER_WORKERS);
+        pipelineUploadWorkers = getInt(properties, PROP_PIPELINE_UPLOAD_WORKERS, DEFAULT_PIPELINE_UPLOAD_WORKERS);
+        pipelineMetadataWorkers = getInt(properties, PROP_PIPELINE_METADATA_WORKERS, DEFAULT_PIPELINE_METADATA_WORKERS);
+        pipelineMappingWorkers = getInt(properties, PROP_PIPELINE_MAPPING_WORKERS, DEFAULT_PIPELINE_MAPPING_WORKERS);
+        pipelineQueueCapacity = getInt(properties, PROP_PIPELINE_QUEUE_CAPACITY, DEFAULT_PIPELINE_QUEUE_CAPACITY);
+        pipelineVirtualThreads = getBoolean(properties, PROP_PIPELINE_VIRTUAL_THREADS, false);
+        pipelineMaxConcurrentPages = getInt(properties, PROP_PIPELINE_MAX_CONCURRENT_PAGES, DEFAULT_PIPELINE_MAX_CONCURRENT_PAGES);
+        executorInteractiveThreads = getInt(properties, PROP_EXECUTOR_INTERACTIVE_THREADS, DEFAULT_EXECUTOR_INTERACTIVE_THREADS);
+        executorInteractiveQueueCapacity = getInt(properties, PROP_EXECUTOR_INTERACTIVE_QUEUE_CAPACITY, DEFAULT_EXECUTOR_INTERACTIVE_QUEUE_CAPACITY);
+        executorSiteThreads = getInt(properties, PROP_EXECUTOR_SITE_THREADS, DEFAULT_EXECUTOR_SITE_THREADS);
+        executorSiteQueueCapacity = getInt(properties, PROP_EXECUTOR_SITE_QUEUE_CAPACITY, DEFAULT_EXECUTOR_SITE_QUEUE_CAPACITY);
+        executorFullIndexationThreads = getInt(properties, PROP_EXECUTOR_FULL_INDEXATION_THREADS, DEFAULT_EXECUTOR_FULL_INDEXATION_THREADS);
+        executorFullIndexationQueueCapacity = getInt(properties, PROP_EXECUTOR_FULL_INDEXATION_QUEUE_CAPACITY, DEFAULT_EXECUTOR_FULL_INDEXATION_QUEUE_CAPACITY);
+        executorRejectionPolicy = RejectionPolicy.fromValue(getString(properties, PROP_EXECUTOR_REJECTION_POLICY, RejectionPolicy.BLOCK.getValue()));
+        operationLogEnabled = getBoolean(properties, PROP_OPERATION_LOG_ENABLED, true);
+        operationLogSegmentSizeMb = getInt(properties, PROP_OPERATION_LOG_SEGMENT_SIZE_MB, DEFAULT_OPERATION_LOG_SEGMENT_SIZE_MB);
+        operationLogInMemoryWindow = getInt(properties, PROP_OPERATION_LOG_IN_MEMORY_WINDOW, DEFAULT_OPERATION_LOG_IN_MEMORY_WINDOW);
+        listenerCoalesceWindowMs = getInt(properties, PROP_LISTENER_COALESCE_WINDOW_MS, DEFAULT_LISTENER_COALESCE_WINDOW_MS);
+        listenerCoalesceMaxOperations = getInt(properties, PROP_LISTENER_COALESCE_MAX_OPERATIONS, DEFAULT_LISTENER_COALESCE_MAX_OPERATIONS);
+        scanPartitions = getInt(properties, PROP_SCAN_PARTITIONS, DEFAULT_SCAN_PARTITIONS);
+        mappingCacheSize = getInt(properties, PROP_MAPPING_CACHE_SIZE, DEFAULT_MAPPING_CACHE_SIZE);
+        mappingBatchSize = getInt(properties, PROP_MAPPING_BATCH_SIZE, DEFAULT_MAPPING_BATCH_SIZE);
 
         customGptProjectId = getString(properties, PROP_CUSTOM_GPT_PROJECT_ID, "");
         customGptToken = getString(properties, PROP_CUSTOM_GPT_TOKEN, "");
@@ -152,6 +334,11 @@ public class Config implements ManagedService {
         jahiaServerCookieName = getString(properties, PROP_JAHIA_SERVER_COOKIE_NAME, "");
         jahiaServerCookieValue = getString(properties, PROP_JAHIA_SERVER_COOKIE_VALUE, "");
         jahiaServerCookieDomain = getString(properties, PROP_JAHIA_SERVER_COOKIE_DOMAIN, "");
+
+        // published last, with a classifier of its own: readers never see a half-parsed update or stale classifications
+        snapshot = new ConfigSnapshot(snapshot.getVersion() + 1,
+                new NodeTypeClassifier(contentIndexedMainResources, contentIndexedSubNodes), indexedFileExtensions,
+                bulkOperationsBatchSize, scanPartitions, mappingBatchSize);
     }
 
     private Set<String> splitNodeTypeByComma(String commaSeparated) {
@@ -268,4 +455,129 @@ public class Config implements ManagedService {
     public int getRateLimitRequestsPerSecond() {
         return rateLimitRequestsPerSecond;
     }
+
+    /** Tokens the rate limiter may accumulate while idle; {@code 0} means the same as the requests per second. */
+    public int getRateLimitBurstCapacity() {
+        return rateLimitBurstCapacity;
+    }
+
+    public boolean isRateLimitAdaptive() {
+        return rateLimitAdaptive;
+    }
+
+    public boolean isTransportAsync() {
+        return transportAsync;
+    }
+
+    public int getTransportMaxInFlight() {
+        return transportMaxInFlight;
+    }
+
+    public RenderingMode getRenderingMode() {
+        return renderingMode;
+    }
+
+    public int getUploadSpillThresholdBytes() {
+        return uploadSpillThresholdBytes;
+    }
+
+    public int getCircuitBreakerFailureThreshold() {
+        return circuitBreakerFailureThreshold;
+    }
+
+    public int getCircuitBreakerOpenDurationSeconds() {
+        return circuitBreakerOpenDurationSeconds;
+    }
+
+    public int getPipelineResolveWorkers() {
+        return pipelineResolveWorkers;
+    }
+
+    public int getPipelineRenderWorkers() {
+        return pipelineRenderWorkers;
+    }
+
+    public int getPipelineUploadWorkers() {
+        return pipelineUploadWorkers;
+    }
+
+    public int getPipelineMetadataWorkers() {
+        return pipelineMetadataWorkers;
+    }
+
+    public int getPipelineMappingWorkers() {
+        return pipelineMappingWorkers;
+    }
+
+    public int getPipelineQueueCapacity() {
+        return pipelineQueueCapacity;
+    }
+
+    public boolean isPipelineVirtualThreads() {
+        return pipelineVirtualThreads;
+    }
+
+    public int getPipelineMaxConcurrentPages() {
+        return pipelineMaxConcurrentPages;
+    }
+
+    public int getExecutorInteractiveThreads() {
+        return executorInteractiveThreads;
+    }
+
+    public int getExecutorInteractiveQueueCapacity() {
+        return executorInteractiveQueueCapacity;
+    }
+
+    public int getExecutorSiteThreads() {
+        return executorSiteThreads;
+    }
+
+    public int getExecutorSiteQueueCapacity() {
+        return executorSiteQueueCapacity;
+    }
+
+    public int getExecutorFullIndexationThreads() {
+        return executorFullIndexationThreads;
+    }
+
+    public int getExecutorFullIndexationQueueCapacity() {
+        return executorFullIndexationQueueCapacity;
+    }
+
+    public RejectionPolicy getExecutorRejectionPolicy() {
+        return executorRejectionPolicy;
+    }
+
+    public boolean isOperationLogEnabled() {
+        return operationLogEnabled;
+    }
+
+    public int getOperationLogSegmentSizeMb() {
+        return operationLogSegmentSizeMb;
+    }
+
+    public int getOperationLogInMemoryWindow() {
+        return operationLogInMemoryWindow;
+    }
+
+    public int getListenerCoalesceWindowMs() {
+        return listenerCoalesceWindowMs;
+    }
+
+    public int getListenerCoalesceMaxOperations() {
+        return listenerCoalesceMaxOperations;
+    }
+
+    public int getScanPartitions() {
+        return scanPartitions;
+    }
+
+    public int getMappingCacheSize() {
+        return mappingCacheSize;
+    }
+
+    public int getMappingBatchSize() {
+        return mappingBatchSize;
+    }
 }
@@ -0,0 +1,77 @@
+package org.jahia.community.modules.customgpt.settings;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Immutable view of the {@link Config} values read while indexing, published by {@link Config#updated} as a whole.
+ *
+ * <p>Everything is parsed up front: the configured node types are held by a {@link NodeTypeClassifier}, the indexed
+ * file extensions are kept as {@code "." + extension} suffixes, and reading any value allocates nothing. An indexer
+ * captures one snapshot for its whole batch, so that a configuration change in the middle of a batch only applies to
+ * the next one; {@link #getVersion()} tells snapshots apart.
+ */
+public final class ConfigSnapshot {
+
+    static final ConfigSnapshot EMPTY = new ConfigSnapshot(0L, new NodeTypeClassifier(Collections.emptySet(), Collections.emptySet()),
+            Collections.emptySet(), 0, 0, 0);
+
+    private final long version;
+    private final NodeTypeClassifier nodeTypeClassifier;
+    private final Set<String> indexedFileExtensions;
+    private final String[] indexedFileSuffixes;
+    private final int bulkOperationsBatchSize;
+    private final int scanPartitions;
+    private final int mappingBatchSize;
+
+    ConfigSnapshot(long version, NodeTypeClassifier nodeTypeClassifier, Set<String> indexedFileExtensions,
+            int bulkOperationsBatchSize, int scanPartitions, int mappingBatchSize) {
+        this.version = version;
+        this.nodeTypeClassifier = nodeTypeClassifier;
+        this.indexedFileExtensions = Collections.unmodifiableSet(new LinkedHashSet<>(indexedFileExtensions));
+        this.indexedFileSuffixes = new String[this.indexedFileExtensions.size()];
+        int i = 0;
+        for (String extension : this.indexedFileExtensions) {
+            indexedFileSuffixes[i++] = "." + extension;
+        }
+        this.bulkOperationsBatchSize = bulkOperationsBatchSize;
+        this.scanPartitions = scanPartitions;
+        this.mappingBatchSize = mappingBatchSize;
+    }
+
+    /** Increases with each {@link Config#updated} call. */
+    public long getVersion() {
+        return version;
+    }
+
+    public NodeTypeClassifier getNodeTypeClassifier() {
+        return nodeTypeClassifier;
+    }
+
+    public Set<String> getIndexedFileExtensions() {
+        return indexedFileExtensions;
+    }
+
+    /** Whether {@code fileName} ends with one of the indexed file extensions; never true when none is configured. */
+    public boolean isIndexedFileName(String fileName) {
+        for (String suffix : indexedFileSuffixes) {
+            if (fileName.endsWith(suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getBulkOperationsBatchSize() {
+        return bulkOperationsBatchSize;
+    }
+
+    public int getScanPartitions() {
+        return scanPartitions;
+    }
+
+    public int getMappingBatchSize() {
+        return mappingBatchSize;
+    }
+}
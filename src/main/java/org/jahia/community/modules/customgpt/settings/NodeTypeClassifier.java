@@ -0,0 +1,157 @@
+package org.jahia.community.modules.customgpt.settings;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.jcr.RepositoryException;
+import javax.jcr.nodetype.NodeType;
+import org.jahia.services.content.JCRNodeWrapper;
+import org.jahia.services.content.nodetypes.NodeTypeRegistry;
+
+/**
+ * Tells whether a node is one of the configured main-resource or sub-node types, without calling
+ * {@code isNodeType} once per configured type.
+ *
+ * <p>A node's types only depend on its primary type and mixins: the first node seen with a given combination resolves
+ * them with their supertypes from the {@link NodeTypeRegistry}, and the resulting {@link Classification} is cached
+ * for every other node with the same combination. {@link Config} creates a new classifier each time it is updated, so
+ * that a change of the configured types starts from an empty cache.
+ */
+public final class NodeTypeClassifier {
+
+    // distinct primary type / mixin combinations are few; the bound only guards against pathological content
+    private static final int MAX_CACHED_KEYS = 4096;
+    private static final char KEY_SEPARATOR = ' ';
+
+    /** Lists a node type and all its supertypes. */
+    @FunctionalInterface
+    interface TypeHierarchy {
+
+        Collection<String> getTypeAndSupertypes(String nodeType) throws RepositoryException;
+    }
+
+    /** Types of the nodes sharing one primary type and mixin set. */
+    public static final class Classification {
+
+        private final Set<String> nodeTypes;
+        private final boolean mainResource;
+        private final boolean subNode;
+
+        private Classification(Set<String> nodeTypes, Set<String> mainResourceTypes, Set<String> subNodeTypes) {
+            this.nodeTypes = nodeTypes;
+            this.mainResource = isAnyOf(mainResourceTypes);
+            this.subNode = isAnyOf(subNodeTypes);
+        }
+
+        /** Same as {@code node.isNodeType(nodeType)}. */
+        public boolean isNodeType(String nodeType) {
+            return nodeTypes.contains(nodeType);
+        }
+
+        public boolean isAnyOf(Collection<String> types) {
+            for (String type : types) {
+                if (nodeTypes.contains(type)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** Whether the node is one of the configured main-resource types. */
+        public boolean isMainResource() {
+            return mainResource;
+        }
+
+        /** Whether the node is one of the configured sub-node types. */
+        public boolean isSubNode() {
+            return subNode;
+        }
+    }
+
+    private final Set<String> mainResourceTypes;
+    private final Set<String> subNodeTypes;
+    private final TypeHierarchy typeHierarchy;
+    private final Map<String, Classification> classifications = new ConcurrentHashMap<>();
+
+    NodeTypeClassifier(Set<String> mainResourceTypes, Set<String> subNodeTypes) {
+        this(mainResourceTypes, subNodeTypes, NodeTypeClassifier::getRegisteredTypeAndSupertypes);
+    }
+
+    NodeTypeClassifier(Set<String> mainResourceTypes, Set<String> subNodeTypes, TypeHierarchy typeHierarchy) {
+        this.mainResourceTypes = Collections.unmodifiableSet(new LinkedHashSet<>(mainResourceTypes));
+        this.subNodeTypes = Collections.unmodifiableSet(new LinkedHashSet<>(subNodeTypes));
+        this.typeHierarchy = typeHierarchy;
+    }
+
+    /** Configured main-resource types, in configuration order. */
+    public Set<String> getMainResourceTypes() {
+        return mainResourceTypes;
+    }
+
+    /** Configured sub-node types, in configuration order. */
+    public Set<String> getSubNodeTypes() {
+        return subNodeTypes;
+    }
+
+    public Classification classify(JCRNodeWrapper node) throws RepositoryException {
+        final NodeType[] mixins = node.getMixinNodeTypes();
+        final List<String> mixinNames = new ArrayList<>(mixins.length);
+        for (NodeType mixin : mixins) {
+            mixinNames.add(mixin.getName());
+        }
+        return classify(node.getPrimaryNodeTypeName(), mixinNames);
+    }
+
+    Classification classify(String primaryType, List<String> mixins) throws RepositoryException {
+        final String key = toKey(primaryType, mixins);
+        final Classification cached = classifications.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        final Set<String> nodeTypes = new HashSet<>(typeHierarchy.getTypeAndSupertypes(primaryType));
+        for (String mixin : mixins) {
+            nodeTypes.addAll(typeHierarchy.getTypeAndSupertypes(mixin));
+        }
+        final Classification classification = new Classification(nodeTypes, mainResourceTypes, subNodeTypes);
+        if (classifications.size() >= MAX_CACHED_KEYS) {
+            classifications.clear();
+        }
+        classifications.put(key, classification);
+        return classification;
+    }
+
+    int getCachedCount() {
+        return classifications.size();
+    }
+
+    private static String toKey(String primaryType, List<String> mixins) {
+        if (mixins.isEmpty()) {
+            return primaryType;
+        }
+        final String[] sortedMixins = mixins.toArray(new String[0]);
+        Arrays.sort(sortedMixins);
+        final StringBuilder key = new StringBuilder(primaryType);
+        for (String mixin : sortedMixins) {
+            key.append(KEY_SEPARATOR).append(mixin);
+        }
+        return key.toString();
+    }
+
+    private static Collection<String> getRegisteredTypeAndSupertypes(String nodeType) throws RepositoryException {
+        final NodeType type = NodeTypeRegistry.getInstance().getNodeType(nodeType);
+        final NodeType[] supertypes = type.getSupertypes();
+        final List<String> names = new ArrayList<>(supertypes.length + 1);
+        names.add(type.getName());
+        for (NodeType supertype : supertypes) {
+            names.add(supertype.getName());
+        }
+        return names;
+    }
+}
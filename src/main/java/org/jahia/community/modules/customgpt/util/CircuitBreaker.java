@@ -0,0 +1,148 @@
+package org.jahia.community.modules.customgpt.util;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker guarding the CustomGPT API.
+ *
+ * <ul>
+ *     <li>{@link State#CLOSED}: calls go through; {@code failureThreshold} consecutive failures (I/O errors or 5xx
+ *     responses) open the circuit.</li>
+ *     <li>{@link State#OPEN}: calls are refused without reaching the network. Once {@code openDuration} has elapsed the
+ *     next caller is let through as a probe and the circuit becomes half-open.</li>
+ *     <li>{@link State#HALF_OPEN}: only the probe is in flight, every other call is refused. A successful probe closes
+ *     the circuit, a failed one opens it again for another {@code openDuration}.</li>
+ * </ul>
+ *
+ * <p>{@link Listener}s are notified of every transition on the thread that caused it, after the state has been
+ * updated and outside of any lock.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    @FunctionalInterface
+    public interface Listener {
+        void onStateChange(State from, State to);
+    }
+
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final LongSupplier nanoClock;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+
+    public CircuitBreaker(int failureThreshold, long openDurationMillis) {
+        this(failureThreshold, openDurationMillis, System::nanoTime);
+    }
+
+    CircuitBreaker(int failureThreshold, long openDurationMillis, LongSupplier nanoClock) {
+        if (failureThreshold <= 0) {
+            throw new IllegalArgumentException("failureThreshold must be > 0, got: " + failureThreshold);
+        }
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, openDurationMillis));
+        this.nanoClock = nanoClock;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Returns whether a call may proceed. In the open state, the first caller after the open duration is admitted as
+     * the half-open probe; it must report its outcome through {@link #onSuccess()} or {@link #onFailure()}.
+     */
+    public boolean tryAcquire() {
+        synchronized (this) {
+            if (state == State.CLOSED) {
+                return true;
+            }
+            if (state == State.HALF_OPEN || nanoClock.getAsLong() - openedAtNanos < openDurationNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+        }
+        notifyListeners(State.OPEN, State.HALF_OPEN);
+        return true;
+    }
+
+    public void onSuccess() {
+        final State from;
+        synchronized (this) {
+            consecutiveFailures = 0;
+            if (state == State.CLOSED) {
+                return;
+            }
+            from = state;
+            state = State.CLOSED;
+        }
+        notifyListeners(from, State.CLOSED);
+    }
+
+    public void onFailure() {
+        final State from;
+        synchronized (this) {
+            consecutiveFailures++;
+            final boolean trips = state == State.HALF_OPEN
+                    || (state == State.CLOSED && consecutiveFailures >= failureThreshold);
+            if (!trips) {
+                return;
+            }
+            from = state;
+            state = State.OPEN;
+            openedAtNanos = nanoClock.getAsLong();
+        }
+        notifyListeners(from, State.OPEN);
+    }
+
+    /**
+     * Reports a call that was admitted but never reached the API (interrupted, cancelled). A half-open probe that is
+     * abandoned reopens the circuit, immediately eligible for another probe; otherwise nothing changes.
+     */
+    public void onAbandoned() {
+        synchronized (this) {
+            if (state != State.HALF_OPEN) {
+                return;
+            }
+            state = State.OPEN;
+            openedAtNanos = nanoClock.getAsLong() - openDurationNanos;
+        }
+        notifyListeners(State.HALF_OPEN, State.OPEN);
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized boolean isClosed() {
+        return state == State.CLOSED;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /** Returns the time left before a probe is admitted; {@code 0} unless the circuit is open. */
+    public synchronized long getRemainingOpenMillis() {
+        if (state != State.OPEN) {
+            return 0L;
+        }
+        return Math.max(0L, TimeUnit.NANOSECONDS.toMillis(openDurationNanos - (nanoClock.getAsLong() - openedAtNanos)));
+    }
+
+    private void notifyListeners(State from, State to) {
+        for (Listener listener : listeners) {
+            listener.onStateChange(from, to);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.jahia.community.modules.customgpt.util;
+
+import java.io.IOException;
+
+/**
+ * Raised instead of calling the CustomGPT API while the {@link CircuitBreaker} refuses calls. It is an
+ * {@link IOException} so it travels the same paths as a network failure, but callers can recognise it to park their
+ * work rather than drop it.
+ */
+public class CircuitOpenException extends IOException {
+
+    private static final long serialVersionUID = 2406718309213740467L;
+
+    public CircuitOpenException(String message) {
+        super(message);
+    }
+
+    /** Returns whether {@code throwable} or one of its causes is a {@link CircuitOpenException}. */
+    public static boolean isCause(Throwable throwable) {
+        for (Throwable t = throwable; t != null; t = t.getCause()) {
+            if (t instanceof CircuitOpenException) {
+                return true;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,99 @@
+package org.jahia.community.modules.customgpt.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Incremental SHA-256 digest of a rendered page, used to detect that a republished page produced the same content
+ * as the one already uploaded to CustomGPT so the delete + upload + metadata cycle can be skipped.
+ *
+ * <p>The digest covers the page title, its canonical URL and the rendered output. The output is normalised while it
+ * is fed: every run of ASCII whitespace collapses to a single space and leading/trailing whitespace is dropped, so
+ * re-indentation or line-ending changes in templates do not count as a content change. Normalisation works on raw
+ * UTF-8 bytes (multi-byte sequences never contain ASCII whitespace bytes), so the content can be streamed in chunks
+ * without ever being decoded to a {@link String}.
+ *
+ * <p>Instances are not thread-safe; create one per page.
+ */
+public final class ContentDigest {
+
+    private static final String ALGORITHM = "SHA-256";
+    private static final byte SEPARATOR = 0;
+    private static final byte SPACE = ' ';
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final MessageDigest messageDigest;
+    private boolean contentStarted;
+    private boolean pendingSpace;
+
+    public ContentDigest(String title, String url) {
+        try {
+            messageDigest = MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is mandatory on every compliant JVM
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+        updateField(title);
+        updateField(url);
+    }
+
+    /** Computes the digest of a fully materialised page in one call. */
+    public static String of(String title, String url, String content) {
+        final ContentDigest digest = new ContentDigest(title, url);
+        if (content != null) {
+            final byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+            digest.update(bytes, 0, bytes.length);
+        }
+        return digest.toHex();
+    }
+
+    /** Feeds {@code length} bytes of UTF-8 encoded page output, collapsing whitespace on the fly. */
+    public void update(byte[] buffer, int offset, int length) {
+        int runStart = offset;
+        final int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            if (isWhitespace(buffer[i])) {
+                if (i > runStart) {
+                    writeRun(buffer, runStart, i - runStart);
+                }
+                runStart = i + 1;
+                pendingSpace = contentStarted;
+            }
+        }
+        if (end > runStart) {
+            writeRun(buffer, runStart, end - runStart);
+        }
+    }
+
+    /** Returns the lower-case hexadecimal digest; the instance must not be used afterwards. */
+    public String toHex() {
+        final byte[] hash = messageDigest.digest();
+        final char[] chars = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            chars[i * 2] = HEX[(hash[i] >> 4) & 0x0F];
+            chars[i * 2 + 1] = HEX[hash[i] & 0x0F];
+        }
+        return new String(chars);
+    }
+
+    private void writeRun(byte[] buffer, int offset, int length) {
+        if (pendingSpace) {
+            messageDigest.update(SPACE);
+            pendingSpace = false;
+        }
+        messageDigest.update(buffer, offset, length);
+        contentStarted = true;
+    }
+
+    private void updateField(String value) {
+        if (value != null) {
+            messageDigest.update(value.getBytes(StandardCharsets.UTF_8));
+        }
+        messageDigest.update(SEPARATOR);
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f';
+    }
+}
@@ -0,0 +1,272 @@
+package org.jahia.community.modules.customgpt.util;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Thin wrapper around the CustomGPT {@link OkHttpClient} that bounds the number of in-flight API calls.
+ *
+ * <p>In asynchronous mode {@link #executeAsync(Request)} enqueues the call on the OkHttp dispatcher and returns a
+ * {@link CompletableFuture} that completes with the (open) {@link Response}; the caller owns the response and must
+ * close it. Before a call is enqueued the caller acquires one permit of the in-flight window, so a producer that
+ * submits faster than the API answers blocks instead of piling up unbounded work. The permit is released as soon
+ * as the response headers (or the failure) arrive, before any dependent stage runs. Futures are completed on a
+ * dedicated callback pool rather than on the OkHttp dispatcher threads, so a dependent stage that issues the next
+ * call of a page (and may wait for a slot) never holds a dispatcher slot that queued calls need to make progress.
+ *
+ * <p>The {@link RateLimitInterceptor} registered on the client runs on the dispatcher thread inside that window:
+ * the window caps concurrency, the interceptor caps throughput, so one indexing thread keeps up to
+ * {@code maxInFlight} requests outstanding without ever exceeding the configured requests per second.
+ *
+ * <p>In synchronous mode (the default) {@link #executeAsync(Request)} executes the call on the calling thread and
+ * returns an already completed future, so callers can use a single code path for both modes. The call still holds a
+ * permit of the in-flight window while it runs, in its lane, like {@link #execute(Request)}.
+ *
+ * <p>Each transport sends its calls in one {@link RequestLane}, stamped as the request tag unless the request already
+ * carries one. {@link #withLane(RequestLane)} returns a view in another lane sharing the same client, window and
+ * callback pool: the in-flight window is granted to interactive calls first, and the tag lets the rate limiter do the
+ * same with the rate budget.
+ *
+ * <p>Every call goes through a {@link CircuitBreaker} shared by all lanes. While it is open, calls fail immediately with
+ * a {@link CircuitOpenException} instead of reaching the network; I/O failures and 5xx responses count as failures,
+ * any other response as a success.
+ */
+public class CustomGptTransport {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CustomGptTransport.class);
+    private static final int HTTP_SERVER_ERROR = 500;
+
+    private final OkHttpClient client;
+    private final boolean async;
+    private final int maxInFlight;
+    private final LaneScheduler inFlight;
+    private final ExecutorService callbackExecutor;
+    private final RequestLane lane;
+    private final CircuitBreaker circuitBreaker;
+
+    public CustomGptTransport(OkHttpClient client, boolean async, int maxInFlight, CircuitBreaker circuitBreaker) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be > 0, got: " + maxInFlight);
+        }
+        this.client = client;
+        this.async = async;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new LaneScheduler(maxInFlight);
+        this.callbackExecutor = async ? Executors.newCachedThreadPool(new CallbackThreadFactory()) : null;
+        this.lane = RequestLane.INTERACTIVE;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    private CustomGptTransport(CustomGptTransport parent, RequestLane lane) {
+        this.client = parent.client;
+        this.async = parent.async;
+        this.maxInFlight = parent.maxInFlight;
+        this.inFlight = parent.inFlight;
+        this.callbackExecutor = parent.callbackExecutor;
+        this.lane = lane;
+        this.circuitBreaker = parent.circuitBreaker;
+    }
+
+    /** Returns a view of this transport sending its calls in {@code lane}; closing the original closes the view. */
+    public CustomGptTransport withLane(RequestLane lane) {
+        return lane == this.lane ? this : new CustomGptTransport(this, lane);
+    }
+
+    /**
+     * Executes {@code request} on the calling thread. The call still occupies a slot of the in-flight window so that
+     * blocking calls (listing, project lookup) and pipelined calls share the same bound.
+     */
+    public Response execute(Request request) throws IOException {
+        final Request laneRequest = inLane(request);
+        checkCircuit(laneRequest);
+        try {
+            acquirePermit(laneRequest);
+        } catch (IOException e) {
+            circuitBreaker.onAbandoned();
+            throw e;
+        }
+        try {
+            return recordOutcome(client.newCall(laneRequest).execute());
+        } catch (IOException e) {
+            circuitBreaker.onFailure();
+            throw e;
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    /**
+     * Submits {@code request} and returns a future completed with its response. Blocks while the in-flight window is
+     * full. The returned future fails with the {@link IOException} raised by the call, if any.
+     */
+    public CompletableFuture<Response> executeAsync(Request request) {
+        final Request laneRequest = inLane(request);
+        try {
+            checkCircuit(laneRequest);
+        } catch (CircuitOpenException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        try {
+            acquirePermit(laneRequest);
+        } catch (IOException e) {
+            circuitBreaker.onAbandoned();
+            return CompletableFuture.failedFuture(e);
+        }
+        if (!async) {
+            try {
+                return CompletableFuture.completedFuture(recordOutcome(client.newCall(laneRequest).execute()));
+            } catch (IOException e) {
+                circuitBreaker.onFailure();
+                return CompletableFuture.failedFuture(e);
+            } finally {
+                inFlight.release();
+            }
+        }
+        final CompletableFuture<Response> future = new CompletableFuture<>();
+        try {
+            client.newCall(laneRequest).enqueue(new Callback() {
+                @Override
+                public void onResponse(Call call, Response response) {
+                    inFlight.release();
+                    completeOffDispatcher(future, recordOutcome(response), null);
+                }
+
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    inFlight.release();
+                    if (call.isCanceled()) {
+                        circuitBreaker.onAbandoned();
+                    } else {
+                        circuitBreaker.onFailure();
+                    }
+                    completeOffDispatcher(future, null, e);
+                }
+            });
+        } catch (RuntimeException e) {
+            // enqueue rejects calls once the dispatcher executor has been shut down
+            inFlight.release();
+            circuitBreaker.onAbandoned();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public RequestLane getLane() {
+        return lane;
+    }
+
+    /** Returns the number of calls currently holding a slot of the in-flight window. */
+    public int getInFlightCount() {
+        return maxInFlight - inFlight.getAvailablePermits();
+    }
+
+    /** Returns the number of calls of {@code lane} waiting for a slot of the in-flight window. */
+    public int getQueueDepth(RequestLane lane) {
+        return inFlight.getQueueDepth(lane);
+    }
+
+    public OkHttpClient getClient() {
+        return client;
+    }
+
+    /** Stops the callback pool; calls still running on the OkHttp dispatcher are cancelled by the client owner. */
+    public void close() {
+        if (callbackExecutor == null) {
+            return;
+        }
+        callbackExecutor.shutdown();
+        try {
+            if (!callbackExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                callbackExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            callbackExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void completeOffDispatcher(CompletableFuture<Response> future, Response response, IOException failure) {
+        try {
+            callbackExecutor.execute(() -> {
+                if (failure != null) {
+                    future.completeExceptionally(failure);
+                } else if (!future.complete(response)) {
+                    response.close();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // transport closed while the call was in flight
+            if (response != null) {
+                response.close();
+            }
+            future.completeExceptionally(failure != null ? failure : new IOException("CustomGPT transport is closed", e));
+        }
+    }
+
+    private void checkCircuit(Request request) throws CircuitOpenException {
+        if (!circuitBreaker.tryAcquire()) {
+            throw new CircuitOpenException("CustomGPT circuit breaker is " + circuitBreaker.getState() + ", call to "
+                    + request.url().encodedPath() + " not sent");
+        }
+    }
+
+    private Response recordOutcome(Response response) {
+        if (response.code() >= HTTP_SERVER_ERROR) {
+            circuitBreaker.onFailure();
+        } else {
+            circuitBreaker.onSuccess();
+        }
+        return response;
+    }
+
+    private Request inLane(Request request) {
+        return request.tag(RequestLane.class) != null ? request : request.newBuilder().tag(RequestLane.class, lane).build();
+    }
+
+    private void acquirePermit(Request request) throws IOException {
+        try {
+            inFlight.acquire(RequestLane.of(request.tag(RequestLane.class)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.debug("Interrupted while waiting for a CustomGPT in-flight slot");
+            throw new IOException("Interrupted while waiting for a CustomGPT in-flight slot", e);
+        }
+    }
+
+    private static final class CallbackThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, "customgpt-transport-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
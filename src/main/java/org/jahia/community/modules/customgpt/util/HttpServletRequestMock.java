@@ -7,16 +7,24 @@ import java.security.Principal;
 import java.util.*;
 import javax.servlet.*;
 import javax.servlet.http.*;
+import org.jahia.bin.listeners.JahiaContextLoaderListener;
 
 /**
  * Minimal {@link HttpServletRequest} stub used to construct a {@link org.jahia.services.render.RenderContext}
  * when rendering Jahia pages programmatically during indexation (no real HTTP request is available).
+ * The servlet path, request URI, scheme, port and locale can be set for in-process rendering; request dispatchers
+ * are resolved against the Jahia web application so that JSP views can be included.
  */
 public class HttpServletRequestMock implements HttpServletRequest {
 
     private final Map<String, Object> attributes;
     private final String servername;
     private final String context;
+    private String servletPath;
+    private String requestURI;
+    private String scheme;
+    private int serverPort;
+    private Locale locale;
 
     public HttpServletRequestMock(Map<String, Object> attributes, String servername, String context) {
         this.attributes = attributes;
@@ -24,6 +32,26 @@ public class HttpServletRequestMock implements HttpServletRequest {
         this.context = context;
     }
 
+    public void setServletPath(String servletPath) {
+        this.servletPath = servletPath;
+    }
+
+    public void setRequestURI(String requestURI) {
+        this.requestURI = requestURI;
+    }
+
+    public void setScheme(String scheme) {
+        this.scheme = scheme;
+    }
+
+    public void setServerPort(int serverPort) {
+        this.serverPort = serverPort;
+    }
+
+    public void setLocale(Locale locale) {
+        this.locale = locale;
+    }
+
     @Override
     public String getAuthType() {
         return null;
@@ -61,7 +89,7 @@ public class HttpServletRequestMock implements HttpServletRequest {
 
     @Override
     public String getMethod() {
-        return null;
+        return "GET";
     }
 
     @Override
@@ -106,7 +134,7 @@ public class HttpServletRequestMock implements HttpServletRequest {
 
     @Override
     public String getRequestURI() {
-        return null;
+        return requestURI;
     }
 
     @Override
@@ -116,7 +144,7 @@ public class HttpServletRequestMock implements HttpServletRequest {
 
     @Override
     public String getServletPath() {
-        return null;
+        return servletPath;
     }
 
     @Override
@@ -236,7 +264,7 @@ public class HttpServletRequestMock implements HttpServletRequest {
 
     @Override
     public String getScheme() {
-        return null;
+        return scheme;
     }
 
     @Override
@@ -246,7 +274,7 @@ public class HttpServletRequestMock implements HttpServletRequest {
 
     @Override
     public int getServerPort() {
-        return 0;
+        return serverPort;
     }
 
     @Override
@@ -276,22 +304,23 @@ public class HttpServletRequestMock implements HttpServletRequest {
 
     @Override
     public Locale getLocale() {
-        return null;
+        return locale;
     }
 
     @Override
     public Enumeration<Locale> getLocales() {
-        return null;
+        return locale != null ? Collections.enumeration(Collections.singletonList(locale)) : null;
     }
 
     @Override
     public boolean isSecure() {
-        return false;
+        return "https".equals(scheme);
     }
 
     @Override
     public RequestDispatcher getRequestDispatcher(String s) {
-        return null;
+        final ServletContext servletContext = getServletContext();
+        return servletContext != null ? servletContext.getRequestDispatcher(s) : null;
     }
 
     @Override
@@ -321,7 +350,7 @@ public class HttpServletRequestMock implements HttpServletRequest {
 
     @Override
     public ServletContext getServletContext() {
-        return null;
+        return JahiaContextLoaderListener.getServletContext();
     }
 
     @Override
@@ -0,0 +1,115 @@
+package org.jahia.community.modules.customgpt.util;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Counting semaphore with strict priority between {@link RequestLane}s: a permit is never granted to a
+ * {@link RequestLane#BULK} caller while an {@link RequestLane#INTERACTIVE} caller is waiting for one. Within a lane
+ * waiters are served in arrival order.
+ *
+ * <p>Bulk work can therefore be starved for as long as interactive work keeps the window full; that is the intent,
+ * interactive traffic (publications) being small and bursty compared to a site reindexation.
+ */
+public class LaneScheduler {
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Map<RequestLane, Condition> laneConditions = new EnumMap<>(RequestLane.class);
+    private final Map<RequestLane, Integer> waiting = new EnumMap<>(RequestLane.class);
+    private int availablePermits;
+
+    public LaneScheduler(int permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("permits must be > 0, got: " + permits);
+        }
+        this.availablePermits = permits;
+        for (RequestLane lane : RequestLane.values()) {
+            laneConditions.put(lane, lock.newCondition());
+            waiting.put(lane, 0);
+        }
+    }
+
+    /** Blocks until a permit is granted to {@code lane}. */
+    public void acquire(RequestLane lane) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            // no barging: a newcomer only takes a permit directly when nobody of its lane is already waiting
+            if (waiting.get(lane) == 0 && canGrant(lane)) {
+                availablePermits--;
+                return;
+            }
+            waiting.merge(lane, 1, Integer::sum);
+            try {
+                while (!canGrant(lane)) {
+                    laneConditions.get(lane).await();
+                }
+                availablePermits--;
+            } finally {
+                waiting.merge(lane, -1, Integer::sum);
+                // a permit may have been handed to this thread when it gave up (interrupt): pass it on
+                signalNext();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release() {
+        lock.lock();
+        try {
+            availablePermits++;
+            signalNext();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Returns the number of callers of {@code lane} currently blocked in {@link #acquire(RequestLane)}. */
+    public int getQueueDepth(RequestLane lane) {
+        lock.lock();
+        try {
+            return waiting.get(lane);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getAvailablePermits() {
+        lock.lock();
+        try {
+            return availablePermits;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean canGrant(RequestLane lane) {
+        if (availablePermits <= 0) {
+            return false;
+        }
+        // lanes are declared by decreasing priority: a higher lane with waiters takes precedence
+        for (RequestLane higher : RequestLane.values()) {
+            if (higher == lane) {
+                return true;
+            }
+            if (waiting.get(higher) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void signalNext() {
+        if (availablePermits <= 0) {
+            return;
+        }
+        for (RequestLane lane : RequestLane.values()) {
+            if (waiting.get(lane) > 0) {
+                laneConditions.get(lane).signal();
+                return;
+            }
+        }
+    }
+}
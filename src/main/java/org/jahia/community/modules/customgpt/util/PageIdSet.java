@@ -0,0 +1,88 @@
+package org.jahia.community.modules.customgpt.util;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Compact set of CustomGPT page ids, used to diff the pages of the project against the JCR mapping nodes.
+ *
+ * <p>Ids are appended to a {@code long[]} while the project pages are listed, then {@linkplain #seal() sealed}: sorted
+ * and deduplicated, after which lookups are binary searches and each id carries a "referenced" bit. A hundred thousand
+ * pages take under a megabyte, where a {@code HashSet<Long>} would take several.
+ */
+public final class PageIdSet {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int size;
+    private BitSet referenced;
+
+    /** Adds {@code id}; only allowed before {@link #seal()}. */
+    public void add(long id) {
+        if (referenced != null) {
+            throw new IllegalStateException("Page id set is sealed");
+        }
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        ids[size++] = id;
+    }
+
+    /** Sorts and deduplicates the ids added; lookups are only allowed afterwards. */
+    public void seal() {
+        if (referenced != null) {
+            return;
+        }
+        Arrays.sort(ids, 0, size);
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinct == 0 || ids[i] != ids[distinct - 1]) {
+                ids[distinct++] = ids[i];
+            }
+        }
+        size = distinct;
+        ids = Arrays.copyOf(ids, size);
+        referenced = new BitSet(size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(long id) {
+        return indexOf(id) >= 0;
+    }
+
+    /** Marks {@code id} as referenced by a mapping node; returns {@code false} when the project has no such page. */
+    public boolean markReferenced(long id) {
+        final int index = indexOf(id);
+        if (index < 0) {
+            return false;
+        }
+        referenced.set(index);
+        return true;
+    }
+
+    /** Returns the ids no mapping node referenced, in ascending order. */
+    public long[] getUnreferenced() {
+        checkSealed();
+        final long[] unreferenced = new long[size - referenced.cardinality()];
+        int count = 0;
+        for (int i = referenced.nextClearBit(0); i < size; i = referenced.nextClearBit(i + 1)) {
+            unreferenced[count++] = ids[i];
+        }
+        return unreferenced;
+    }
+
+    private int indexOf(long id) {
+        checkSealed();
+        return Arrays.binarySearch(ids, 0, size, id);
+    }
+
+    private void checkSealed() {
+        if (referenced == null) {
+            throw new IllegalStateException("Page id set is not sealed");
+        }
+    }
+}
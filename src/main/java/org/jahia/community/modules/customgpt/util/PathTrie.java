@@ -0,0 +1,181 @@
+package org.jahia.community.modules.customgpt.util;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Set of JCR paths stored as a trie keyed by path segment, where a path stands for its whole subtree.
+ *
+ * <p>Adding a path drops the descendants already in the set, and a path is ignored when one of its ancestors is
+ * already there; both cost O(depth) plus the size of the pruned subtree, instead of the range scans and
+ * {@code removeAll} of a {@code TreeSet<String>}. {@link #covers(String)} answers "is this path or one of its
+ * ancestors in the set" by walking the segments of the path only.
+ *
+ * <p>Iteration is depth-first with siblings in natural order, so that an ancestor always comes before its descendants.
+ * Not thread-safe.
+ */
+public final class PathTrie extends AbstractCollection<String> {
+
+    private static final String DELIMITER = "/";
+
+    private static final class Node {
+
+        private Map<String, Node> children;
+        private boolean marked;
+        // paths in this subtree, this node included
+        private int count;
+
+        private Node child(String segment) {
+            return children == null ? null : children.get(segment);
+        }
+    }
+
+    private final Node root = new Node();
+
+    /**
+     * Adds {@code path} and drops its descendants; returns {@code false} when {@code path} or one of its ancestors was
+     * already in the set.
+     */
+    @Override
+    public boolean add(String path) {
+        final String[] segments = StringUtils.split(path, DELIMITER);
+        final Node[] branch = new Node[segments.length];
+        Node node = root;
+        for (int i = 0; i < segments.length; i++) {
+            if (node.marked) {
+                return false;
+            }
+            branch[i] = node;
+            Node child = node.child(segments[i]);
+            if (child == null) {
+                if (node.children == null) {
+                    node.children = new TreeMap<>();
+                }
+                child = new Node();
+                node.children.put(segments[i], child);
+            }
+            node = child;
+        }
+        if (node.marked) {
+            return false;
+        }
+        final int delta = 1 - node.count;
+        node.children = null;
+        node.marked = true;
+        node.count = 1;
+        for (Node ancestor : branch) {
+            ancestor.count += delta;
+        }
+        return true;
+    }
+
+    /** Returns {@code true} when {@code path} itself is in the set. */
+    @Override
+    public boolean contains(Object path) {
+        if (!(path instanceof String)) {
+            return false;
+        }
+        Node node = root;
+        for (String segment : StringUtils.split((String) path, DELIMITER)) {
+            node = node.child(segment);
+            if (node == null) {
+                return false;
+            }
+        }
+        return node.marked;
+    }
+
+    /** Returns {@code true} when {@code path} or one of its ancestors is in the set. */
+    public boolean covers(String path) {
+        Node node = root;
+        for (String segment : StringUtils.split(path, DELIMITER)) {
+            if (node.marked) {
+                return true;
+            }
+            node = node.child(segment);
+            if (node == null) {
+                return false;
+            }
+        }
+        return node.marked;
+    }
+
+    /** Removes {@code path} and every descendant of it; returns the number of paths removed. */
+    public int prune(String path) {
+        final String[] segments = StringUtils.split(path, DELIMITER);
+        if (segments.length == 0) {
+            final int removed = root.count;
+            clear();
+            return removed;
+        }
+        final Node[] branch = new Node[segments.length];
+        Node node = root;
+        for (int i = 0; i < segments.length; i++) {
+            branch[i] = node;
+            node = node.child(segments[i]);
+            if (node == null) {
+                return 0;
+            }
+        }
+        final int removed = node.count;
+        for (Node ancestor : branch) {
+            ancestor.count -= removed;
+        }
+        // detach the subtree, then the ancestors left without any path
+        for (int i = segments.length - 1; i >= 0; i--) {
+            branch[i].children.remove(segments[i]);
+            if (branch[i].count > 0 || i == 0) {
+                break;
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public int size() {
+        return root.count;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return root.count == 0;
+    }
+
+    @Override
+    public void clear() {
+        root.children = null;
+        root.marked = false;
+        root.count = 0;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        final List<String> paths = new ArrayList<>(root.count);
+        if (root.marked) {
+            paths.add(DELIMITER);
+        } else {
+            collect(root, "", paths);
+        }
+        return Collections.unmodifiableList(paths).iterator();
+    }
+
+    private static void collect(Node node, String path, List<String> paths) {
+        if (node.children == null) {
+            return;
+        }
+        for (Map.Entry<String, Node> entry : node.children.entrySet()) {
+            final String childPath = path + DELIMITER + entry.getKey();
+            if (entry.getValue().marked) {
+                paths.add(childPath);
+            } else {
+                collect(entry.getValue(), childPath, paths);
+            }
+        }
+    }
+}
@@ -1,7 +1,16 @@
 package org.jahia.community.modules.customgpt.util;
 
 import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
 import okhttp3.Interceptor;
 import okhttp3.Request;
 import okhttp3.Response;
@@ -12,11 +21,30 @@ import org.slf4j.LoggerFactory;
  * OkHttp3 interceptor that enforces a token-bucket rate limit before each request to the
  * CustomGPT.ai API, then retries up to {@value #MAX_RETRIES} times with exponential
  * back-off (honouring the {@code Retry-After} header when present) on HTTP 429 responses.
+ * {@code Retry-After} is understood both as delay-seconds and as an HTTP-date; a date is
+ * capped at {@value #MAX_BACKOFF_MS} ms.
  *
- * <p>The bucket capacity equals {@code requestsPerSecond}. Tokens are refilled lazily on
- * each call based on elapsed wall-clock time, so no background thread is required.
- * All bucket state is guarded by {@code bucketLock} so the interceptor is safe to share
- * across the concurrent threads used by the bulk-delete executor.
+ * <p>The bucket is implemented as a reservation scheme (GCRA): a single {@link AtomicLong} holds the
+ * theoretical time at which the next request may start. Each caller reserves its slot with a CAS,
+ * moving that time forward by one token interval, then parks with {@link LockSupport#parkNanos}
+ * until its own slot. No lock is taken on the request path, waiting threads wake up one by one at
+ * their reserved time instead of all polling the bucket, and the nanosecond deadline keeps the
+ * spacing accurate at rates where the interval is only a few milliseconds. The bucket capacity
+ * defaults to {@code requestsPerSecond} and can be configured separately as a burst capacity: a
+ * reservation may start up to {@code burstCapacity - 1} intervals in the past.
+ *
+ * <p>In adaptive mode the refill rate follows an AIMD law. A 429 halves the effective rate (at
+ * most once per {@value #DECREASE_COOLDOWN_MS} ms, so a storm of 429s answered to concurrent
+ * requests counts once) and drops the accumulated burst; a {@code Retry-After} value also pauses
+ * the whole bucket, so other threads stop drawing tokens too. Every
+ * {@value #INCREASE_INTERVAL_MS} ms of accepted requests then adds one request per second back,
+ * up to the configured {@code requestsPerSecond} ceiling. These adjustments are rare and
+ * serialised on {@code rateLock}; they only ever publish a new interval and push the reservation
+ * time forward.
+ *
+ * <p>Requests are served by {@link RequestLane}, read from the request tag: a {@link RequestLane#BULK} request does not
+ * reserve a slot while an {@link RequestLane#INTERACTIVE} request is waiting for one, so the rate budget is always
+ * offered to interactive work first.
  */
 public class RateLimitInterceptor implements Interceptor {
 
@@ -27,87 +55,250 @@ public class RateLimitInterceptor implements Interceptor {
     private static final long BASE_BACKOFF_MS = 1_000L;
     private static final long MAX_BACKOFF_MS = 30_000L;
     private static final String RETRY_AFTER_HEADER = "Retry-After";
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
 
-    // Token bucket
+    // Adaptive (AIMD) tuning
+    private static final double DECREASE_FACTOR = 0.5d;
+    private static final double INCREASE_STEP = 1.0d;
+    private static final double MIN_RATE = 1.0d;
+    private static final long DECREASE_COOLDOWN_MS = 1_000L;
+    private static final long INCREASE_INTERVAL_MS = 1_000L;
+
+    // Token bucket: start time of the next free slot, in nanoClock units
+    private final AtomicLong nextSlotNanos;
+    private final LongSupplier nanoClock;
     private final int capacity;
-    private final long tokenIntervalNanos;
-    private long availableTokens;
-    private long lastRefillNanos;
-    private final Object bucketLock = new Object();
+    private final int maxRate;
+    private final boolean adaptive;
+    private volatile long tokenIntervalNanos;
+    private final Map<RequestLane, AtomicInteger> waitingPerLane = new EnumMap<>(RequestLane.class);
+
+    // Adaptive state, written under rateLock
+    private final Object rateLock = new Object();
+    private volatile double currentRate;
+    private volatile long lastIncreaseNanos;
+    private long lastDecreaseNanos;
 
     public RateLimitInterceptor(int requestsPerSecond) {
+        this(requestsPerSecond, requestsPerSecond, false);
+    }
+
+    /**
+     * @param requestsPerSecond sustained rate; in adaptive mode, the ceiling of the effective rate
+     * @param burstCapacity     tokens that can accumulate while idle; {@code <= 0} means {@code requestsPerSecond}
+     * @param adaptive          whether 429 responses and {@code Retry-After} headers lower the effective rate
+     */
+    public RateLimitInterceptor(int requestsPerSecond, int burstCapacity, boolean adaptive) {
+        this(requestsPerSecond, burstCapacity, adaptive, System::nanoTime);
+    }
+
+    /** Reads the time from {@code nanoClock}, in {@link System#nanoTime()} units. Package-private for the tests. */
+    RateLimitInterceptor(int requestsPerSecond, int burstCapacity, boolean adaptive, LongSupplier nanoClock) {
         if (requestsPerSecond <= 0) {
             throw new IllegalArgumentException("requestsPerSecond must be > 0, got: " + requestsPerSecond);
         }
-        this.capacity = requestsPerSecond;
-        this.tokenIntervalNanos = 1_000_000_000L / requestsPerSecond;
-        this.availableTokens = requestsPerSecond;
-        this.lastRefillNanos = System.nanoTime();
+        this.capacity = burstCapacity > 0 ? burstCapacity : requestsPerSecond;
+        this.maxRate = requestsPerSecond;
+        this.adaptive = adaptive;
+        this.currentRate = requestsPerSecond;
+        this.tokenIntervalNanos = intervalNanos(requestsPerSecond);
+        this.nanoClock = nanoClock;
+        final long now = nanoClock.getAsLong();
+        // a full bucket: the whole burst is available immediately
+        this.nextSlotNanos = new AtomicLong(now - capacity * tokenIntervalNanos);
+        this.lastIncreaseNanos = now;
+        this.lastDecreaseNanos = now - DECREASE_COOLDOWN_MS * NANOS_PER_MILLI;
+        for (RequestLane lane : RequestLane.values()) {
+            waitingPerLane.put(lane, new AtomicInteger());
+        }
     }
 
     @Override
     public Response intercept(Chain chain) throws IOException {
+        final Request request = chain.request();
+        final RequestLane lane = RequestLane.of(request.tag(RequestLane.class));
         try {
-            acquireToken();
+            acquireToken(lane);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new IOException("Rate limiter interrupted while waiting for a token", e);
         }
 
-        final Request request = chain.request();
         Response response = chain.proceed(request);
 
         for (int attempt = 1; attempt <= MAX_RETRIES && response.code() == HTTP_TOO_MANY_REQUESTS; attempt++) {
             final long waitMs = computeBackoffMs(response, attempt);
+            onThrottled(response.header(RETRY_AFTER_HEADER) != null, waitMs);
             response.close();
             LOGGER.warn("HTTP 429 on attempt {}/{} for {} — backing off {}ms",
                     attempt, MAX_RETRIES, request.url(), waitMs);
             try {
                 Thread.sleep(waitMs);
-                acquireToken();
+                acquireToken(lane);
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 throw new IOException("Rate limit back-off interrupted", e);
             }
             response = chain.proceed(request);
         }
+        if (response.code() != HTTP_TOO_MANY_REQUESTS) {
+            onAccepted();
+        }
 
         return response;
     }
 
-    private void acquireToken() throws InterruptedException {
+    /** Returns the effective refill rate in requests per second; below the configured rate only in adaptive mode. */
+    public double getCurrentRate() {
+        return currentRate;
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    /** Returns the start of the next free slot, in {@code nanoClock} units. Package-private for the tests. */
+    long getNextSlotNanos() {
+        return nextSlotNanos.get();
+    }
+
+    /** Returns the number of requests of {@code lane} currently waiting for a token. */
+    public int getQueueDepth(RequestLane lane) {
+        return waitingPerLane.get(lane).get();
+    }
+
+    /**
+     * Reserves the next slot and parks until it starts. A slot is one interval after the previous reservation; after
+     * an idle period it may lie up to {@code capacity - 1} intervals in the past, which is what lets the bucket serve
+     * a burst without waiting. A caller first yields, one interval at a time, while requests of a higher priority
+     * lane are waiting. Package-private for {@code RateLimitInterceptorBenchmark}.
+     */
+    void acquireToken(RequestLane lane) throws InterruptedException {
+        final AtomicInteger laneWaiting = waitingPerLane.get(lane);
+        laneWaiting.incrementAndGet();
+        try {
+            while (isHigherLaneWaiting(lane)) {
+                parkUntil(nanoClock.getAsLong() + tokenIntervalNanos);
+            }
+            parkUntil(reserveSlot());
+        } finally {
+            laneWaiting.decrementAndGet();
+        }
+    }
+
+    private boolean isHigherLaneWaiting(RequestLane lane) {
+        for (RequestLane higher : RequestLane.values()) {
+            if (higher == lane) {
+                return false;
+            }
+            if (waitingPerLane.get(higher).get() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void parkUntil(long deadlineNanos) throws InterruptedException {
+        long remaining = deadlineNanos - nanoClock.getAsLong();
+        while (remaining > 0) {
+            LockSupport.parkNanos(this, remaining);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            remaining = deadlineNanos - nanoClock.getAsLong();
+        }
+    }
+
+    private long reserveSlot() {
         while (true) {
-            final long waitMs;
-            synchronized (bucketLock) {
-                refill();
-                if (availableTokens > 0) {
-                    availableTokens--;
-                    return;
-                }
-                final long waitNanos = tokenIntervalNanos - (System.nanoTime() - lastRefillNanos);
-                waitMs = Math.max(1L, waitNanos / 1_000_000L);
+            final long interval = tokenIntervalNanos;
+            final long now = nanoClock.getAsLong();
+            final long next = nextSlotNanos.get();
+            final long earliest = now - (capacity - 1L) * interval;
+            final long slot = next - earliest > 0 ? next : earliest;
+            if (nextSlotNanos.compareAndSet(next, slot + interval)) {
+                return slot;
+            }
+        }
+    }
+
+    /** Moves the next free slot to {@code notBefore} unless reservations already go beyond it. */
+    private void pushNextSlot(long notBefore) {
+        long next;
+        do {
+            next = nextSlotNanos.get();
+            if (next - notBefore >= 0) {
+                return;
+            }
+        } while (!nextSlotNanos.compareAndSet(next, notBefore));
+    }
+
+    /** Multiplicative decrease; a server-provided {@code Retry-After} also pauses the whole bucket. */
+    private void onThrottled(boolean serverProvidedDelay, long waitMs) {
+        if (!adaptive) {
+            return;
+        }
+        final long now = nanoClock.getAsLong();
+        if (serverProvidedDelay && waitMs > 0) {
+            pushNextSlot(now + waitMs * NANOS_PER_MILLI);
+        }
+        synchronized (rateLock) {
+            if (now - lastDecreaseNanos < DECREASE_COOLDOWN_MS * NANOS_PER_MILLI) {
+                return;
             }
-            Thread.sleep(waitMs);
+            setRate(Math.max(MIN_RATE, currentRate * DECREASE_FACTOR));
+            lastDecreaseNanos = now;
+            lastIncreaseNanos = now;
         }
+        // drop the accumulated burst: the next slot cannot start before now
+        pushNextSlot(now);
+        LOGGER.info("CustomGPT throttling detected, lowering the request rate to {} req/s", String.format("%.1f", currentRate));
     }
 
-    private void refill() {
-        final long now = System.nanoTime();
-        final long elapsed = now - lastRefillNanos;
-        final long newTokens = elapsed / tokenIntervalNanos;
-        if (newTokens > 0) {
-            availableTokens = Math.min(capacity, availableTokens + newTokens);
-            lastRefillNanos += newTokens * tokenIntervalNanos;
+    /** Additive increase, at most once per {@value #INCREASE_INTERVAL_MS} ms. */
+    private void onAccepted() {
+        // unsynchronised pre-checks keep the common path (full rate) lock-free
+        if (!adaptive || currentRate >= maxRate) {
+            return;
+        }
+        final long now = nanoClock.getAsLong();
+        if (now - lastIncreaseNanos < INCREASE_INTERVAL_MS * NANOS_PER_MILLI) {
+            return;
+        }
+        synchronized (rateLock) {
+            if (currentRate >= maxRate || now - lastIncreaseNanos < INCREASE_INTERVAL_MS * NANOS_PER_MILLI) {
+                return;
+            }
+            setRate(Math.min(maxRate, currentRate + INCREASE_STEP));
+            lastIncreaseNanos = now;
+            LOGGER.debug("No throttling for {}ms, raising the request rate to {} req/s", INCREASE_INTERVAL_MS, currentRate);
         }
     }
 
+    private void setRate(double rate) {
+        currentRate = rate;
+        tokenIntervalNanos = intervalNanos(rate);
+    }
+
+    private static long intervalNanos(double rate) {
+        return Math.max(1L, (long) (NANOS_PER_SECOND / rate));
+    }
+
     private long computeBackoffMs(Response response, int attempt) {
         final String retryAfter = response.header(RETRY_AFTER_HEADER);
         if (retryAfter != null) {
             try {
                 return Long.parseLong(retryAfter.trim()) * 1_000L;
             } catch (NumberFormatException ignored) {
-                // header is a date-time string, not seconds — fall through
+                // header is an HTTP-date rather than delay-seconds
+            }
+            try {
+                final long untilMs = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME)
+                        .toInstant().toEpochMilli();
+                return Math.max(0L, Math.min(MAX_BACKOFF_MS, untilMs - System.currentTimeMillis()));
+            } catch (DateTimeParseException ignored) {
+                // neither seconds nor a date — fall through
             }
         }
         // Full-jitter exponential back-off: random value in [0, min(MAX_BACKOFF, BASE * 2^(attempt-1))]
@@ -0,0 +1,188 @@
+package org.jahia.community.modules.customgpt.util;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * UTF-8 bytes of one rendered page, kept in memory up to a threshold and spilled to a temporary file beyond it, so
+ * indexing memory stays bounded whatever the page size. The {@link ContentDigest} is computed while the bytes are
+ * written, and {@link #toRequestBody(MediaType)} streams the content into the upload without ever building a
+ * {@link String} or a second byte array.
+ *
+ * <p>The request body can be written several times (the rate limiter replays a request after a 429). The page must be
+ * {@linkplain #close() closed} once the upload is over to delete the spill file.
+ */
+public final class RenderedPage implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RenderedPage.class);
+    private static final int COPY_BUFFER_SIZE = 8192;
+    private static final String SPILL_FILE_PREFIX = "customgpt-page-";
+    private static final String SPILL_FILE_SUFFIX = ".html";
+
+    private final long spillThresholdBytes;
+    private final ContentDigest digest;
+    private final ExposedByteArrayOutputStream memory = new ExposedByteArrayOutputStream();
+    private final OutputStream sink = new PageOutputStream();
+    private Path spillFile;
+    private OutputStream spillStream;
+    private long size;
+    private String contentDigest;
+
+    public RenderedPage(String title, String url, long spillThresholdBytes) {
+        this.spillThresholdBytes = Math.max(0L, spillThresholdBytes);
+        this.digest = new ContentDigest(title, url);
+    }
+
+    /** Copies {@code input} until its end; the stream is not closed. */
+    public void write(InputStream input) throws IOException {
+        final byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            write(buffer, 0, read);
+        }
+    }
+
+    /** Encodes {@code content} to UTF-8 in chunks, without materialising the whole byte array. */
+    public void write(String content) throws IOException {
+        final Writer writer = new OutputStreamWriter(sink, StandardCharsets.UTF_8);
+        writer.write(content);
+        writer.flush();
+    }
+
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+        checkWritable();
+        digest.update(buffer, offset, length);
+        if (spillStream == null && memory.size() + (long) length > spillThresholdBytes) {
+            spill();
+        }
+        if (spillStream != null) {
+            spillStream.write(buffer, offset, length);
+        } else {
+            memory.write(buffer, offset, length);
+        }
+        size += length;
+    }
+
+    /** Ends the writing phase and returns the content digest. */
+    public String complete() throws IOException {
+        if (contentDigest == null) {
+            if (spillStream != null) {
+                spillStream.close();
+            }
+            contentDigest = digest.toHex();
+        }
+        return contentDigest;
+    }
+
+    public String getContentDigest() {
+        return contentDigest;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public boolean isSpilled() {
+        return spillFile != null;
+    }
+
+    /** Returns a replayable request body streaming the page content; {@link #complete()} must have been called. */
+    public RequestBody toRequestBody(MediaType mediaType) {
+        if (contentDigest == null) {
+            throw new IllegalStateException("The rendered page must be completed before being uploaded");
+        }
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return mediaType;
+            }
+
+            @Override
+            public long contentLength() {
+                return size;
+            }
+
+            @Override
+            public void writeTo(BufferedSink bufferedSink) throws IOException {
+                if (spillFile == null) {
+                    bufferedSink.write(memory.buffer(), 0, memory.size());
+                } else {
+                    try (Source source = Okio.source(spillFile)) {
+                        bufferedSink.writeAll(source);
+                    }
+                }
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        memory.reset();
+        if (spillFile == null) {
+            return;
+        }
+        try {
+            if (spillStream != null) {
+                spillStream.close();
+            }
+            Files.deleteIfExists(spillFile);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to delete temporary page file {}: {}", spillFile, e.getMessage());
+        }
+    }
+
+    private void spill() throws IOException {
+        spillFile = Files.createTempFile(SPILL_FILE_PREFIX, SPILL_FILE_SUFFIX);
+        LOGGER.debug("Rendered page exceeds {} bytes, spilling to {}", spillThresholdBytes, spillFile);
+        spillStream = new BufferedOutputStream(Files.newOutputStream(spillFile), COPY_BUFFER_SIZE);
+        memory.writeTo(spillStream);
+        memory.reset();
+    }
+
+    private void checkWritable() {
+        if (contentDigest != null) {
+            throw new IllegalStateException("The rendered page is already completed");
+        }
+    }
+
+    /** Gives the request body direct access to the in-memory bytes, avoiding the copy made by {@code toByteArray}. */
+    private static final class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
+
+        ExposedByteArrayOutputStream() {
+            super(COPY_BUFFER_SIZE);
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+    }
+
+    private final class PageOutputStream extends OutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            RenderedPage.this.write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            RenderedPage.this.write(b, off, len);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.jahia.community.modules.customgpt.util;
+
+/**
+ * Priority lane of a CustomGPT API call, carried as an OkHttp request tag ({@code request.tag(RequestLane.class)}).
+ *
+ * <p>{@link #INTERACTIVE} work (publications picked up by the JCR listener, node reindexations triggered from the
+ * admin UI, project lookups) is always offered the in-flight window of {@link CustomGptTransport} and the rate budget
+ * of {@link RateLimitInterceptor} before {@link #BULK} work (full site reindexations, purge), so an editor's
+ * publication does not wait behind a large site reindex. Requests without a tag are interactive.
+ */
+public enum RequestLane {
+    INTERACTIVE,
+    BULK;
+
+    /** Returns the lane of a request tag, {@link #INTERACTIVE} when the request is not tagged. */
+    public static RequestLane of(RequestLane tag) {
+        return tag != null ? tag : INTERACTIVE;
+    }
+}
@@ -19,9 +19,9 @@ import org.apache.commons.lang3.RegExUtils;
 import org.apache.commons.text.StringEscapeUtils;
 import org.jahia.community.modules.customgpt.CustomGptConstants;
 import org.jahia.community.modules.customgpt.settings.Config;
+import org.jahia.community.modules.customgpt.settings.NodeTypeClassifier;
 import org.jahia.community.modules.customgpt.settings.NotConfiguredException;
 import org.jahia.exceptions.JahiaRuntimeException;
-import org.jahia.osgi.BundleUtils;
 import org.jahia.services.content.JCRContentUtils;
 import org.jahia.services.content.JCRNodeWrapper;
 import org.jahia.services.content.JCRSessionWrapper;
@@ -66,10 +66,11 @@ public final class Utils {
 
     /**
      * Rewrites {@code uri} through Jahia's {@link UrlRewriteService} then applies XML entity escaping and
-     * percent-encoding so it can be safely embedded in a sitemap or HTML attribute.
+     * percent-encoding so it can be safely embedded in a sitemap or HTML attribute. The rewrite service is passed in by
+     * the caller, which tracks it, rather than looked up for each link.
      */
-    public static String encode(String uri, RenderContext renderContext) throws IOException, ServletException, InvocationTargetException, URISyntaxException {
-        return StringUtils.replaceEach(Utils.encodeLink(uri, true, renderContext, false), ENTITIES, ENCODED_ENTITIES);
+    public static String encode(String uri, RenderContext renderContext, UrlRewriteService urlRewriteService) throws IOException, ServletException, InvocationTargetException, URISyntaxException {
+        return StringUtils.replaceEach(Utils.encodeLink(uri, true, renderContext, urlRewriteService, false), ENTITIES, ENCODED_ENTITIES);
     }
 
     public static String getHostName(JCRSiteNode siteNode) {
@@ -111,12 +112,11 @@ public final class Utils {
     }
 
     private static JCRNodeWrapper findMainResourceAncestor(JCRNodeWrapper node, Config customGptConfig) throws RepositoryException, NotConfiguredException {
-        for (String type : customGptConfig.getContentIndexedMainResources()) {
-            if (node.isNodeType(type)) {
-                return node;
-            }
+        final NodeTypeClassifier classifier = customGptConfig.getNodeTypeClassifier();
+        if (classifier.classify(node).isMainResource()) {
+            return node;
         }
-        for (String type : customGptConfig.getContentIndexedMainResources()) {
+        for (String type : classifier.getMainResourceTypes()) {
             final JCRNodeWrapper parentNode = JCRContentUtils.getParentOfType(node, type);
             if (parentNode != null) {
                 return parentNode;
@@ -125,8 +125,7 @@ public final class Utils {
         return null;
     }
     
-    private static String encodeLink(String uriPath, boolean shouldBeDecodedFirst, RenderContext renderContext, boolean removeContextPath) throws IOException, ServletException, InvocationTargetException, URISyntaxException {
-        final UrlRewriteService urlRewriteService = BundleUtils.getOsgiService(UrlRewriteService.class, null);
+    private static String encodeLink(String uriPath, boolean shouldBeDecodedFirst, RenderContext renderContext, UrlRewriteService urlRewriteService, boolean removeContextPath) throws IOException, ServletException, InvocationTargetException, URISyntaxException {
         String encodedUriPath = urlRewriteService.rewriteOutbound(uriPath, renderContext.getRequest(), renderContext.getResponse());
 
         if (removeContextPath) {
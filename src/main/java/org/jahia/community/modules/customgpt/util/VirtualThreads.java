@@ -0,0 +1,61 @@
+package org.jahia.community.modules.customgpt.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Access to virtual threads (JDK 21+) from a module compiled for Java 11. The {@code Thread.ofVirtual()} builder is
+ * looked up reflectively once; on older runtimes, or when virtual threads are still a preview feature,
+ * {@link #isSupported()} returns {@code false}.
+ */
+public final class VirtualThreads {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreads.class);
+    private static final int FIRST_RELEASE = 21;
+    private static final Method OF_VIRTUAL = lookupOfVirtual();
+
+    private VirtualThreads() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Returns a factory of virtual threads named {@code prefix} followed by a counter.
+     *
+     * @throws UnsupportedOperationException when the runtime has no virtual threads
+     */
+    public static ThreadFactory newFactory(String prefix) {
+        if (OF_VIRTUAL == null) {
+            throw new UnsupportedOperationException("Virtual threads require Java " + FIRST_RELEASE + "+, running " + Runtime.version());
+        }
+        try {
+            final Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            final Object builder = builderType.getMethod("name", String.class, long.class)
+                    .invoke(OF_VIRTUAL.invoke(null), prefix, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Unable to create a virtual thread factory", e);
+        }
+    }
+
+    private static Method lookupOfVirtual() {
+        if (Runtime.version().feature() < FIRST_RELEASE) {
+            return null;
+        }
+        try {
+            final Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            // fails when the feature is disabled, e.g. a preview API on an early-access build
+            ofVirtual.invoke(null);
+            return ofVirtual;
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            LOGGER.debug("Virtual threads are not available: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.jahia.community.modules.customgpt.indexer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link InFlightPages}: one task per node and language at a time, other languages running freely.
+ */
+public class InFlightPagesTest {
+
+    private static final String PAGE = "/sites/mySite/home/page";
+
+    private final InFlightPages inFlightPages = new InFlightPages();
+
+    @Test
+    public void enter_otherLanguage_doesNotWait() throws Exception {
+        inFlightPages.enter(PAGE, "en");
+
+        inFlightPages.enter(PAGE, "fr");
+
+        assertThat(inFlightPages.getHeldCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void enter_samePage_waitsUntilTheFirstTaskLeaves() throws Exception {
+        inFlightPages.enter(PAGE, "en");
+        final CountDownLatch entered = new CountDownLatch(1);
+        final Thread second = new Thread(() -> {
+            try {
+                inFlightPages.enter(PAGE, "en");
+                entered.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        second.start();
+
+        assertThat(entered.await(100, TimeUnit.MILLISECONDS)).isFalse();
+        inFlightPages.leave(PAGE, "en");
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+        second.join();
+        assertThat(inFlightPages.getHeldCount()).isEqualTo(1);
+    }
+}
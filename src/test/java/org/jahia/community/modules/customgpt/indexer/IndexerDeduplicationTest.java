@@ -1,21 +1,28 @@
 package org.jahia.community.modules.customgpt.indexer;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import org.jahia.community.modules.customgpt.service.Service;
 import org.jahia.community.modules.customgpt.settings.Config;
+import org.jahia.services.content.JCRNodeWrapper;
+import org.jahia.services.content.JCRSessionWrapper;
 import org.junit.Before;
 import org.junit.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 /**
  * Unit tests for the path deduplication logic in {@link Indexer#addNodeToDelete} and
  * {@link Indexer#isMarkedForRemoval}.
  *
  * No JCR, OSGi, or network dependencies are exercised.  The {@link Service} and {@link Config}
- * dependencies are mocked; only the in-memory {@code TreeSet<String>} deduplication logic is
- * exercised, which is purely deterministic.
+ * dependencies are mocked; only the in-memory {@link org.jahia.community.modules.customgpt.util.PathTrie}
+ * deduplication logic is exercised, which is purely deterministic.
  */
 public class IndexerDeduplicationTest {
 
@@ -151,6 +158,37 @@ public class IndexerDeduplicationTest {
         assertThat(indexer.getNodePathsToRemove()).containsExactlyInAnyOrder(p1, p2);
     }
 
+    @Test
+    public void addNodeToDelete_ancestorSortedBeforeUnrelatedSibling_descendantIsDropped() {
+        // "/sites/acme-b" sorts between "/sites/acme" and "/sites/acme/home" as a string
+        indexer.addNodeToDelete("/sites/acme");
+        indexer.addNodeToDelete("/sites/acme-b");
+        indexer.addNodeToDelete("/sites/acme/home");
+
+        assertThat(indexer.getNodePathsToRemove()).containsExactly("/sites/acme", "/sites/acme-b");
+    }
+
+    @Test
+    public void addNodeToDelete_pathsAreListedAncestorsFirst() {
+        indexer.addNodeToDelete("/sites/news/b");
+        indexer.addNodeToDelete("/sites/acme/home/x");
+        indexer.addNodeToDelete("/sites/news/a");
+
+        assertThat(indexer.getNodePathsToRemove()).containsExactly("/sites/acme/home/x", "/sites/news/a", "/sites/news/b");
+    }
+
+    @Test
+    public void addNodeToDelete_manyDescendantsPrunedByAncestor() {
+        for (int i = 0; i < 1000; i++) {
+            indexer.addNodeToDelete("/sites/acme/home/page" + i + "/sub" + i);
+        }
+        indexer.addNodeToDelete("/sites/news");
+
+        indexer.addNodeToDelete("/sites/acme/home");
+
+        assertThat(indexer.getNodePathsToRemove()).containsExactly("/sites/acme/home", "/sites/news");
+    }
+
     // ---- idempotent: same path added twice ----
 
     @Test
@@ -179,6 +217,29 @@ public class IndexerDeduplicationTest {
         assertThat(indexer.getNodePathsToRemove()).containsExactly("/sites/acme/home");
     }
 
+    // ---- pending (re)indexing dropped under a removed node ----
+
+    @Test
+    public void addNodeToDelete_parentOfQueuedPath_dropsTheQueuedPath() throws Exception {
+        final Service service = mock(Service.class);
+        final JCRSessionWrapper session = mock(JCRSessionWrapper.class);
+        when(service.getSystemSession(any(), any(), any())).thenReturn(session);
+        for (String path : Arrays.asList("/sites/acme/home/about", "/sites/acme/home-b")) {
+            final JCRNodeWrapper node = mock(JCRNodeWrapper.class);
+            when(session.getNode(path)).thenReturn(node);
+            when(service.getNodePathsToIndex(node)).thenReturn(new LinkedHashSet<>(Collections.singletonList(path)));
+        }
+        indexer = new Indexer(service, mock(Config.class));
+        indexer.addNodePathToIndex("/sites/acme/home/about");
+        indexer.addNodePathToIndex("/sites/acme/home-b");
+
+        indexer.addNodeToDelete("/sites/acme/home");
+
+        // "/sites/acme/home-b" is a sibling sharing a string prefix, not a descendant
+        assertThat(indexer.getNodePathsToAddOrReIndex()).containsExactly("/sites/acme/home-b");
+        assertThat(indexer.getNodePathsToRemove()).containsExactly("/sites/acme/home");
+    }
+
     // ---- isMarkedForRemoval ----
 
     @Test
@@ -219,6 +280,16 @@ public class IndexerDeduplicationTest {
         assertThat(indexer.isMarkedForRemoval("/sites/acmefoo")).isFalse();
     }
 
+    @Test
+    public void isMarkedForRemoval_descendantOfAncestorSortedBeforeUnrelatedSibling_returnsTrue() {
+        indexer.addNodeToDelete("/sites/acme");
+        indexer.addNodeToDelete("/sites/acme-b");
+
+        assertThat(indexer.isMarkedForRemoval("/sites/acme/home")).isTrue();
+        assertThat(indexer.isMarkedForRemoval("/sites/acme-b/home")).isTrue();
+        assertThat(indexer.isMarkedForRemoval("/sites/acme-c")).isFalse();
+    }
+
     @Test
     public void isMarkedForRemoval_emptySet_returnsFalse() {
         assertThat(indexer.isMarkedForRemoval("/sites/acme/home")).isFalse();
@@ -0,0 +1,47 @@
+package org.jahia.community.modules.customgpt.indexer;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link Indexer#scanStatement}, the query of a site scan resumed from a checkpoint or restricted to a
+ * partition, and {@link Indexer#publishedSinceStatement} of incremental indexations.
+ */
+public class IndexerScanStatementTest {
+
+    @Test
+    public void scanStatement_coversTheWholeTreeWithoutCheckpoint() {
+        assertThat(Indexer.scanStatement("jnt:page", "/sites/acme", null, ScanPartitioner.UuidRange.ALL))
+                .isEqualTo("select * from [jnt:page] as sel where isdescendantnode(sel,['/sites/acme']) ORDER BY [jcr:uuid]");
+    }
+
+    @Test
+    public void scanStatement_startsAfterTheCheckpointUuid() {
+        assertThat(Indexer.scanStatement("jnt:page", "/sites/acme", "0f1e'2d", ScanPartitioner.UuidRange.ALL))
+                .isEqualTo("select * from [jnt:page] as sel where isdescendantnode(sel,['/sites/acme'])"
+                        + " and sel.[jcr:uuid] > '0f1e''2d' ORDER BY [jcr:uuid]");
+    }
+
+    @Test
+    public void scanStatement_isBoundedByThePartitionRange() {
+        assertThat(Indexer.scanStatement("jnt:page", "/sites/acme", null, new ScanPartitioner.UuidRange("4", "8")))
+                .isEqualTo("select * from [jnt:page] as sel where isdescendantnode(sel,['/sites/acme'])"
+                        + " and sel.[jcr:uuid] >= '4' and sel.[jcr:uuid] < '8' ORDER BY [jcr:uuid]");
+    }
+
+    @Test
+    public void publishedSinceStatement_comparesLastPublishedWithAnUtcDate() {
+        final Calendar since = new GregorianCalendar(TimeZone.getTimeZone("Europe/Paris"));
+        since.clear();
+        since.set(2026, Calendar.MARCH, 1, 2, 30, 15);
+        since.set(Calendar.MILLISECOND, 250);
+
+        assertThat(Indexer.publishedSinceStatement("jnt:text", "/sites/acme", since))
+                .isEqualTo("select * from [jnt:text] as sel where isdescendantnode(sel,['/sites/acme'])"
+                        + " and sel.[j:lastPublished] > cast('2026-03-01T01:30:15.250Z' as date) ORDER BY [jcr:uuid]");
+    }
+}
@@ -0,0 +1,199 @@
+package org.jahia.community.modules.customgpt.indexer;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link IndexingPipeline}: stage ordering, item exit, failures, backpressure and waiting for idle.
+ */
+public class IndexingPipelineTest {
+
+    private static final long TIMEOUT_MS = 5_000L;
+
+    @Test
+    public void close_runsEverySubmittedItemThroughAllStages() throws InterruptedException {
+        final List<String> completed = new CopyOnWriteArrayList<>();
+        final IndexingPipeline<StringBuilder> pipeline = IndexingPipeline.<StringBuilder>builder("test")
+                .stage("first", 2, item -> append(item, "-a"))
+                .stage("second", 3, item -> append(item, "-b"))
+                .onExit(item -> completed.add(item.toString()))
+                .build();
+
+        for (int i = 0; i < 50; i++) {
+            pipeline.submit(new StringBuilder("p" + i));
+        }
+        pipeline.close();
+
+        assertThat(completed).hasSize(50).allMatch(item -> item.endsWith("-a-b")).contains("p0-a-b", "p49-a-b");
+    }
+
+    @Test
+    public void droppedAndFailedItems_skipLaterStagesButStillExit() throws InterruptedException {
+        final List<String> secondStage = new CopyOnWriteArrayList<>();
+        final List<String> exited = new CopyOnWriteArrayList<>();
+        final List<String> failed = new CopyOnWriteArrayList<>();
+        final IndexingPipeline<String> pipeline = IndexingPipeline.<String>builder("test")
+                .stage("filter", 1, item -> {
+                    if (item.equals("boom")) {
+                        throw new IllegalStateException(item);
+                    }
+                    return !item.equals("skip");
+                })
+                .stage("collect", 1, secondStage::add)
+                .onExit(exited::add)
+                .onFailure((item, e) -> failed.add(item + ":" + e.getMessage()))
+                .build();
+
+        pipeline.submit("keep");
+        pipeline.submit("skip");
+        pipeline.submit("boom");
+        pipeline.close();
+
+        assertThat(secondStage).containsExactly("keep");
+        assertThat(exited).containsExactlyInAnyOrder("keep", "skip", "boom");
+        assertThat(failed).containsExactly("boom:boom");
+    }
+
+    @Test
+    public void errorInAStage_failsTheItemAndKeepsTheWorker() throws InterruptedException {
+        final List<String> exited = new CopyOnWriteArrayList<>();
+        final List<String> failed = new CopyOnWriteArrayList<>();
+        final IndexingPipeline<String> pipeline = IndexingPipeline.<String>builder("test")
+                .stage("only", 1, item -> {
+                    if (item.equals("error")) {
+                        throw new AssertionError(item);
+                    }
+                    return true;
+                })
+                .onExit(exited::add)
+                .onFailure((item, e) -> failed.add(item + ":" + e.getClass().getSimpleName()))
+                .build();
+
+        pipeline.submit("error");
+        pipeline.submit("next");
+        pipeline.awaitIdle();
+
+        assertThat(exited).containsExactly("error", "next");
+        assertThat(failed).containsExactly("error:AssertionError");
+        pipeline.close();
+    }
+
+    @Test
+    public void awaitIdle_returnsOnceEverySubmittedItemHasExited() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Integer> exited = new CopyOnWriteArrayList<>();
+        final IndexingPipeline<Integer> pipeline = IndexingPipeline.<Integer>builder("test")
+                .stage("slow", 2, item -> release.await(TIMEOUT_MS, TimeUnit.MILLISECONDS))
+                .onExit(exited::add)
+                .build();
+        pipeline.submit(1);
+        pipeline.submit(2);
+        final CountDownLatch idle = new CountDownLatch(1);
+        final Thread waiter = new Thread(() -> {
+            try {
+                pipeline.awaitIdle();
+                idle.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+
+        assertThat(idle.await(100, TimeUnit.MILLISECONDS)).isFalse();
+        release.countDown();
+        assertThat(idle.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+        assertThat(exited).containsExactlyInAnyOrder(1, 2);
+        pipeline.submit(3);
+        pipeline.close();
+        assertThat(exited).contains(3);
+    }
+
+    @Test
+    public void submit_blocksWhileTheSlowestStageIsBehind() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        final IndexingPipeline<Integer> pipeline = IndexingPipeline.<Integer>builder("test")
+                .stage("fast", 1, item -> true)
+                .stage("slow", 1, item -> release.await(TIMEOUT_MS, TimeUnit.MILLISECONDS))
+                .queueCapacity(1)
+                .build();
+        final AtomicBoolean producerDone = new AtomicBoolean();
+        final Thread producer = new Thread(() -> {
+            try {
+                // one item in the slow worker, one per queue and one in the fast worker fill the chain
+                for (int i = 0; i < 10; i++) {
+                    pipeline.submit(i);
+                }
+                producerDone.set(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+
+        producer.join(200L);
+        assertThat(producerDone).isFalse();
+        assertThat(pipeline.getQueueSize("fast")).isEqualTo(1);
+
+        release.countDown();
+        producer.join(TIMEOUT_MS);
+        assertThat(producerDone).isTrue();
+        pipeline.close();
+    }
+
+    @Test
+    public void submit_afterCloseIsRejected() throws InterruptedException {
+        final IndexingPipeline<String> pipeline = IndexingPipeline.<String>builder("test")
+                .stage("only", 1, item -> true)
+                .build();
+        pipeline.close();
+
+        assertThatThrownBy(() -> pipeline.submit("late"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("closed");
+    }
+
+    @Test
+    public void threadPerItem_boundsItemsInFlightAndClearsEachThread() throws InterruptedException {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final AtomicInteger threadExits = new AtomicInteger();
+        final List<String> completed = new CopyOnWriteArrayList<>();
+        final IndexingPipeline<StringBuilder> pipeline = IndexingPipeline.<StringBuilder>builder("test")
+                .stage("first", 1, item -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Thread.sleep(5L);
+                    return append(item, "-a");
+                })
+                .stage("second", 1, item -> {
+                    running.decrementAndGet();
+                    return append(item, "-b");
+                })
+                .threadPerItem(Executors.defaultThreadFactory(), 3)
+                .onExit(item -> completed.add(item.toString()))
+                .onThreadExit(threadExits::incrementAndGet)
+                .build();
+
+        for (int i = 0; i < 30; i++) {
+            pipeline.submit(new StringBuilder("p" + i));
+        }
+        pipeline.close();
+
+        assertThat(completed).hasSize(30).allMatch(item -> item.endsWith("-a-b"));
+        assertThat(maxRunning.get()).isBetween(1, 3);
+        assertThat(threadExits).hasValue(30);
+    }
+
+    private static boolean append(StringBuilder item, String suffix) {
+        item.append(suffix);
+        return true;
+    }
+}
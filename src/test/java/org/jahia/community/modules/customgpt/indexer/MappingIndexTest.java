@@ -0,0 +1,103 @@
+package org.jahia.community.modules.customgpt.indexer;
+
+import java.nio.file.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link MappingIndex}: one entry per language, least recently used eviction, entries that cannot be
+ * cached and the snapshot written on stop and consumed on start.
+ */
+public class MappingIndexTest {
+
+    private static final String NODE_A = "0f8fad5b-d9cb-469f-a165-70867728950e";
+    private static final String NODE_B = "7c9e6679-7425-40de-944b-e07fc1f90ae7";
+    private static final String NODE_C = "c3a1c0a4-1b9e-4e6f-8a4a-2f3c9d8e7b61";
+    private static final String EN = "en";
+    private static final String DIGEST = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void put_thenGet_returnsTheMapping() {
+        final MappingIndex index = new MappingIndex(10);
+
+        index.put(NODE_A, EN, new MappingEntry("123", DIGEST));
+        index.put(NODE_B, EN, new MappingEntry("456", null));
+
+        assertThat(index.get(NODE_A, EN).getPageId()).isEqualTo("123");
+        assertThat(index.get(NODE_A, EN).getContentDigest()).isEqualTo(DIGEST);
+        assertThat(index.get(NODE_B, EN).getContentDigest()).isNull();
+        assertThat(index.get(NODE_C, EN)).isNull();
+    }
+
+    @Test
+    public void put_keepsOneEntryPerLanguage() {
+        final MappingIndex index = new MappingIndex(10);
+
+        index.put(NODE_A, EN, new MappingEntry("1", DIGEST));
+        index.put(NODE_A, "fr", new MappingEntry("2", null));
+        index.put(NODE_A, null, new MappingEntry("3", null));
+        index.invalidate(NODE_A, "fr");
+
+        assertThat(index.get(NODE_A, EN).getPageId()).isEqualTo("1");
+        assertThat(index.get(NODE_A, "fr")).isNull();
+        assertThat(index.get(NODE_A, null).getPageId()).isEqualTo("3");
+    }
+
+    @Test
+    public void put_beyondCapacity_evictsTheLeastRecentlyUsed() {
+        final MappingIndex index = new MappingIndex(2);
+        index.put(NODE_A, EN, new MappingEntry("1", DIGEST));
+        index.put(NODE_B, EN, new MappingEntry("2", DIGEST));
+        index.get(NODE_A, EN);
+
+        index.put(NODE_C, EN, new MappingEntry("3", DIGEST));
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.get(NODE_A, EN)).isNotNull();
+        assertThat(index.get(NODE_B, EN)).isNull();
+    }
+
+    @Test
+    public void put_uncachableMapping_forgetsThePreviousOne() {
+        final MappingIndex index = new MappingIndex(10);
+        index.put(NODE_A, EN, new MappingEntry("1", DIGEST));
+
+        index.put(NODE_A, EN, new MappingEntry("not-a-number", DIGEST));
+        index.put("not-a-uuid", EN, new MappingEntry("2", DIGEST));
+
+        assertThat(index.get(NODE_A, EN)).isNull();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    public void zeroCapacity_cachesNothing() {
+        final MappingIndex index = new MappingIndex(0);
+
+        index.put(NODE_A, EN, new MappingEntry("1", DIGEST));
+
+        assertThat(index.get(NODE_A, EN)).isNull();
+    }
+
+    @Test
+    public void save_thenLoad_restoresTheEntriesAndConsumesTheSnapshot() throws Exception {
+        final Path snapshot = folder.getRoot().toPath().resolve("customgpt").resolve("mapping-index.bin");
+        final MappingIndex index = new MappingIndex(10);
+        index.put(NODE_A, EN, new MappingEntry("1", DIGEST));
+        index.put(NODE_B, null, new MappingEntry("2", null));
+        index.save(snapshot);
+
+        final MappingIndex restored = new MappingIndex(10);
+
+        assertThat(restored.load(snapshot)).isEqualTo(2);
+        assertThat(restored.get(NODE_A, EN).getContentDigest()).isEqualTo(DIGEST);
+        assertThat(restored.get(NODE_B, null).getPageId()).isEqualTo("2");
+        assertThat(snapshot).doesNotExist();
+        assertThat(new MappingIndex(10).load(snapshot)).isZero();
+    }
+}
@@ -0,0 +1,89 @@
+package org.jahia.community.modules.customgpt.indexer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.jcr.RepositoryException;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link MappingWriter}: one store write per full batch, the final flush, the one-by-one fallback
+ * when a batch cannot be saved and the unsaved mappings published in {@link InFlightPages}.
+ */
+public class MappingWriterTest {
+
+    private static final String NODE_A = "0f8fad5b-d9cb-469f-a165-70867728950e";
+    private static final String NODE_B = "7c9e6679-7425-40de-944b-e07fc1f90ae7";
+    private static final String NODE_C = "c3a1c0a4-1b9e-4e6f-8a4a-2f3c9d8e7b61";
+
+    private static final String EN = "en";
+
+    private final MappingIndex index = new MappingIndex(10);
+    private final InFlightPages inFlightPages = new InFlightPages();
+    private final List<List<String>> writes = new ArrayList<>();
+
+    @Test
+    public void add_savesOnceTheBatchIsFull() {
+        final MappingWriter writer = new MappingWriter(2, this::record, () -> index, inFlightPages);
+
+        writer.add("/sites/a/home/a", NODE_A, EN, new MappingEntry("1", null));
+        assertThat(writes).isEmpty();
+        writer.add("/sites/a/home/b", NODE_B, EN, new MappingEntry("2", null));
+
+        assertThat(writes).containsExactly(List.of("/sites/a/home/a", "/sites/a/home/b"));
+        assertThat(index.get(NODE_B, EN).getPageId()).isEqualTo("2");
+        assertThat(writer.getPendingCount()).isZero();
+    }
+
+    @Test
+    public void flush_savesWhatIsLeft() {
+        final MappingWriter writer = new MappingWriter(10, this::record, () -> index, inFlightPages);
+        writer.add("/sites/a/home/a", NODE_A, EN, new MappingEntry("1", null));
+
+        writer.flush();
+        writer.flush();
+
+        assertThat(writes).containsExactly(List.of("/sites/a/home/a"));
+        assertThat(index.get(NODE_A, EN)).isNotNull();
+    }
+
+    @Test
+    public void failedBatch_isSavedOneByOne() {
+        index.put(NODE_B, EN, new MappingEntry("20", null));
+        final MappingWriter writer = new MappingWriter(3, mappings -> {
+            if (mappings.size() > 1 || mappings.get(0).getIdentifier().equals(NODE_B)) {
+                throw new RepositoryException("conflict");
+            }
+            record(mappings);
+        }, () -> index, inFlightPages);
+
+        writer.add("/sites/a/home/a", NODE_A, EN, new MappingEntry("1", null));
+        writer.add("/sites/a/home/b", NODE_B, EN, new MappingEntry("2", null));
+        writer.add("/sites/a/home/c", NODE_C, EN, new MappingEntry("3", null));
+
+        assertThat(writes).containsExactly(List.of("/sites/a/home/a"), List.of("/sites/a/home/c"));
+        assertThat(index.get(NODE_A, EN)).isNotNull();
+        assertThat(index.get(NODE_B, EN)).isNull();
+        assertThat(index.get(NODE_C, EN)).isNotNull();
+    }
+
+    @Test
+    public void add_publishesTheMappingUntilSaved() {
+        final MappingWriter writer = new MappingWriter(10, this::record, () -> index, inFlightPages);
+        final MappingEntry mapping = new MappingEntry("1", null);
+
+        writer.add("/sites/a/home/a", NODE_A, EN, mapping);
+
+        assertThat(inFlightPages.getUnsaved(NODE_A, EN)).isSameAs(mapping);
+        assertThat(inFlightPages.getUnsaved(NODE_A, "fr")).isNull();
+        writer.flush();
+        assertThat(inFlightPages.getUnsaved(NODE_A, EN)).isNull();
+        assertThat(index.get(NODE_A, EN)).isNotNull();
+    }
+
+    private void record(List<MappingWriter.PendingMapping> mappings) {
+        writes.add(mappings.stream().map(MappingWriter.PendingMapping::getNodePath).collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,95 @@
+package org.jahia.community.modules.customgpt.indexer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link ScanPartitioner}: ranges covering every identifier, and units all run once even when the
+ * executor cannot start them.
+ */
+public class ScanPartitionerTest {
+
+    @Test
+    public void split_coversEveryIdentifierWithContiguousRanges() {
+        final List<ScanPartitioner.UuidRange> ranges = ScanPartitioner.split(4);
+
+        assertThat(ranges).hasSize(4);
+        assertThat(ranges.get(0).getFrom()).isNull();
+        assertThat(ranges.get(3).getTo()).isNull();
+        for (int i = 1; i < ranges.size(); i++) {
+            assertThat(ranges.get(i).getFrom()).isEqualTo(ranges.get(i - 1).getTo());
+        }
+        assertThat(ranges).extracting(ScanPartitioner.UuidRange::getTo).containsExactly("4", "8", "c", null);
+    }
+
+    @Test
+    public void split_isCappedToOneRangePerHexDigit() {
+        assertThat(ScanPartitioner.split(64)).hasSize(16);
+        assertThat(ScanPartitioner.split(0)).containsExactly(ScanPartitioner.UuidRange.ALL);
+    }
+
+    @Test
+    public void runAll_runsEveryUnitOnceWhenTheExecutorIsBusy() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            // the only executor thread is busy: the caller must run the queued units itself
+            executor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            final Set<Integer> ran = ConcurrentHashMap.newKeySet();
+            final AtomicInteger runs = new AtomicInteger();
+            final List<Callable<Void>> units = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                final int unit = i;
+                units.add(() -> {
+                    runs.incrementAndGet();
+                    ran.add(unit);
+                    return null;
+                });
+            }
+
+            assertThat(ScanPartitioner.runAll(executor, units, () -> { })).isNull();
+
+            assertThat(ran).containsExactlyInAnyOrder(0, 1, 2, 3);
+            assertThat(runs).hasValue(4);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void runAll_returnsTheFailureOfAUnit() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final IOException failure = new IOException("boom");
+            final List<Callable<Void>> units = new ArrayList<>();
+            units.add(() -> null);
+            units.add(() -> {
+                throw failure;
+            });
+
+            assertThat(ScanPartitioner.runAll(executor, units, () -> { })).isSameAs(failure);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.jahia.community.modules.customgpt.indexer;
+
+import javax.jcr.Value;
+import org.jahia.api.Constants;
+import org.jahia.services.content.decorator.JCRSiteNode;
+import org.jahia.services.sites.SitesSettings;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link SiteContextCache}: a site node is read once per workspace, and an invalidation drops both
+ * workspaces so that the next page reads the changed properties.
+ */
+public class SiteContextCacheTest {
+
+    private static final String SITE_PATH = "/sites/mySite";
+
+    private final SiteContextCache cache = new SiteContextCache();
+
+    @Test
+    public void get_readsSiteOncePerWorkspace() throws Exception {
+        final JCRSiteNode live = mockSite(Constants.LIVE_WORKSPACE, "https://www.example.com/sitemap.xml");
+        final JCRSiteNode edit = mockSite(Constants.EDIT_WORKSPACE, "https://www.example.com/sitemap.xml");
+
+        final SiteContextCache.SiteContext context = cache.get(live);
+
+        assertThat(cache.get(live)).isSameAs(context);
+        assertThat(cache.get(edit)).isNotSameAs(context);
+        assertThat(cache.size()).isEqualTo(2);
+        verify(live, times(1)).getPropertyAsString("sitemapIndexURL");
+        assertThat(context.hasServerUrl()).isTrue();
+        assertThat(context.getHostName()).isEqualTo("https://www.example.com");
+        assertThat(context.getServerUrl().getHost()).isEqualTo("www.example.com");
+        assertThat(context.getLanguages()).containsExactlyInAnyOrder("en", "fr");
+    }
+
+    @Test
+    public void get_internalHostHasNoServerUrl() throws Exception {
+        final SiteContextCache.SiteContext context = cache.get(mockSite(Constants.LIVE_WORKSPACE, "http://127.0.0.1/sitemap.xml"));
+
+        assertThat(context.hasServerUrl()).isFalse();
+    }
+
+    @Test
+    public void invalidate_dropsBothWorkspaces() throws Exception {
+        final JCRSiteNode live = mockSite(Constants.LIVE_WORKSPACE, "https://www.example.com/sitemap.xml");
+        cache.get(live);
+        cache.get(mockSite(Constants.EDIT_WORKSPACE, "https://www.example.com/sitemap.xml"));
+
+        cache.invalidate(SITE_PATH);
+
+        assertThat(cache.size()).isZero();
+        cache.get(live);
+        verify(live, times(2)).getPropertyAsString("sitemapIndexURL");
+    }
+
+    private static JCRSiteNode mockSite(String workspace, String sitemapIndexURL) throws Exception {
+        final JCRSiteNode site = mock(JCRSiteNode.class, RETURNS_DEEP_STUBS);
+        when(site.getPath()).thenReturn(SITE_PATH);
+        when(site.getSession().getWorkspace().getName()).thenReturn(workspace);
+        when(site.getPropertyAsString("sitemapIndexURL")).thenReturn(sitemapIndexURL);
+        when(site.hasProperty(SitesSettings.LANGUAGES)).thenReturn(true);
+        when(site.getProperty(SitesSettings.LANGUAGES).getValues()).thenReturn(new Value[]{value("en"), value("fr"), value("de")});
+        when(site.hasProperty(SitesSettings.INACTIVE_LIVE_LANGUAGES)).thenReturn(true);
+        when(site.getProperty(SitesSettings.INACTIVE_LIVE_LANGUAGES).getValues()).thenReturn(new Value[]{value("de")});
+        return site;
+    }
+
+    private static Value value(String string) throws Exception {
+        final Value value = mock(Value.class);
+        when(value.getString()).thenReturn(string);
+        return value;
+    }
+}
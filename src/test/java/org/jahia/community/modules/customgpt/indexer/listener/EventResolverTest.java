@@ -0,0 +1,101 @@
+package org.jahia.community.modules.customgpt.indexer.listener;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.jcr.observation.Event;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link EventResolver}: batches are resolved off the submitting thread, in order, and none is lost
+ * when the resolver is closed.
+ */
+public class EventResolverTest {
+
+    private final List<String> resolved = new CopyOnWriteArrayList<>();
+    private final List<Thread> resolvingThreads = new CopyOnWriteArrayList<>();
+    private final AtomicInteger threadExits = new AtomicInteger();
+    private EventResolver resolver;
+
+    @After
+    public void tearDown() {
+        if (resolver != null) {
+            resolver.close();
+        }
+    }
+
+    @Test
+    public void submit_resolvesOnTheResolverThreadInOrder() throws Exception {
+        final CountDownLatch done = new CountDownLatch(3);
+        resolver = new EventResolver("test-resolver", batch -> {
+            record(batch);
+            done.countDown();
+        }, threadExits::incrementAndGet);
+
+        resolver.submit(batch("/sites/a/1"));
+        resolver.submit(batch("/sites/a/2"));
+        resolver.submit(batch("/sites/a/3"));
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(resolved).containsExactly("/sites/a/1", "/sites/a/2", "/sites/a/3");
+        assertThat(resolvingThreads).doesNotContain(Thread.currentThread());
+        assertThat(resolver.getBacklog()).isZero();
+    }
+
+    @Test
+    public void close_resolvesWhatWasSubmitted() {
+        final CountDownLatch release = new CountDownLatch(1);
+        resolver = new EventResolver("test-resolver", batch -> {
+            awaitQuietly(release);
+            record(batch);
+        }, threadExits::incrementAndGet);
+        resolver.submit(batch("/sites/a/1"));
+        resolver.submit(batch("/sites/a/2"));
+
+        release.countDown();
+        resolver.close();
+
+        assertThat(resolved).containsExactly("/sites/a/1", "/sites/a/2");
+        assertThat(threadExits).hasValue(1);
+    }
+
+    @Test
+    public void submit_afterClose_resolvesOnTheCallingThread() {
+        resolver = new EventResolver("test-resolver", this::record, threadExits::incrementAndGet);
+        resolver.close();
+
+        resolver.submit(batch("/sites/a/1"));
+
+        assertThat(resolved).containsExactly("/sites/a/1");
+        assertThat(resolvingThreads).containsExactly(Thread.currentThread());
+    }
+
+    private void record(List<CustomEvent> batch) {
+        resolvingThreads.add(Thread.currentThread());
+        batch.forEach(event -> {
+            try {
+                resolved.add(event.getPath());
+            } catch (javax.jcr.RepositoryException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private static List<CustomEvent> batch(String path) {
+        return Collections.singletonList(new CustomEvent(Event.NODE_REMOVED, null, path));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.jahia.community.modules.customgpt.indexer.listener;
+
+import javax.jcr.observation.Event;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the pre-filtering of {@link IndexerJCRListener}: the events dropped before any JCR access, and the
+ * site node changes that invalidate a cached site context.
+ */
+public class IndexerJCRListenerTest {
+
+    private static final String PAGE = "/sites/mySite/home/page";
+
+    @Test
+    public void isRelevant_keepsPublicationsAndRemovals() {
+        assertThat(IndexerJCRListener.isRelevant(Event.PROPERTY_ADDED, PAGE + "/j:lastPublished")).isTrue();
+        assertThat(IndexerJCRListener.isRelevant(Event.PROPERTY_CHANGED, PAGE + "/j:lastPublished")).isTrue();
+        assertThat(IndexerJCRListener.isRelevant(Event.PROPERTY_CHANGED, PAGE + "/jcr:mixinTypes")).isTrue();
+        assertThat(IndexerJCRListener.isRelevant(Event.NODE_REMOVED, PAGE)).isTrue();
+    }
+
+    @Test
+    public void isRelevant_dropsOtherPropertiesAndAddedNodes() {
+        assertThat(IndexerJCRListener.isRelevant(Event.PROPERTY_CHANGED, PAGE + "/jcr:title")).isFalse();
+        assertThat(IndexerJCRListener.isRelevant(Event.PROPERTY_CHANGED, PAGE + "/j:lastPublishedBy")).isFalse();
+        assertThat(IndexerJCRListener.isRelevant(Event.PROPERTY_REMOVED, PAGE + "/j:lastPublished")).isFalse();
+        assertThat(IndexerJCRListener.isRelevant(Event.PROPERTY_ADDED, PAGE + "/jcr:mixinTypes")).isFalse();
+        assertThat(IndexerJCRListener.isRelevant(Event.NODE_ADDED, PAGE)).isFalse();
+    }
+
+    @Test
+    public void isRelevant_keepsEveryTrashEvent() {
+        assertThat(IndexerJCRListener.isRelevant(Event.NODE_ADDED, "/trash-1234/page")).isTrue();
+        assertThat(IndexerJCRListener.isRelevant(Event.PROPERTY_CHANGED, "/trash-1234/page/jcr:title")).isTrue();
+    }
+
+    @Test
+    public void getChangedSitePath_siteNodeChanges() {
+        assertThat(IndexerJCRListener.getChangedSitePath(Event.PROPERTY_CHANGED, "/sites/mySite/sitemapIndexURL")).isEqualTo("/sites/mySite");
+        assertThat(IndexerJCRListener.getChangedSitePath(Event.PROPERTY_ADDED, "/sites/mySite/j:inactiveLiveLanguages")).isEqualTo("/sites/mySite");
+        assertThat(IndexerJCRListener.getChangedSitePath(Event.NODE_REMOVED, "/sites/mySite")).isEqualTo("/sites/mySite");
+    }
+
+    @Test
+    public void getChangedSitePath_ignoresOtherNodes() {
+        assertThat(IndexerJCRListener.getChangedSitePath(Event.PROPERTY_CHANGED, PAGE + "/j:lastPublished")).isNull();
+        assertThat(IndexerJCRListener.getChangedSitePath(Event.NODE_REMOVED, PAGE)).isNull();
+        assertThat(IndexerJCRListener.getChangedSitePath(Event.NODE_ADDED, "/sites/mySite")).isNull();
+        assertThat(IndexerJCRListener.getChangedSitePath(Event.PROPERTY_CHANGED, "/sites/j:lastPublished")).isNull();
+        assertThat(IndexerJCRListener.getChangedSitePath(Event.NODE_REMOVED, "/trash-1234/mySite")).isNull();
+    }
+}
@@ -0,0 +1,119 @@
+package org.jahia.community.modules.customgpt.indexer.listener;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.jahia.community.modules.customgpt.indexer.listener.IndexOperations.CustomGptIndexOperation;
+import org.jahia.community.modules.customgpt.indexer.listener.IndexOperations.CustomGptOperationType;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Unit tests for {@link OperationCoalescer}: merging across event batches, cancellation by a later removal, the size
+ * cap and the window timer.
+ */
+public class OperationCoalescerTest {
+
+    private static final long LONG_WINDOW_MS = 60_000L;
+
+    private final List<IndexOperations> dispatched = new CopyOnWriteArrayList<>();
+    private OperationCoalescer coalescer;
+
+    @After
+    public void tearDown() {
+        if (coalescer != null) {
+            coalescer.close();
+        }
+    }
+
+    @Test
+    public void add_mergesRepeatedIndexationsOfAPathAcrossBatches() {
+        coalescer = new OperationCoalescer(LONG_WINDOW_MS, 100, dispatched::add);
+
+        for (int i = 0; i < 5; i++) {
+            coalescer.add(batch(index("/sites/acme/home"), index("/sites/acme/home/news")));
+        }
+        assertThat(dispatched).isEmpty();
+        assertThat(coalescer.getPendingCount()).isEqualTo(2);
+
+        coalescer.flush();
+
+        assertThat(dispatched).hasSize(1);
+        assertThat(dispatched.get(0).getOperations()).extracting(CustomGptIndexOperation::getType, CustomGptIndexOperation::getNodePath)
+                .containsExactly(tuple(CustomGptOperationType.NODE_INDEX, "/sites/acme/home"),
+                        tuple(CustomGptOperationType.NODE_INDEX, "/sites/acme/home/news"));
+    }
+
+    @Test
+    public void add_laterRemovalCancelsThePendingIndexation() {
+        coalescer = new OperationCoalescer(LONG_WINDOW_MS, 100, dispatched::add);
+
+        coalescer.add(batch(index("/sites/acme/home/old")));
+        coalescer.add(batch(remove("/sites/acme/home/old")));
+        // published again after its removal: indexed after the removal
+        coalescer.add(batch(remove("/sites/acme/home/moved"), index("/sites/acme/home/moved")));
+        coalescer.flush();
+
+        assertThat(dispatched.get(0).getOperations()).extracting(CustomGptIndexOperation::getType, CustomGptIndexOperation::getNodePath)
+                .containsExactly(tuple(CustomGptOperationType.NODE_REMOVE, "/sites/acme/home/old"),
+                        tuple(CustomGptOperationType.NODE_REMOVE, "/sites/acme/home/moved"),
+                        tuple(CustomGptOperationType.NODE_INDEX, "/sites/acme/home/moved"));
+    }
+
+    @Test
+    public void add_dispatchesAsSoonAsTheSizeCapIsReached() {
+        coalescer = new OperationCoalescer(LONG_WINDOW_MS, 3, dispatched::add);
+
+        coalescer.add(batch(index("/sites/acme/a"), index("/sites/acme/b")));
+        assertThat(dispatched).isEmpty();
+        coalescer.add(batch(index("/sites/acme/c")));
+
+        assertThat(dispatched).hasSize(1);
+        assertThat(dispatched.get(0).getOperations()).hasSize(3);
+        assertThat(coalescer.getPendingCount()).isZero();
+    }
+
+    @Test
+    public void window_dispatchesWhenItCloses() throws InterruptedException {
+        final CountDownLatch flushed = new CountDownLatch(1);
+        coalescer = new OperationCoalescer(50L, 100, operations -> {
+            dispatched.add(operations);
+            flushed.countDown();
+        });
+
+        coalescer.add(batch(index("/sites/acme/home")));
+
+        assertThat(flushed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(dispatched).hasSize(1);
+    }
+
+    @Test
+    public void zeroWindow_dispatchesEachBatchDirectly() {
+        coalescer = new OperationCoalescer(0L, 100, dispatched::add);
+
+        coalescer.add(batch(index("/sites/acme/home")));
+        coalescer.add(batch(index("/sites/acme/home")));
+
+        assertThat(dispatched).hasSize(2);
+    }
+
+    private static IndexOperations batch(CustomGptIndexOperation... operations) {
+        final IndexOperations batch = new IndexOperations();
+        for (CustomGptIndexOperation operation : operations) {
+            batch.addOperation(operation);
+        }
+        return batch;
+    }
+
+    private static CustomGptIndexOperation index(String path) {
+        return new CustomGptIndexOperation(CustomGptOperationType.NODE_INDEX, path);
+    }
+
+    private static CustomGptIndexOperation remove(String path) {
+        return new CustomGptIndexOperation(CustomGptOperationType.NODE_REMOVE, path, path, "uuid");
+    }
+}
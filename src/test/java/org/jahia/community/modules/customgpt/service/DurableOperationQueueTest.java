@@ -0,0 +1,107 @@
+package org.jahia.community.modules.customgpt.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jahia.community.modules.customgpt.indexer.listener.IndexOperations;
+import org.jahia.community.modules.customgpt.indexer.listener.IndexOperations.CustomGptIndexOperation;
+import org.jahia.community.modules.customgpt.indexer.listener.IndexOperations.CustomGptOperationType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link DurableOperationQueue}: entries not done stay pending until the next pump, failed entries are
+ * retried a bounded number of times, and replayed site indexations resume from their checkpoint.
+ */
+public class DurableOperationQueueTest {
+
+    private static final int SEGMENT_SIZE = 1 << 16;
+    private static final long TIMEOUT_MS = 5_000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void notDoneEntry_staysPendingUntilTheNextPump() throws Exception {
+        final AtomicInteger dispatches = new AtomicInteger();
+        final OperationLog log = OperationLog.open(folder.getRoot().toPath(), SEGMENT_SIZE);
+        final DurableOperationQueue queue = new DurableOperationQueue("test", log, 2,
+                operations -> CompletableFuture.completedFuture(dispatches.incrementAndGet() > 1), () -> true);
+        try {
+            final CompletableFuture<Void> done = queue.enqueue(operations(CustomGptOperationType.NODE_INDEX, "/sites/acme/page"));
+            Thread.sleep(200);
+
+            assertThat(done).isNotDone();
+            assertThat(dispatches).hasValue(1);
+            assertThat(log.getPendingCount()).isEqualTo(1);
+
+            queue.pump();
+            done.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            assertThat(log.getPendingCount()).isZero();
+        } finally {
+            queue.close();
+        }
+    }
+
+    @Test
+    public void failedEntry_isDroppedAfterMaxRetries() throws Exception {
+        final AtomicInteger dispatches = new AtomicInteger();
+        final OperationLog log = OperationLog.open(folder.getRoot().toPath(), SEGMENT_SIZE);
+        final DurableOperationQueue queue = new DurableOperationQueue("test", log, 2, operations -> {
+            dispatches.incrementAndGet();
+            return CompletableFuture.failedFuture(new IOException("boom"));
+        }, () -> true);
+        try {
+            final CompletableFuture<Void> done = queue.enqueue(operations(CustomGptOperationType.NODE_INDEX, "/sites/acme/page"));
+            Thread.sleep(200);
+            assertThat(log.getPendingCount()).isEqualTo(1);
+
+            queue.pump();
+            Thread.sleep(200);
+            queue.pump();
+            Thread.sleep(200);
+
+            assertThat(dispatches).hasValue(3);
+            assertThat(log.getPendingCount()).isZero();
+            assertThat(done).isCompletedExceptionally();
+        } finally {
+            queue.close();
+        }
+    }
+
+    @Test
+    public void replayedSiteIndex_resumesFromItsCheckpoint() throws Exception {
+        final Path directory = folder.getRoot().toPath();
+        try (OperationLog previousRun = OperationLog.open(directory, SEGMENT_SIZE)) {
+            previousRun.append(operations(CustomGptOperationType.SITE_INDEX, "/sites/previous"));
+        }
+        final List<String> dispatched = new CopyOnWriteArrayList<>();
+        final OperationLog log = OperationLog.open(directory, SEGMENT_SIZE);
+        final DurableOperationQueue queue = new DurableOperationQueue("test", log, 2, operations -> {
+            final CustomGptIndexOperation operation = operations.getOperations().iterator().next();
+            dispatched.add(operation.getNodePath() + ":" + operation.isResume());
+            return CompletableFuture.completedFuture(Boolean.TRUE);
+        }, () -> true);
+        try {
+            queue.pump();
+            queue.enqueue(operations(CustomGptOperationType.SITE_INDEX, "/sites/current")).get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+            assertThat(dispatched).containsExactly("/sites/previous:true", "/sites/current:false");
+        } finally {
+            queue.close();
+        }
+    }
+
+    private static IndexOperations operations(CustomGptOperationType type, String path) {
+        final IndexOperations operations = new IndexOperations();
+        operations.addOperation(new CustomGptIndexOperation(type, path));
+        return operations;
+    }
+}
@@ -0,0 +1,140 @@
+package org.jahia.community.modules.customgpt.service;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.jahia.community.modules.customgpt.settings.Config;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link IndexingExecutor}: bounded admission, rejection policies, resizing and statistics.
+ */
+public class IndexingExecutorTest {
+
+    private static final long TIMEOUT_MS = 5_000L;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private IndexingExecutor executor;
+
+    @After
+    public void tearDown() throws InterruptedException {
+        release.countDown();
+        if (executor != null) {
+            executor.shutdownNow();
+            executor.awaitTermination(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Test
+    public void execute_runsOnNamedThreadsAndRecordsTimings() throws InterruptedException {
+        executor = new IndexingExecutor("interactive", 1, 10, Config.RejectionPolicy.BLOCK);
+        final AtomicReference<String> threadName = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(1);
+
+        executor.execute(() -> {
+            threadName.set(Thread.currentThread().getName());
+            done.countDown();
+        });
+        assertThat(done.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+        executor.shutdown();
+        executor.awaitTermination(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+        assertThat(threadName.get()).isEqualTo("customgpt-interactive-1");
+        final IndexingExecutor.Stats stats = executor.getStats();
+        assertThat(stats.getCompletedTasks()).isEqualTo(1);
+        assertThat(stats.getWaitingCount()).isZero();
+        assertThat(stats.getRejectedTasks()).isZero();
+    }
+
+    @Test
+    public void abortPolicy_rejectsOnceTheQueueIsFull() throws InterruptedException {
+        executor = new IndexingExecutor("site", 1, 1, Config.RejectionPolicy.ABORT);
+        occupyWorker();
+        executor.execute(() -> { });
+
+        assertThatThrownBy(() -> executor.execute(() -> { }))
+                .isInstanceOf(RejectedExecutionException.class)
+                .hasMessageContaining("is full");
+        assertThat(executor.getStats().getRejectedTasks()).isEqualTo(1);
+    }
+
+    @Test
+    public void callerRunsPolicy_runsOnTheSubmittingThreadOnceTheQueueIsFull() throws InterruptedException {
+        executor = new IndexingExecutor("site", 1, 1, Config.RejectionPolicy.CALLER_RUNS);
+        occupyWorker();
+        executor.execute(() -> { });
+        final AtomicReference<Thread> runner = new AtomicReference<>();
+
+        executor.execute(() -> runner.set(Thread.currentThread()));
+
+        assertThat(runner.get()).isSameAs(Thread.currentThread());
+    }
+
+    @Test
+    public void blockPolicy_waitsForAFreeSlot() throws InterruptedException {
+        executor = new IndexingExecutor("interactive", 1, 1, Config.RejectionPolicy.BLOCK);
+        occupyWorker();
+        executor.execute(() -> { });
+        final CountDownLatch submitted = new CountDownLatch(1);
+        final Thread producer = new Thread(() -> {
+            executor.execute(() -> { });
+            submitted.countDown();
+        });
+        producer.start();
+
+        assertThat(submitted.await(200L, TimeUnit.MILLISECONDS)).isFalse();
+        release.countDown();
+        assertThat(submitted.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+    }
+
+    @Test
+    public void tryExecute_doesNotWaitOnAFullQueueUnderBlockPolicy() throws InterruptedException {
+        executor = new IndexingExecutor("site", 1, 1, Config.RejectionPolicy.BLOCK);
+        occupyWorker();
+
+        assertThat(executor.tryExecute(() -> { })).isTrue();
+        assertThat(executor.tryExecute(() -> { })).isFalse();
+        assertThat(executor.getWaitingCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void resize_keepsQueuedTasksAndAddsThreads() throws InterruptedException {
+        executor = new IndexingExecutor("site", 1, 5, Config.RejectionPolicy.ABORT);
+        occupyWorker();
+        final AtomicInteger ran = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            executor.execute(() -> {
+                ran.incrementAndGet();
+                done.countDown();
+            });
+        }
+
+        executor.resize(3, 1);
+
+        // the queued tasks run on the new threads while the first one is still busy
+        assertThat(done.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+        assertThat(ran).hasValue(3);
+        assertThat(executor.getCorePoolSize()).isEqualTo(3);
+        assertThat(executor.getQueueCapacity()).isEqualTo(1);
+    }
+
+    private void occupyWorker() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                release.await(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertThat(started.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+    }
+}
@@ -0,0 +1,154 @@
+package org.jahia.community.modules.customgpt.service;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.jahia.community.modules.customgpt.indexer.listener.IndexOperations;
+import org.jahia.community.modules.customgpt.indexer.listener.IndexOperations.CustomGptIndexOperation;
+import org.jahia.community.modules.customgpt.indexer.listener.IndexOperations.CustomGptOperationType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link OperationLog}: round trip of the operations, recovery of pending entries, compaction and torn
+ * records.
+ */
+public class OperationLogTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void read_returnsTheOperationsAsAppended() throws IOException {
+        final IndexOperations operations = operations("/sites/acme/home/page");
+        final CustomGptIndexOperation move = new CustomGptIndexOperation(CustomGptOperationType.NODE_MOVE,
+                "/sites/acme/home/new", "/sites/acme/home/old", "uuid-1", null);
+        operations.addOperation(move);
+        final CustomGptIndexOperation remove = new CustomGptIndexOperation(CustomGptOperationType.NODE_REMOVE, "/sites/acme/gone");
+        remove.setCustomGptPageId("42");
+        operations.addOperation(remove);
+        final CustomGptIndexOperation site = new CustomGptIndexOperation(CustomGptOperationType.SITE_INDEX, "/sites/acme");
+        site.setResume(true);
+        operations.addOperation(site);
+        final CustomGptIndexOperation incremental = new CustomGptIndexOperation(CustomGptOperationType.SITE_INDEX, "/sites/other");
+        incremental.setPublishedSince(1_700_000_000_123L);
+        operations.addOperation(incremental);
+        operations.setSiteKey("acme");
+
+        try (OperationLog log = OperationLog.open(folder.getRoot().toPath(), SEGMENT_SIZE)) {
+            final long id = log.append(operations);
+            final IndexOperations read = log.read(id);
+
+            assertThat(read.getSiteKey()).isEqualTo("acme");
+            assertThat(read.getOperations()).containsExactlyElementsOf(operations.getOperations());
+            final CustomGptIndexOperation readMove = read.getOperations().stream()
+                    .filter(op -> op.getType() == CustomGptOperationType.NODE_MOVE).findFirst().orElseThrow(AssertionError::new);
+            assertThat(readMove.getSourcePath()).isEqualTo("/sites/acme/home/old");
+            assertThat(readMove.getUuid()).isEqualTo("uuid-1");
+            assertThat(readMove.getSiteKey()).isEqualTo("acme");
+            assertThat(readMove.isResume()).isFalse();
+            assertThat(read.getOperations()).filteredOn(op -> op.getType() == CustomGptOperationType.SITE_INDEX)
+                    .extracting(CustomGptIndexOperation::isResume).containsExactly(true, false);
+            assertThat(read.getOperations()).filteredOn(op -> op.getType() == CustomGptOperationType.SITE_INDEX)
+                    .extracting(CustomGptIndexOperation::getPublishedSince).containsExactly(null, 1_700_000_000_123L);
+        }
+    }
+
+    @Test
+    public void open_recoversOnlyUnacknowledgedEntries() throws IOException {
+        final Path directory = folder.getRoot().toPath();
+        final long first;
+        final long third;
+        try (OperationLog log = OperationLog.open(directory, SEGMENT_SIZE)) {
+            first = log.append(operations("/sites/acme/a"));
+            final long second = log.append(operations("/sites/acme/b"));
+            third = log.append(operations("/sites/acme/c"));
+            assertThat(log.acknowledge(second)).isTrue();
+            assertThat(log.acknowledge(second)).isFalse();
+        }
+
+        try (OperationLog log = OperationLog.open(directory, SEGMENT_SIZE)) {
+            assertThat(log.getPendingIds(10)).containsExactly(first, third);
+            assertThat(nodePath(log.read(third))).isEqualTo("/sites/acme/c");
+            // ids keep growing after a restart
+            assertThat(log.append(operations("/sites/acme/d"))).isGreaterThan(third);
+        }
+    }
+
+    @Test
+    public void compact_deletesAcknowledgedSegmentsAndRelocatesStragglers() throws IOException {
+        final Path directory = folder.getRoot().toPath();
+        try (OperationLog log = OperationLog.open(directory, SEGMENT_SIZE)) {
+            final long straggler = log.append(operations("/sites/acme/straggler"));
+            for (int i = 0; i < 200; i++) {
+                log.acknowledge(log.append(operations("/sites/acme/page-" + i)));
+            }
+            assertThat(log.getSegmentCount()).isGreaterThan(3);
+
+            assertThat(log.compact()).isPositive();
+
+            assertThat(log.getSegmentCount()).isLessThanOrEqualTo(2);
+            assertThat(segmentFiles(directory)).hasSize(log.getSegmentCount());
+            assertThat(log.getPendingIds(10)).containsExactly(straggler);
+            assertThat(nodePath(log.read(straggler))).isEqualTo("/sites/acme/straggler");
+        }
+
+        try (OperationLog log = OperationLog.open(directory, SEGMENT_SIZE)) {
+            assertThat(log.getPendingCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void open_ignoresATornRecordAndNeverAppendsAfterIt() throws IOException {
+        final Path directory = folder.getRoot().toPath();
+        final long kept;
+        try (OperationLog log = OperationLog.open(directory, SEGMENT_SIZE)) {
+            kept = log.append(operations("/sites/acme/kept"));
+            log.append(operations("/sites/acme/torn"));
+        }
+        final Path segment = segmentFiles(directory).get(0);
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            // corrupt the last byte of the second record, as if the write had been cut short
+            final int firstLength = file.readInt();
+            file.seek(2L * Integer.BYTES + firstLength);
+            final int secondLength = file.readInt();
+            file.seek(4L * Integer.BYTES + firstLength + secondLength - 1);
+            file.write(0xFF);
+        }
+
+        try (OperationLog log = OperationLog.open(directory, SEGMENT_SIZE)) {
+            assertThat(log.getPendingIds(10)).containsExactly(kept);
+            final long after = log.append(operations("/sites/acme/after"));
+
+            // the damaged segment is compacted away, its pending entry moved to the new one
+            assertThat(segmentFiles(directory)).doesNotContain(segment);
+            assertThat(nodePath(log.read(kept))).isEqualTo("/sites/acme/kept");
+            assertThat(nodePath(log.read(after))).isEqualTo("/sites/acme/after");
+        }
+    }
+
+    private static IndexOperations operations(String nodePath) {
+        final IndexOperations operations = new IndexOperations();
+        operations.addOperation(new CustomGptIndexOperation(CustomGptOperationType.NODE_INDEX, nodePath));
+        return operations;
+    }
+
+    private static String nodePath(IndexOperations operations) {
+        return operations.getOperations().iterator().next().getNodePath();
+    }
+
+    private static List<Path> segmentFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+}
@@ -40,6 +40,24 @@ public class ConfigParseTest {
     private static final String KEY_COOKIE_NAME   = NS + ".jahia.serverCookie.name";
     private static final String KEY_COOKIE_VALUE  = NS + ".jahia.serverCookie.value";
     private static final String KEY_COOKIE_DOMAIN = NS + ".jahia.serverCookie.domain";
+    private static final String KEY_RATE_LIMIT_BURST = NS + ".rateLimit.burstCapacity";
+    private static final String KEY_RATE_LIMIT_ADAPTIVE = NS + ".rateLimit.adaptive";
+    private static final String KEY_TRANSPORT_ASYNC = NS + ".transport.async";
+    private static final String KEY_TRANSPORT_MAX_IN_FLIGHT = NS + ".transport.maxInFlight";
+    private static final String KEY_RENDERING_MODE = NS + ".rendering.mode";
+    private static final String KEY_PIPELINE_RENDER_WORKERS = NS + ".pipeline.renderWorkers";
+    private static final String KEY_PIPELINE_UPLOAD_WORKERS = NS + ".pipeline.uploadWorkers";
+    private static final String KEY_PIPELINE_QUEUE_CAPACITY = NS + ".pipeline.queueCapacity";
+    private static final String KEY_PIPELINE_VIRTUAL_THREADS = NS + ".pipeline.virtualThreads";
+    private static final String KEY_PIPELINE_MAX_CONCURRENT_PAGES = NS + ".pipeline.maxConcurrentPages";
+    private static final String KEY_EXECUTOR_SITE_THREADS = NS + ".executor.site.threads";
+    private static final String KEY_EXECUTOR_REJECTION_POLICY = NS + ".executor.rejectionPolicy";
+    private static final String KEY_OPERATION_LOG_ENABLED = NS + ".operationLog.enabled";
+    private static final String KEY_OPERATION_LOG_IN_MEMORY_WINDOW = NS + ".operationLog.inMemoryWindow";
+    private static final String KEY_LISTENER_COALESCE_WINDOW_MS = NS + ".listener.coalesceWindowMs";
+    private static final String KEY_SCAN_PARTITIONS = NS + ".scan.partitions";
+    private static final String KEY_MAPPING_CACHE_SIZE = NS + ".mapping.cacheSize";
+    private static final String KEY_MAPPING_BATCH_SIZE = NS + ".mapping.batchSize";
 
     // Main-resource and sub-node keys must be absent so splitNodeTypeByComma is never called
     // (it would hit NodeTypeRegistry which is not available outside OSGi).
@@ -302,6 +320,324 @@ public class ConfigParseTest {
         assertThat(config.isConfigured()).isTrue();
     }
 
+    // ---- rate limit ----
+
+    @Test
+    public void rateLimit_defaultsToNonAdaptiveWithBurstEqualToRate() {
+        callUpdated(minimalValidProps());
+
+        assertThat(config.isRateLimitAdaptive()).isFalse();
+        assertThat(config.getRateLimitBurstCapacity()).isZero();
+    }
+
+    @Test
+    public void rateLimit_parsesAdaptiveFlagAndBurstCapacity() {
+        final Dictionary<String, Object> props = minimalValidProps();
+        props.put(KEY_RATE_LIMIT_ADAPTIVE, "true");
+        props.put(KEY_RATE_LIMIT_BURST, "25");
+
+        callUpdated(props);
+
+        assertThat(config.isRateLimitAdaptive()).isTrue();
+        assertThat(config.getRateLimitBurstCapacity()).isEqualTo(25);
+    }
+
+    // ---- transport ----
+
+    @Test
+    public void transport_defaultsToSynchronousWithWindowOfEight() {
+        callUpdated(minimalValidProps());
+
+        assertThat(config.isTransportAsync()).isFalse();
+        assertThat(config.getTransportMaxInFlight()).isEqualTo(8);
+    }
+
+    @Test
+    public void transport_parsesAsyncFlagAndWindow() {
+        final Dictionary<String, Object> props = minimalValidProps();
+        props.put(KEY_TRANSPORT_ASYNC, "true");
+        props.put(KEY_TRANSPORT_MAX_IN_FLIGHT, "16");
+
+        callUpdated(props);
+
+        assertThat(config.isTransportAsync()).isTrue();
+        assertThat(config.getTransportMaxInFlight()).isEqualTo(16);
+    }
+
+    // ---- rendering mode ----
+
+    @Test
+    public void renderingMode_defaultsToHttp() {
+        callUpdated(minimalValidProps());
+
+        assertThat(config.getRenderingMode()).isEqualTo(Config.RenderingMode.HTTP);
+    }
+
+    @Test
+    public void renderingMode_parsesInProcessCaseInsensitively() {
+        final Dictionary<String, Object> props = minimalValidProps();
+        props.put(KEY_RENDERING_MODE, " INPROCESS ");
+
+        callUpdated(props);
+
+        assertThat(config.getRenderingMode()).isEqualTo(Config.RenderingMode.IN_PROCESS);
+    }
+
+    @Test
+    public void renderingMode_unknownValueFallsBackToHttp() {
+        final Dictionary<String, Object> props = minimalValidProps();
+        props.put(KEY_RENDERING_MODE, "servlet");
+
+        callUpdated(props);
+
+        assertThat(config.getRenderingMode()).isEqualTo(Config.RenderingMode.HTTP);
+    }
+
+    // ---- indexing pipeline ----
+
+    @Test
+    public void pipeline_defaultsToOneWorkerPerJcrStageAndMoreForHttpStages() {
+        callUpdated(minimalValidProps());
+
+        assertThat(config.getPipelineResolveWorkers()).isEqualTo(1);
+        assertThat(config.getPipelineRenderWorkers()).isEqualTo(2);
+        assertThat(config.getPipelineUploadWorkers()).isEqualTo(4);
+        assertThat(config.getPipelineMetadataWorkers()).isEqualTo(2);
+        assertThat(config.getPipelineMappingWorkers()).isEqualTo(1);
+        assertThat(config.getPipelineQueueCapacity()).isEqualTo(16);
+    }
+
+    @Test
+    public void pipeline_parsesWorkerCountsAndQueueCapacity() {
+        final Dictionary<String, Object> props = minimalValidProps();
+        props.put(KEY_PIPELINE_RENDER_WORKERS, "3");
+        props.put(KEY_PIPELINE_UPLOAD_WORKERS, 8);
+        props.put(KEY_PIPELINE_QUEUE_CAPACITY, "64");
+
+        callUpdated(props);
+
+        assertThat(config.getPipelineRenderWorkers()).isEqualTo(3);
+        assertThat(config.getPipelineUploadWorkers()).isEqualTo(8);
+        assertThat(config.getPipelineQueueCapacity()).isEqualTo(64);
+    }
+
+    @Test
+    public void pipeline_virtualThreadsAreOptIn() {
+        callUpdated(minimalValidProps());
+
+        assertThat(config.isPipelineVirtualThreads()).isFalse();
+        assertThat(config.getPipelineMaxConcurrentPages()).isEqualTo(32);
+
+        final Dictionary<String, Object> props = minimalValidProps();
+        props.put(KEY_PIPELINE_VIRTUAL_THREADS, "true");
+        props.put(KEY_PIPELINE_MAX_CONCURRENT_PAGES, "128");
+
+        callUpdated(props);
+
+        assertThat(config.isPipelineVirtualThreads()).isTrue();
+        assertThat(config.getPipelineMaxConcurrentPages()).isEqualTo(128);
+    }
+
+    // ---- executors ----
+
+    @Test
+    public void executors_defaultToBlockingPoolsOfPreviousSizes() {
+        callUpdated(minimalValidProps());
+
+        assertThat(config.getExecutorInteractiveThreads()).isEqualTo(1);
+        assertThat(config.getExecutorSiteThreads()).isEqualTo(2);
+        assertThat(config.getExecutorFullIndexationThreads()).isEqualTo(1);
+        assertThat(config.getExecutorInteractiveQueueCapacity()).isEqualTo(1000);
+        assertThat(config.getExecutorRejectionPolicy()).isEqualTo(Config.RejectionPolicy.BLOCK);
+    }
+
+    @Test
+    public void executors_parseThreadsAndRejectionPolicy() {
+        final Dictionary<String, Object> props = minimalValidProps();
+        props.put(KEY_EXECUTOR_SITE_THREADS, "4");
+        props.put(KEY_EXECUTOR_REJECTION_POLICY, "CallerRuns");
+
+        callUpdated(props);
+
+        assertThat(config.getExecutorSiteThreads()).isEqualTo(4);
+        assertThat(config.getExecutorRejectionPolicy()).isEqualTo(Config.RejectionPolicy.CALLER_RUNS);
+    }
+
+    @Test
+    public void executors_unknownRejectionPolicyFallsBackToBlock() {
+        final Dictionary<String, Object> props = minimalValidProps();
+        props.put(KEY_EXECUTOR_REJECTION_POLICY, "discard");
+
+        callUpdated(props);
+
+        assertThat(config.getExecutorRejectionPolicy()).isEqualTo(Config.RejectionPolicy.BLOCK);
+    }
+
+    // ---- operation log ----
+
+    @Test
+    public void operationLog_enabledByDefault() {
+        callUpdated(minimalValidProps());
+
+        assertThat(config.isOperationLogEnabled()).isTrue();
+        assertThat(config.getOperationLogSegmentSizeMb()).isEqualTo(16);
+        assertThat(config.getOperationLogInMemoryWindow()).isEqualTo(100);
+    }
+
+    @Test
+    public void operationLog_parsesSwitchAndWindow() {
+        final Dictionary<String, Object> props = minimalValidProps();
+        props.put(KEY_OPERATION_LOG_ENABLED, "false");
+        props.put(KEY_OPERATION_LOG_IN_MEMORY_WINDOW, "20");
+
+        callUpdated(props);
+
+        assertThat(config.isOperationLogEnabled()).isFalse();
+        assertThat(config.getOperationLogInMemoryWindow()).isEqualTo(20);
+    }
+
+    // ---- listener coalescing ----
+
+    @Test
+    public void listener_coalescesForFiveSecondsByDefault() {
+        callUpdated(minimalValidProps());
+
+        assertThat(config.getListenerCoalesceWindowMs()).isEqualTo(5000);
+        assertThat(config.getListenerCoalesceMaxOperations()).isEqualTo(500);
+    }
+
+    @Test
+    public void listener_zeroWindowIsAccepted() {
+        final Dictionary<String, Object> props = minimalValidProps();
+        props.put(KEY_LISTENER_COALESCE_WINDOW_MS, "0");
+
+        callUpdated(props);
+
+        assertThat(config.getListenerCoalesceWindowMs()).isZero();
+    }
+
+    // ---- scan partitions ----
+
+    @Test
+    public void scan_isSequentialByDefault() {
+        callUpdated(minimalValidProps());
+
+        assertThat(config.getScanPartitions()).isEqualTo(1);
+    }
+
+    @Test
+    public void scan_partitionsAreParsed() {
+        final Dictionary<String, Object> props = minimalValidProps();
+        props.put(KEY_SCAN_PARTITIONS, "8");
+
+        callUpdated(props);
+
+        assertThat(config.getScanPartitions()).isEqualTo(8);
+    }
+
+    // ---- mapping cache ----
+
+    @Test
+    public void mapping_cacheSizeDefaultsTo50000() {
+        callUpdated(minimalValidProps());
+
+        assertThat(config.getMappingCacheSize()).isEqualTo(50000);
+    }
+
+    @Test
+    public void mapping_cacheCanBeDisabled() {
+        final Dictionary<String, Object> props = minimalValidProps();
+        props.put(KEY_MAPPING_CACHE_SIZE, "0");
+
+        callUpdated(props);
+
+        assertThat(config.getMappingCacheSize()).isZero();
+    }
+
+    @Test
+    public void mapping_batchSizeDefaultsTo100() {
+        callUpdated(minimalValidProps());
+
+        assertThat(config.getMappingBatchSize()).isEqualTo(100);
+    }
+
+    @Test
+    public void mapping_batchSizeIsParsed() {
+        final Dictionary<String, Object> props = minimalValidProps();
+        props.put(KEY_MAPPING_BATCH_SIZE, "1");
+
+        callUpdated(props);
+
+        assertThat(config.getMappingBatchSize()).isEqualTo(1);
+    }
+
+    // ---- node type classifier ----
+
+    @Test
+    public void getNodeTypeClassifier_throwsWhenNotConfigured() {
+        assertThatThrownBy(() -> config.getNodeTypeClassifier())
+                .isInstanceOf(NotConfiguredException.class);
+    }
+
+    @Test
+    public void getNodeTypeClassifier_isReplacedOnEachUpdate() throws NotConfiguredException {
+        callUpdated(minimalValidProps());
+        final NodeTypeClassifier first = config.getNodeTypeClassifier();
+
+        callUpdated(minimalValidProps());
+
+        assertThat(config.getNodeTypeClassifier()).isNotSameAs(first);
+        assertThat(config.getNodeTypeClassifier().getMainResourceTypes()).isEmpty();
+    }
+
+    // ---- snapshot ----
+
+    @Test
+    public void getSnapshot_throwsWhenNotConfigured() {
+        assertThatThrownBy(() -> config.getSnapshot())
+                .isInstanceOf(NotConfiguredException.class);
+    }
+
+    @Test
+    public void getSnapshot_isVersionedAndKeptByReaders() throws NotConfiguredException {
+        final Dictionary<String, Object> props = minimalValidProps();
+        props.put(KEY_BATCH_SIZE, 42);
+        props.put(KEY_MAPPING_BATCH_SIZE, 7);
+        callUpdated(props);
+        final ConfigSnapshot first = config.getSnapshot();
+
+        props.put(KEY_BATCH_SIZE, 43);
+        callUpdated(props);
+
+        assertThat(config.getSnapshot().getVersion()).isEqualTo(first.getVersion() + 1);
+        assertThat(config.getSnapshot().getBulkOperationsBatchSize()).isEqualTo(43);
+        assertThat(first.getBulkOperationsBatchSize()).isEqualTo(42);
+        assertThat(first.getMappingBatchSize()).isEqualTo(7);
+    }
+
+    @Test
+    public void getSnapshot_matchesIndexedFileNames() throws NotConfiguredException {
+        final Dictionary<String, Object> props = minimalValidProps();
+        props.put(KEY_FILE_EXT, "pdf, tar.gz");
+        callUpdated(props);
+
+        final ConfigSnapshot snapshot = config.getSnapshot();
+
+        assertThat(snapshot.isIndexedFileName("report.pdf")).isTrue();
+        assertThat(snapshot.isIndexedFileName("backup.tar.gz")).isTrue();
+        assertThat(snapshot.isIndexedFileName("archive.gz")).isFalse();
+        assertThat(snapshot.isIndexedFileName("pdf")).isFalse();
+        assertThatThrownBy(() -> snapshot.getIndexedFileExtensions().add("docx"))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    public void getSnapshot_matchesNoFileWithoutExtensions() throws NotConfiguredException {
+        callUpdated(minimalValidProps());
+
+        assertThat(config.getSnapshot().isIndexedFileName("report.pdf")).isFalse();
+    }
+
     // ---- helpers ----
 
     /**
@@ -0,0 +1,83 @@
+package org.jahia.community.modules.customgpt.settings;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import javax.jcr.nodetype.NoSuchNodeTypeException;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link NodeTypeClassifier}: supertypes and mixins count, and the type hierarchy is only resolved
+ * once per primary type / mixin combination. The registry is replaced by an in-memory hierarchy.
+ */
+public class NodeTypeClassifierTest {
+
+    private final Map<String, List<String>> hierarchy = new HashMap<>();
+    private final List<String> resolved = new ArrayList<>();
+    private final NodeTypeClassifier classifier;
+
+    public NodeTypeClassifierTest() {
+        hierarchy.put("jnt:page", Arrays.asList("jnt:page", "jmix:mainResource", "nt:base"));
+        hierarchy.put("jnt:bigText", Arrays.asList("jnt:bigText", "jmix:editorialContent", "nt:base"));
+        hierarchy.put("jnt:contentList", Arrays.asList("jnt:contentList", "nt:base"));
+        hierarchy.put("jmix:tagged", Collections.singletonList("jmix:tagged"));
+        hierarchy.put("jmix:article", Arrays.asList("jmix:article", "jmix:mainResource"));
+        classifier = new NodeTypeClassifier(new LinkedHashSet<>(List.of("jmix:mainResource")),
+                new LinkedHashSet<>(List.of("jmix:editorialContent")), type -> {
+                    resolved.add(type);
+                    final List<String> types = hierarchy.get(type);
+                    if (types == null) {
+                        throw new NoSuchNodeTypeException(type);
+                    }
+                    return types;
+                });
+    }
+
+    @Test
+    public void classify_matchesConfiguredSupertypes() throws Exception {
+        final NodeTypeClassifier.Classification page = classifier.classify("jnt:page", Collections.emptyList());
+        final NodeTypeClassifier.Classification text = classifier.classify("jnt:bigText", Collections.emptyList());
+        final NodeTypeClassifier.Classification list = classifier.classify("jnt:contentList", Collections.emptyList());
+
+        assertThat(page.isMainResource()).isTrue();
+        assertThat(page.isSubNode()).isFalse();
+        assertThat(text.isMainResource()).isFalse();
+        assertThat(text.isSubNode()).isTrue();
+        assertThat(list.isMainResource()).isFalse();
+        assertThat(list.isSubNode()).isFalse();
+        assertThat(list.isNodeType("nt:base")).isTrue();
+    }
+
+    @Test
+    public void classify_mixinsCount() throws Exception {
+        final NodeTypeClassifier.Classification list = classifier.classify("jnt:contentList", List.of("jmix:tagged", "jmix:article"));
+
+        assertThat(list.isMainResource()).isTrue();
+        assertThat(list.isAnyOf(List.of("jnt:file", "jmix:tagged"))).isTrue();
+    }
+
+    @Test
+    public void classify_resolvesEachCombinationOnce() throws Exception {
+        classifier.classify("jnt:contentList", List.of("jmix:tagged", "jmix:article"));
+        classifier.classify("jnt:contentList", List.of("jmix:article", "jmix:tagged"));
+        classifier.classify("jnt:contentList", Collections.emptyList());
+
+        assertThat(classifier.getCachedCount()).isEqualTo(2);
+        assertThat(resolved).containsExactly("jnt:contentList", "jmix:tagged", "jmix:article", "jnt:contentList");
+    }
+
+    @Test
+    public void classify_unknownTypeIsNotCached() {
+        assertThatThrownBy(() -> classifier.classify("jnt:unknown", Collections.emptyList()))
+                .isInstanceOf(NoSuchNodeTypeException.class);
+
+        assertThat(classifier.getCachedCount()).isZero();
+    }
+}
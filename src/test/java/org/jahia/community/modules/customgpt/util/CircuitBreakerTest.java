@@ -0,0 +1,127 @@
+package org.jahia.community.modules.customgpt.util;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link CircuitBreaker}, driven by a manual clock.
+ */
+public class CircuitBreakerTest {
+
+    private static final long OPEN_DURATION_MS = 30_000L;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final List<String> transitions = new CopyOnWriteArrayList<>();
+    private CircuitBreaker breaker;
+
+    @Before
+    public void setUp() {
+        breaker = new CircuitBreaker(3, OPEN_DURATION_MS, clock::get);
+        breaker.addListener((from, to) -> transitions.add(from + "->" + to));
+    }
+
+    @Test
+    public void constructor_rejectsZeroThreshold() {
+        assertThatThrownBy(() -> new CircuitBreaker(0, OPEN_DURATION_MS))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("failureThreshold must be > 0");
+    }
+
+    @Test
+    public void opensAfterThresholdConsecutiveFailures() {
+        breaker.onFailure();
+        breaker.onFailure();
+        assertThat(breaker.isClosed()).isTrue();
+
+        breaker.onFailure();
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+        assertThat(breaker.getRemainingOpenMillis()).isEqualTo(OPEN_DURATION_MS);
+        assertThat(transitions).containsExactly("CLOSED->OPEN");
+    }
+
+    @Test
+    public void successResetsTheFailureCount() {
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+
+        assertThat(breaker.isClosed()).isTrue();
+        assertThat(breaker.getConsecutiveFailures()).isEqualTo(1);
+    }
+
+    @Test
+    public void admitsSingleProbeOnceOpenDurationElapsed() {
+        open();
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(OPEN_DURATION_MS - 1));
+        assertThat(breaker.tryAcquire()).isFalse();
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    public void successfulProbeClosesTheCircuit() {
+        open();
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(OPEN_DURATION_MS));
+        breaker.tryAcquire();
+
+        breaker.onSuccess();
+
+        assertThat(breaker.isClosed()).isTrue();
+        assertThat(breaker.getConsecutiveFailures()).isZero();
+        assertThat(transitions).containsExactly("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->CLOSED");
+    }
+
+    @Test
+    public void failedProbeReopensForAnotherPeriod() {
+        open();
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(OPEN_DURATION_MS));
+        breaker.tryAcquire();
+
+        breaker.onFailure();
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.getRemainingOpenMillis()).isEqualTo(OPEN_DURATION_MS);
+        assertThat(transitions).endsWith("HALF_OPEN->OPEN");
+    }
+
+    @Test
+    public void abandonedProbeAllowsAnImmediateNewProbe() {
+        open();
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(OPEN_DURATION_MS));
+        breaker.tryAcquire();
+
+        breaker.onAbandoned();
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.getRemainingOpenMillis()).isZero();
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    public void abandonedCallWhileClosedChangesNothing() {
+        breaker.onAbandoned();
+
+        assertThat(breaker.isClosed()).isTrue();
+        assertThat(transitions).isEmpty();
+    }
+
+    private void open() {
+        for (int i = 0; i < 3; i++) {
+            breaker.onFailure();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.jahia.community.modules.customgpt.util;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link ContentDigest}: whitespace normalisation, field separation and chunked feeding.
+ */
+public class ContentDigestTest {
+
+    private static final String TITLE = "Home";
+    private static final String URL = "https://www.example.com/home.html";
+
+    @Test
+    public void sameContent_producesSameDigest() {
+        assertThat(ContentDigest.of(TITLE, URL, "<p>Hello</p>"))
+                .isEqualTo(ContentDigest.of(TITLE, URL, "<p>Hello</p>"))
+                .hasSize(64);
+    }
+
+    @Test
+    public void whitespaceOnlyChanges_areIgnored() {
+        final String reference = ContentDigest.of(TITLE, URL, "<div> <p>Hello world</p> </div>");
+        assertThat(ContentDigest.of(TITLE, URL, "\n  <div>\r\n\t<p>Hello   world</p>\n</div>\n"))
+                .isEqualTo(reference);
+    }
+
+    @Test
+    public void removedWhitespace_isAChange() {
+        assertThat(ContentDigest.of(TITLE, URL, "Hello world"))
+                .isNotEqualTo(ContentDigest.of(TITLE, URL, "Helloworld"));
+    }
+
+    @Test
+    public void titleOrUrlChange_isAChange() {
+        final String reference = ContentDigest.of(TITLE, URL, "<p>Hello</p>");
+        assertThat(ContentDigest.of("Home page", URL, "<p>Hello</p>")).isNotEqualTo(reference);
+        assertThat(ContentDigest.of(TITLE, URL + "?v=2", "<p>Hello</p>")).isNotEqualTo(reference);
+    }
+
+    @Test
+    public void fieldsAreSeparated() {
+        assertThat(ContentDigest.of("ab", "c", "x"))
+                .isNotEqualTo(ContentDigest.of("a", "bc", "x"));
+    }
+
+    @Test
+    public void chunkedUpdate_matchesSingleShot() {
+        final String content = "  <p>Café   crème</p>\n\n<p>fin</p>  ";
+        final byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        final ContentDigest chunked = new ContentDigest(TITLE, URL);
+        for (int i = 0; i < bytes.length; i += 3) {
+            chunked.update(bytes, i, Math.min(3, bytes.length - i));
+        }
+        assertThat(chunked.toHex()).isEqualTo(ContentDigest.of(TITLE, URL, content));
+    }
+
+    @Test
+    public void nullContent_equalsEmptyContent() {
+        assertThat(ContentDigest.of(TITLE, URL, null)).isEqualTo(ContentDigest.of(TITLE, URL, ""));
+    }
+}
@@ -0,0 +1,96 @@
+package org.jahia.community.modules.customgpt.util;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link LaneScheduler}: interactive waiters are granted permits before bulk waiters.
+ */
+public class LaneSchedulerTest {
+
+    private static final long TIMEOUT_MS = 5_000L;
+
+    @Test
+    public void constructor_rejectsZeroPermits() {
+        assertThatThrownBy(() -> new LaneScheduler(0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("permits must be > 0");
+    }
+
+    @Test
+    public void acquire_grantsImmediatelyWhilePermitsAreAvailable() throws InterruptedException {
+        final LaneScheduler scheduler = new LaneScheduler(2);
+
+        scheduler.acquire(RequestLane.BULK);
+        scheduler.acquire(RequestLane.INTERACTIVE);
+
+        assertThat(scheduler.getAvailablePermits()).isZero();
+        scheduler.release();
+        assertThat(scheduler.getAvailablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    public void release_servesWaitingInteractiveBeforeEarlierBulk() throws InterruptedException {
+        final LaneScheduler scheduler = new LaneScheduler(1);
+        final List<RequestLane> grants = new CopyOnWriteArrayList<>();
+        scheduler.acquire(RequestLane.BULK);
+
+        // the bulk caller queues first, the interactive one second
+        final Thread bulk = startWaiter(scheduler, RequestLane.BULK, grants);
+        awaitQueueDepth(scheduler, RequestLane.BULK, 1);
+        final Thread interactive = startWaiter(scheduler, RequestLane.INTERACTIVE, grants);
+        awaitQueueDepth(scheduler, RequestLane.INTERACTIVE, 1);
+
+        scheduler.release();
+        interactive.join(TIMEOUT_MS);
+        scheduler.release();
+        bulk.join(TIMEOUT_MS);
+
+        assertThat(grants).containsExactly(RequestLane.INTERACTIVE, RequestLane.BULK);
+        assertThat(scheduler.getQueueDepth(RequestLane.INTERACTIVE)).isZero();
+        assertThat(scheduler.getQueueDepth(RequestLane.BULK)).isZero();
+    }
+
+    @Test
+    public void interruptedWaiter_leavesTheQueue() throws InterruptedException {
+        final LaneScheduler scheduler = new LaneScheduler(1);
+        scheduler.acquire(RequestLane.INTERACTIVE);
+        final Thread bulk = startWaiter(scheduler, RequestLane.BULK, new CopyOnWriteArrayList<>());
+        awaitQueueDepth(scheduler, RequestLane.BULK, 1);
+
+        bulk.interrupt();
+        bulk.join(TIMEOUT_MS);
+
+        assertThat(scheduler.getQueueDepth(RequestLane.BULK)).isZero();
+        assertThat(scheduler.getAvailablePermits()).isZero();
+    }
+
+    private static Thread startWaiter(LaneScheduler scheduler, RequestLane lane, List<RequestLane> grants) {
+        final Thread thread = new Thread(() -> {
+            try {
+                scheduler.acquire(lane);
+                grants.add(lane);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "lane-waiter-" + lane);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static void awaitQueueDepth(LaneScheduler scheduler, RequestLane lane, int depth) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS);
+        while (scheduler.getQueueDepth(lane) != depth) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Queue depth of " + lane + " never reached " + depth);
+            }
+            Thread.sleep(5L);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.jahia.community.modules.customgpt.util;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link PageIdSet}: deduplication, growth beyond the initial capacity and unreferenced ids.
+ */
+public class PageIdSetTest {
+
+    @Test
+    public void seal_sortsAndDeduplicates() {
+        final PageIdSet ids = new PageIdSet();
+        ids.add(42);
+        ids.add(7);
+        ids.add(42);
+
+        ids.seal();
+
+        assertThat(ids.size()).isEqualTo(2);
+        assertThat(ids.contains(7)).isTrue();
+        assertThat(ids.contains(8)).isFalse();
+    }
+
+    @Test
+    public void getUnreferenced_returnsTheIdsNoMappingMarked() {
+        final PageIdSet ids = new PageIdSet();
+        for (long id = 5000; id > 0; id--) {
+            ids.add(id);
+        }
+        ids.seal();
+
+        assertThat(ids.markReferenced(1)).isTrue();
+        assertThat(ids.markReferenced(5001)).isFalse();
+        for (long id = 3; id <= 5000; id++) {
+            ids.markReferenced(id);
+        }
+
+        assertThat(ids.getUnreferenced()).containsExactly(2L);
+    }
+
+    @Test
+    public void lookupsRequireASealedSet_andAddsAnOpenOne() {
+        final PageIdSet ids = new PageIdSet();
+        assertThatThrownBy(() -> ids.contains(1)).isInstanceOf(IllegalStateException.class);
+
+        ids.seal();
+
+        assertThatThrownBy(() -> ids.add(1)).isInstanceOf(IllegalStateException.class);
+        assertThat(ids.getUnreferenced()).isEmpty();
+    }
+}
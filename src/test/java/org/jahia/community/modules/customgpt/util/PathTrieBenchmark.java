@@ -0,0 +1,208 @@
+package org.jahia.community.modules.customgpt.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH comparison of the {@link PathTrie} removal set of the indexer with the previous {@code TreeSet<String>}, on
+ * 100k paths of a site tree (10 sites, depth up to 6), queued in random order.
+ *
+ * <ul>
+ *     <li><b>queueRemovals</b>: every path queued for removal while 10k paths wait to be indexed, then the site roots
+ *     queued last so that each prunes its whole subtree. The previous set also ran its {@code removeAll} on the
+ *     paths to index after each removal.</li>
+ *     <li><b>isMarkedForRemoval</b>: 100k ancestor-covered lookups against a set holding one path out of ten.</li>
+ * </ul>
+ *
+ * <p>Not a unit test (surefire only runs {@code *Test} classes). Run it from the IDE or with
+ * {@code java -cp target/test-classes:<test classpath> org.jahia.community.modules.customgpt.util.PathTrieBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PathTrieBenchmark {
+
+    private static final int PATH_COUNT = 100_000;
+    private static final int SITE_COUNT = 10;
+    private static final int PATHS_TO_INDEX = 10_000;
+
+    @State(Scope.Benchmark)
+    public static class Workload {
+
+        @Param({"trie", "legacy"})
+        public String implementation;
+
+        List<String> paths;
+        List<String> sites;
+        List<String> pathsToIndex;
+        RemovalSet marked;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            final Random random = new Random(42L);
+            final Set<String> generated = new LinkedHashSet<>();
+            sites = new ArrayList<>();
+            for (int site = 0; site < SITE_COUNT; site++) {
+                sites.add("/sites/site" + site);
+            }
+            while (generated.size() < PATH_COUNT) {
+                final StringBuilder path = new StringBuilder(sites.get(random.nextInt(SITE_COUNT))).append("/home");
+                final int depth = 1 + random.nextInt(4);
+                for (int level = 0; level < depth; level++) {
+                    path.append("/page").append(random.nextInt(level == 0 ? 100 : 20));
+                }
+                generated.add(path.toString());
+            }
+            paths = new ArrayList<>(generated);
+            Collections.shuffle(paths, random);
+            pathsToIndex = paths.subList(0, PATHS_TO_INDEX);
+            marked = newRemovalSet();
+            for (int i = 0; i < paths.size(); i += 10) {
+                marked.add(paths.get(i));
+            }
+        }
+
+        RemovalSet newRemovalSet() {
+            return "legacy".equals(implementation) ? new LegacyRemovalSet() : new TrieRemovalSet();
+        }
+    }
+
+    @Benchmark
+    public int queueRemovals(Workload workload) {
+        final RemovalSet removals = workload.newRemovalSet();
+        final Set<String> toIndex = new LinkedHashSet<>(workload.pathsToIndex);
+        for (String path : workload.paths) {
+            removals.add(path);
+            removals.dropFrom(toIndex, path);
+        }
+        for (String site : workload.sites) {
+            removals.add(site);
+            removals.dropFrom(toIndex, site);
+        }
+        return removals.size() + toIndex.size();
+    }
+
+    @Benchmark
+    public void isMarkedForRemoval(Workload workload, Blackhole blackhole) {
+        for (String path : workload.paths) {
+            blackhole.consume(workload.marked.covers(path));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PathTrieBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    interface RemovalSet {
+
+        void add(String path);
+
+        /** Drops the paths that no longer need indexing once {@code path} was queued for removal. */
+        void dropFrom(Set<String> toIndex, String path);
+
+        boolean covers(String path);
+
+        int size();
+    }
+
+    static final class TrieRemovalSet implements RemovalSet {
+
+        private final PathTrie paths = new PathTrie();
+        private boolean added;
+
+        @Override
+        public void add(String path) {
+            added = paths.add(path);
+        }
+
+        @Override
+        public void dropFrom(Set<String> toIndex, String path) {
+            if (added) {
+                toIndex.remove(path);
+            }
+        }
+
+        @Override
+        public boolean covers(String path) {
+            return paths.covers(path);
+        }
+
+        @Override
+        public int size() {
+            return paths.size();
+        }
+    }
+
+    /** Copy of the {@code TreeSet} deduplication used before the trie, kept as the baseline. */
+    static final class LegacyRemovalSet implements RemovalSet {
+
+        private final TreeSet<String> paths = new TreeSet<>();
+
+        @Override
+        public void add(String path) {
+            final Set<String> toRemove = new HashSet<>(paths.size());
+            final String pathWithDelimiter = path + "/";
+            final SortedSet<String> greaterPaths = paths.tailSet(pathWithDelimiter);
+            if (!greaterPaths.isEmpty()) {
+                for (String greaterPath : greaterPaths) {
+                    if (!greaterPath.startsWith(pathWithDelimiter)) {
+                        break;
+                    }
+                    toRemove.add(greaterPath);
+                }
+                paths.removeAll(toRemove);
+                paths.add(path);
+            } else {
+                final String lower = paths.lower(path);
+                if (lower == null || !path.startsWith(lower + "/")) {
+                    paths.add(path);
+                }
+            }
+        }
+
+        @Override
+        public void dropFrom(Set<String> toIndex, String path) {
+            toIndex.removeAll(paths);
+        }
+
+        @Override
+        public boolean covers(String path) {
+            if (paths.contains(path)) {
+                return true;
+            }
+            final String lower = paths.lower(path);
+            return lower != null && path.startsWith(lower + "/");
+        }
+
+        @Override
+        public int size() {
+            return paths.size();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.jahia.community.modules.customgpt.util;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link PathTrie}: subtree pruning, the root path and the cleanup of emptied branches.
+ */
+public class PathTrieTest {
+
+    @Test
+    public void prune_removesTheSubtreeOnly() {
+        final PathTrie paths = new PathTrie();
+        paths.add("/sites/acme/home/a");
+        paths.add("/sites/acme/home/b/c");
+        paths.add("/sites/acme/news");
+
+        assertThat(paths.prune("/sites/acme/home")).isEqualTo(2);
+
+        assertThat(paths).containsExactly("/sites/acme/news");
+        assertThat(paths.covers("/sites/acme/home/a")).isFalse();
+        assertThat(paths.prune("/sites/other")).isZero();
+    }
+
+    @Test
+    public void prune_lastPath_leavesAnEmptyTrie() {
+        final PathTrie paths = new PathTrie();
+        paths.add("/sites/acme/home");
+
+        assertThat(paths.prune("/sites/acme/home")).isEqualTo(1);
+
+        assertThat(paths).isEmpty();
+        assertThat(paths.add("/sites/acme")).isTrue();
+        assertThat(paths).containsExactly("/sites/acme");
+    }
+
+    @Test
+    public void rootPath_coversEverything() {
+        final PathTrie paths = new PathTrie();
+        paths.add("/sites/acme/home");
+
+        assertThat(paths.add("/")).isTrue();
+
+        assertThat(paths).containsExactly("/");
+        assertThat(paths.covers("/sites/other")).isTrue();
+        assertThat(paths.add("/sites/other")).isFalse();
+        assertThat(paths.contains("/sites/other")).isFalse();
+    }
+}
@@ -0,0 +1,159 @@
+package org.jahia.community.modules.customgpt.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH comparison of the lock-free reservation bucket of {@link RateLimitInterceptor} with the previous
+ * {@code synchronized} bucket polled with {@link Thread#sleep(long)}, under 2, 8 and 32 contending threads.
+ *
+ * <ul>
+ *     <li><b>throughput</b>: ops/s actually achieved. With {@code requestsPerSecond} far above what the bucket can
+ *     deliver it measures the raw cost of acquiring a token; with 100 or 1000 it shows how close each
+ *     implementation stays to the configured rate (timing accuracy).</li>
+ *     <li><b>fairness</b>: at the end of each iteration the spread between the busiest and the least served thread
+ *     is printed ({@code max/min}, 1.0 being perfectly fair).</li>
+ * </ul>
+ *
+ * <p>Not a unit test (surefire only runs {@code *Test} classes). Run it from the IDE or with
+ * {@code java -cp target/test-classes:<test classpath> org.jahia.community.modules.customgpt.util.RateLimitInterceptorBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateLimitInterceptorBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Bucket {
+
+        @Param({"reservation", "legacy"})
+        public String implementation;
+
+        @Param({"100", "1000", "1000000000"})
+        public int requestsPerSecond;
+
+        Limiter limiter;
+        final Map<Thread, LongAdder> grantsPerThread = new ConcurrentHashMap<>();
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            // burst of one so that the measured rate is the sustained rate from the first operation
+            if ("legacy".equals(implementation)) {
+                limiter = new LegacyBucket(requestsPerSecond, 1)::acquireToken;
+            } else {
+                final RateLimitInterceptor interceptor = new RateLimitInterceptor(requestsPerSecond, 1, false);
+                limiter = () -> interceptor.acquireToken(RequestLane.INTERACTIVE);
+            }
+            grantsPerThread.clear();
+        }
+
+        @TearDown(Level.Iteration)
+        public void reportFairness() {
+            long min = Long.MAX_VALUE;
+            long max = 0L;
+            for (LongAdder grants : grantsPerThread.values()) {
+                min = Math.min(min, grants.sum());
+                max = Math.max(max, grants.sum());
+            }
+            if (!grantsPerThread.isEmpty()) {
+                System.out.printf("%n[fairness] %s @ %d req/s, %d threads: max/min grants = %s%n", implementation,
+                        requestsPerSecond, grantsPerThread.size(), min == 0 ? "inf" : String.format("%.2f", (double) max / min));
+            }
+        }
+
+        void acquire() throws InterruptedException {
+            limiter.acquire();
+            grantsPerThread.computeIfAbsent(Thread.currentThread(), t -> new LongAdder()).increment();
+        }
+    }
+
+    @Benchmark
+    @Threads(2)
+    public void threads02(Bucket bucket) throws InterruptedException {
+        bucket.acquire();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void threads08(Bucket bucket) throws InterruptedException {
+        bucket.acquire();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public void threads32(Bucket bucket) throws InterruptedException {
+        bucket.acquire();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RateLimitInterceptorBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @FunctionalInterface
+    interface Limiter {
+        void acquire() throws InterruptedException;
+    }
+
+    /** Copy of the token bucket used before the reservation scheme, kept as the baseline. */
+    static final class LegacyBucket {
+
+        private final int capacity;
+        private final long tokenIntervalNanos;
+        private long availableTokens;
+        private long lastRefillNanos;
+        private final Object bucketLock = new Object();
+
+        LegacyBucket(int requestsPerSecond, int capacity) {
+            this.capacity = capacity;
+            this.tokenIntervalNanos = Math.max(1L, 1_000_000_000L / requestsPerSecond);
+            this.availableTokens = capacity;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        void acquireToken() throws InterruptedException {
+            while (true) {
+                final long waitMs;
+                synchronized (bucketLock) {
+                    refill();
+                    if (availableTokens > 0) {
+                        availableTokens--;
+                        return;
+                    }
+                    final long waitNanos = tokenIntervalNanos - (System.nanoTime() - lastRefillNanos);
+                    waitMs = Math.max(1L, waitNanos / 1_000_000L);
+                }
+                Thread.sleep(waitMs);
+            }
+        }
+
+        private void refill() {
+            final long now = System.nanoTime();
+            final long newTokens = (now - lastRefillNanos) / tokenIntervalNanos;
+            if (newTokens > 0) {
+                availableTokens = Math.min(capacity, availableTokens + newTokens);
+                lastRefillNanos += newTokens * tokenIntervalNanos;
+            }
+        }
+    }
+}
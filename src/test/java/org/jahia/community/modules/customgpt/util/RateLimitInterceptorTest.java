@@ -1,6 +1,7 @@
 package org.jahia.community.modules.customgpt.util;
 
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
 import okhttp3.Interceptor;
 import okhttp3.MediaType;
 import okhttp3.Protocol;
@@ -24,13 +25,18 @@ import static org.mockito.Mockito.when;
  * {@code computeBackoffMs} return-value ranges and on chain.proceed call-counts only.
  * The rate-limit bucket is seeded with capacity = 100 rps so the first token is always
  * available instantly.  Retry-After headers with value "0" keep sleep durations to 0 ms,
- * making retry-loop tests near-instant.
+ * making retry-loop tests near-instant. The reservation tests drive the bucket with a fake
+ * clock instead, so the slots they assert on do not depend on the speed of the machine.
  *
  * All {@link Response} objects built in this file carry an empty body (required by OkHttp 4
  * to make the response closeable).
  */
 public class RateLimitInterceptorTest {
 
+    // 10 requests per second
+    private static final long INTERVAL_NANOS = 100_000_000L;
+    private static final long TIMEOUT_MS = 5_000L;
+
     // ---- constructor validation ----
 
     @Test
@@ -83,18 +89,40 @@ public class RateLimitInterceptorTest {
         assertThat(backoffMs).isEqualTo(5_000L);
     }
 
-    // ---- computeBackoffMs: date-string Retry-After (falls back to exponential back-off) ----
+    // ---- computeBackoffMs: HTTP-date Retry-After ----
+
+    @Test
+    public void computeBackoffMs_futureHttpDateRetryAfterIsCappedAtMaxBackoff() throws Exception {
+        final RateLimitInterceptor interceptor = new RateLimitInterceptor(100);
+        final Response response = buildResponse(429, null, "Thu, 01 Jan 2099 00:00:00 GMT");
+
+        final long backoffMs = invokeComputeBackoffMs(interceptor, response, 1);
+
+        // the date is decades away → capped at MAX_BACKOFF_MS
+        assertThat(backoffMs).isEqualTo(30_000L);
+    }
+
+    @Test
+    public void computeBackoffMs_pastHttpDateRetryAfterMeansNoWait() throws Exception {
+        final RateLimitInterceptor interceptor = new RateLimitInterceptor(100);
+        final Response response = buildResponse(429, null, "Thu, 01 Jan 2015 00:00:00 GMT");
+
+        final long backoffMs = invokeComputeBackoffMs(interceptor, response, 1);
+
+        assertThat(backoffMs).isZero();
+    }
+
+    // ---- computeBackoffMs: unparseable Retry-After (falls back to exponential back-off) ----
 
     // S5976: kept as separate cases — each asserts a distinct per-attempt back-off cap and
     // uses reflection; a JUnit4 Parameterized group cannot be scoped here without a risky
     // Enclosed-runner restructure of this mixed test class.
     @SuppressWarnings("java:S5976")
     @Test
-    public void computeBackoffMs_dateStringRetryAfterFallsBackToBoundedExponential_attempt1()
+    public void computeBackoffMs_unparseableRetryAfterFallsBackToBoundedExponential_attempt1()
             throws Exception {
         final RateLimitInterceptor interceptor = new RateLimitInterceptor(100);
-        // An HTTP-date is not a number — triggers the exponential fallback
-        final Response response = buildResponse(429, null, "Thu, 01 Jan 2099 00:00:00 GMT");
+        final Response response = buildResponse(429, null, "not-a-number");
 
         final long backoffMs = invokeComputeBackoffMs(interceptor, response, 1);
 
@@ -103,7 +131,7 @@ public class RateLimitInterceptorTest {
     }
 
     @Test
-    public void computeBackoffMs_dateStringRetryAfterFallsBackToBoundedExponential_attempt2()
+    public void computeBackoffMs_unparseableRetryAfterFallsBackToBoundedExponential_attempt2()
             throws Exception {
         final RateLimitInterceptor interceptor = new RateLimitInterceptor(100);
         final Response response = buildResponse(429, null, "not-a-number");
@@ -115,7 +143,7 @@ public class RateLimitInterceptorTest {
     }
 
     @Test
-    public void computeBackoffMs_dateStringRetryAfterFallsBackToBoundedExponential_attempt3()
+    public void computeBackoffMs_unparseableRetryAfterFallsBackToBoundedExponential_attempt3()
             throws Exception {
         final RateLimitInterceptor interceptor = new RateLimitInterceptor(100);
         final Response response = buildResponse(429, null, "not-a-number");
@@ -210,6 +238,116 @@ public class RateLimitInterceptorTest {
         assertThat(result.code()).isEqualTo(200);
     }
 
+    // ---- adaptive mode ----
+
+    @Test
+    public void adaptive_halvesRateOn429() throws Exception {
+        final RateLimitInterceptor interceptor = new RateLimitInterceptor(100, 0, true);
+        final Interceptor.Chain chain = mock(Interceptor.Chain.class);
+        final Request request = dummyRequest();
+
+        when(chain.request()).thenReturn(request);
+        when(chain.proceed(request))
+                .thenReturn(buildResponse(429, request, "0"))
+                .thenReturn(buildResponse(200, request, null));
+
+        final Response result = interceptor.intercept(chain);
+
+        assertThat(result.code()).isEqualTo(200);
+        assertThat(interceptor.isAdaptive()).isTrue();
+        // the 200 right after the decrease does not raise the rate yet (one step per second)
+        assertThat(interceptor.getCurrentRate()).isEqualTo(50.0d);
+    }
+
+    @Test
+    public void nonAdaptive_keepsConfiguredRateOn429() throws Exception {
+        final RateLimitInterceptor interceptor = new RateLimitInterceptor(100);
+        final Interceptor.Chain chain = mock(Interceptor.Chain.class);
+        final Request request = dummyRequest();
+
+        when(chain.request()).thenReturn(request);
+        when(chain.proceed(request))
+                .thenReturn(buildResponse(429, request, "0"))
+                .thenReturn(buildResponse(200, request, null));
+
+        interceptor.intercept(chain);
+
+        assertThat(interceptor.isAdaptive()).isFalse();
+        assertThat(interceptor.getCurrentRate()).isEqualTo(100.0d);
+    }
+
+    // ---- GCRA reservations (fake clock: a reservation never parks unless its slot is ahead of the clock) ----
+
+    @Test
+    public void acquireToken_servesTheBurstCapacityWithoutWaiting() throws Exception {
+        final AtomicLong clock = new AtomicLong();
+        final RateLimitInterceptor interceptor = new RateLimitInterceptor(10, 3, false, clock::get);
+
+        for (int i = 0; i < 3; i++) {
+            interceptor.acquireToken(RequestLane.BULK);
+        }
+
+        // the fourth request would start one interval later
+        assertThat(interceptor.getNextSlotNanos()).isEqualTo(INTERVAL_NANOS);
+    }
+
+    @Test
+    public void acquireToken_spacesReservationsByOneIntervalAfterTheBurst() throws Exception {
+        final AtomicLong clock = new AtomicLong();
+        final RateLimitInterceptor interceptor = new RateLimitInterceptor(10, 3, false, clock::get);
+        for (int i = 0; i < 3; i++) {
+            interceptor.acquireToken(RequestLane.BULK);
+        }
+
+        for (int i = 1; i <= 3; i++) {
+            clock.set(i * INTERVAL_NANOS);
+            interceptor.acquireToken(RequestLane.BULK);
+
+            assertThat(interceptor.getNextSlotNanos()).isEqualTo((i + 1) * INTERVAL_NANOS);
+        }
+    }
+
+    @Test
+    public void acquireToken_idleTimeRefillsNoMoreThanTheBurstCapacity() throws Exception {
+        final AtomicLong clock = new AtomicLong();
+        final RateLimitInterceptor interceptor = new RateLimitInterceptor(10, 3, false, clock::get);
+        interceptor.acquireToken(RequestLane.BULK);
+
+        clock.set(100 * INTERVAL_NANOS);
+        for (int i = 0; i < 3; i++) {
+            interceptor.acquireToken(RequestLane.BULK);
+        }
+
+        assertThat(interceptor.getNextSlotNanos()).isEqualTo(101 * INTERVAL_NANOS);
+    }
+
+    @Test
+    public void acquireToken_bulkLaneYieldsWhileAnInteractiveRequestWaits() throws Exception {
+        final AtomicLong clock = new AtomicLong();
+        final RateLimitInterceptor interceptor = new RateLimitInterceptor(10, 1, false, clock::get);
+        interceptor.acquireToken(RequestLane.INTERACTIVE);
+        // the next slot starts one interval ahead of the clock, which only moves when the test says so
+        final Thread interactive = startAcquiring(interceptor, RequestLane.INTERACTIVE);
+        awaitNextSlot(interceptor, 2 * INTERVAL_NANOS);
+        final Thread bulk = startAcquiring(interceptor, RequestLane.BULK);
+        awaitQueueDepth(interceptor, RequestLane.BULK);
+        // a few park rounds of the bulk request
+        Thread.sleep(200L);
+
+        // the bulk request reserved nothing while the interactive one was waiting
+        assertThat(interceptor.getNextSlotNanos()).isEqualTo(2 * INTERVAL_NANOS);
+
+        clock.set(INTERVAL_NANOS);
+        interactive.join(TIMEOUT_MS);
+        assertThat(interactive.isAlive()).isFalse();
+        clock.set(10 * INTERVAL_NANOS);
+        bulk.join(TIMEOUT_MS);
+
+        assertThat(bulk.isAlive()).isFalse();
+        // one slot after the interactive one, whether the bulk request reserved it before or after the clock moved
+        assertThat(interceptor.getNextSlotNanos()).isIn(3 * INTERVAL_NANOS, 11 * INTERVAL_NANOS);
+    }
+
     // ---- InterruptedException path ----
 
     @Test
@@ -254,6 +392,35 @@ public class RateLimitInterceptorTest {
 
     // ---- helpers ----
 
+    private static Thread startAcquiring(RateLimitInterceptor interceptor, RequestLane lane) {
+        final Thread thread = new Thread(() -> {
+            try {
+                interceptor.acquireToken(lane);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static void awaitNextSlot(RateLimitInterceptor interceptor, long nextSlotNanos) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (interceptor.getNextSlotNanos() != nextSlotNanos && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5L);
+        }
+        assertThat(interceptor.getNextSlotNanos()).isEqualTo(nextSlotNanos);
+    }
+
+    private static void awaitQueueDepth(RateLimitInterceptor interceptor, RequestLane lane) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (interceptor.getQueueDepth(lane) == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5L);
+        }
+        assertThat(interceptor.getQueueDepth(lane)).isEqualTo(1);
+    }
+
     private static Request dummyRequest() {
         return new Request.Builder()
                 .url("https://app.customgpt.ai/api/v1/test")
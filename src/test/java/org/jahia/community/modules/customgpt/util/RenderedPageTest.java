@@ -0,0 +1,93 @@
+package org.jahia.community.modules.customgpt.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link RenderedPage}: in-memory vs spilled storage, streamed request body and digest consistency.
+ */
+public class RenderedPageTest {
+
+    private static final String TITLE = "Home";
+    private static final String URL = "https://www.example.com/home.html";
+    private static final MediaType HTML = MediaType.parse("text/html");
+    private static final String CONTENT = "<html>\n  <body><p>Café crème</p></body>\n</html>\n";
+
+    @Test
+    public void smallPage_staysInMemory() throws IOException {
+        try (RenderedPage page = new RenderedPage(TITLE, URL, 1024)) {
+            page.write(CONTENT);
+            page.complete();
+
+            assertThat(page.isSpilled()).isFalse();
+            assertThat(page.getSize()).isEqualTo(CONTENT.getBytes(StandardCharsets.UTF_8).length);
+            assertThat(bodyOf(page.toRequestBody(HTML))).isEqualTo(CONTENT);
+        }
+    }
+
+    @Test
+    public void largePage_spillsToDisk_andStreamsSameBytes() throws IOException {
+        try (RenderedPage page = new RenderedPage(TITLE, URL, 16)) {
+            page.write(new ByteArrayInputStream(CONTENT.getBytes(StandardCharsets.UTF_8)));
+            page.complete();
+
+            assertThat(page.isSpilled()).isTrue();
+            final RequestBody body = page.toRequestBody(HTML);
+            assertThat(body.contentLength()).isEqualTo(page.getSize());
+            assertThat(bodyOf(body)).isEqualTo(CONTENT);
+        }
+    }
+
+    @Test
+    public void requestBody_isReplayable() throws IOException {
+        try (RenderedPage page = new RenderedPage(TITLE, URL, 16)) {
+            page.write(CONTENT);
+            page.complete();
+            final RequestBody body = page.toRequestBody(HTML);
+
+            assertThat(bodyOf(body)).isEqualTo(bodyOf(body));
+        }
+    }
+
+    @Test
+    public void digest_matchesOneShotDigest_whetherSpilledOrNot() throws IOException {
+        final String expected = ContentDigest.of(TITLE, URL, CONTENT);
+        try (RenderedPage inMemory = new RenderedPage(TITLE, URL, 1024);
+             RenderedPage spilled = new RenderedPage(TITLE, URL, 0)) {
+            inMemory.write(CONTENT);
+            spilled.write(CONTENT);
+
+            assertThat(inMemory.complete()).isEqualTo(expected);
+            assertThat(spilled.complete()).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void uploadBeforeComplete_isRejected() {
+        try (RenderedPage page = new RenderedPage(TITLE, URL, 1024)) {
+            assertThatThrownBy(() -> page.toRequestBody(HTML)).isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    public void writeAfterComplete_isRejected() throws IOException {
+        try (RenderedPage page = new RenderedPage(TITLE, URL, 1024)) {
+            page.complete();
+            assertThatThrownBy(() -> page.write("more")).isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    private static String bodyOf(RequestBody body) throws IOException {
+        final Buffer buffer = new Buffer();
+        body.writeTo(buffer);
+        return buffer.readUtf8();
+    }
+}